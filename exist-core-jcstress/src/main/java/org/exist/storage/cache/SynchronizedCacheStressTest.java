@@ -0,0 +1,141 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.cache;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+import org.openjdk.jcstress.infra.results.Z_Result;
+
+/**
+ * Stress tests for {@link SynchronizedCache}, which guards the page
+ * caches when BTree readers share the BTree lock.
+ */
+public class SynchronizedCacheStressTest {
+
+    @JCStressTest
+    @Outcome(id = "true, true", expect = Expect.ACCEPTABLE, desc = "Both items were cached")
+    @Outcome(expect = Expect.FORBIDDEN, desc = "An item was lost")
+    @State
+    public static class ConcurrentAddsAreNotLost {
+        final Cache<TestCacheable> cache = new SynchronizedCache<>(new LRUCache<>("test", 16, 0.0, 1.0, Cache.CacheType.BTREE));
+        final TestCacheable item1 = new TestCacheable(1);
+        final TestCacheable item2 = new TestCacheable(2);
+
+        @Actor
+        public void actor1() {
+            cache.add(item1);
+        }
+
+        @Actor
+        public void actor2() {
+            cache.add(item2);
+        }
+
+        @Arbiter
+        public void arbiter(final ZZ_Result r) {
+            r.r1 = cache.get(1) == item1;
+            r.r2 = cache.get(2) == item2;
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "true", expect = Expect.ACCEPTABLE, desc = "Reader saw nothing, or the whole item")
+    @Outcome(id = "false", expect = Expect.FORBIDDEN, desc = "Reader saw a different item")
+    @State
+    public static class ConcurrentGetSeesNullOrItem {
+        final Cache<TestCacheable> cache = new SynchronizedCache<>(new LRUCache<>("test", 16, 0.0, 1.0, Cache.CacheType.BTREE));
+        final TestCacheable item1 = new TestCacheable(1);
+
+        @Actor
+        public void writer() {
+            cache.add(item1);
+        }
+
+        @Actor
+        public void reader(final Z_Result r) {
+            final TestCacheable item = cache.get(1);
+            r.r1 = item == null || item == item1;
+        }
+    }
+
+    private static class TestCacheable implements Cacheable {
+        private final long key;
+        private int refCount = 0;
+        private int timestamp = 0;
+
+        TestCacheable(final long key) {
+            this.key = key;
+        }
+
+        @Override
+        public long getKey() {
+            return key;
+        }
+
+        @Override
+        public int getReferenceCount() {
+            return refCount;
+        }
+
+        @Override
+        public int incReferenceCount() {
+            return ++refCount;
+        }
+
+        @Override
+        public int decReferenceCount() {
+            return refCount > 0 ? --refCount : 0;
+        }
+
+        @Override
+        public void setReferenceCount(final int count) {
+            this.refCount = count;
+        }
+
+        @Override
+        public void setTimestamp(final int timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean sync(final boolean syncJournal) {
+            return false;
+        }
+
+        @Override
+        public boolean allowUnload() {
+            return true;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.lock;
+
+import org.exist.util.LockException;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stress tests for the BTree locks of the {@link LockManager}.
+ */
+public class BtreeLockStressTest {
+
+    private static final int CONCURRENCY_LEVEL = 16;
+
+    private static final LockManager EXCLUSIVE_READERS_LOCK_MANAGER = new LockManager(CONCURRENCY_LEVEL, false);
+    private static final LockManager MULTI_READER_LOCK_MANAGER = new LockManager(CONCURRENCY_LEVEL, true);
+
+    private static final AtomicLong BTREE_ID = new AtomicLong();
+
+    private static String nextBtreeName() {
+        return "btree" + BTREE_ID.incrementAndGet() + ".dbx";
+    }
+
+    @JCStressTest
+    @Outcome(id = "0, 0", expect = Expect.ACCEPTABLE, desc = "Reader before Writer")
+    @Outcome(id = "1, 1", expect = Expect.ACCEPTABLE, desc = "Reader after Writer")
+    @Outcome(id = "0, 1", expect = Expect.FORBIDDEN, desc = "Reader observed a partial write")
+    @Outcome(id = "1, 0", expect = Expect.FORBIDDEN, desc = "Reader observed a partial write")
+    @State
+    public static class MultiReaderWriterExcludesReader {
+        final String btreeName = nextBtreeName();
+        int x;
+        int y;
+
+        @Actor
+        public void writer() throws LockException {
+            try (final ManagedLock<ReentrantReadWriteLock> btreeLock = MULTI_READER_LOCK_MANAGER.acquireBtreeWriteLock(btreeName)) {
+                x = 1;
+                y = 1;
+            }
+        }
+
+        @Actor
+        public void reader(final II_Result r) throws LockException {
+            try (final ManagedLock<ReentrantReadWriteLock> btreeLock = MULTI_READER_LOCK_MANAGER.acquireBtreeReadLock(btreeName)) {
+                r.r1 = y;
+                r.r2 = x;
+            }
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "2", expect = Expect.ACCEPTABLE, desc = "Writers were exclusive")
+    @Outcome(id = "1", expect = Expect.FORBIDDEN, desc = "Writers were not exclusive")
+    @State
+    public static class MultiReaderWritersAreExclusive {
+        final String btreeName = nextBtreeName();
+        int count;
+
+        @Actor
+        public void writer1() throws LockException {
+            try (final ManagedLock<ReentrantReadWriteLock> btreeLock = MULTI_READER_LOCK_MANAGER.acquireBtreeWriteLock(btreeName)) {
+                count++;
+            }
+        }
+
+        @Actor
+        public void writer2() throws LockException {
+            try (final ManagedLock<ReentrantReadWriteLock> btreeLock = MULTI_READER_LOCK_MANAGER.acquireBtreeWriteLock(btreeName)) {
+                count++;
+            }
+        }
+
+        @Arbiter
+        public void arbiter(final I_Result r) {
+            r.r1 = count;
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "2", expect = Expect.ACCEPTABLE, desc = "Readers were exclusive")
+    @Outcome(id = "1", expect = Expect.FORBIDDEN, desc = "Readers were not exclusive")
+    @State
+    public static class ReadersAreExclusiveByDefault {
+        final String btreeName = nextBtreeName();
+        int count;
+
+        @Actor
+        public void reader1() throws LockException {
+            try (final ManagedLock<ReentrantReadWriteLock> btreeLock = EXCLUSIVE_READERS_LOCK_MANAGER.acquireBtreeReadLock(btreeName)) {
+                count++;
+            }
+        }
+
+        @Actor
+        public void reader2() throws LockException {
+            try (final ManagedLock<ReentrantReadWriteLock> btreeLock = EXCLUSIVE_READERS_LOCK_MANAGER.acquireBtreeReadLock(btreeName)) {
+                count++;
+            }
+        }
+
+        @Arbiter
+        public void arbiter(final I_Result r) {
+            r.r1 = count;
+        }
+    }
+}
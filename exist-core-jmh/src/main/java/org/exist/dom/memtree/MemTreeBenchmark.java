@@ -0,0 +1,115 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.dom.memtree;
+
+import org.exist.dom.QName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures constructing an in-memory document, both directly through
+ * a {@link MemTreeBuilder}, as element constructors in XQuery do,
+ * and from SAX events whilst parsing, as fn:parse-xml does.
+ */
+@State(Scope.Thread)
+public class MemTreeBenchmark {
+
+    private static final String NAMESPACE = "http://www.elemental.xyz/benchmark";
+
+    private static final QName SECTION = new QName("section", NAMESPACE, "b");
+    private static final QName PARA = new QName("para", NAMESPACE, "b");
+    private static final QName ID = new QName("id", XMLConstants.NULL_NS_URI);
+    private static final QName TYPE = new QName("type", XMLConstants.NULL_NS_URI);
+
+    private static final String TEXT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit.";
+
+    /**
+     * The number of paragraphs in the document.
+     */
+    @Param({"1000", "100000"})
+    private int paragraphs;
+
+    private String[] ids;
+    private byte[] document;
+    private XMLReader reader;
+
+    @Setup
+    public void setUp() throws ParserConfigurationException, SAXException {
+        ids = new String[paragraphs];
+        for (int i = 0; i < paragraphs; i++) {
+            ids[i] = "p" + i;
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append("<b:section xmlns:b=\"").append(NAMESPACE).append("\">");
+        for (int i = 0; i < paragraphs; i++) {
+            builder.append("<b:para id=\"").append(ids[i]).append("\" type=\"normal\">").append(TEXT).append("</b:para>");
+        }
+        builder.append("</b:section>");
+        document = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        reader = factory.newSAXParser().getXMLReader();
+    }
+
+    @Benchmark
+    public DocumentImpl build() {
+        final MemTreeBuilder builder = new MemTreeBuilder();
+        builder.startDocument();
+        builder.startElement(SECTION, null);
+        for (int i = 0; i < paragraphs; i++) {
+            builder.startElement(PARA, null);
+            builder.addAttribute(ID, ids[i]);
+            builder.addAttribute(TYPE, "normal");
+            builder.characters(TEXT);
+            builder.endElement();
+        }
+        builder.endElement();
+        builder.endDocument();
+        return builder.getDocument();
+    }
+
+    @Benchmark
+    public Document parse() throws IOException, SAXException {
+        final DocumentBuilderReceiver receiver = new DocumentBuilderReceiver();
+        reader.setContentHandler(receiver);
+        reader.parse(new InputSource(new ByteArrayInputStream(document)));
+        return receiver.getDocument();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.dom.persistent;
+
+import org.exist.EXistException;
+import org.exist.dom.QName;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.DatabaseConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Node;
+
+import java.io.IOException;
+
+/**
+ * Measures looking up the ids of names and namespaces that are already
+ * known to the {@link SymbolTable} of an embedded database, and the
+ * reverse lookups of names from their ids.
+ */
+@State(Scope.Thread)
+public class SymbolTableBenchmark {
+
+    private static final String NAMESPACE_PREFIX = "http://www.elemental.xyz/benchmark/";
+
+    /**
+     * The number of distinct names known to the symbol table.
+     */
+    @Param({"100", "10000"})
+    private int names;
+
+    private final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+    private SymbolTable symbols;
+
+    private String[] localNames;
+    private String[] namespaces;
+    private short[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws DatabaseConfigurationException, EXistException, IOException {
+        existEmbeddedServer.startDb();
+        symbols = existEmbeddedServer.getBrokerPool().getSymbols();
+
+        localNames = new String[names];
+        namespaces = new String[names];
+        ids = new short[names];
+        for (int i = 0; i < names; i++) {
+            ids[i] = symbols.getSymbol("name" + i);
+            symbols.getNSSymbol(NAMESPACE_PREFIX + i);
+
+            // NOTE: look up with different, but equal, strings than those registered, as a parser would
+            localNames[i] = "name" + i;
+            namespaces[i] = NAMESPACE_PREFIX + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        existEmbeddedServer.stopDb();
+    }
+
+    @Benchmark
+    public short getSymbol() {
+        return symbols.getSymbol(localNames[nextIndex()]);
+    }
+
+    @Benchmark
+    public short getNSSymbol() {
+        return symbols.getNSSymbol(namespaces[nextIndex()]);
+    }
+
+    @Benchmark
+    public String getName() {
+        return symbols.getName(ids[nextIndex()]);
+    }
+
+    @Benchmark
+    public QName getQName() {
+        final int i = nextIndex();
+        return symbols.getQName(Node.ELEMENT_NODE, namespaces[i], localNames[i], "b");
+    }
+
+    private int nextIndex() {
+        // NOTE: a large odd stride visits every index, without the cost of a random number generator
+        next = (next + 7919) % names;
+        return next;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.numbering;
+
+import org.exist.storage.io.VariableByteOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures encoding, decoding and comparing the {@link DLN} node ids
+ * of a document, which are visited in document order.
+ */
+@State(Scope.Thread)
+public class DLNBenchmark {
+
+    /**
+     * The number of children of each element.
+     */
+    private static final int FAN_OUT = 20;
+
+    /**
+     * The depth of the elements below the root element.
+     */
+    private static final int DEPTH = 3;
+
+    /**
+     * The number of node ids in the document, i.e. the sum of {@code FAN_OUT^level} for each level.
+     */
+    private static final int NODES = 1 + FAN_OUT + FAN_OUT * FAN_OUT + FAN_OUT * FAN_OUT * FAN_OUT;
+
+    private DLN[] ids;
+    private DLN[] parents;
+    private int[] units;
+    private byte[][] data;
+    private byte[] buffer;
+    private VariableByteOutputStream os;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final List<DLN> document = new ArrayList<>(NODES);
+        addDescendants(new DLN(1), 0, document);
+        ids = document.toArray(new DLN[0]);
+
+        parents = new DLN[ids.length];
+        units = new int[ids.length];
+        data = new byte[ids.length][];
+        int maxSize = 0;
+        for (int i = 0; i < ids.length; i++) {
+            parents[i] = (DLN) ids[i].getParentId();
+            units[i] = ids[i].units();
+            data[i] = new byte[ids[i].size()];
+            ids[i].serialize(data[i], 0);
+            maxSize = Math.max(maxSize, ids[i].size());
+        }
+        buffer = new byte[maxSize];
+        os = new VariableByteOutputStream(NODES * maxSize);
+    }
+
+    private static void addDescendants(final DLN id, final int level, final List<DLN> document) {
+        document.add(id);
+        if (level < DEPTH) {
+            NodeId child = id.newChild();
+            for (int i = 0; i < FAN_OUT; i++) {
+                addDescendants((DLN) child, level + 1, document);
+                child = child.nextSibling();
+            }
+        }
+    }
+
+    @Benchmark
+    public byte serialize() {
+        ids[nextIndex()].serialize(buffer, 0);
+        return buffer[0];
+    }
+
+    @Benchmark
+    public DLN deserialize() {
+        final int i = nextIndex();
+        return new DLN(units[i], data[i], 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int writeDocumentOrder() throws IOException {
+        // NOTE: consecutive node ids are prefix compressed, as they are in the structural index
+        os.clear();
+        NodeId previous = null;
+        for (final DLN id : ids) {
+            previous = id.write(previous, os);
+        }
+        return os.size();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        final int i = nextIndex();
+        return ids[i].compareTo(ids[(i + 1) % ids.length]);
+    }
+
+    @Benchmark
+    public boolean isDescendantOf() {
+        final int i = nextIndex();
+        return ids[i].isDescendantOf(parents[i]);
+    }
+
+    @Benchmark
+    public NodeId newChildAndNextSibling() {
+        return ids[nextIndex()].newChild().nextSibling();
+    }
+
+    private int nextIndex() {
+        // NOTE: a large odd stride visits every index, without the cost of a random number generator
+        next = (next + 7919) % ids.length;
+        return next;
+    }
+}
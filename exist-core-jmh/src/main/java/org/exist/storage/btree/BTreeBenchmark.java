@@ -0,0 +1,171 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.btree;
+
+import org.exist.EXistException;
+import org.exist.storage.BrokerPool;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.DatabaseConfigurationException;
+import org.exist.util.FileUtils;
+import org.exist.xquery.TerminatedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures inserting into, looking up in, and range scanning
+ * a {@link BTree} which is backed by the page cache of an
+ * embedded database.
+ */
+@State(Scope.Thread)
+public class BTreeBenchmark {
+
+    private static final byte BTREE_BENCHMARK_FILE_ID = 0x7E;
+    private static final short BTREE_BENCHMARK_FILE_VERSION = Short.MIN_VALUE;
+
+    /**
+     * The number of keys in a range scan.
+     */
+    private static final int RANGE_SIZE = 100;
+
+    /**
+     * The number of keys in the tree that is looked up and scanned.
+     */
+    @Param({"10000", "100000"})
+    private int keys;
+
+    private final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+    private Path dataDir;
+
+    private Value[] values;
+    private BTree btree;
+    private BTree insertBTree;
+    private int next;
+    private int inserted;
+
+    @Setup
+    public void setUp() throws DatabaseConfigurationException, EXistException, IOException, DBException {
+        existEmbeddedServer.startDb();
+        dataDir = Files.createTempDirectory("org.exist.storage.btree.BTreeBenchmark");
+
+        values = new Value[keys];
+        for (int i = 0; i < keys; i++) {
+            values[i] = key(i);
+        }
+
+        // insert the keys in a random, but repeatable, order
+        final int[] order = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            order[i] = i;
+        }
+        final Random random = new Random(keys);
+        for (int i = keys - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        btree = createBTree("lookup.dbx");
+        for (final int i : order) {
+            btree.addValue(values[i], i);
+        }
+        btree.flush();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws DBException {
+        insertBTree = createBTree("insert.dbx");
+        inserted = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws DBException {
+        insertBTree.closeAndRemove();
+    }
+
+    @TearDown
+    public void tearDown() throws DBException {
+        btree.closeAndRemove();
+        existEmbeddedServer.stopDb();
+        FileUtils.deleteQuietly(dataDir);
+    }
+
+    @Benchmark
+    public long insert() throws IOException, BTreeException {
+        // NOTE: spread the keys across the tree rather than always appending to the right-most leaf
+        final int i = inserted++;
+        return insertBTree.addValue(key(Integer.reverse(i) >>> 1), i);
+    }
+
+    @Benchmark
+    public long lookup() throws IOException, BTreeException {
+        return btree.findValue(values[nextIndex(keys)]);
+    }
+
+    @Benchmark
+    public long rangeScan() throws IOException, BTreeException, TerminatedException {
+        final int start = nextIndex(keys - RANGE_SIZE);
+        final IndexQuery query = new IndexQuery(IndexQuery.BW, values[start], values[start + RANGE_SIZE - 1]);
+        final CountingCallback callback = new CountingCallback();
+        btree.query(query, callback);
+        return callback.sum;
+    }
+
+    private int nextIndex(final int bound) {
+        // NOTE: a large odd stride visits every index, without the cost of a random number generator
+        next = (next + 7919) % bound;
+        return next;
+    }
+
+    private BTree createBTree(final String fileName) throws DBException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final BTree tree = new BTree(pool, BTREE_BENCHMARK_FILE_ID, BTREE_BENCHMARK_FILE_VERSION, false, pool.getCacheManager(), dataDir.resolve(fileName));
+        tree.create((short) -1);
+        return tree;
+    }
+
+    private static Value key(final int i) {
+        return new Value(String.format("K%010d", i));
+    }
+
+    private static class CountingCallback implements BTreeCallback {
+        private long sum = 0;
+
+        @Override
+        public boolean indexInfo(final Value value, final long pointer) {
+            sum += pointer;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the hit and miss paths of the page caches.
+ *
+ * A hit finds the item in the cache, whereas a miss does not find it,
+ * and so adds it, which evicts another item from the full cache.
+ */
+@State(Scope.Thread)
+public class CacheBenchmark {
+
+    /**
+     * The number of items that the cache holds.
+     */
+    private static final int SIZE = 4096;
+
+    @Param({"LRU", "GCLOCK", "S3FIFO"})
+    private String cacheType;
+
+    private Cache<BenchmarkCacheable> cache;
+    private int nextHit;
+    private long nextMiss;
+
+    @Setup
+    public void setUp() {
+        cache = switch (cacheType) {
+            case "LRU" -> new LRUCache<>("benchmark", SIZE, 0.0, 1.0, Cache.CacheType.DATA);
+            case "GCLOCK" -> new GClockCache<>("benchmark", BenchmarkCacheable.class, SIZE, 0.0, 1.0, Cache.CacheType.DATA);
+            case "S3FIFO" -> new S3FIFOCache<>("benchmark", SIZE, 0.0, 1.0, Cache.CacheType.DATA);
+            default -> throw new IllegalArgumentException("Unknown cache type: " + cacheType);
+        };
+
+        for (int i = 0; i < SIZE; i++) {
+            cache.add(new BenchmarkCacheable(i));
+        }
+        nextMiss = SIZE;
+    }
+
+    @Benchmark
+    public BenchmarkCacheable hit() {
+        // NOTE: a large odd stride visits every item, without the cost of a random number generator
+        nextHit = (nextHit + 7919) % SIZE;
+        return cache.get(nextHit);
+    }
+
+    @Benchmark
+    public BenchmarkCacheable miss() {
+        final long key = nextMiss++;
+        BenchmarkCacheable item = cache.get(key);
+        if (item == null) {
+            item = new BenchmarkCacheable(key);
+            cache.add(item);
+        }
+        return item;
+    }
+
+    public static class BenchmarkCacheable implements Cacheable {
+        private final long key;
+        private int refCount = 0;
+        private int timestamp = 0;
+
+        BenchmarkCacheable(final long key) {
+            this.key = key;
+        }
+
+        @Override
+        public long getKey() {
+            return key;
+        }
+
+        @Override
+        public int getReferenceCount() {
+            return refCount;
+        }
+
+        @Override
+        public int incReferenceCount() {
+            return ++refCount;
+        }
+
+        @Override
+        public int decReferenceCount() {
+            return refCount > 0 ? --refCount : 0;
+        }
+
+        @Override
+        public void setReferenceCount(final int count) {
+            this.refCount = count;
+        }
+
+        @Override
+        public void setTimestamp(final int timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean sync(final boolean syncJournal) {
+            return false;
+        }
+
+        @Override
+        public boolean allowUnload() {
+            return true;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.dom;
+
+import org.exist.EXistException;
+import org.exist.storage.btree.DBException;
+import org.exist.storage.btree.Value;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.ByteConversion;
+import org.exist.util.Configuration;
+import org.exist.util.DatabaseConfigurationException;
+import org.exist.util.FileUtils;
+import org.exist.util.ReadOnlyException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Measures storing and retrieving values in the pages of a {@link DOMFile},
+ * both directly by storage address, and by key via its B+-tree.
+ */
+@State(Scope.Thread)
+public class DOMFileBenchmark {
+
+    private static final byte DOM_BENCHMARK_FILE_ID = 0x7D;
+
+    /**
+     * The number of values in the file that is read from.
+     */
+    private static final int VALUES = 100_000;
+
+    /**
+     * The size in bytes of each value.
+     */
+    @Param({"50", "500"})
+    private int valueSize;
+
+    private final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+    private Configuration configuration;
+    private Path dataDir;
+
+    private byte[] value;
+    private Value[] keys;
+    private long[] addresses;
+    private DOMFile domFile;
+
+    private Path writeDataDir;
+    private DOMFile writeDomFile;
+    private int written;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws DatabaseConfigurationException, EXistException, IOException, DBException, ReadOnlyException {
+        existEmbeddedServer.startDb();
+
+        // NOTE: the DOMFile registers itself in the configuration, so it is given its own rather than that of the database
+        configuration = new Configuration();
+        dataDir = Files.createTempDirectory("org.exist.storage.dom.DOMFileBenchmark");
+
+        value = new byte[valueSize];
+        Arrays.fill(value, (byte) 'x');
+
+        domFile = createDOMFile(dataDir.resolve("read"));
+        keys = new Value[VALUES];
+        addresses = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            keys[i] = key(i);
+            addresses[i] = domFile.put(null, keys[i], value);
+        }
+        domFile.flush();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException, DBException {
+        writeDataDir = Files.createTempDirectory(dataDir, "write");
+        writeDomFile = createDOMFile(writeDataDir);
+        written = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws DBException {
+        writeDomFile.closeAndRemove();
+        FileUtils.deleteQuietly(writeDataDir);
+    }
+
+    @TearDown
+    public void tearDown() throws DBException {
+        domFile.closeAndRemove();
+        existEmbeddedServer.stopDb();
+        FileUtils.deleteQuietly(dataDir);
+    }
+
+    @Benchmark
+    public long add() throws ReadOnlyException {
+        return writeDomFile.add(null, value);
+    }
+
+    @Benchmark
+    public long put() throws ReadOnlyException {
+        return writeDomFile.put(null, key(written++), value);
+    }
+
+    @Benchmark
+    public Value getByAddress() {
+        return domFile.get(addresses[nextIndex()]);
+    }
+
+    @Benchmark
+    public Value getByKey() {
+        return domFile.get(keys[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        // NOTE: a large odd stride visits every index, without the cost of a random number generator
+        next = (next + 7919) % VALUES;
+        return next;
+    }
+
+    private DOMFile createDOMFile(final Path dir) throws IOException, DBException {
+        Files.createDirectories(dir);
+        final DOMFile file = new DOMFile(existEmbeddedServer.getBrokerPool(), DOM_BENCHMARK_FILE_ID, dir, configuration);
+        file.setOwnerObject(this);
+        return file;
+    }
+
+    private static Value key(final int i) {
+        return new Value(ByteConversion.intToByteH(i, new byte[4], 0));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.journal;
+
+import org.exist.EXistException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.dom.InsertValueLoggable;
+import org.exist.storage.txn.TransactionException;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.DatabaseConfigurationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Measures writing entries to the {@link Journal} of an embedded database,
+ * with and without flushing, and syncing, the journal after each entry.
+ */
+@State(Scope.Thread)
+public class JournalBenchmark {
+
+    /**
+     * The size in bytes of the value in each journal entry.
+     */
+    @Param({"50", "500"})
+    private int valueSize;
+
+    private final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+    private JournalManager journalManager;
+    private byte[] value;
+
+    private Txn transaction;
+    private Loggable loggable;
+
+    @Setup
+    public void setUp() throws DatabaseConfigurationException, EXistException, IOException {
+        existEmbeddedServer.startDb();
+        journalManager = existEmbeddedServer.getBrokerPool().getJournalManager()
+                .orElseThrow(() -> new IllegalStateException("Journalling is not enabled"));
+
+        value = new byte[valueSize];
+        Arrays.fill(value, (byte) 'x');
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        // NOTE: the entries must belong to an active transaction, as the journal tracks the operations of each transaction
+        transaction = existEmbeddedServer.getBrokerPool().getTransactionManager().beginTransaction();
+        loggable = new InsertValueLoggable(transaction, 1, false, (short) 1, value, 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws TransactionException, EXistException {
+        transaction.commit();
+        transaction.close();
+
+        // checkpoint, so that the journal files written by the iteration can be removed
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        pool.triggerCheckpoint();
+        try (final DBBroker broker = pool.getBroker()) {
+            // NOTE: the checkpoint is made when the broker is released
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        existEmbeddedServer.stopDb();
+    }
+
+    @Benchmark
+    public void writeToLog() throws JournalException {
+        journalManager.journal(loggable);
+    }
+
+    @Benchmark
+    public void writeAndFlushToLog() throws JournalException {
+        journalManager.journal(loggable);
+        journalManager.flush(false, false);
+    }
+
+    @Benchmark
+    public void writeAndSyncToLog() throws JournalException {
+        journalManager.journal(loggable);
+        journalManager.flush(true, true);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.util.sax.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the cost of storing an XML document by parsing it twice, once
+ * to validate it and once to store it, against parsing it once whilst
+ * recording the events and then replaying them to store it.
+ */
+@State(Scope.Thread)
+public class SAXEventRecorderBenchmark {
+
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    /**
+     * The number of paragraphs in the document.
+     */
+    @Param({"1000", "10000", "100000"})
+    private int paragraphs;
+
+    private byte[] document;
+    private XMLReader reader;
+
+    @Setup
+    public void setUp() throws ParserConfigurationException, SAXException {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<TEI xmlns=\"http://www.tei-c.org/ns/1.0\"><text><body>\n");
+        for (int i = 0; i < paragraphs; i++) {
+            builder.append("<div n=\"").append(i).append("\"><head>Section ").append(i).append("</head>");
+            builder.append("<p xml:id=\"p").append(i).append("\">Lorem ipsum dolor sit amet, <hi rend=\"italic\">consectetur</hi> adipiscing elit, ");
+            builder.append("sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.<!-- note --></p></div>\n");
+        }
+        builder.append("</body></text></TEI>");
+        document = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        reader = factory.newSAXParser().getXMLReader();
+    }
+
+    @Benchmark
+    public long parseOnce() throws IOException, SAXException {
+        final CountingHandler handler = new CountingHandler();
+        parse(handler);
+        return handler.count;
+    }
+
+    @Benchmark
+    public long parseTwice() throws IOException, SAXException {
+        final CountingHandler validateHandler = new CountingHandler();
+        parse(validateHandler);
+
+        final CountingHandler storeHandler = new CountingHandler();
+        parse(storeHandler);
+        return validateHandler.count + storeHandler.count;
+    }
+
+    @Benchmark
+    public long parseOnceAndReplay() throws IOException, SAXException {
+        final CountingHandler validateHandler = new CountingHandler();
+        final SAXEventRecorder recorder = new SAXEventRecorder(Long.MAX_VALUE);
+        recorder.setHandlers(validateHandler, validateHandler);
+        parse(recorder);
+
+        final CountingHandler storeHandler = new CountingHandler();
+        recorder.replay(storeHandler, storeHandler);
+        return validateHandler.count + storeHandler.count;
+    }
+
+    private void parse(final DefaultHandler2 handler) throws IOException, SAXException {
+        reader.setContentHandler(handler);
+        reader.setProperty(LEXICAL_HANDLER, handler);
+        reader.parse(new InputSource(new ByteArrayInputStream(document)));
+    }
+
+    private void parse(final SAXEventRecorder recorder) throws IOException, SAXException {
+        reader.setContentHandler(recorder);
+        reader.setProperty(LEXICAL_HANDLER, recorder);
+        reader.parse(new InputSource(new ByteArrayInputStream(document)));
+    }
+
+    private static class CountingHandler extends DefaultHandler2 {
+        private long count;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+            count += attributes.getLength() + 1;
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            count += length;
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) {
+            count += length;
+        }
+    }
+
+    public static void main(final String args[]) throws IOException, SAXException, ParserConfigurationException {
+        // NOTE: just for running with the java debugger
+        final SAXEventRecorderBenchmark benchmark = new SAXEventRecorderBenchmark();
+        benchmark.paragraphs = 1000;
+        benchmark.setUp();
+        benchmark.parseOnceAndReplay();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery;
+
+import org.exist.EXistException;
+import org.exist.collections.Collection;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.txn.TransactionManager;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.DatabaseConfigurationException;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.exist.xquery.value.Sequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Measures compiling and evaluating path, FLWOR and comparison
+ * queries against a document that is stored in an embedded database.
+ */
+@State(Scope.Thread)
+public class XQueryBenchmark {
+
+    private static final XmldbURI COLLECTION_URI = XmldbURI.ROOT_COLLECTION_URI.append("benchmark");
+    private static final XmldbURI DOCUMENT_NAME = XmldbURI.create("orders.xml");
+    private static final String DOC = "doc('" + COLLECTION_URI.append(DOCUMENT_NAME) + "')";
+
+    /**
+     * The number of orders in the document.
+     */
+    @Param({"1000", "10000"})
+    private int orders;
+
+    @Param({"path", "flwor", "comparison"})
+    private String workload;
+
+    private final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+    private DBBroker broker;
+    private XQuery xquery;
+    private String query;
+    private CompiledXQuery compiled;
+
+    @Setup
+    public void setUp() throws DatabaseConfigurationException, EXistException, IOException, PermissionDeniedException, SAXException, LockException, XPathException {
+        existEmbeddedServer.startDb();
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append("<orders>");
+        for (int i = 0; i < orders; i++) {
+            builder.append("<order id=\"o").append(i).append("\" customer=\"c").append(i % 100).append("\">");
+            for (int j = 0; j < 5; j++) {
+                builder.append("<item sku=\"s").append((i + j) % 500).append("\" price=\"").append((i * 7 + j * 13) % 100)
+                        .append("\" qty=\"").append(1 + j).append("\"/>");
+            }
+            builder.append("</order>");
+        }
+        builder.append("</orders>");
+
+        final TransactionManager transactionManager = pool.getTransactionManager();
+        try (final Txn transaction = transactionManager.beginTransaction();
+                final Collection collection = broker.getOrCreateCollection(transaction, COLLECTION_URI)) {
+            broker.storeDocument(transaction, DOCUMENT_NAME, new StringInputSource(builder.toString()), MimeType.XML_TYPE, collection);
+            transaction.commit();
+        }
+
+        query = switch (workload) {
+            case "path" -> DOC + "/orders/order/item/@sku";
+            case "flwor" ->
+                    "for $order in " + DOC + "/orders/order\n" +
+                    "let $total := sum($order/item/(@price * @qty))\n" +
+                    "where $total gt 500\n" +
+                    "order by $total descending\n" +
+                    "return $order/@id";
+            case "comparison" -> DOC + "/orders/order[@customer = 'c17'][item/@price > 50]";
+            default -> throw new IllegalArgumentException("Unknown workload: " + workload);
+        };
+
+        xquery = pool.getXQueryService();
+        compiled = xquery.compile(new XQueryContext(pool), query);
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.close();
+        existEmbeddedServer.stopDb();
+    }
+
+    @Benchmark
+    public CompiledXQuery compile() throws XPathException, PermissionDeniedException {
+        return xquery.compile(new XQueryContext(existEmbeddedServer.getBrokerPool()), query);
+    }
+
+    @Benchmark
+    public long execute() throws XPathException, PermissionDeniedException {
+        // NOTE: re-use the compiled query, as the XQuery Pool would
+        compiled.getContext().prepareForReuse();
+        try {
+            final Sequence result = xquery.execute(broker, compiled, null);
+            return result.getItemCountLong();
+        } finally {
+            compiled.getContext().runCleanupTasks();
+        }
+    }
+}
@@ -113,10 +113,13 @@ public class Indexer implements ContentHandler, LexicalHandler, ErrorHandler {
     public static final String CONFIGURATION_INDEX_ELEMENT_NAME = "index";
     public static final String SUPPRESS_WHITESPACE_ATTRIBUTE = "suppress-whitespace";
     public static final String PRESERVE_WS_MIXED_CONTENT_ATTRIBUTE = "preserve-whitespace-mixed-content";
+    public static final String SINGLE_PASS_MAX_BUFFER_ATTRIBUTE = "single-pass-max-buffer";
 
     public static final String PROPERTY_INDEXER_CONFIG = "indexer.config";
     public final static String PROPERTY_SUPPRESS_WHITESPACE = "indexer.suppress-whitespace";
     public static final String PROPERTY_PRESERVE_WS_MIXED_CONTENT = "indexer.preserve-whitespace-mixed-content";
+    public static final String PROPERTY_SINGLE_PASS_MAX_BUFFER = "indexer.single-pass-max-buffer";
+    public static final int DEFAULT_SINGLE_PASS_MAX_BUFFER = 64;
 
     private final DBBroker broker;
     private final Txn transaction;
@@ -0,0 +1,239 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.backup;
+
+import net.jcip.annotations.NotThreadSafe;
+import org.exist.dom.persistent.BinaryDocument;
+import org.exist.util.io.TemporaryFileManager;
+import org.exist.util.io.VirtualTempPath;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A {@link BackupWriter} which buffers the export of a single Collection,
+ * so that the Collection may be exported by one thread and then written
+ * to the backup by another.
+ *
+ * Entries are held in memory until the buffer has reached its in-memory
+ * size, after which further entries overflow to temporary files.
+ *
+ * The content of binary documents may instead be deferred, so that it is
+ * read by the thread which writes the buffer to the backup, see
+ * {@link #newDeferredEntry(String, BinaryDocument)}.
+ */
+@NotThreadSafe
+class CollectionExportBuffer implements BackupWriter {
+
+    private final TemporaryFileManager temporaryFileManager;
+    private final long inMemorySize;
+
+    @Nullable private String collectionName;
+    private boolean collectionClosed;
+    @Nullable private StringWriter contents;
+    @Nullable private String closedContents;
+    private final List<BufferedEntry> entries = new ArrayList<>();
+    @Nullable private BufferedEntry currentEntry;
+    private long bufferedSize;
+
+    /**
+     * @param temporaryFileManager the manager of temporary files to overflow entries to
+     * @param inMemorySize the maximum number of bytes of entries to hold in memory
+     */
+    CollectionExportBuffer(final TemporaryFileManager temporaryFileManager, final long inMemorySize) {
+        this.temporaryFileManager = temporaryFileManager;
+        this.inMemorySize = inMemorySize;
+    }
+
+    @Override
+    public Writer newContents() {
+        contents = new StringWriter();
+        return contents;
+    }
+
+    @Override
+    public void closeContents() {
+        if (contents != null) {
+            closedContents = contents.toString();
+            contents = null;
+        }
+    }
+
+    @Override
+    public OutputStream newEntry(final String name) throws IOException {
+        return newEntry(name, false);
+    }
+
+    @Override
+    public OutputStream newBlobEntry(final String blobId) throws IOException {
+        return newEntry(blobId, true);
+    }
+
+    private OutputStream newEntry(final String name, final boolean blob) throws IOException {
+        final int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(0, inMemorySize - bufferedSize));
+        final VirtualTempPath content = new VirtualTempPath(remaining, temporaryFileManager);
+        currentEntry = new BufferedEntry(name, blob, content, content.newOutputStream(), null);
+        entries.add(currentEntry);
+        return currentEntry.os;
+    }
+
+    /**
+     * Adds an entry for a binary document whose content is not read
+     * until the buffer is written to the backup.
+     *
+     * Reading a binary document may begin a transaction, which a worker
+     * thread cannot do whilst the thread that it works for is executing
+     * system tasks.
+     *
+     * @param name the name of the entry
+     * @param doc the binary document to read the content of
+     */
+    void newDeferredEntry(final String name, final BinaryDocument doc) {
+        entries.add(new BufferedEntry(name, false, null, null, doc));
+    }
+
+    @Override
+    public void closeEntry() throws IOException {
+        if (currentEntry != null) {
+            currentEntry.os.close();
+            bufferedSize += currentEntry.content.size();
+            currentEntry = null;
+        }
+    }
+
+    @Override
+    public void newCollection(final String name) {
+        this.collectionName = name;
+    }
+
+    @Override
+    public void closeCollection() {
+        this.collectionClosed = true;
+    }
+
+    @Override
+    public void setProperties(final Properties properties) throws IOException {
+        throw new IOException("Backup properties cannot be set on the export of a Collection");
+    }
+
+    /**
+     * Writes the buffered export of the Collection
+     * in the same order as it was exported.
+     *
+     * @param output the backup writer to write the Collection to
+     * @param binaryReader reads the content of the binary documents of deferred entries
+     *
+     * @throws IOException if an I/O error occurs whilst writing the Collection
+     */
+    void writeTo(final BackupWriter output, final BinaryReader binaryReader) throws IOException {
+        if (collectionName == null) {
+            return;
+        }
+
+        output.newCollection(collectionName);
+        try {
+            for (final BufferedEntry entry : entries) {
+                final OutputStream os = entry.blob ? output.newBlobEntry(entry.name) : output.newEntry(entry.name);
+                try {
+                    // NOTE: do not close the output stream, or the zip will be closed!
+                    if (entry.deferred != null) {
+                        binaryReader.read(entry.deferred, os);
+                    } else {
+                        try (final InputStream is = entry.content.newInputStream()) {
+                            is.transferTo(os);
+                        }
+                    }
+                } finally {
+                    output.closeEntry();
+                }
+            }
+
+            if (closedContents != null) {
+                final Writer writer = output.newContents();
+                writer.write(closedContents);
+                writer.flush();
+                output.closeContents();
+            }
+        } finally {
+            if (collectionClosed) {
+                output.closeCollection();
+            }
+        }
+    }
+
+    /**
+     * Releases the memory and temporary files of the buffer.
+     */
+    @Override
+    public void close() {
+        for (final BufferedEntry entry : entries) {
+            if (entry.content != null) {
+                entry.content.close();
+            }
+        }
+        entries.clear();
+        currentEntry = null;
+        contents = null;
+        closedContents = null;
+    }
+
+    /**
+     * Reads the content of a binary document.
+     */
+    @FunctionalInterface
+    interface BinaryReader {
+
+        /**
+         * @param doc the binary document
+         * @param os the output stream to write the content to
+         *
+         * @throws IOException if an I/O error occurs whilst reading or writing the content
+         */
+        void read(BinaryDocument doc, OutputStream os) throws IOException;
+    }
+
+    private static final class BufferedEntry {
+        private final String name;
+        private final boolean blob;
+        @Nullable private final VirtualTempPath content;
+        @Nullable private final OutputStream os;
+        @Nullable private final BinaryDocument deferred;
+
+        private BufferedEntry(final String name, final boolean blob, @Nullable final VirtualTempPath content,
+                @Nullable final OutputStream os, @Nullable final BinaryDocument deferred) {
+            this.name = name;
+            this.blob = blob;
+            this.content = content;
+            this.os = os;
+            this.deferred = deferred;
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -23,8 +50,10 @@ package org.exist.backup;
 
 import org.exist.EXistException;
 import org.exist.backup.restore.AppRestoreUtils;
+import org.exist.backup.restore.ParallelRestore;
 import org.exist.backup.restore.RestoreHandler;
 import org.exist.backup.restore.listener.RestoreListener;
+import org.exist.backup.restore.listener.ThroughputRestoreListener;
 import org.exist.security.Account;
 import org.exist.security.PermissionDeniedException;
 import org.exist.security.SecurityManager;
@@ -54,11 +83,30 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 public class Restore {
 
+    public static final String CONFIGURATION_ELEMENT_NAME = "restore";
+
+    /**
+     * The number of Collections of a backup that may be restored concurrently.
+     * A value of 1 restores the backup sequentially using the caller's transaction.
+     */
+    public static final String PARALLELISM_ATTRIBUTE = "parallelism";
+    public static final String PROPERTY_PARALLELISM = "restore.parallelism";
+    public static final int DEFAULT_PARALLELISM = 1;
+
+    /**
+     * The number of resources which are restored in a single transaction
+     * when the backup is restored concurrently.
+     */
+    public static final String DOCUMENTS_PER_TRANSACTION_ATTRIBUTE = "documents-per-transaction";
+    public static final String PROPERTY_DOCUMENTS_PER_TRANSACTION = "restore.documents-per-transaction";
+    public static final int DEFAULT_DOCUMENTS_PER_TRANSACTION = 100;
+
     private static final byte[] ZIP_FILE_MAGIC_NUMBER = {0x50, 0x4B, 0x03, 0x04};
 
     public void restore(final DBBroker broker, @Nullable final Txn transaction, final String newAdminPass, final Path f,
-                        final RestoreListener listener, final boolean overwriteApps) throws EXistException, IOException, SAXException, PermissionDeniedException {
-        
+                        final RestoreListener restoreListener, final boolean overwriteApps) throws EXistException, IOException, SAXException, PermissionDeniedException {
+        final RestoreListener listener = new ThroughputRestoreListener(restoreListener);
+
         //set the admin password
         if (newAdminPass != null) {
             setAdminCredentials(broker, newAdminPass);
@@ -75,6 +123,12 @@ public class Restore {
             totalNrOfFiles += backupDescriptor.getNumberOfFiles();
         }
 
+        final int parallelism = broker.getConfiguration().getInteger(PROPERTY_PARALLELISM, DEFAULT_PARALLELISM);
+        if (parallelism > 1) {
+            restoreParallel(broker, descriptors, listener, appsToSkip, totalNrOfFiles, parallelism);
+            return;
+        }
+
         // continue restore
         final XMLReaderPool parserPool = broker.getBrokerPool().getParserPool();
         XMLReader reader = null;
@@ -106,6 +160,34 @@ public class Restore {
             }
         }
     }
+
+    /**
+     * Restores the backup descriptors, restoring the sub-collections of each
+     * descriptor concurrently.
+     *
+     * The descriptors themselves are restored in order, so that the
+     * security collections are restored before any other collections.
+     */
+    private void restoreParallel(final DBBroker broker, final Deque<BackupDescriptor> descriptors,
+            final RestoreListener listener, final Set<String> appsToSkip, final long totalNrOfFiles,
+            final int parallelism) throws SAXException {
+        final int documentsPerTransaction = broker.getConfiguration().getInteger(PROPERTY_DOCUMENTS_PER_TRANSACTION, DEFAULT_DOCUMENTS_PER_TRANSACTION);
+
+        listener.started(totalNrOfFiles);
+        try (final ParallelRestore parallelRestore = new ParallelRestore(broker.getBrokerPool(), broker.getCurrentSubject(), listener, parallelism, documentsPerTransaction)) {
+            while (!descriptors.isEmpty()) {
+                final BackupDescriptor descriptor = descriptors.pop();
+                if (appsToSkip.contains(descriptor.getSymbolicPath())) {
+                    listener.skipResources("Skipping app path " + descriptor.getSymbolicPath() + ". Newer version " +
+                            "is already installed.", descriptor.getNumberOfFiles());
+                } else {
+                    parallelRestore.restore(descriptor, appsToSkip);
+                }
+            }
+        } finally {
+            listener.finished();
+        }
+    }
     
     private Deque<BackupDescriptor> getBackupDescriptors(Path contents) throws IOException {
         final Deque<BackupDescriptor> descriptors = new ArrayDeque<>();
@@ -51,6 +51,7 @@ package org.exist.backup;
 import com.evolvedbinary.j8fu.function.FunctionE;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.exist.EXistException;
 import org.exist.Namespaces;
 import org.exist.collections.Collection;
 import org.exist.collections.MutableCollection;
@@ -62,8 +63,10 @@ import org.exist.numbering.NodeId;
 import org.exist.security.ACLPermission;
 import org.exist.security.Permission;
 import org.exist.security.PermissionDeniedException;
+import org.exist.security.Subject;
 import org.exist.security.internal.AccountImpl;
 import org.exist.stax.ExtendedXMLStreamReader;
+import org.exist.storage.BrokerPool;
 import org.exist.storage.DBBroker;
 import org.exist.storage.DataBackup;
 import org.exist.storage.NativeBroker;
@@ -72,12 +75,15 @@ import org.exist.storage.btree.BTreeCallback;
 import org.exist.storage.btree.Value;
 import org.exist.storage.index.CollectionStore;
 import org.exist.storage.io.VariableByteInput;
+import org.exist.storage.lock.ManagedLock;
 import org.exist.storage.serializers.ChainOfReceiversFactory;
 import org.exist.storage.serializers.EXistOutputKeys;
 import org.exist.storage.txn.Txn;
 import org.exist.util.FileUtils;
 import org.exist.util.LockException;
+import org.exist.util.NamedThreadFactory;
 import org.exist.util.UTF8;
+import org.exist.util.io.TemporaryFileManager;
 import org.exist.util.serializer.AttrList;
 import org.exist.util.serializer.Receiver;
 import org.exist.util.serializer.SAXSerializer;
@@ -97,6 +103,7 @@ import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.NamespaceSupport;
 
+import javax.annotation.Nullable;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
@@ -106,6 +113,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -136,6 +149,12 @@ public class SystemExport {
 
     private static final int currVersion = 1;
 
+    /**
+     * The maximum number of bytes of its resources that the parallel export
+     * of a Collection holds in memory before overflowing to temporary files.
+     */
+    private static final long PARALLEL_EXPORT_IN_MEMORY_SIZE = 4 * 1024 * 1024;  // 4 MB
+
     private final SimpleDateFormat creationDateFormat = new SimpleDateFormat(DataBackup.DATE_FORMAT_PICTURE);
 
     private int collectionCount = -1;
@@ -149,6 +168,7 @@ public class SystemExport {
     private boolean directAccess = false;
     private ProcessMonitor.Monitor monitor = null;
     private ChainOfReceiversFactory chainFactory;
+    private int parallelism = 1;
 
     public SystemExport(final DBBroker broker, final Txn transaction, final StatusCallback callback, final ProcessMonitor.Monitor monitor,
             final boolean direct, final ChainOfReceiversFactory chainFactory) {
@@ -179,6 +199,22 @@ public class SystemExport {
         }
     }
 
+    /**
+     * Sets the number of Collections to export concurrently.
+     *
+     * When greater than 1, each Collection is exported by a worker thread using
+     * its own broker into a buffer, and the buffers are then written to the backup
+     * in the same order as a sequential export, so that the backup is identical.
+     * At most twice this number of Collections are buffered at once. The content
+     * of binary documents is read by the calling thread whilst writing the backup,
+     * so that the export may also be run by a system task.
+     *
+     * @param parallelism the number of Collections to export concurrently
+     */
+    public void setParallelism(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
     public Path export(final String targetDir, final boolean incremental, final boolean zip, final List<ErrorReport> errorList) {
         return (export(targetDir, incremental, -1, zip, errorList));
     }
@@ -264,7 +300,14 @@ public class SystemExport {
                 final CollectionCallback cb = new CollectionCallback(output, date, prevBackup, errorList, true);
                 broker.getCollectionsFailsafe(transaction, cb);
 
-                exportOrphans(output, cb.getDocs(), errorList);
+                final DocumentSet docs;
+                if (cb.collectionPointers != null) {
+                    docs = exportParallel(output, date, prevBackup, errorList, cb.collectionPointers);
+                } else {
+                    docs = cb.getDocs();
+                }
+
+                exportOrphans(output, docs, errorList);
             }
 
             return backupFile;
@@ -282,6 +325,10 @@ public class SystemExport {
 
 
     private void reportError(final String message, final Throwable e) {
+        reportError(callback, message, e);
+    }
+
+    private static void reportError(@Nullable final StatusCallback callback, final String message, final Throwable e) {
         if (callback != null) {
             callback.error("EXPORT: " + message, e);
         }
@@ -509,7 +556,10 @@ public class SystemExport {
         }
         final boolean needsBackup = (prevBackup == null) || (date.getTime() < doc.getLastModified());
 
-        if (needsBackup) {
+        if (needsBackup && doc.getResourceType() == DocumentImpl.BINARY_FILE && output instanceof CollectionExportBuffer exportBuffer) {
+            // read by the thread which writes the buffer to the backup
+            exportBuffer.newDeferredEntry(Backup.encode(URIUtils.urlDecodeUtf8(doc.getFileURI())), (BinaryDocument) doc);
+        } else if (needsBackup) {
             // Note: do not auto-close the output stream or the zip will be closed!
             try {
                 final OutputStream os = output.newEntry(Backup.encode(URIUtils.urlDecodeUtf8(doc.getFileURI())));
@@ -600,6 +650,152 @@ public class SystemExport {
     }
 
 
+    /**
+     * Exports Collections concurrently, writing them to the backup
+     * in the order in which they were found.
+     *
+     * The worker threads never begin a transaction, as this thread may be
+     * executing system tasks, during which time no other thread may begin
+     * a transaction. The content of binary documents, which is read within
+     * a transaction, is instead read by this thread whilst writing the backup.
+     *
+     * All status and errors are reported through a single synchronized callback.
+     *
+     * @param output the backup writer
+     * @param date the date of the previous backup, or null
+     * @param prevBackup the previous backup, or null
+     * @param errorList a list of {@link ErrorReport} objects as returned by methods in {@link ConsistencyCheck}
+     * @param collectionPointers the Collections to export
+     *
+     * @return the documents which were exported
+     */
+    private DocumentSet exportParallel(final BackupWriter output, final Date date, final BackupDescriptor prevBackup,
+            final List<ErrorReport> errorList, final List<CollectionPointer> collectionPointers) throws IOException, TerminatedException {
+        final MutableDocumentSet docs = new DefaultDocumentSet();
+        final Subject subject = broker.getCurrentSubject();
+        @Nullable final StatusCallback synchronizedCallback = callback == null ? null : new SynchronizedStatusCallback(callback);
+        @Nullable final List<ErrorReport> errors = errorList == null ? null : Collections.unmodifiableList(new ArrayList<>(errorList));
+        final Agent jmxAgent = AgentFactory.getInstance();
+        int lastPercentage = -1;
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory(broker.getBrokerPool(), "system-export"));
+        final Deque<Future<CollectionExport>> exports = new ArrayDeque<>();
+        try {
+            int count = 0;
+            for (final CollectionPointer collectionPointer : collectionPointers) {
+                if (synchronizedCallback != null) {
+                    synchronizedCallback.startCollection(collectionPointer.uri());
+                }
+
+                final BackupDescriptor bd = prevBackup == null ? null : prevBackup.getBackupDescriptor(collectionPointer.uri());
+
+                final int percentage = 100 * (++count + 1) / (collectionPointers.size() + 1);
+                if ((jmxAgent != null) && (percentage != lastPercentage)) {
+                    lastPercentage = percentage;
+                    jmxAgent.updateStatus(broker.getBrokerPool(), percentage);
+                }
+
+                exports.add(executorService.submit(() -> exportCollection(subject, synchronizedCallback, collectionPointer, date, bd, errors)));
+
+                // back-pressure, bounds the number of Collections which are buffered
+                while (exports.size() >= parallelism * 2) {
+                    writeCollectionExport(exports.poll(), output, docs, synchronizedCallback);
+                }
+            }
+
+            while (!exports.isEmpty()) {
+                writeCollectionExport(exports.poll(), output, docs, synchronizedCallback);
+            }
+        } finally {
+            for (final Future<CollectionExport> export : exports) {
+                export.cancel(true);
+            }
+            executorService.shutdownNow();
+            try {
+                executorService.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (final Future<CollectionExport> export : exports) {
+                if (export.isDone() && !export.isCancelled()) {
+                    try {
+                        export.get().buffer().close();
+                    } catch (final InterruptedException | ExecutionException e) {
+                        // no-op, the export failed
+                    }
+                }
+            }
+        }
+
+        return docs;
+    }
+
+    private void writeCollectionExport(final Future<CollectionExport> export, final BackupWriter output, final MutableDocumentSet docs,
+            @Nullable final StatusCallback synchronizedCallback) throws IOException, TerminatedException {
+        final CollectionExport collectionExport;
+        try {
+            collectionExport = export.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TerminatedException((Expression) null, "system export interrupted");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof TerminatedException terminatedException) {
+                reportError(synchronizedCallback, "Terminating system export upon request", terminatedException);
+                throw terminatedException;
+            }
+            reportError(synchronizedCallback, "Caught exception while exporting collections: " + e.getCause().getMessage(), e.getCause());
+            return;
+        }
+
+        try {
+            collectionExport.buffer().writeTo(output, (doc, os) -> {
+                try {
+                    broker.readBinaryResource(doc, os);
+                } catch (final IOException e) {
+                    reportError(synchronizedCallback, "A write error occurred while exporting document: '" + doc.getFileURI() + "'. Continuing with next document.", e);
+                }
+            });
+            docs.addAll(collectionExport.docs());
+        } finally {
+            collectionExport.buffer().close();
+        }
+    }
+
+    /**
+     * Exports a Collection into a buffer using a broker of its own.
+     */
+    private CollectionExport exportCollection(final Subject subject, @Nullable final StatusCallback synchronizedCallback,
+            final CollectionPointer collectionPointer, final Date date, @Nullable final BackupDescriptor bd,
+            final List<ErrorReport> errorList) throws EXistException, TerminatedException {
+        final BrokerPool brokerPool = broker.getBrokerPool();
+        final CollectionExportBuffer buffer = new CollectionExportBuffer(TemporaryFileManager.getInstance(), PARALLEL_EXPORT_IN_MEMORY_SIZE);
+        final MutableDocumentSet docs = new DefaultDocumentSet();
+
+        try (final DBBroker workerBroker = brokerPool.get(Optional.of(subject))) {
+            // NOTE: each worker has its own SystemExport, as the serializer chain and broker are not thread-safe
+            final SystemExport workerExport = new SystemExport(workerBroker, null, synchronizedCallback, monitor, directAccess);
+
+            final CollectionStore store = (CollectionStore) ((NativeBroker) workerBroker).getStorage(NativeBroker.COLLECTIONS_DBX_ID);
+            final Collection collection;
+            try (final ManagedLock<ReentrantReadWriteLock> collectionsDbLock = brokerPool.getLockManager().acquireBtreeReadLock(store.getLockName())) {
+                final VariableByteInput istream = store.getAsStream(collectionPointer.pointer());
+                collection = MutableCollection.load(workerBroker, XmldbURI.createInternal(collectionPointer.uri()), istream);
+            }
+
+            workerExport.export(collection, buffer, date, bd, errorList, docs);
+        } catch (final TerminatedException e) {
+            buffer.close();
+            throw e;
+        } catch (final EXistException e) {
+            buffer.close();
+            throw e;
+        } catch (final Exception e) {
+            reportError(synchronizedCallback, "Caught exception while scanning collections: " + collectionPointer.uri(), e);
+        }
+
+        return new CollectionExport(buffer, docs);
+    }
+
     /**
      * Serialize a document to XML, based on {@link XMLStreamReader}.
      *
@@ -742,6 +938,7 @@ public class SystemExport {
         private final MutableDocumentSet docs = new DefaultDocumentSet();
         private int collectionCount = 0;
         private final boolean exportCollection;
+        @Nullable private final List<CollectionPointer> collectionPointers;
         private int lastPercentage = -1;
         private final Agent jmxAgent = AgentFactory.getInstance();
 
@@ -751,6 +948,7 @@ public class SystemExport {
             this.date = date;
             this.prevBackup = prevBackup;
             this.exportCollection = exportCollection;
+            this.collectionPointers = exportCollection && parallelism > 1 ? new ArrayList<>() : null;
         }
 
         public boolean indexInfo(final Value value, final long pointer) throws TerminatedException {
@@ -767,6 +965,12 @@ public class SystemExport {
                         return (true);
                     }
 
+                    if (collectionPointers != null) {
+                        // exported in parallel by exportParallel, once the scan has released its lock
+                        collectionPointers.add(new CollectionPointer(uri, pointer));
+                        return true;
+                    }
+
                     if (callback != null) {
                         callback.startCollection(uri);
                     }
@@ -805,6 +1009,35 @@ public class SystemExport {
     }
 
 
+    private record CollectionPointer(String uri, long pointer) {
+    }
+
+    private record CollectionExport(CollectionExportBuffer buffer, DocumentSet docs) {
+    }
+
+    private static class SynchronizedStatusCallback implements StatusCallback {
+        private final StatusCallback callback;
+
+        private SynchronizedStatusCallback(final StatusCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public synchronized void startCollection(final String path) throws TerminatedException {
+            callback.startCollection(path);
+        }
+
+        @Override
+        public synchronized void startDocument(final String name, final int current, final int count) throws TerminatedException {
+            callback.startDocument(name, current, count);
+        }
+
+        @Override
+        public synchronized void error(final String message, final Throwable exception) {
+            callback.error(message, exception);
+        }
+    }
+
     private class DocumentCallback implements BTreeCallback {
         private final DocumentSet exportedDocs;
         private Set<String> writtenDocs = null;
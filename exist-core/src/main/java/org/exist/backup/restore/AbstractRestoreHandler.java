@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -92,11 +119,16 @@ public abstract class AbstractRestoreHandler extends DefaultHandler {
 
     @Nullable private final Set<String> pathsToIgnore;
 
+    @Nullable private final ParallelRestore parallelRestore;
+    @Nullable private final ParallelRestore.Subtree subtree;
+
     //handler state
     private int version = 0;
     private boolean deduplicateBlobs = false;
     @Nullable private XmldbURI currentCollectionUri = null;
     private final Deque<DeferredPermission> deferredPermissions = new ArrayDeque<>();
+    @Nullable private Txn batchTransaction = null;
+    private int batchedResources = 0;
 
     /**
      * @param broker the database broker
@@ -115,21 +147,84 @@ public abstract class AbstractRestoreHandler extends DefaultHandler {
         this.listener = listener;
         this.descriptor = descriptor;
         this.pathsToIgnore = pathsToIgnore;
+        this.parallelRestore = null;
+        this.subtree = null;
+    }
+
+    /**
+     * Constructs a handler which restores a backup descriptor
+     * as part of a {@link ParallelRestore}.
+     *
+     * Sub-collections are submitted to the parallel restore rather than
+     * being restored inline, and resources are restored in batches
+     * of transactions.
+     *
+     * @param broker the database broker
+     * @param descriptor the backup descriptor to restore
+     * @param listener the listener to report restore events to
+     * @param pathsToIgnore database paths to ignore in the backup
+     * @param parallelRestore the parallel restore
+     * @param subtree the sub-tree of the backup descriptor
+     */
+    AbstractRestoreHandler(final DBBroker broker, final BackupDescriptor descriptor, final RestoreListener listener,
+            @Nullable final Set<String> pathsToIgnore, final ParallelRestore parallelRestore,
+            final ParallelRestore.Subtree subtree) {
+        this.broker = broker;
+        this.transaction = null;
+        this.listener = listener;
+        this.descriptor = descriptor;
+        this.pathsToIgnore = pathsToIgnore;
+        this.parallelRestore = parallelRestore;
+        this.subtree = subtree;
     }
 
     /**
      * Either reuses the provided transaction
      * in a safe manner or starts a new transaction.
      *
+     * When part of a parallel restore, the transaction of
+     * the current batch is reused.
+     *
      * @return the provided transaction or a new transaction
      */
     protected Txn beginTransaction() {
+        if (parallelRestore != null) {
+            if (batchTransaction == null || batchTransaction.getState() != Txn.State.STARTED) {
+                batchTransaction = broker.continueOrBeginTransaction();
+                batchedResources = 0;
+            }
+            return broker.continueOrBeginTransaction();
+        }
+
         if (transaction == null) {
             return broker.continueOrBeginTransaction();
         }
         return new Txn.ReusableTxn(transaction);
     }
 
+    /**
+     * Commits the transaction of the current batch (if any).
+     */
+    void commitBatch() {
+        if (batchTransaction == null) {
+            return;
+        }
+
+        try {
+            if (batchTransaction.getState() == Txn.State.STARTED) {
+                batchTransaction.commit();
+            }
+        } catch (final TransactionException e) {
+            final String msg = "ERROR: Failed to commit the restore of " + batchedResources + " resources in: '" + currentCollectionUri + "'.";
+            LOG.error(msg, e);
+            listener.warn(msg);
+        } finally {
+            batchTransaction.close();
+            batchTransaction = null;
+            batchedResources = 0;
+        }
+    }
+
     @Override
     public void startDocument() throws SAXException {
         listener.processingDescriptor(descriptor.getSymbolicPath());
@@ -169,7 +264,18 @@ public abstract class AbstractRestoreHandler extends DefaultHandler {
         if (Namespaces.EXIST_NS.equals(namespaceURI) &&
                 (COLLECTION_ELEMENT_NAME.equals(localName)
                         || RESOURCE_ELEMENT_NAME.equals(localName))) {
-            setDeferredPermissions();
+            if (subtree != null && COLLECTION_ELEMENT_NAME.equals(localName)) {
+                // the sub-collections may still be being restored by other threads
+                commitBatch();
+                subtree.defer(deferredPermissions.pop());
+            } else {
+                setDeferredPermissions();
+            }
+
+            if (parallelRestore != null && RESOURCE_ELEMENT_NAME.equals(localName)
+                    && ++batchedResources >= parallelRestore.getDocumentsPerTransaction()) {
+                commitBatch();
+            }
         }
     }
 
@@ -272,6 +378,14 @@ public abstract class AbstractRestoreHandler extends DefaultHandler {
                         "is already installed.", subDescriptor.getNumberOfFiles());
                 return;
             }
+
+            if (parallelRestore != null) {
+                // make the restored resources visible before the sub-collection is restored concurrently
+                commitBatch();
+                parallelRestore.submit(subDescriptor, pathsToIgnore, subtree.fork());
+                return;
+            }
+
             final XMLReaderPool parserPool = broker.getBrokerPool().getXmlReaderPool();
             XMLReader reader = null;
             try {
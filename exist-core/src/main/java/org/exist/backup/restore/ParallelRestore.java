@@ -0,0 +1,302 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.backup.restore;
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.exist.EXistException;
+import org.exist.backup.BackupDescriptor;
+import org.exist.backup.restore.listener.RestoreListener;
+import org.exist.security.Subject;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.txn.TransactionException;
+import org.exist.storage.txn.Txn;
+import org.exist.util.EXistInputSource;
+import org.exist.util.NamedThreadFactory;
+import org.exist.util.XMLReaderPool;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Restores the Collection sub-trees of a backup concurrently.
+ *
+ * Each Collection descriptor of the backup is restored by a task which
+ * borrows its own broker from the BrokerPool, and each sub-collection that
+ * it encounters is submitted as a further task, so that independent
+ * sub-trees are restored in parallel. The resources of a Collection are
+ * stored in batches of {@code documentsPerTransaction} per transaction.
+ *
+ * Just as with a sequential restore, the permissions of a Collection are
+ * deferred until the entire sub-tree below it has been restored.
+ */
+@ThreadSafe
+public class ParallelRestore implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(ParallelRestore.class);
+
+    private final BrokerPool brokerPool;
+    private final Subject subject;
+    private final RestoreListener listener;
+    private final int documentsPerTransaction;
+    private final ExecutorService executorService;
+
+    /**
+     * The first unrecoverable error of the restore, after which
+     * no further Collection descriptors are restored.
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * @param brokerPool the database
+     * @param subject the subject to restore the backup as
+     * @param listener the listener to report restore events to, which must be thread-safe
+     * @param parallelism the number of Collection descriptors to restore concurrently, which is limited
+     *     so that the caller's broker and a broker for each task fit in the BrokerPool
+     * @param documentsPerTransaction the number of resources to restore in each transaction
+     */
+    public ParallelRestore(final BrokerPool brokerPool, final Subject subject, final RestoreListener listener,
+            final int parallelism, final int documentsPerTransaction) {
+        this.brokerPool = brokerPool;
+        this.subject = subject;
+        this.listener = listener;
+        this.documentsPerTransaction = Math.max(1, documentsPerTransaction);
+
+        final int effectiveParallelism = Math.max(1, Math.min(parallelism, brokerPool.getMax() - 1));
+        if (effectiveParallelism != parallelism) {
+            LOG.warn("Restore parallelism of {} is not possible with a maximum of {} brokers, using {}", parallelism, brokerPool.getMax(), effectiveParallelism);
+        } else {
+            LOG.info("Restoring with a parallelism of {}", effectiveParallelism);
+        }
+        this.executorService = Executors.newFixedThreadPool(effectiveParallelism, new NamedThreadFactory(brokerPool, "restore"));
+    }
+
+    int getDocumentsPerTransaction() {
+        return documentsPerTransaction;
+    }
+
+    /**
+     * Restores a backup descriptor, and all of the sub-collections
+     * that it describes.
+     *
+     * Blocks until the entire sub-tree has been restored.
+     *
+     * @param descriptor the backup descriptor to start restoring from
+     * @param pathsToIgnore database paths to ignore in the backup
+     *
+     * @throws SAXException if the restore failed with an unrecoverable error
+     */
+    public void restore(final BackupDescriptor descriptor, @Nullable final Set<String> pathsToIgnore) throws SAXException {
+        final CountDownLatch completed = new CountDownLatch(1);
+        submit(descriptor, pathsToIgnore, new Subtree(null, completed));
+
+        try {
+            completed.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+
+        @Nullable final Throwable t = failure.get();
+        if (t != null) {
+            if (t instanceof SAXException saxException) {
+                throw saxException;
+            } else if (t instanceof Exception e) {
+                throw new SAXException("Unable to restore: " + descriptor.getSymbolicPath() + ": " + e.getMessage(), e);
+            } else {
+                throw (Error) t;
+            }
+        }
+    }
+
+    /**
+     * Submits a task to restore a backup descriptor.
+     *
+     * @param descriptor the backup descriptor to restore
+     * @param pathsToIgnore database paths to ignore in the backup
+     * @param subtree the sub-tree of the backup descriptor
+     */
+    void submit(final BackupDescriptor descriptor, @Nullable final Set<String> pathsToIgnore, final Subtree subtree) {
+        executorService.execute(() -> restore(descriptor, pathsToIgnore, subtree));
+    }
+
+    private void restore(final BackupDescriptor descriptor, @Nullable final Set<String> pathsToIgnore, final Subtree subtree) {
+        try (final DBBroker broker = brokerPool.get(Optional.of(subject))) {
+            try {
+                if (failure.get() == null) {
+                    parse(broker, descriptor, pathsToIgnore, subtree);
+                }
+            } catch (final SAXParseException e) {
+                if (subtree.isRoot()) {
+                    failure.compareAndSet(null, e);
+                } else {
+                    listener.error("SAX exception while reading sub-collection " + descriptor.getSymbolicPath() + " for processing: " + e.getMessage());
+                }
+            } catch (final IOException e) {
+                if (subtree.isRoot()) {
+                    failure.compareAndSet(null, e);
+                } else {
+                    listener.error("Could not read sub-collection for processing: " + e.getMessage());
+                }
+            } catch (final Throwable t) {
+                LOG.error(t.getMessage(), t);
+                failure.compareAndSet(null, t);
+            } finally {
+                subtree.complete(broker);
+            }
+        } catch (final EXistException e) {
+            LOG.error(e.getMessage(), e);
+            failure.compareAndSet(null, e);
+            subtree.complete(null);
+        }
+    }
+
+    private void parse(final DBBroker broker, final BackupDescriptor descriptor, @Nullable final Set<String> pathsToIgnore,
+            final Subtree subtree) throws IOException, SAXException {
+        final XMLReaderPool parserPool = brokerPool.getXmlReaderPool();
+        final RestoreHandler handler = new RestoreHandler(broker, descriptor, listener, pathsToIgnore, this, subtree);
+        XMLReader reader = null;
+        try {
+            reader = parserPool.borrowXMLReader();
+
+            final EXistInputSource is = descriptor.getInputSource();
+            is.setEncoding(UTF_8.displayName());
+
+            reader.setContentHandler(handler);
+            reader.parse(is);
+        } finally {
+            handler.commitBatch();
+
+            if (reader != null) {
+                parserPool.returnXMLReader(reader);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            while (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Waiting for the restore to complete...");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * A Collection of the backup and all of its descendants.
+     *
+     * Tracks the tasks that are restoring the sub-tree, so that the
+     * permissions of the Collection may be applied once they have
+     * all completed.
+     */
+    final class Subtree {
+        @Nullable private final Subtree parent;
+        @Nullable private final CountDownLatch completed;
+
+        /**
+         * The number of incomplete tasks for this sub-tree, i.e. the task restoring
+         * the Collection itself and the sub-trees of each of its sub-collections.
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private volatile @Nullable DeferredPermission deferredPermission;
+
+        private Subtree(@Nullable final Subtree parent, @Nullable final CountDownLatch completed) {
+            this.parent = parent;
+            this.completed = completed;
+        }
+
+        boolean isRoot() {
+            return parent == null;
+        }
+
+        /**
+         * Creates the sub-tree of a sub-collection.
+         *
+         * @return the sub-tree, which must be completed by a call to {@link #complete(DBBroker)}
+         */
+        Subtree fork() {
+            pending.incrementAndGet();
+            return new Subtree(this, null);
+        }
+
+        /**
+         * Defers the permissions of the Collection until its sub-tree has been restored.
+         *
+         * @param deferredPermission the deferred permissions of the Collection
+         */
+        void defer(final DeferredPermission deferredPermission) {
+            this.deferredPermission = deferredPermission;
+        }
+
+        /**
+         * Signals that a task for this sub-tree has completed.
+         *
+         * @param broker the broker of the task, or null if the task was unable to obtain a broker
+         */
+        void complete(@Nullable final DBBroker broker) {
+            if (pending.decrementAndGet() > 0) {
+                return;
+            }
+
+            @Nullable final DeferredPermission deferredPermission = this.deferredPermission;
+            if (deferredPermission != null && broker != null && failure.get() == null) {
+                try (final Txn transaction = broker.continueOrBeginTransaction()) {
+                    deferredPermission.apply(broker, transaction);
+
+                    transaction.commit();
+                } catch (final TransactionException e) {
+                    final String msg = "ERROR: Failed to set permissions on: '" + deferredPermission.getTarget() + "'.";
+                    LOG.error(msg, e);
+                    listener.warn(msg);
+                }
+            }
+
+            if (parent != null) {
+                parent.complete(broker);
+            } else if (completed != null) {
+                completed.countDown();
+            }
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -51,6 +78,20 @@ public class RestoreHandler extends AbstractRestoreHandler {
         super(broker, transaction, descriptor, listener, pathsToIgnore);
     }
 
+    /**
+     * @param broker the database broker
+     * @param descriptor the backup descriptor to restore
+     * @param listener the listener to report restore events to
+     * @param pathsToIgnore database paths to ignore in the backup
+     * @param parallelRestore the parallel restore
+     * @param subtree the sub-tree of the backup descriptor
+     */
+    RestoreHandler(final DBBroker broker, final BackupDescriptor descriptor, final RestoreListener listener,
+            @Nullable final Set<String> pathsToIgnore, final ParallelRestore parallelRestore,
+            final ParallelRestore.Subtree subtree) {
+        super(broker, descriptor, listener, pathsToIgnore, parallelRestore, subtree);
+    }
+
     @Override
     protected AbstractRestoreHandler newSelf(final DBBroker broker, final @Nullable Txn transaction,
             final BackupDescriptor descriptor, final RestoreListener listener,
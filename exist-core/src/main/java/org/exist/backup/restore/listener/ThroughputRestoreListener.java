@@ -0,0 +1,105 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.backup.restore.listener;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Decorates a {@link RestoreListener} so that it may be shared
+ * by the threads of a parallel restore, and reports the throughput
+ * of the restore to it via {@link RestoreListener#progress(long, long)}.
+ */
+@ThreadSafe
+public class ThroughputRestoreListener implements RestoreListener {
+
+    /**
+     * The number of resources to restore between progress reports.
+     */
+    public static final int PROGRESS_INTERVAL = 1_000;
+
+    @GuardedBy("this") private final RestoreListener listener;
+    @GuardedBy("this") private long started;
+    @GuardedBy("this") private long restoredResources;
+
+    public ThroughputRestoreListener(final RestoreListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void started(final long numberOfFiles) {
+        this.started = System.currentTimeMillis();
+        this.restoredResources = 0;
+        listener.started(numberOfFiles);
+    }
+
+    @Override
+    public synchronized void processingDescriptor(final String backupDescriptor) {
+        listener.processingDescriptor(backupDescriptor);
+    }
+
+    @Override
+    public synchronized void createdCollection(final String collection) {
+        listener.createdCollection(collection);
+    }
+
+    @Override
+    public synchronized void restoredResource(final String resource) {
+        listener.restoredResource(resource);
+        if (++restoredResources % PROGRESS_INTERVAL == 0) {
+            listener.progress(restoredResources, System.currentTimeMillis() - started);
+        }
+    }
+
+    @Override
+    public synchronized void skipResources(final String message, final long count) {
+        listener.skipResources(message, count);
+    }
+
+    @Override
+    public synchronized void info(final String message) {
+        listener.info(message);
+    }
+
+    @Override
+    public synchronized void warn(final String message) {
+        listener.warn(message);
+    }
+
+    @Override
+    public synchronized void error(final String message) {
+        listener.error(message);
+    }
+
+    @Override
+    public synchronized void progress(final long restoredResources, final long elapsed) {
+        listener.progress(restoredResources, elapsed);
+    }
+
+    @Override
+    public synchronized void finished() {
+        listener.progress(restoredResources, System.currentTimeMillis() - started);
+        listener.finished();
+    }
+}
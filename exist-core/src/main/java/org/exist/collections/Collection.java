@@ -1218,6 +1218,16 @@ public interface Collection extends Resource, Comparable<Collection>, AutoClosea
     interface InternalAccess {
         void addDocument(DocumentImpl doc) throws EXistException;
         int getId();
+
+        /**
+         * Determines how the next document of the Collection is to be read.
+         *
+         * @return true if the document should be fully read and passed to {@link #addDocument(DocumentImpl)},
+         *     false if just its id and name should be passed to {@link #addDocumentEntry(int, byte, String)}.
+         */
+        boolean readNextDocument();
+
+        void addDocumentEntry(int docId, byte resourceType, String fileName) throws EXistException;
     }
 
 
@@ -0,0 +1,415 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.collections;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.exist.dom.persistent.DocumentImpl;
+import org.exist.storage.DBBroker;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The Documents of a Collection.
+ *
+ * The name and id of every Document in the Collection is held in memory,
+ * whereas the {@link DocumentImpl} objects, which hold the metadata of the
+ * Documents, are read from the collections store on demand. At most
+ * {@code maxResident} of those objects are held strongly, in least-recently-used
+ * order; any others are held weakly, so that the same object is returned for as
+ * long as it is in use elsewhere, but may otherwise be reclaimed and read again
+ * when next needed.
+ *
+ * Iteration order is the insertion order of the Documents, see
+ * {@link MutableCollection}. Iterators are stable, they do not copy the
+ * Documents, and they are unaffected by Documents added after they were created;
+ * Documents that are removed whilst iterating are skipped.
+ */
+@ThreadSafe
+final class DocumentDirectory {
+
+    private static final Logger LOG = LogManager.getLogger(DocumentDirectory.class);
+
+    /**
+     * Approximate memory size of an entry for a Document that is not resident.
+     */
+    static final int ENTRY_SIZE = 120;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_COMPACT_SIZE = 64;
+
+    private final Collection collection;
+    private final int maxResident;
+
+    @GuardedBy("this") private final Map<String, Entry> entriesByName = new HashMap<>();
+    @GuardedBy("this") private Entry[] entries = new Entry[INITIAL_CAPACITY];
+    @GuardedBy("this") private int length = 0;
+    @GuardedBy("this") private int removed = 0;
+    @GuardedBy("this") private final LinkedHashMap<Entry, DocumentImpl> resident;
+
+    /**
+     * @param collection the Collection which holds the Documents
+     * @param maxResident the maximum number of Documents to strongly hold in memory, or a value less than 1 for no limit
+     */
+    DocumentDirectory(final Collection collection, final int maxResident) {
+        this.collection = collection;
+        this.maxResident = maxResident > 0 ? maxResident : Integer.MAX_VALUE;
+        this.resident = new LinkedHashMap<>(INITIAL_CAPACITY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Entry, DocumentImpl> eldest) {
+                if (size() > DocumentDirectory.this.maxResident) {
+                    eldest.getKey().reference = new WeakReference<>(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns true if another Document should be made resident when
+     * the Collection is read from the collections store.
+     *
+     * @return true if there is space for another resident Document
+     */
+    synchronized boolean hasResidentCapacity() {
+        return resident.size() < maxResident;
+    }
+
+    synchronized int size() {
+        return entriesByName.size();
+    }
+
+    synchronized boolean isEmpty() {
+        return entriesByName.isEmpty();
+    }
+
+    synchronized int residentSize() {
+        return resident.size();
+    }
+
+    synchronized boolean contains(final String name) {
+        return entriesByName.containsKey(name);
+    }
+
+    /**
+     * Adds a Document, or replaces the Document of the same name.
+     *
+     * The Document is made resident.
+     *
+     * @param doc the document
+     */
+    synchronized void put(final DocumentImpl doc) {
+        final Entry entry = entry(doc.getDocId(), doc.getResourceType(), doc.getFileURI().lastSegmentString());
+        resident.put(entry, doc);
+    }
+
+    /**
+     * Adds a Document which is not resident; it will be read from
+     * the collections store when it is first needed.
+     *
+     * @param docId the id of the Document
+     * @param resourceType the type of the Document
+     * @param name the name of the Document
+     */
+    synchronized void putEntry(final int docId, final byte resourceType, final String name) {
+        entry(docId, resourceType, name);
+    }
+
+    @GuardedBy("this")
+    private Entry entry(final int docId, final byte resourceType, final String name) {
+        Entry entry = entriesByName.get(name);
+        if (entry == null) {
+            if (length == entries.length) {
+                compact(Math.max(INITIAL_CAPACITY, (length - removed) * 2));
+            }
+            entry = new Entry(name, length);
+            entries[length++] = entry;
+            entriesByName.put(name, entry);
+        } else {
+            // NOTE: the document replaces the previous document of the same name in the same position
+            resident.remove(entry);
+        }
+        entry.docId = docId;
+        entry.resourceType = resourceType;
+        entry.reference = null;
+        return entry;
+    }
+
+    /**
+     * Removes a Document.
+     *
+     * @param name the name of the Document
+     */
+    synchronized void remove(final String name) {
+        final Entry entry = entriesByName.remove(name);
+        if (entry == null) {
+            return;
+        }
+
+        entry.removed = true;
+        entry.reference = null;
+        resident.remove(entry);
+        entries[entry.index] = null;
+
+        if (++removed > MIN_COMPACT_SIZE && removed > length / 2) {
+            compact(Math.max(INITIAL_CAPACITY, (length - removed) * 2));
+        }
+    }
+
+    /**
+     * Moves the entries into a new array, dropping those that
+     * have been removed. Iterators hold a reference to the previous array,
+     * so it must never be modified after this.
+     */
+    @GuardedBy("this")
+    private void compact(final int capacity) {
+        final Entry[] compacted = new Entry[capacity];
+        int compactedLength = 0;
+        for (int i = 0; i < length; i++) {
+            final Entry entry = entries[i];
+            if (entry != null) {
+                entry.index = compactedLength;
+                compacted[compactedLength++] = entry;
+            }
+        }
+        this.entries = compacted;
+        this.length = compactedLength;
+        this.removed = 0;
+    }
+
+    /**
+     * Gets a Document.
+     *
+     * @param broker the database broker, used for reading the Document if it is not resident
+     * @param name the name of the Document
+     *
+     * @return the Document, or null if there is no such Document
+     */
+    @Nullable DocumentImpl get(final DBBroker broker, final String name) {
+        final Entry entry;
+        synchronized (this) {
+            entry = entriesByName.get(name);
+        }
+        if (entry == null) {
+            return null;
+        }
+        return resolve(broker, entry);
+    }
+
+    /**
+     * Gets the Document of an entry, reading it from the collections store
+     * if it is not in memory.
+     *
+     * The Document is read without holding the monitor of this directory,
+     * so that other threads are not blocked on the I/O, and the lock
+     * on the collections store is never taken whilst holding the monitor.
+     *
+     * @param broker the database broker, used for reading the Document if it is not in memory
+     * @param entry the entry of the Document
+     *
+     * @return the Document, or null if it was removed or could not be read
+     */
+    private @Nullable DocumentImpl resolve(final DBBroker broker, final Entry entry) {
+        while (true) {
+            final int docId;
+            final byte resourceType;
+            synchronized (this) {
+                if (entry.removed) {
+                    return null;
+                }
+                final DocumentImpl doc = residentDocument(entry);
+                if (doc != null) {
+                    return doc;
+                }
+                docId = entry.docId;
+                resourceType = entry.resourceType;
+            }
+
+            final DocumentImpl doc = broker.getCollectionResource(collection.getId(), resourceType, docId);
+            if (doc == null) {
+                LOG.error("Unable to read Document '{}' of Collection '{}'", entry.name, collection.getURI());
+                return null;
+            }
+            doc.setCollection(collection);
+
+            synchronized (this) {
+                if (entry.removed) {
+                    return null;
+                }
+                if (entry.docId != docId) {
+                    // the Document was replaced whilst it was being read
+                    continue;
+                }
+
+                // another thread may have read the Document whilst it was being read
+                final DocumentImpl other = residentDocument(entry);
+                if (other != null) {
+                    return other;
+                }
+
+                resident.put(entry, doc);
+                return doc;
+            }
+        }
+    }
+
+    /**
+     * Gets the Document of an entry if it is in memory, making it resident.
+     *
+     * @param entry the entry of the Document
+     *
+     * @return the Document, or null if it is not in memory
+     */
+    @GuardedBy("this")
+    private @Nullable DocumentImpl residentDocument(final Entry entry) {
+        DocumentImpl doc = resident.get(entry);
+        if (doc != null) {
+            return doc;
+        }
+
+        if (entry.reference != null) {
+            doc = entry.reference.get();
+            entry.reference = null;
+            if (doc != null) {
+                resident.put(entry, doc);
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * Returns the Documents which are currently in memory, i.e. either
+     * resident or still in use elsewhere.
+     *
+     * @return the Documents which are in memory.
+     */
+    synchronized List<DocumentImpl> inMemory() {
+        final List<DocumentImpl> docs = new ArrayList<>(resident.values());
+        for (int i = 0; i < length; i++) {
+            final Entry entry = entries[i];
+            if (entry != null && entry.reference != null) {
+                final DocumentImpl doc = entry.reference.get();
+                if (doc != null) {
+                    docs.add(doc);
+                }
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * Returns an iterator over the Documents.
+     *
+     * Documents which are not resident are read as the iterator reaches them.
+     *
+     * @param broker the database broker, used for reading Documents which are not resident
+     *
+     * @return an iterator over the Documents
+     */
+    synchronized Iterator<DocumentImpl> iterator(final DBBroker broker) {
+        return new EntryIterator<>(entries, length) {
+            @Override
+            @Nullable DocumentImpl value(final Entry entry) {
+                return resolve(broker, entry);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the names of the Documents.
+     *
+     * @return an iterator over the names of the Documents
+     */
+    synchronized Iterator<String> nameIterator() {
+        return new EntryIterator<>(entries, length) {
+            @Override
+            @Nullable String value(final Entry entry) {
+                return entry.removed ? null : entry.name;
+            }
+        };
+    }
+
+    private static final class Entry {
+        private final String name;
+        private int index;
+        private int docId;
+        private byte resourceType;
+        private volatile boolean removed;
+        @Nullable private WeakReference<DocumentImpl> reference;
+
+        private Entry(final String name, final int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+
+    private abstract static class EntryIterator<T> implements Iterator<T> {
+        private final Entry[] entries;
+        private final int length;
+        private int position = 0;
+        @Nullable private T next;
+
+        private EntryIterator(final Entry[] entries, final int length) {
+            this.entries = entries;
+            this.length = length;
+        }
+
+        /**
+         * @return the value for the entry, or null if the entry should be skipped
+         */
+        abstract @Nullable T value(Entry entry);
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && position < length) {
+                final Entry entry = entries[position++];
+                if (entry != null) {
+                    next = value(entry);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T value = next;
+            next = null;
+            return value;
+        }
+    }
+}
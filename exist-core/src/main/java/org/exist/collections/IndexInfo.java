@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -29,6 +56,7 @@ import org.exist.security.Permission;
 import org.exist.storage.DBBroker;
 import org.exist.storage.lock.ManagedDocumentLock;
 import org.exist.storage.txn.Txn;
+import org.exist.util.sax.event.SAXEventRecorder;
 import org.exist.util.serializer.DOMStreamer;
 import org.exist.xmldb.XmldbURI;
 import org.xml.sax.ContentHandler;
@@ -103,6 +131,46 @@ public class IndexInfo {
         reader.setErrorHandler(indexer);
     }
 
+    /**
+     * Set the reader to parse the document, whilst recording the events
+     * so that they may be replayed by {@link #replay(SAXEventRecorder)}
+     * instead of parsing the document again.
+     *
+     * @param reader the XML reader
+     * @param entityResolver an entity resolver, or null
+     * @param recorder the recorder of the events
+     *
+     * @throws SAXException if the reader cannot be configured
+     */
+    void setReader(final XMLReader reader, final EntityResolver entityResolver, final SAXEventRecorder recorder) throws SAXException {
+        if(entityResolver != null) {
+            reader.setEntityResolver(entityResolver);
+        }
+        if (docTriggers == null) {
+            recorder.setHandlers(indexer, indexer);
+        } else {
+            recorder.setHandlers(docTriggers, docTriggers);
+        }
+        reader.setProperty(Namespaces.SAX_LEXICAL_HANDLER, recorder);
+        reader.setContentHandler(recorder);
+        reader.setErrorHandler(indexer);
+    }
+
+    /**
+     * Replay the events recorded whilst parsing the document.
+     *
+     * @param recorder the recorder of the events
+     *
+     * @throws SAXException if an error occurs whilst processing the events
+     */
+    void replay(final SAXEventRecorder recorder) throws SAXException {
+        if (docTriggers == null) {
+            recorder.replay(indexer, indexer);
+        } else {
+            recorder.replay(docTriggers, docTriggers);
+        }
+    }
+
     void setDOMStreamer(final DOMStreamer streamer) {
         this.streamer = streamer;
         if (docTriggers == null) {
@@ -87,6 +87,7 @@ import org.exist.util.MimeType;
 import org.exist.util.XMLReaderObjectFactory;
 import org.exist.util.XMLReaderObjectFactory.VALIDATION_SETTING;
 import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
+import org.exist.util.sax.event.SAXEventRecorder;
 import org.exist.util.serializer.DOMStreamer;
 import org.exist.xmldb.XmldbURI;
 import org.exist.xquery.Constants;
@@ -115,19 +116,26 @@ public class MutableCollection implements Collection {
     private static final int SHALLOW_SIZE = 550;
     private static final int DOCUMENT_SIZE = 450;
 
+    public static final String RESIDENT_DOCUMENTS_ATTRIBUTE = "collectionResidentDocuments";
+    public static final String PROPERTY_RESIDENT_DOCUMENTS = "db-connection.collection-resident-documents";
+    public static final int DEFAULT_RESIDENT_DOCUMENTS = 10_000;
+
     private final int collectionId;
     private XmldbURI path;
     private final LockManager lockManager;
 
     /*
-     * LinkedHashSet is used to ensure a consistent iteration order of child Documents.
-     * The `insertion-order` of a LinkedHashSet means we effectively order by Document creation
+     * DocumentDirectory is used to ensure a consistent iteration order of child Documents.
+     * The `insertion-order` of a DocumentDirectory means we effectively order by Document creation
      * time, i.e. oldest first.
      * This ordering ensures that adding new Documents does not affect the existing order of Documents,
      * in this manner locks acquired when iterating are always acquired and released in the same order
      * which gives us deadlock avoidance for Document iteration.
+     *
+     * Only a bounded number of the DocumentImpl objects are held in memory, the others are
+     * read from the collections store when needed, see {@link #RESIDENT_DOCUMENTS_ATTRIBUTE}.
      */
-    @GuardedBy("LockManager") private final LinkedHashMap<String, DocumentImpl> documents;
+    @GuardedBy("LockManager") private final DocumentDirectory documents;
 
     /*
      * LinkedHashSet is used to ensure a consistent iteration order of sub-Collections.
@@ -152,7 +160,7 @@ public class MutableCollection implements Collection {
      * @param path The path of the Collection
      */
     public MutableCollection(final DBBroker broker, final int collectionId, final XmldbURI path) {
-        this(broker, collectionId, path, null, -1, null, null);
+        this(broker, collectionId, path, null, -1, null);
     }
 
     /**
@@ -167,7 +175,7 @@ public class MutableCollection implements Collection {
     public MutableCollection(final DBBroker broker, final int collectionId,
             @EnsureLocked(mode=LockMode.READ_LOCK, type=LockType.COLLECTION) final XmldbURI path,
             @Nullable final Permission permissions, final long created) {
-        this(broker, collectionId, path, permissions, created, null, null);
+        this(broker, collectionId, path, permissions, created, null);
     }
 
     /**
@@ -179,20 +187,18 @@ public class MutableCollection implements Collection {
      * @param permissions The permissions of the collection, or null for the default
      * @param created The created time of the collection, or -1 for now
      * @param subCollections the sub-collections
-     * @param documents the documents in the collection
      */
     private MutableCollection(final DBBroker broker, final int collectionId,
             @EnsureLocked(mode=LockMode.READ_LOCK, type=LockType.COLLECTION) final XmldbURI path,
             @Nullable final Permission permissions, final long created,
-            @Nullable final LinkedHashSet<XmldbURI> subCollections,
-            @Nullable final LinkedHashMap<String, DocumentImpl> documents) {
+            @Nullable final LinkedHashSet<XmldbURI> subCollections) {
         setPath(path);
         this.collectionId = collectionId;
         this.permissions = permissions != null ? permissions : PermissionFactory.getDefaultCollectionPermission(broker.getBrokerPool().getSecurityManager());
         this.created = created > 0 ? created : System.currentTimeMillis();
         this.lockManager = broker.getBrokerPool().getLockManager();
         this.subCollections = subCollections != null ? subCollections : new LinkedHashSet<>();
-        this.documents = documents != null ? documents : new LinkedHashMap<>();
+        this.documents = new DocumentDirectory(this, broker.getConfiguration().getInteger(PROPERTY_RESIDENT_DOCUMENTS, DEFAULT_RESIDENT_DOCUMENTS));
     }
 
     /**
@@ -228,10 +234,10 @@ public class MutableCollection implements Collection {
         this.path = path;
 
         if (updateChildren) {
-            for (final Map.Entry<String, DocumentImpl> docEntry : documents.entrySet()) {
-                final XmldbURI docUri = path.append(docEntry.getKey());
+            // NOTE: documents which are not in memory will be given this Collection when they are next read
+            for (final DocumentImpl doc : documents.inMemory()) {
+                final XmldbURI docUri = path.append(doc.getFileURI());
                 try (final ManagedDocumentLock documentLock = lockManager.acquireDocumentWriteLock(docUri)) {
-                    final DocumentImpl doc = docEntry.getValue();
                     doc.setCollection(this);  // this will invalidate the cached `uri` in DocumentImpl
                 } catch (final LockException e) {
                     LOG.error(e.getMessage(), e);
@@ -260,12 +266,8 @@ public class MutableCollection implements Collection {
         return new LinkedHashSet<>(set).iterator();
     }
 
-    private static Iterator<DocumentImpl> stableDocumentIterator(final LinkedHashMap<String, DocumentImpl> documents) {
-        return new ArrayList<>(documents.values()).iterator();
-    }
-
-    private static Iterator<String> stableDocumentNameIterator(final LinkedHashMap<String, DocumentImpl> documents) {
-        return new ArrayList<>(documents.keySet()).iterator();
+    private static Iterator<DocumentImpl> stableDocumentIterator(final DBBroker broker, final DocumentDirectory documents) {
+        return documents.iterator(broker);
     }
 
     @Override
@@ -280,7 +282,7 @@ public class MutableCollection implements Collection {
             }
 
             subCollectionIterator = stableIterator(subCollections);
-            documentIterator = stableDocumentIterator(documents);
+            documentIterator = stableDocumentIterator(broker, documents);
         }
 
         while(subCollectionIterator.hasNext()) {
@@ -330,7 +332,7 @@ public class MutableCollection implements Collection {
 
         final CollectionEntry entry;
         try(final ManagedCollectionLock collectionLock = lockManager.acquireCollectionReadLock(path)) {
-            final DocumentImpl doc = documents.get(name);
+            final DocumentImpl doc = documents.get(broker, name);
 
             try(final ManagedDocumentLock docLock = lockManager.acquireDocumentReadLock(doc.getURI())) {
 
@@ -389,7 +391,7 @@ public class MutableCollection implements Collection {
                 // NOTE: early release of Collection lock inline with Asymmetrical Locking scheme
                 collectionLock.close();
 
-                documents.put(doc.getFileURI().lastSegmentString(), doc);
+                documents.put(doc);
             }
         }
     }
@@ -540,7 +542,7 @@ public class MutableCollection implements Collection {
             if(!getPermissionsNoLock().validate(broker.getCurrentSubject(), Permission.READ)) {
                 throw new PermissionDeniedException("Permission denied to read collection: " + path);
             }
-            documentIterator = stableDocumentIterator(documents);
+            documentIterator = stableDocumentIterator(broker, documents);
             docs.addCollection(this);
         }
         addDocumentsToSet(broker, documentIterator, docs);
@@ -550,7 +552,7 @@ public class MutableCollection implements Collection {
 
     @Override
     public DocumentSet getDocumentsNoLock(final DBBroker broker, final MutableDocumentSet docs) {
-        final Iterator<DocumentImpl> documentIterator = stableDocumentIterator(documents);
+        final Iterator<DocumentImpl> documentIterator = stableDocumentIterator(broker, documents);
         docs.addCollection(this);
         addDocumentsToSet(broker, documentIterator, docs);
         return docs;
@@ -564,7 +566,7 @@ public class MutableCollection implements Collection {
             if(!getPermissionsNoLock().validate(broker.getCurrentSubject(), Permission.READ)) {
                 throw new PermissionDeniedException("Permission denied to read collection: " + path);
             }
-            documentIterator = stableDocumentIterator(documents);
+            documentIterator = stableDocumentIterator(broker, documents);
             docs.addCollection(this);
         }
         addDocumentsToSet(broker, documentIterator, docs, lockMap, lockType);
@@ -634,7 +636,7 @@ public class MutableCollection implements Collection {
     @Override
     public int getMemorySize() {
         try(final ManagedCollectionLock collectionLock = lockManager.acquireCollectionReadLock(path)) {
-            return SHALLOW_SIZE + (documents.size() * DOCUMENT_SIZE);
+            return getMemorySizeNoLock();
         } catch(final LockException e) {
             LOG.error(e);
             return -1;
@@ -643,7 +645,7 @@ public class MutableCollection implements Collection {
 
     @Override
     public int getMemorySizeNoLock() {
-        return SHALLOW_SIZE + (documents.size() * DOCUMENT_SIZE);
+        return SHALLOW_SIZE + (documents.size() * DocumentDirectory.ENTRY_SIZE) + (documents.residentSize() * DOCUMENT_SIZE);
     }
 
     @Override
@@ -679,7 +681,7 @@ public class MutableCollection implements Collection {
         try(final ManagedCollectionLock collectionLock = lockManager.acquireCollectionReadLock(path)) {
 
             try(final ManagedDocumentLock docLock = lockManager.acquireDocumentReadLock(getURI().append(name.lastSegment()))) {
-                final DocumentImpl doc = documents.get(name.lastSegmentString());
+                final DocumentImpl doc = documents.get(broker, name.lastSegmentString());
 
                 // NOTE: early release of Collection lock inline with Asymmetrical Locking scheme
                 collectionLock.close();
@@ -730,7 +732,7 @@ public class MutableCollection implements Collection {
             };    // we unlock on error, or if there is no Collection
 
 
-            final DocumentImpl doc = documents.get(name.lastSegmentString());
+            final DocumentImpl doc = documents.get(broker, name.lastSegmentString());
 
             // NOTE: early release of Collection lock inline with Asymmetrical Locking scheme
             collectionLock.close();
@@ -751,7 +753,7 @@ public class MutableCollection implements Collection {
 
     @Override
     public DocumentImpl getDocumentNoLock(final DBBroker broker, final String rawPath) throws PermissionDeniedException {
-        final DocumentImpl doc = documents.get(rawPath);
+        final DocumentImpl doc = documents.get(broker, rawPath);
         if(doc != null) {
             if(!doc.getPermissions().validate(broker.getCurrentSubject(), Permission.READ)) {
                 throw new PermissionDeniedException("Permission denied to read document: " + rawPath);
@@ -837,11 +839,11 @@ public class MutableCollection implements Collection {
                 throw new PermissionDeniedException("Permission denied to read collection: " + path);
             }
 
-            return documents.containsKey(name.lastSegmentString());
+            return documents.contains(name.lastSegmentString());
         } catch(final LockException e) {
             LOG.warn(e.getMessage(), e);
             //TODO : ouch ! Should we return at any price ? Without even logging ? -pb
-            return documents.containsKey(name.lastSegmentString());
+            return documents.contains(name.lastSegmentString());
         }
     }
 
@@ -867,7 +869,14 @@ public class MutableCollection implements Collection {
 
     @Override
     public Iterator<DocumentImpl> iterator(final DBBroker broker) throws PermissionDeniedException, LockException {
-        return getDocuments(broker, new DefaultDocumentSet()).getDocumentIterator();
+        final Iterator<DocumentImpl> documentIterator;
+        try(final ManagedCollectionLock collectionLock = lockManager.acquireCollectionReadLock(path)) {
+            if(!getPermissionsNoLock().validate(broker.getCurrentSubject(), Permission.READ)) {
+                throw new PermissionDeniedException("Permission denied to read collection: " + path);
+            }
+            documentIterator = stableDocumentIterator(broker, documents);
+        }
+        return readableDocumentIterator(broker, documentIterator);
     }
 
     @Override
@@ -875,8 +884,46 @@ public class MutableCollection implements Collection {
         if(!getPermissionsNoLock().validate(broker.getCurrentSubject(), Permission.READ)) {
             throw new PermissionDeniedException("Permission denied to read collection: " + path);
         }
-        
-        return getDocumentsNoLock(broker, new DefaultDocumentSet()).getDocumentIterator();
+
+        return readableDocumentIterator(broker, stableDocumentIterator(broker, documents));
+    }
+
+    /**
+     * Filters the documents to those that the current user may read.
+     *
+     * The documents are checked as the iterator advances, rather than up-front,
+     * so that iterating over a very large Collection does not require all of its
+     * documents to be held in memory at once.
+     */
+    private Iterator<DocumentImpl> readableDocumentIterator(final DBBroker broker, final Iterator<DocumentImpl> documentIterator) {
+        return new Iterator<>() {
+            @Nullable private DocumentImpl next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && documentIterator.hasNext()) {
+                    final DocumentImpl doc = documentIterator.next();
+                    try(final ManagedDocumentLock lockedDoc = lockManager.acquireDocumentReadLock(doc.getURI())) {
+                        if(doc.getPermissions().validate(broker.getCurrentSubject(), Permission.READ)) {
+                            next = doc;
+                        }
+                    } catch (final LockException e) {
+                        LOG.error(e.getMessage(), e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public DocumentImpl next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final DocumentImpl doc = next;
+                next = null;
+                return doc;
+            }
+        };
     }
 
     /**
@@ -948,10 +995,8 @@ public class MutableCollection implements Collection {
 
             final long created = istream.readLong();
 
-            final LinkedHashMap<String, DocumentImpl> documents = new LinkedHashMap<>();
-
             final MutableCollection collection =
-                new MutableCollection(broker, collectionId, path, permission, created,subCollections, documents);
+                new MutableCollection(broker, collectionId, path, permission, created, subCollections);
 
             broker.getCollectionResources(new InternalAccess() {
                 @Override
@@ -963,7 +1008,22 @@ public class MutableCollection implements Collection {
                         throw new EXistException("Document must have ID.");
                     }
 
-                    documents.put(doc.getFileURI().lastSegmentString(), doc);
+                    collection.documents.put(doc);
+                }
+
+                @Override
+                public boolean readNextDocument() {
+                    return collection.documents.hasResidentCapacity();
+                }
+
+                @Override
+                public void addDocumentEntry(final int docId, final byte resourceType, final String fileName) throws EXistException {
+                    if (docId == DocumentImpl.UNKNOWN_DOCUMENT_ID) {
+                        LOG.error("Document must have ID. [{}]", fileName);
+                        throw new EXistException("Document must have ID.");
+                    }
+
+                    collection.documents.putEntry(docId, resourceType, XmldbURI.createInternal(fileName).lastSegmentString());
                 }
 
                 @Override
@@ -1015,7 +1075,7 @@ public class MutableCollection implements Collection {
 
             try(final ManagedDocumentLock docUpdateLock = lockManager.acquireDocumentWriteLock(path.append(name.lastSegment()))) {
 
-                final DocumentImpl doc = documents.get(name.lastSegmentString());
+                final DocumentImpl doc = documents.get(broker, name.lastSegmentString());
 
                 if (doc == null) {
                     // NOTE: early release of Collection lock inline with Asymmetrical Locking scheme
@@ -1140,8 +1200,15 @@ public class MutableCollection implements Collection {
         if (mimeType.isXMLType()) {
             // Store XML Document
 
+            // records the events of the document whilst it is validated, so that it need not be parsed again to store it
+            @Nullable final SAXEventRecorder recorder = newSAXEventRecorder(broker);
+
             final BiConsumer2E<XMLReader, IndexInfo, SAXException, EXistException> validatorFn = (xmlReader1, validateIndexInfo) -> {
-                validateIndexInfo.setReader(xmlReader1, null);
+                if (recorder != null) {
+                    validateIndexInfo.setReader(xmlReader1, null, recorder);
+                } else {
+                    validateIndexInfo.setReader(xmlReader1, null);
+                }
                 try {
                       xmlReader1.parse(source);
                 } catch(final SAXException e) {
@@ -1153,10 +1220,21 @@ public class MutableCollection implements Collection {
 
             final BiConsumer2E<XMLReader, IndexInfo, SAXException, EXistException> parserFn = (xmlReader1, storeIndexInfo) -> {
                 try {
-                    storeIndexInfo.setReader(xmlReader1, null);
-                    xmlReader1.parse(source);
+                    if (recorder != null && recorder.isComplete()) {
+                        storeIndexInfo.replay(recorder);
+                    } else {
+                        if (recorder != null && LOG.isDebugEnabled()) {
+                            LOG.debug("Document {} exceeded the single-pass buffer, parsing it again to store it", getURI().append(name));
+                        }
+                        storeIndexInfo.setReader(xmlReader1, null);
+                        xmlReader1.parse(source);
+                    }
                 } catch(final IOException e) {
                     throw new EXistException(e);
+                } finally {
+                    if (recorder != null) {
+                        recorder.clear();
+                    }
                 }
             };
 
@@ -1553,7 +1631,7 @@ public class MutableCollection implements Collection {
                 // acquire the WRITE_LOCK on the Document, this lock is released in storeXMLInternal via IndexInfo
                 documentWriteLock = lockManager.acquireDocumentWriteLock(getURI().append(name.lastSegment()));
 
-                oldDoc = documents.get(name.lastSegmentString());
+                oldDoc = documents.get(broker, name.lastSegmentString());
                 checkPermissionsForAddDocument(broker, oldDoc);
 
                 // NOTE: the new `document` object actually gets discarded in favour of the `oldDoc` below if there is an oldDoc and it is XML (so we can use -1 as the docId because it will never be used)
@@ -1936,6 +2014,23 @@ public class MutableCollection implements Collection {
         return created;
     }
 
+    /**
+     * Create a recorder for the events of a document which is parsed
+     * whilst it is validated, so that the events may be replayed to
+     * store the document without parsing it again.
+     *
+     * @param broker the database broker
+     *
+     * @return the recorder, or null if single-pass storage is disabled
+     */
+    private @Nullable SAXEventRecorder newSAXEventRecorder(final DBBroker broker) {
+        final int maxBuffer = broker.getConfiguration().getProperty(Indexer.PROPERTY_SINGLE_PASS_MAX_BUFFER, Indexer.DEFAULT_SINGLE_PASS_MAX_BUFFER);
+        if (maxBuffer <= 0) {
+            return null;
+        }
+        return new SAXEventRecorder(maxBuffer * 1024L * 1024L);
+    }
+
     /** 
      * Get XML Reader from ReaderPool and setup validation when needed.
      *
@@ -2013,7 +2108,7 @@ public class MutableCollection implements Collection {
         try {
             final Iterator<String> documentNameIterator;
             try (final ManagedCollectionLock collectionLock = lockManager.acquireCollectionReadLock(path)) {
-                documentNameIterator = documents.keySet().iterator();
+                documentNameIterator = documents.nameIterator();
             }
 
             while (documentNameIterator.hasNext()) {
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -232,19 +259,21 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
 			LOG.warn(e.getMessage());
 			return;
 		}
-		
-		final XQueryContext context = new XQueryContext(broker.getBrokerPool());
-        CompiledXQuery compiledQuery = null;
+
+		final long start = System.currentTimeMillis();
+        final CompiledXQuery compiledQuery;
         try {
         	//compile the XQuery
-        	compiledQuery = service.compile(context, query);
-			declareExternalVariables(context, TriggerPhase.BEFORE, event, src, dst, isCollection);
+        	compiledQuery = borrowCompiledQuery(broker, query);
+			declareExternalVariables(compiledQuery.getContext(), TriggerPhase.BEFORE, event, src, dst, isCollection);
         	
         } catch (final XPathException | IOException | PermissionDeniedException e) {
     		TriggerStatePerThread.clear();
         	throw new TriggerException(PREPARE_EXCEPTION_MESSAGE, e);
 	    }
 
+		final XQueryContext context = compiledQuery.getContext();
+
         //execute the XQuery
         try {
         	//TODO : should we provide another contextSet ?
@@ -258,7 +287,10 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
 			TriggerStatePerThread.clear();
         	throw new TriggerException(PREPARE_EXCEPTION_MESSAGE, e);
         } finally {
+        	compiledQuery.reset();
         	context.runCleanupTasks();
+			returnCompiledQuery(broker, query, compiledQuery);
+			recordTrigger(broker, query, TriggerPhase.BEFORE, event, start);
         }
     }
     
@@ -276,19 +308,23 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
 			LOG.warn(e.getMessage());
 			return;
 		}
-		
-        final XQueryContext context = new XQueryContext(broker.getBrokerPool());
-        CompiledXQuery compiledQuery = null;
+
+		final long start = System.currentTimeMillis();
+        final CompiledXQuery compiledQuery;
         try {
         	//compile the XQuery
-        	compiledQuery = service.compile(context, query);
-			declareExternalVariables(context, TriggerPhase.AFTER, event, src, dst, isCollection);
+        	compiledQuery = borrowCompiledQuery(broker, query);
+			declareExternalVariables(compiledQuery.getContext(), TriggerPhase.AFTER, event, src, dst, isCollection);
 
         } catch (final XPathException | IOException | PermissionDeniedException e) {
         	//Should never be reached
         	LOG.error(e);
+			TriggerStatePerThread.clearIfFinished(TriggerPhase.AFTER);
+			return;
 	    }
 
+		final XQueryContext context = compiledQuery.getContext();
+
         //execute the XQuery
         try {
         	//TODO : should we provide another contextSet ?
@@ -302,7 +338,10 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
         	//Should never be reached
         	LOG.error(e);
         } finally {
+        	compiledQuery.reset();
         	context.runCleanupTasks();
+			returnCompiledQuery(broker, query, compiledQuery);
+			recordTrigger(broker, query, TriggerPhase.AFTER, event, start);
         }
 
 		TriggerStatePerThread.clearIfFinished(TriggerPhase.AFTER);
@@ -349,23 +388,55 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
 		}
 	}
 
-	private CompiledXQuery getScript(final DBBroker broker, final Txn transaction) throws TriggerException {
-		
-		//get the query
-		final Source query = getQuerySource(broker);
-		if(query == null) {
-			return null;
+	/**
+	 * Borrows the compiled Trigger's XQuery from the XQuery Pool, or
+	 * compiles it if the pool holds no valid compiled XQuery for the source.
+	 *
+	 * The XQuery Pool discards a compiled XQuery when its source, or any
+	 * module that it imports, has since been modified. The compiled XQuery
+	 * should be returned by {@link #returnCompiledQuery(DBBroker, Source, CompiledXQuery)}.
+	 *
+	 * When the source is stored in the database, modules are resolved
+	 * relative to it, whichever phase of the Trigger compiled it.
+	 *
+	 * @param broker the database broker
+	 * @param query the source of the Trigger's XQuery
+	 *
+	 * @return the compiled XQuery
+	 */
+	private CompiledXQuery borrowCompiledQuery(final DBBroker broker, final Source query) throws XPathException, IOException, PermissionDeniedException {
+		final CompiledXQuery compiledQuery = broker.getBrokerPool().getXQueryPool().borrowCompiledXQuery(broker, query);
+		if (compiledQuery != null) {
+			final XQueryContext context = compiledQuery.getContext();
+			context.prepareForReuse();
+			context.getWatchDog().reset();
+			return compiledQuery;
 		}
-		
+
 		final XQueryContext context = new XQueryContext(broker.getBrokerPool());
-        if (query instanceof DBSource) {
-            context.setModuleLoadPath(XmldbURI.EMBEDDED_SERVER_URI_PREFIX + ((DBSource)query).getDocumentPath().removeLastSegment().toString());
-        }
+		if (query instanceof DBSource) {
+			context.setModuleLoadPath(XmldbURI.EMBEDDED_SERVER_URI_PREFIX + ((DBSource) query).getDocumentPath().removeLastSegment().toString());
+		}
+		return service.compile(context, query);
+	}
+
+	private static void returnCompiledQuery(final DBBroker broker, final Source query, final CompiledXQuery compiledQuery) {
+		broker.getBrokerPool().getXQueryPool().returnCompiledXQuery(query, compiledQuery);
+	}
 
-        CompiledXQuery compiledQuery;
+	private static void recordTrigger(final DBBroker broker, final Source query, final TriggerPhase phase, final TriggerEvent event, final long start) {
+		final PerformanceStats performanceStats = broker.getBrokerPool().getPerformanceStats();
+		if (performanceStats.isEnabled()) {
+			final String eventName = phase.name().toLowerCase() + '-' + event.legacyEventName().toLowerCase();
+			performanceStats.recordTrigger(query.pathOrShortIdentifier(), eventName, System.currentTimeMillis() - start);
+		}
+	}
+
+	private CompiledXQuery getScript(final DBBroker broker, final Source query) throws TriggerException {
         try {
         	//compile the XQuery
-        	compiledQuery = service.compile(context, query);
+        	final CompiledXQuery compiledQuery = borrowCompiledQuery(broker, query);
+			final XQueryContext context = compiledQuery.getContext();
 
         	//declare user defined parameters as external variables
 			if (userDefinedVariables != null) {
@@ -406,14 +477,18 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
 			LOG.debug("Execute: {} {}({}): {}", phase, event, src, getClass().getSimpleName());
 		}
 
+		//get the query
+		final Source query = getQuerySource(broker);
+		if (query == null) {
+			// NOTE: can occur if there is no such XQueryTrigger library module available in the database
+			TriggerStatePerThread.clearIfFinished(phase);
+			return;
+		}
+
+		final long start = System.currentTimeMillis();
 		final CompiledXQuery compiledQuery;
 		try {
-			compiledQuery = getScript(broker, transaction);
-			if (compiledQuery == null) {
-				// NOTE: can occur if there is no such XQueryTrigger library module available in the database
-				TriggerStatePerThread.clearIfFinished(phase);
-				return;
-			}
+			compiledQuery = getScript(broker, query);
 		} catch (final TriggerException e) {
 			TriggerStatePerThread.clear();
 			throw e;
@@ -461,6 +536,8 @@ public class XQueryTrigger extends SAXTrigger implements DocumentTrigger, Collec
         } finally {
     		compiledQuery.reset();
         	context.runCleanupTasks();
+			returnCompiledQuery(broker, query, compiledQuery);
+			recordTrigger(broker, query, phase, event, start);
         }
 
 		TriggerStatePerThread.clearIfFinished(phase);
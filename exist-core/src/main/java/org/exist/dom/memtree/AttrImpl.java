@@ -74,7 +74,7 @@ public class AttrImpl extends NodeImpl implements Attr {
 
     @Override
     public NodeId getNodeId() {
-        return document.attrNodeId[nodeNumber];
+        return document.getAttrNodeId(nodeNumber);
     }
 
     @Override
@@ -114,6 +114,9 @@ import static org.exist.dom.QName.Validity.ILLEGAL_FORMAT;
  *  * {@link #attrValue}
  *  * {@link #references}
  *
+ * The arrays {@link #nodeId} and {@link #attrNodeId} are only allocated when the
+ * node ids are computed, i.e. when the document is expanded or made persistent.
+ *
  * This implementation stores all node data in the document object. Nodes from another document, i.e. a persistent document in the database, can be
  * stored as reference nodes, i.e. the nodes are not copied into this document object. Instead a reference is inserted which will only be expanded
  * during serialization.
@@ -141,7 +144,8 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
     // pointer into the namePool
     protected QName[] nodeName;
 
-    protected NodeId[] nodeId;
+    // only allocated by computeNodeIds()
+    @Nullable protected NodeId[] nodeId = null;
 
     //alphanumeric content
     protected int[] alpha;
@@ -152,7 +156,8 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
     // attributes
     protected QName[] attrName;
     protected int[] attrType;
-    protected NodeId[] attrNodeId;
+    // only allocated by computeNodeIds()
+    @Nullable protected NodeId[] attrNodeId = null;
     protected int[] attrParent;
     protected String[] attrValue;
     protected int nextAttr = 0;
@@ -219,7 +224,6 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
         next = new int[NODE_SIZE];
         Arrays.fill(next, -1);
         nodeName = new QName[NODE_SIZE];
-        nodeId = new NodeId[NODE_SIZE];
         alpha = new int[NODE_SIZE];
         alphaLen = new int[NODE_SIZE];
         Arrays.fill(alphaLen, -1);
@@ -227,7 +231,6 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
         attrParent = new int[ATTR_SIZE];
         attrValue = new String[ATTR_SIZE];
         attrType = new int[ATTR_SIZE];
-        attrNodeId = new NodeId[NODE_SIZE];
         treeLevel[0] = 0;
         nodeKind[0] = Node.DOCUMENT_NODE;
         document = this;
@@ -408,6 +411,28 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
         return (nextAttr++);
     }
 
+    /**
+     * Get the node id of a node.
+     *
+     * @param nodeNum the number of the node
+     *
+     * @return the node id, or null if the node ids have not been computed
+     */
+    @Nullable NodeId getNodeId(final int nodeNum) {
+        return nodeId == null ? null : nodeId[nodeNum];
+    }
+
+    /**
+     * Get the node id of an attribute.
+     *
+     * @param attr the number of the attribute
+     *
+     * @return the node id, or null if the node ids have not been computed
+     */
+    @Nullable NodeId getAttrNodeId(final int attr) {
+        return attrNodeId == null ? null : attrNodeId[attr];
+    }
+
     public int addNamespace(final int nodeNum, final QName qname) {
         if(nodeKind == null) {
             init();
@@ -466,9 +491,9 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
         System.arraycopy(nodeName, 0, newNodeName, 0, size);
         nodeName = newNodeName;
 
-        final NodeId[] newNodeId = new NodeId[newSize];
-        System.arraycopy(nodeId, 0, newNodeId, 0, size);
-        nodeId = newNodeId;
+        if (nodeId != null) {
+            nodeId = Arrays.copyOf(nodeId, newSize);
+        }
 
         final int[] newAlpha = new int[newSize];
         System.arraycopy(alpha, 0, newAlpha, 0, size);
@@ -500,9 +525,9 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
         System.arraycopy(attrType, 0, newAttrType, 0, size);
         attrType = newAttrType;
 
-        final NodeId[] newNodeId = new NodeId[newSize];
-        System.arraycopy(attrNodeId, 0, newNodeId, 0, size);
-        attrNodeId = newNodeId;
+        if (attrNodeId != null) {
+            attrNodeId = Arrays.copyOf(attrNodeId, newSize);
+        }
     }
 
     private void growReferences() {
@@ -1326,6 +1351,9 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
 
     public NodeImpl getNodeById(final NodeId id) {
         expand();
+        if(nodeId == null) {
+            return null;
+        }
         for(int i = 0; i < size; i++) {
             if(id.equals(nodeId[i])) {
                 return getNode(i);
@@ -1335,9 +1363,11 @@ public class DocumentImpl extends NodeImpl<DocumentImpl> implements Document {
     }
 
     private void computeNodeIds() {
-        if(nodeId[0] != null) {
+        if(nodeId != null && nodeId[0] != null) {
             return;
         }
+        nodeId = new NodeId[nodeKind.length];
+        attrNodeId = new NodeId[attrName.length];
         final NodeIdFactory nodeFactory = getDatabase().getNodeFactory();
         nodeId[0] = nodeFactory.documentNodeId();
         if(size == 1) {
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -66,7 +93,7 @@ public class InMemoryXMLStreamReader implements ExtendedXMLStreamReader {
                 return null;
             }
             doc.expand();
-            return doc.nodeId[currentNode];
+            return doc.getNodeId(currentNode);
         }
         return null;
     }
@@ -297,7 +324,7 @@ public class InMemoryXMLStreamReader implements ExtendedXMLStreamReader {
         }
         doc.expand();
         final int attr = doc.alpha[currentNode];
-        return doc.attrNodeId[attr + index];
+        return doc.getAttrNodeId(attr + index);
     }
 
     @Override
@@ -231,7 +231,7 @@ public abstract class NodeImpl<T extends NodeImpl<T>> implements INode<DocumentI
     @Override
     public NodeId getNodeId() {
         expand();
-        return document.nodeId[nodeNumber];
+        return document.getNodeId(nodeNumber);
     }
 
     // TODO(AR) see if we can get rid of expansion now we have org.exist.dom.memtree.reference.* classes
@@ -48,8 +48,8 @@
  */
 package org.exist.dom.persistent;
 
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.exist.EXistException;
@@ -69,6 +69,10 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Maintains a global symbol table shared by a database instance. The symbol
@@ -79,9 +83,14 @@ import java.nio.file.StandardOpenOption;
  * The global SymbolTable singleton can be retrieved from {@link org.exist.storage.BrokerPool#getSymbols()}.
  * It is saved into the database file "symbols.dbx".
  *
+ * Lookups of existing symbols, in either direction, do not take any lock.
+ * Only the allocation of a new symbol, which must also append it to
+ * "symbols.dbx", is serialized.
+ *
  * @author <a href="mailto:wolfgang@exist-db.org">Wolfgang Meier</a>
  * @author <a href="mailto:adam@evolvedbinary.com">Adam Retter</a>
  */
+@ThreadSafe
 public class SymbolTable implements BrokerPoolService, Closeable {
 
     private static final Logger LOG = LogManager.getLogger(SymbolTable.class);
@@ -125,21 +134,36 @@ public class SymbolTable implements BrokerPoolService, Closeable {
     protected final SymbolCollection mimeTypeSymbols = new SymbolCollection(SymbolType.MIMETYPE, 32);
 
     /**
-     * Temporary name pool to share QName instances during indexing.
+     * The maximum number of QName instances in the {@link #namePool},
+     * when it is full it is just cleared.
+     */
+    private static final int MAX_NAME_POOL_SIZE = 4096;
+
+    /**
+     * Temporary name pool to share QName instances during indexing,
+     * which is shared by all threads.
+     */
+    private final ConcurrentMap<NamePoolKey, QName> namePool = new ConcurrentHashMap<>();
+
+    private record NamePoolKey(byte type, String namespaceURI, String localName, String prefix) {
+    }
+
+    /**
+     * Serializes the allocation of new symbols and the writing of "symbols.dbx".
      */
-    private final QNamePool namePool = new QNamePool();
+    private final ReentrantLock allocationLock = new ReentrantLock();
 
     /**
      * set to true if the symbol table needs to be saved
      */
-    private boolean changed = false;
+    private volatile boolean changed = false;
 
     /**
      * the underlying symbols.dbx file
      */
     private Path file;
-    private final VariableByteOutputStream outBuffer = new VariableByteOutputStream(256);
-    private OutputStream os = null;
+    @GuardedBy("allocationLock") private final VariableByteOutputStream outBuffer = new VariableByteOutputStream(256);
+    @GuardedBy("allocationLock") private OutputStream os = null;
 
     @Override
     public void configure(final Configuration configuration) {
@@ -176,18 +200,21 @@ public class SymbolTable implements BrokerPoolService, Closeable {
     /**
      * Retrieve a shared QName instance from the temporary pool.
      *
-     * TODO: make the namePool thread-local to avoid synchronization.
      * @param type qname type
      * @param namespaceURI qname namespace uri
      * @param localName qname localname
      * @param prefix qname prefix
      * @return qname from pool
      */
-    public synchronized QName getQName(final short type, final String namespaceURI, final String localName, final String prefix) {
+    public QName getQName(final short type, final String namespaceURI, final String localName, final String prefix) {
         final byte itype = type == Node.ATTRIBUTE_NODE ? ElementValue.ATTRIBUTE : ElementValue.ELEMENT;
-        QName qn = namePool.get(itype, namespaceURI, localName, prefix);
+        final NamePoolKey key = new NamePoolKey(itype, namespaceURI, localName, prefix);
+        QName qn = namePool.get(key);
         if(qn == null) {
-            qn = namePool.add(itype, namespaceURI, localName, prefix);
+            if(namePool.size() >= MAX_NAME_POOL_SIZE) {
+                namePool.clear();
+            }
+            qn = namePool.computeIfAbsent(key, k -> new QName(localName, namespaceURI, prefix, itype));
         }
         return qn;
     }
@@ -199,7 +226,7 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @return unique id for the local node name of the specified element.
      */
     //TODO the (short) cast is nasty - should consider using either short or int end to end
-    public synchronized short getSymbol(final Element element) {
+    public short getSymbol(final Element element) {
         return (short) localNameSymbols.getId(element.getLocalName());
     }
 
@@ -210,7 +237,7 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @return unique id for the local node name of the specified attribute.
      */
     //TODO the (short) cast is nasty - should consider using either short or int end to end
-    public synchronized short getSymbol(final Attr attr) {
+    public short getSymbol(final Attr attr) {
         final String key = ATTR_NAME_PREFIX + attr.getLocalName();
         return (short) localNameSymbols.getId(key);
     }
@@ -223,7 +250,7 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @return unique id for local name
      */
     //TODO the (short) cast is nasty - should consider using either short or int end to end
-    public synchronized short getSymbol(final String name) {
+    public short getSymbol(final String name) {
         if(name.length() == 0) {
             throw new IllegalArgumentException("name is empty");
         }
@@ -237,14 +264,14 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @return unique id for namespace uri
      */
     //TODO the (short) cast is nasty - should consider using either short or int end to end
-    public synchronized short getNSSymbol(final String ns) {
+    public short getNSSymbol(final String ns) {
         if(ns == null || ns.length() == 0) {
             return 0;
         }
         return (short) namespaceSymbols.getId(ns);
     }
 
-    public synchronized int getMimeTypeId(final String mimeType) {
+    public int getMimeTypeId(final String mimeType) {
         return mimeTypeSymbols.getId(mimeType);
     }
 
@@ -252,7 +279,7 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @return true if the symbol table needs to be saved to persistent storage.
      *
      */
-    public synchronized boolean hasChanged() {
+    public boolean hasChanged() {
         return changed;
     }
 
@@ -263,11 +290,11 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @param id identifier
      * @return the local name registered for the id or null if the name is not known.
      */
-    public synchronized String getName(final short id) {
+    public String getName(final short id) {
         return localNameSymbols.getSymbol(id);
     }
 
-    public synchronized String getMimeType(final int id) {
+    public String getMimeType(final int id) {
         return mimeTypeSymbols.getSymbol(id);
     }
 
@@ -279,7 +306,7 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @param id identifier
      * @return  the namespace URI registered for the id or null
      */
-    public synchronized String getNamespace(final short id) {
+    public String getNamespace(final short id) {
         return namespaceSymbols.getSymbol(id);
     }
 
@@ -290,12 +317,17 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      * @param os outputstream
      * @throws IOException in response to an IO error
      */
-    private synchronized void writeAll(final VariableByteOutputStream os) throws IOException {
-        os.writeFixedInt(FILE_FORMAT_VERSION_ID);
-        localNameSymbols.write(os);
-        namespaceSymbols.write(os);
-        mimeTypeSymbols.write(os);
-        changed = false;
+    private void writeAll(final VariableByteOutputStream os) throws IOException {
+        allocationLock.lock();
+        try {
+            os.writeFixedInt(FILE_FORMAT_VERSION_ID);
+            localNameSymbols.write(os);
+            namespaceSymbols.write(os);
+            mimeTypeSymbols.write(os);
+            changed = false;
+        } finally {
+            allocationLock.unlock();
+        }
     }
 
     /**
@@ -404,7 +436,8 @@ public class SymbolTable implements BrokerPoolService, Closeable {
      *
      * @throws EXistException in response to the error
      */
-    private synchronized void loadSymbols() throws EXistException {
+    private void loadSymbols() throws EXistException {
+        allocationLock.lock();
         try(final InputStream fis = new BufferedInputStream(Files.newInputStream(getFile()))) {
 
             final VariableByteInput is = new VariableByteInputStream(fis);
@@ -425,6 +458,8 @@ public class SymbolTable implements BrokerPoolService, Closeable {
         } catch(final IOException e) {
             throw new EXistException("IO error occurred while reading "
                 + this.getFile().toAbsolutePath().toString() + ": " + e.getMessage(), e);
+        } finally {
+            allocationLock.unlock();
         }
     }
 
@@ -447,6 +482,7 @@ public class SymbolTable implements BrokerPoolService, Closeable {
         //Noting to do ? -pb
     }
 
+    @GuardedBy("allocationLock")
     private OutputStream getOutputStream() throws IOException {
         if(os == null) {
             os = new BufferedOutputStream(Files.newOutputStream(getFile(), StandardOpenOption.APPEND));
@@ -456,15 +492,25 @@ public class SymbolTable implements BrokerPoolService, Closeable {
 
     @Override
     public void close() throws IOException {
-        outBuffer.close();
-        if(os != null) {
-            os.close();
+        namePool.clear();
+        allocationLock.lock();
+        try {
+            outBuffer.close();
+            if(os != null) {
+                os.close();
+            }
+        } finally {
+            allocationLock.unlock();
         }
     }
 
     /**
      * Represents a distinct collection of symbols
      *
+     * Readers never lock: the name to id map is concurrent, and an id is only
+     * published through {@link #offset} after its entry in the id to name array
+     * has been written. Writers must hold the allocation lock of the symbol table.
+     *
      * @author <a href="mailto:wolfgang@exist-db.org">Wolfgang Meier</a>
      * @author <a href="mailto:adam@evolvedbinary.com">Adam Retter</a>
      */
@@ -475,22 +521,21 @@ public class SymbolTable implements BrokerPoolService, Closeable {
         /**
          * Maps mimetype names to an integer id (persisted to disk)
          */
-        private final Object2IntMap<String> symbolsByName;
+        private final Map<String, Integer> symbolsByName;
 
         /**
          * Maps int ids to mimetype names (transient map for fast reverse lookup of symbolsByName)
          */
-        private String[] symbolsById;
+        private volatile String[] symbolsById;
 
         /**
          * contains the offset of the last symbol
          */
-        protected short offset = 0;
+        protected volatile short offset = 0;
 
         public SymbolCollection(final SymbolType symbolType, final int initialSize) {
             this.symbolType = symbolType;
-            symbolsByName = new Object2IntOpenHashMap<>(initialSize);
-            symbolsByName.defaultReturnValue(-1);
+            symbolsByName = new ConcurrentHashMap<>(initialSize);
             symbolsById = new String[initialSize];
         }
 
@@ -498,17 +543,20 @@ public class SymbolTable implements BrokerPoolService, Closeable {
             return symbolType;
         }
 
+        @GuardedBy("allocationLock")
         private int add(final int id, final String name) {
-            symbolsById = ensureCapacity(symbolsById, id);
-            addSymbolById(id, name);
-            addSymbolByName(name, id);
+            final String[] newSymbolsById = ensureCapacity(symbolsById, id);
+            addSymbolById(newSymbolsById, id, name);
+            symbolsById = newSymbolsById;
             if(id > offset) {
                 offset = (short) id;
             }
+            // only now, may a reader that finds the name also find its id
+            addSymbolByName(name, id);
             return id;
         }
 
-        protected void addSymbolById(final int id, final String name) {
+        protected void addSymbolById(final String[] symbolsById, final int id, final String name) {
             symbolsById[id] = name;
         }
 
@@ -529,43 +577,57 @@ public class SymbolTable implements BrokerPoolService, Closeable {
             offset = 0;
         }
 
-        public synchronized String getSymbol(final int id) {
+        public String getSymbol(final int id) {
+            // NOTE: offset must be read before symbolsById, see add(int, String)
             if(id <= 0 || id > offset) {
                 return ""; //TODO : raise an exception ? -pb
             }
             return symbolsById[id];
         }
 
-        public synchronized int getId(final String name) {
-            int id = symbolsByName.getInt(name);
-            if(id != -1) {
-                return id;
-            }
-            // symbol space exceeded. return -1 to indicate.
-            if(offset == Short.MAX_VALUE) {
-                return -1;
+        public int getId(final String name) {
+            final Integer existingId = symbolsByName.get(name);
+            if(existingId != null) {
+                return existingId;
             }
 
-            id = add(++offset, name);
-            //we use "++offset" here instead of "offset++", 
-            //because the system expects id's to start at 1, not 0
-            write(id, name);
-            changed = true;
-            return id;
+            allocationLock.lock();
+            try {
+                // another thread may have allocated the symbol whilst we were waiting
+                final Integer allocatedId = symbolsByName.get(name);
+                if(allocatedId != null) {
+                    return allocatedId;
+                }
+
+                // symbol space exceeded. return -1 to indicate.
+                if(offset == Short.MAX_VALUE) {
+                    return -1;
+                }
+
+                //we use "offset + 1" here instead of "offset",
+                //because the system expects id's to start at 1, not 0
+                final int id = add(offset + 1, name);
+                write(id, name);
+                changed = true;
+                return id;
+            } finally {
+                allocationLock.unlock();
+            }
         }
 
         protected final void write(final VariableByteOutputStream os) throws IOException {
-            for (final String symbol : symbolsByName.keySet()) {
-                final int id = symbolsByName.getInt(symbol);
+            for (final Map.Entry<String, Integer> symbol : symbolsByName.entrySet()) {
+                final int id = symbol.getValue();
                 if (id < 0) {
-                    LOG.error("Symbol Table: symbolTypeId={}, symbol='{}', id={}", getSymbolType(), symbol, id);
+                    LOG.error("Symbol Table: symbolTypeId={}, symbol='{}', id={}", getSymbolType(), symbol.getKey(), id);
                     //TODO : raise exception ? -pb
                 }
-                writeEntry(id, symbol, os);
+                writeEntry(id, symbol.getKey(), os);
             }
         }
 
         // Append a new entry to the .dbx file
+        @GuardedBy("allocationLock")
         private void write(final int id, final String key) {
             outBuffer.clear();
             try {
@@ -606,15 +668,15 @@ public class SymbolTable implements BrokerPoolService, Closeable {
         }
 
         @Override
-        protected void addSymbolById(final int id, final String name) {
+        protected void addSymbolById(final String[] symbolsById, final int id, final String name) {
             /*
              For attributes, Don't store '@' in in-memory mapping of id -> attrName
              enables faster retrieval
              */
             if(name.charAt(0) == ATTR_NAME_PREFIX) {
-                super.addSymbolById(id, name.substring(1));
+                super.addSymbolById(symbolsById, id, name.substring(1));
             } else {
-                super.addSymbolById(id, name);
+                super.addSymbolById(symbolsById, id, name);
             }
         }
     }
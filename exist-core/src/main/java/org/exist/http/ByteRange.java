@@ -0,0 +1,188 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.http;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of bytes of a representation, as requested by
+ * an HTTP Range header, see RFC 9110 Section 14.
+ *
+ * @param start the position of the first byte of the range
+ * @param end the position of the last byte of the range (inclusive)
+ */
+record ByteRange(long start, long end) {
+
+    static final String UNIT = "bytes";
+
+    /**
+     * The maximum number of ranges that are honoured in a single request,
+     * requests for more ranges are served in full to guard against
+     * the denial of service attacks described in RFC 9110 Section 14.2.
+     */
+    static final int MAX_RANGES = 32;
+
+    long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Formats the range as the value of a Content-Range header.
+     *
+     * @param completeLength the length of the complete representation
+     *
+     * @return the value for the Content-Range header
+     */
+    String toContentRange(final long completeLength) {
+        return UNIT + ' ' + start + '-' + end + '/' + completeLength;
+    }
+
+    /**
+     * Parses the value of a Range header.
+     *
+     * Overlapping and adjacent ranges are coalesced, and the
+     * ranges are returned in ascending order.
+     *
+     * @param range the value of the Range header
+     * @param completeLength the length of the complete representation
+     *
+     * @return the satisfiable ranges, an empty list if none of the ranges
+     *     are satisfiable, or null if the Range header should be ignored
+     *     because it is invalid, uses a unit other than bytes, or asks for
+     *     too many ranges.
+     */
+    static @Nullable List<ByteRange> parse(@Nullable final String range, final long completeLength) {
+        if (range == null) {
+            return null;
+        }
+
+        final int equals = range.indexOf('=');
+        if (equals < 0 || !UNIT.equalsIgnoreCase(range.substring(0, equals).trim())) {
+            return null;
+        }
+
+        final String[] specs = range.substring(equals + 1).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        final List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (final String rawSpec : specs) {
+            final String spec = rawSpec.trim();
+            if (spec.isEmpty()) {
+                // NOTE: empty list elements are permitted, see RFC 9110 Section 5.6.1.2
+                continue;
+            }
+
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+
+            final long first;
+            final long last;
+            try {
+                if (dash == 0) {
+                    // suffix range, i.e. the last n bytes
+                    final long suffixLength = parseDigits(spec.substring(1));
+                    if (suffixLength == 0 || completeLength == 0) {
+                        continue;
+                    }
+                    first = Math.max(0, completeLength - suffixLength);
+                    last = completeLength - 1;
+                } else {
+                    first = parseDigits(spec.substring(0, dash));
+                    if (dash == spec.length() - 1) {
+                        last = completeLength - 1;
+                    } else {
+                        final long requestedLast = parseDigits(spec.substring(dash + 1));
+                        if (requestedLast < first) {
+                            return null;
+                        }
+                        last = Math.min(requestedLast, completeLength - 1);
+                    }
+                    if (first >= completeLength) {
+                        continue;
+                    }
+                }
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+
+            ranges.add(new ByteRange(first, last));
+        }
+
+        if (ranges.isEmpty() && specs.length > 0 && allBlank(specs)) {
+            return null;
+        }
+
+        return coalesce(ranges);
+    }
+
+    private static long parseDigits(final String digits) {
+        if (digits.isEmpty()) {
+            throw new NumberFormatException("Missing digits");
+        }
+        for (int i = 0; i < digits.length(); i++) {
+            final char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a digit: " + c);
+            }
+        }
+        return Long.parseLong(digits);
+    }
+
+    private static boolean allBlank(final String[] specs) {
+        for (final String spec : specs) {
+            if (!spec.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<ByteRange> coalesce(final List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+
+        ranges.sort(Comparator.comparingLong(ByteRange::start));
+        final List<ByteRange> coalesced = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            final ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                coalesced.add(current);
+                current = next;
+            }
+        }
+        coalesced.add(current);
+        return coalesced;
+    }
+}
@@ -48,6 +48,8 @@
  */
 package org.exist.http;
 
+import com.evolvedbinary.j8fu.Either;
+import com.evolvedbinary.j8fu.function.ConsumerE;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.exist.EXistException;
@@ -76,6 +78,7 @@ import org.exist.source.URLSource;
 import org.exist.storage.BrokerPool;
 import org.exist.storage.DBBroker;
 import org.exist.storage.XQueryPool;
+import org.exist.storage.blob.BlobId;
 import org.exist.storage.lock.Lock.LockMode;
 import org.exist.storage.lock.ManagedCollectionLock;
 import org.exist.storage.serializers.EXistOutputKeys;
@@ -113,6 +116,7 @@ import org.xml.sax.helpers.XMLFilterImpl;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import javax.annotation.Nullable;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
@@ -123,6 +127,11 @@ import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Properties;
 import java.util.*;
 import java.util.function.BiFunction;
@@ -637,6 +646,9 @@ public class RESTServer {
                 // must be set so
                 response.addHeader("Content-Length", Long.toString(resource.getContentLength()));
                 setCreatedAndLastModifiedHeaders(response, resource.getCreated(), resource.getLastModified());
+                if (resource.getResourceType() == DocumentImpl.BINARY_FILE) {
+                    setBinaryResourceHeaders(response, entityTag((BinaryDocument) resource));
+                }
             } else {
                 try(final Collection col = broker.openCollection(pathUri, LockMode.READ_LOCK)) {
                     //no resource or collection
@@ -1729,6 +1741,201 @@ public class RESTServer {
         response.addDateHeader("Created", created);
     }
 
+    /**
+     * Computes a strong entity tag for a binary resource.
+     *
+     * The BLOB Store is content addressed, i.e. the BlobId is a digest
+     * of the content, and so it is used directly as the entity tag.
+     *
+     * @param binaryDocument the binary resource
+     *
+     * @return the entity tag, or null if the binary resource has no BLOB
+     */
+    private static @Nullable String entityTag(final BinaryDocument binaryDocument) {
+        final BlobId blobId = binaryDocument.getBlobId();
+        if (blobId == null) {
+            return null;
+        }
+        return '"' + blobId.toString() + '"';
+    }
+
+    private static void setBinaryResourceHeaders(final HttpServletResponse response, @Nullable final String entityTag) {
+        if (entityTag != null) {
+            response.setHeader("ETag", entityTag);
+            response.setHeader("Accept-Ranges", ByteRange.UNIT);
+        }
+    }
+
+    /**
+     * Determines if an entity tag is in the list of entity tags
+     * of an If-None-Match or If-Range header, see RFC 9110 Section 8.8.3.2.
+     *
+     * @param entityTags the value of the request header
+     * @param entityTag the entity tag of the resource
+     * @param strong true to use the strong comparison function, false to use the weak comparison function
+     *
+     * @return true if the entity tag matches
+     */
+    static boolean entityTagMatches(final String entityTags, final String entityTag, final boolean strong) {
+        final String trimmed = entityTags.trim();
+        if ("*".equals(trimmed)) {
+            return true;
+        }
+
+        for (final String candidate : trimmed.split(",")) {
+            String opaqueTag = candidate.trim();
+            if (opaqueTag.startsWith("W/")) {
+                if (strong) {
+                    continue;
+                }
+                opaqueTag = opaqueTag.substring(2);
+            }
+            if (opaqueTag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if a Range header should be honoured, given
+     * the If-Range header of the request, see RFC 9110 Section 13.1.5.
+     */
+    private static boolean isRangeApplicable(final HttpServletRequest request, final String entityTag, final long lastModified) {
+        final String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+
+        final String trimmed = ifRange.trim();
+        if (trimmed.startsWith("\"") || trimmed.startsWith("W/")) {
+            return entityTagMatches(trimmed, entityTag, true);
+        }
+
+        try {
+            // NOTE: the Last-Modified header is rounded up to the nearest whole second, see setCreatedAndLastModifiedHeaders
+            final long lastModifiedSeconds = (lastModified + 999) / 1000;
+            return request.getDateHeader("If-Range") / 1000 == lastModifiedSeconds;
+        } catch (final IllegalArgumentException iae) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a binary resource to the response.
+     *
+     * The content is transferred from the BLOB file with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+     * and single or multiple byte ranges are served if the request has a Range header.
+     */
+    private void writeBinaryResource(final DBBroker broker, final Txn transaction, final BinaryDocument binaryDocument,
+            @Nullable final String entityTag, final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException {
+        final long contentLength = binaryDocument.getContentLength();
+
+        if (entityTag == null) {
+            // no BLOB file, fallback to streaming the binary resource
+            response.addHeader("Content-Length", Long.toString(contentLength));
+            final OutputStream os = response.getOutputStream();
+            broker.readBinaryResource(transaction, binaryDocument, os);
+            os.flush();
+            return;
+        }
+
+        @Nullable final List<ByteRange> ranges = isRangeApplicable(request, entityTag, binaryDocument.getLastModified()) ? ByteRange.parse(request.getHeader("Range"), contentLength) : null;
+
+        if (ranges == null) {
+            // As HttpServletResponse.setContentLength is limited to integers,
+            // (see http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4187336)
+            // next sentence:
+            //	response.setContentLength(resource.getContentLength());
+            // must be set so
+            response.addHeader("Content-Length", Long.toString(contentLength));
+            final OutputStream os = response.getOutputStream();
+            transferBinaryResource(broker, transaction, binaryDocument, channel -> transfer(channel, 0, contentLength, os));
+            os.flush();
+
+        } else if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", ByteRange.UNIT + " */" + contentLength);
+            response.setContentLength(0);
+
+        } else if (ranges.size() == 1) {
+            final ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.toContentRange(contentLength));
+            response.addHeader("Content-Length", Long.toString(range.length()));
+            final OutputStream os = response.getOutputStream();
+            transferBinaryResource(broker, transaction, binaryDocument, channel -> transfer(channel, range.start(), range.length(), os));
+            os.flush();
+
+        } else {
+            final String partContentType = response.getContentType();
+            final String boundary = UUID.randomUUID().toString().replace("-", "");
+            final byte[][] partHeaders = new byte[ranges.size()][];
+            final byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+            long multipartLength = trailer.length;
+            for (int i = 0; i < ranges.size(); i++) {
+                final ByteRange range = ranges.get(i);
+                partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                        + "Content-Type: " + partContentType + "\r\n"
+                        + "Content-Range: " + range.toContentRange(contentLength) + "\r\n"
+                        + "\r\n").getBytes(StandardCharsets.US_ASCII);
+                multipartLength += partHeaders[i].length + range.length();
+            }
+
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            response.addHeader("Content-Length", Long.toString(multipartLength));
+            final OutputStream os = response.getOutputStream();
+            transferBinaryResource(broker, transaction, binaryDocument, channel -> {
+                for (int i = 0; i < ranges.size(); i++) {
+                    final ByteRange range = ranges.get(i);
+                    os.write(partHeaders[i]);
+                    transfer(channel, range.start(), range.length(), os);
+                }
+                os.write(trailer);
+            });
+            os.flush();
+        }
+    }
+
+    private static void transferBinaryResource(final DBBroker broker, final Txn transaction,
+            final BinaryDocument binaryDocument, final ConsumerE<FileChannel, IOException> transfer) throws IOException {
+        final Either<IOException, Boolean> result = broker.withBinaryFile(transaction, binaryDocument, path -> {
+            if (path == null) {
+                return Either.Right(false);
+            }
+            try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                transfer.accept(channel);
+                return Either.Right(true);
+            } catch (final IOException e) {
+                return Either.Left(e);
+            }
+        });
+
+        if (result.isLeft()) {
+            throw result.left().get();
+        }
+        if (!result.right().get()) {
+            throw new IOException("No BLOB found for binary resource: " + binaryDocument.getURI());
+        }
+    }
+
+    private static void transfer(final FileChannel channel, final long start, final long length, final OutputStream os) throws IOException {
+        // NOTE: the target is not closed, as that would close the response output stream
+        final WritableByteChannel target = os instanceof WritableByteChannel ? (WritableByteChannel) os : Channels.newChannel(os);
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            final long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                throw new EOFException("BLOB file ended at " + position + ", expected " + (start + length) + " bytes");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
     // writes out a resource, uses asMimeType as the specified mime-type or if
     // null uses the type of the resource
     private void writeResourceAs(final DocumentImpl resource, final DBBroker broker, final Txn transaction,
@@ -1746,39 +1953,52 @@ public class RESTServer {
         final long lastModified = resource.getLastModified();
         setCreatedAndLastModifiedHeaders(response, resource.getCreated(), lastModified);
 
+        @Nullable final String entityTag = resource.getResourceType() == DocumentImpl.BINARY_FILE ? entityTag((BinaryDocument) resource) : null;
+        setBinaryResourceHeaders(response, entityTag);
 
-        /**
-         * HTTP 1.1 RFC 2616 Section 14.25 *
+        /*
+         * HTTP 1.1 RFC 9110 Section 13.1.2, If-None-Match takes precedence over If-Modified-Since
          */
-        //handle If-Modified-Since request header
-        try {
-            final long ifModifiedSince = request.getDateHeader("If-Modified-Since");
-            if (ifModifiedSince > -1) {
-
-                /*
-                 a) A date which is later than the server's
-                 current time is invalid.
-                 */
-                if (ifModifiedSince <= System.currentTimeMillis()) {
+        final String ifNoneMatch = entityTag != null ? request.getHeader("If-None-Match") : null;
+        if (ifNoneMatch != null) {
+            if (entityTagMatches(ifNoneMatch, entityTag, false)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        } else {
+            /**
+             * HTTP 1.1 RFC 2616 Section 14.25 *
+             */
+            //handle If-Modified-Since request header
+            try {
+                final long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+                if (ifModifiedSince > -1) {
 
                     /*
-                     b) If the variant has been modified since the If-Modified-Since
-                     date, the response is exactly the same as for a normal GET.
+                     a) A date which is later than the server's
+                     current time is invalid.
                      */
-                    if (lastModified <= ifModifiedSince) {
+                    if (ifModifiedSince <= System.currentTimeMillis()) {
 
                         /*
-                         c) If the variant has not been modified since a valid If-
-                         Modified-Since date, the server SHOULD return a 304 (Not
-                         Modified) response.
+                         b) If the variant has been modified since the If-Modified-Since
+                         date, the response is exactly the same as for a normal GET.
                          */
-                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-                        return;
+                        if (lastModified <= ifModifiedSince) {
+
+                            /*
+                             c) If the variant has not been modified since a valid If-
+                             Modified-Since date, the server SHOULD return a 304 (Not
+                             Modified) response.
+                             */
+                            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                            return;
+                        }
                     }
                 }
+            } catch (final IllegalArgumentException iae) {
+                LOG.warn("Illegal If-Modified-Since HTTP Header sent on request, ignoring. {}", iae.getMessage(), iae);
             }
-        } catch (final IllegalArgumentException iae) {
-            LOG.warn("Illegal If-Modified-Since HTTP Header sent on request, ignoring. {}", iae.getMessage(), iae);
         }
 
         if (resource.getResourceType() == DocumentImpl.BINARY_FILE) {
@@ -1794,15 +2014,7 @@ public class RESTServer {
                 response.setContentType(asMimeType);
             }
 
-            // As HttpServletResponse.setContentLength is limited to integers,
-            // (see http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4187336)
-            // next sentence:
-            //	response.setContentLength(resource.getContentLength());
-            // must be set so
-            response.addHeader("Content-Length", Long.toString(resource.getContentLength()));
-            final OutputStream os = response.getOutputStream();
-            broker.readBinaryResource((BinaryDocument) resource, os);
-            os.flush();
+            writeBinaryResource(broker, transaction, (BinaryDocument) resource, entityTag, request, response);
         } else {
             // xml resource
 
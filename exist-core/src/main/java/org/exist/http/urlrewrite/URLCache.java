@@ -0,0 +1,286 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.http.urlrewrite;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import org.exist.EXistException;
+import org.exist.security.PermissionDeniedException;
+import org.exist.source.Source;
+
+import javax.annotation.Nullable;
+import java.beans.ConstructorProperties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of the model and view configurations that an {@link XQueryURLRewrite}
+ * controller produced for request URLs.
+ *
+ * Every entry was produced by a controller, and when a controller
+ * is found to have changed, all of the entries that it produced are removed.
+ *
+ * @param <V> the type of the cached entries
+ */
+public class URLCache<V> {
+
+    private final int maxSize;
+    private final long expiry;
+    private final Function<V, Source> controllerOf;
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final Cache<String, V> cache;
+
+    /**
+     * @param maxSize the maximum number of entries
+     * @param expiry the time in milliseconds after which an entry expires, or 0 if entries do not expire
+     * @param controllerOf gets the controller which produced an entry
+     */
+    URLCache(final int maxSize, final long expiry, final Function<V, Source> controllerOf) {
+        this(maxSize, expiry, controllerOf, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maxSize the maximum number of entries
+     * @param expiry the time in milliseconds after which an entry expires, or 0 if entries do not expire
+     * @param controllerOf gets the controller which produced an entry
+     * @param executor the executor for evicting entries
+     */
+    URLCache(final int maxSize, final long expiry, final Function<V, Source> controllerOf, final Executor executor) {
+        this.maxSize = maxSize;
+        this.expiry = expiry;
+        this.controllerOf = controllerOf;
+
+        final Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .executor(executor)
+                .recordStats(() -> statsCounter);
+        if (expiry > 0) {
+            cacheBuilder.expireAfterWrite(expiry, TimeUnit.MILLISECONDS);
+        }
+        this.cache = cacheBuilder.build();
+    }
+
+    /**
+     * Checks if the controller which produced an entry is still valid.
+     */
+    @FunctionalInterface
+    interface ControllerValidator {
+        boolean isValid(Source controller) throws EXistException, PermissionDeniedException;
+    }
+
+    /**
+     * Gets the entry for a URL.
+     *
+     * If the controller which produced the entry is no longer valid,
+     * then every entry that it produced is removed, and this is a miss.
+     *
+     * @param url the request URL
+     * @param validator checks if the controller which produced the entry is still valid
+     *
+     * @return the entry, or null if there is no valid entry for the URL
+     *
+     * @throws EXistException if the validator cannot access the database
+     * @throws PermissionDeniedException if the validator is not permitted to access the controller
+     */
+    @Nullable V get(final String url, final ControllerValidator validator) throws EXistException, PermissionDeniedException {
+        // NOTE: hits and misses are recorded here, as an entry whose controller is no longer valid is a miss
+        final V entry = cache.asMap().get(url);
+        if (entry == null) {
+            statsCounter.recordMisses(1);
+            return null;
+        }
+
+        final Source controller = controllerOf.apply(entry);
+        if (!validator.isValid(controller)) {
+            invalidate(controller);
+            statsCounter.recordMisses(1);
+            return null;
+        }
+
+        statsCounter.recordHits(1);
+        return entry;
+    }
+
+    void put(final String url, final V entry) {
+        cache.put(url, entry);
+    }
+
+    /**
+     * Removes all entries that were produced by a controller.
+     *
+     * @param controller the source of the controller
+     */
+    void invalidate(final Source controller) {
+        final long key = controller.getKey();
+        cache.asMap().values().removeIf(entry -> {
+            if (controllerOf.apply(entry).getKey() == key) {
+                invalidationCount.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Performs any pending maintenance, such as evicting entries.
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the time after which an entry expires.
+     *
+     * @return the expiry in milliseconds, or 0 if entries do not expire
+     */
+    public long getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Returns the approximate number of entries.
+     *
+     * @return the approximate number of entries
+     */
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Get a Snapshot of the Statistics.
+     *
+     * @return the statistics
+     */
+    public Statistics getStatistics() {
+        final CacheStats cacheStats = statsCounter.snapshot();
+        return new Statistics(
+                cacheStats.hitCount(),
+                cacheStats.missCount(),
+                invalidationCount.sum(),
+                cacheStats.evictionCount()
+        );
+    }
+
+    /**
+     * Snapshot of the statistics of a URL cache.
+     */
+    public static class Statistics {
+        private final long hitCount;
+        private final long missCount;
+        private final long invalidationCount;
+        private final long evictionCount;
+
+        /**
+         * @param hitCount the number of lookups which returned a valid entry
+         * @param missCount the number of lookups which found no entry, or an entry whose controller had changed
+         * @param invalidationCount the number of entries removed because their controller had changed
+         * @param evictionCount the number of entries evicted because of the size or expiry of the cache
+         */
+        @ConstructorProperties({"hitCount", "missCount", "invalidationCount", "evictionCount"})
+        public Statistics(final long hitCount, final long missCount, final long invalidationCount, final long evictionCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.invalidationCount = invalidationCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         * Returns the number of lookups which returned a valid entry.
+         *
+         * @return the number of hits
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * Returns the number of lookups which found no entry,
+         * or an entry whose controller had changed.
+         *
+         * @return the number of misses
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * Returns the number of lookups. This is defined as {@code hitCount + missCount}.
+         *
+         * @return the {@code hitCount + missCount}
+         */
+        public long getRequestCount() {
+            return hitCount + missCount;
+        }
+
+        /**
+         * Returns the ratio of lookups which were hits. This is defined as
+         * {@code hitCount / requestCount}, or {@code 1.0} when {@code requestCount == 0}.
+         *
+         * @return the ratio of lookups which were hits
+         */
+        public double getHitRate() {
+            final long requestCount = getRequestCount();
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+
+        /**
+         * Returns the number of entries removed because the controller which produced them had changed.
+         *
+         * @return the number of invalidated entries
+         */
+        public long getInvalidationCount() {
+            return invalidationCount;
+        }
+
+        /**
+         * Returns the number of entries evicted because of the size or expiry of the cache.
+         * This does not include the entries removed because their controller had changed.
+         *
+         * @return the number of evicted entries
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -37,6 +64,8 @@ import org.exist.http.servlets.Authenticator;
 import org.exist.http.servlets.BasicAuthenticator;
 import org.exist.http.servlets.HttpRequestWrapper;
 import org.exist.http.servlets.HttpResponseWrapper;
+import org.exist.management.AgentFactory;
+import org.exist.management.impl.URLRewriteCache;
 import org.exist.security.AuthenticationException;
 import org.exist.security.Permission;
 import org.exist.security.PermissionDeniedException;
@@ -51,6 +80,7 @@ import org.exist.storage.DBBroker;
 import org.exist.storage.XQueryPool;
 import org.exist.storage.lock.Lock.LockMode;
 import org.exist.storage.serializers.Serializer;
+import org.exist.util.DatabaseConfigurationException;
 import org.exist.util.LockException;
 import org.exist.util.MimeType;
 import org.exist.util.serializer.XQuerySerializer;
@@ -120,8 +150,14 @@ public class XQueryURLRewrite extends HttpServlet {
     public static final String RQ_ATTR_RESULT = "org.exist.forward.result";
     public static final String RQ_ATTR_ERROR = "org.exist.forward.error";
 
+    public static final int DEFAULT_URL_CACHE_SIZE = 1024;
+    public static final long DEFAULT_URL_CACHE_EXPIRY = 60 * 60 * 1000;  // 1 hour
+
     private ServletConfig config;
-    private final Map<String, ModelAndView> urlCache = Collections.synchronizedMap(new TreeMap<>());
+    private int urlCacheSize = DEFAULT_URL_CACHE_SIZE;
+    private long urlCacheExpiry = DEFAULT_URL_CACHE_EXPIRY;
+    private URLCache<ModelAndView> urlCache = newUrlCache(urlCacheSize, urlCacheExpiry);
+    @Nullable private URLRewriteCache urlCacheMBean = null;
     private Subject defaultUser = null;
     private BrokerPool pool;
     // path to the query
@@ -147,6 +183,35 @@ public class XQueryURLRewrite extends HttpServlet {
         if (optSendChallenge != null) {
             sendChallenge = optSendChallenge.equalsIgnoreCase("true");
         }
+
+        final String optUrlCacheSize = filterConfig.getInitParameter("url-cache-size");
+        if (optUrlCacheSize != null) {
+            try {
+                urlCacheSize = Math.max(0, Integer.parseInt(optUrlCacheSize.trim()));
+            } catch (final NumberFormatException e) {
+                LOG.warn("Invalid value for url-cache-size: {}, using default: {}", optUrlCacheSize, DEFAULT_URL_CACHE_SIZE);
+            }
+        }
+
+        final String optUrlCacheExpiry = filterConfig.getInitParameter("url-cache-expiry");
+        if (optUrlCacheExpiry != null) {
+            try {
+                final long expiry = Long.parseLong(optUrlCacheExpiry.trim());
+                if (expiry < 0) {
+                    LOG.warn("Invalid value for url-cache-expiry: {}, using default: {}", optUrlCacheExpiry, DEFAULT_URL_CACHE_EXPIRY);
+                } else {
+                    urlCacheExpiry = expiry;
+                }
+            } catch (final NumberFormatException e) {
+                LOG.warn("Invalid value for url-cache-expiry: {}, using default: {}", optUrlCacheExpiry, DEFAULT_URL_CACHE_EXPIRY);
+            }
+        }
+
+        this.urlCache = newUrlCache(urlCacheSize, urlCacheExpiry);
+    }
+
+    private static URLCache<ModelAndView> newUrlCache(final int maxSize, final long expiry) {
+        return new URLCache<>(maxSize, expiry, modelView -> modelView.getSourceInfo().source);
     }
 
     @Override
@@ -465,34 +530,59 @@ public class XQueryURLRewrite extends HttpServlet {
     }
 
     private ModelAndView getFromCache(final String url, final Subject user) throws EXistException, PermissionDeniedException {
-        /* Make sure we have a broker *before* we synchronize on urlCache or we may run
-         * into a deadlock situation (with method checkCache)
-         */
-        final ModelAndView model = urlCache.get(url);
-        if (model == null) {
-            return null;
+        final ModelAndView model = urlCache.get(url, controller -> {
+            try (final DBBroker broker = pool.get(Optional.ofNullable(user))) {
+                if (controller instanceof DBSource) {
+                    ((DBSource) controller).validate(Permission.EXECUTE);
+                }
+                return controller.isValid() == Source.Validity.VALID;
+            }
+        });
+
+        if (model != null && LOG.isDebugEnabled()) {
+            LOG.debug("Using cached entry for {}", url);
         }
+        return model;
+    }
 
-        try (final DBBroker broker = pool.get(Optional.ofNullable(user))) {
+    void clearCaches() {
+        urlCache.invalidateAll();
+    }
 
-            if (model.getSourceInfo().source instanceof DBSource) {
-                ((DBSource) model.getSourceInfo().source).validate(Permission.EXECUTE);
-            }
+    /**
+     * Returns the maximum number of entries held by the URL cache.
+     *
+     * @return the maximum number of entries
+     */
+    public int getUrlCacheMaxSize() {
+        return urlCache.getMaxSize();
+    }
 
-            if (model.getSourceInfo().source.isValid() != Source.Validity.VALID) {
-                urlCache.remove(url);
-                return null;
-            }
+    /**
+     * Returns the time after which an entry in the URL cache expires.
+     *
+     * @return the expiry in milliseconds, or 0 if entries do not expire
+     */
+    public long getUrlCacheExpiry() {
+        return urlCache.getExpiry();
+    }
 
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Using cached entry for {}", url);
-            }
-            return model;
-        }
+    /**
+     * Returns the approximate number of entries in the URL cache.
+     *
+     * @return the approximate number of entries
+     */
+    public long getUrlCacheSize() {
+        return urlCache.getSize();
     }
 
-    void clearCaches() {
-        urlCache.clear();
+    /**
+     * Get a Snapshot of the URL Cache Statistics
+     *
+     * @return The cache statistics
+     */
+    public URLCache.Statistics getUrlCacheStatistics() {
+        return urlCache.getStatistics();
     }
 
     /**
@@ -608,6 +698,23 @@ public class XQueryURLRewrite extends HttpServlet {
             }
         }
         authenticator = new BasicAuthenticator(pool);
+
+        registerUrlCacheMBean(pool);
+    }
+
+    /**
+     * Registers the JMX MBean for the URL cache, it is removed when the servlet is destroyed.
+     *
+     * @param pool the database instance
+     */
+    void registerUrlCacheMBean(final BrokerPool pool) {
+        urlCacheMBean = new URLRewriteCache(pool, config.getServletName(), this);
+        try {
+            AgentFactory.getInstance().addMBean(urlCacheMBean);
+        } catch (final DatabaseConfigurationException e) {
+            LOG.warn("Unable to register JMX MBean for the URL cache of: {}", config.getServletName(), e);
+            urlCacheMBean = null;
+        }
     }
 
     private void logResult(final DBBroker broker, final Sequence result) throws SAXException {
@@ -626,6 +733,11 @@ public class XQueryURLRewrite extends HttpServlet {
 
     @Override
     public void destroy() {
+        if (urlCacheMBean != null) {
+            AgentFactory.getInstance().removeMBean(urlCacheMBean);
+            urlCacheMBean = null;
+        }
+        urlCache.invalidateAll();
         config = null;
     }
 
@@ -0,0 +1,67 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.indexing;
+
+import org.exist.dom.QName;
+import org.exist.dom.persistent.NodeSet;
+import org.exist.xquery.Expression;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQueryContext;
+import org.exist.xquery.value.Sequence;
+
+import javax.annotation.Nullable;
+
+/**
+ * Indexes that can compute aggregates over the values of a set of nodes
+ * directly from their index entries, i.e. without loading the nodes, should
+ * implement this interface.
+ */
+public interface AggregatingIndex extends IndexWorker {
+
+    enum Aggregate {
+        MIN,
+        MAX,
+        SUM,
+        DISTINCT_VALUES
+    }
+
+    /**
+     * Computes an aggregate over the atomized values of the nodes.
+     *
+     * Implementations must only answer if the result is exactly the one
+     * that would be computed from the nodes themselves, otherwise they
+     * should return null so that the caller falls back to loading the nodes.
+     *
+     * @param context the XQuery context
+     * @param nodes the nodes to aggregate, all of which have the name {@code qname}
+     * @param qname the name of the nodes
+     * @param aggregate the aggregate to compute
+     * @param parent the expression computing the aggregate, to which the use of the index is reported
+     *
+     * @return the aggregate, or null if it cannot be computed from the index
+     *
+     * @throws XPathException if an error occurs whilst reading the index
+     */
+    @Nullable Sequence aggregate(XQueryContext context, NodeSet nodes, QName qname, Aggregate aggregate, Expression parent) throws XPathException;
+}
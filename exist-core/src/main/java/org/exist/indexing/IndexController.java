@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -28,17 +55,23 @@ import org.exist.dom.persistent.AbstractCharacterData;
 import org.exist.dom.persistent.ElementImpl;
 import org.exist.dom.persistent.DocumentImpl;
 import org.exist.dom.persistent.IStoredNode;
+import org.exist.dom.persistent.NodeSet;
+import org.exist.dom.QName;
 import org.exist.collections.Collection;
 import org.exist.indexing.StreamListener.ReindexMode;
 import org.exist.storage.DBBroker;
 import org.exist.storage.NodePath;
 import org.exist.storage.txn.Txn;
 import org.exist.util.DatabaseConfigurationException;
+import org.exist.xquery.Expression;
 import org.exist.xquery.QueryRewriter;
+import org.exist.xquery.XPathException;
 import org.exist.xquery.XQueryContext;
+import org.exist.xquery.value.Sequence;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -471,4 +504,58 @@ public class IndexController {
         }
         return rewriters;
     }
+
+    /**
+     * Asks each of the {@link AggregatingIndex} workers to compute
+     * an aggregate over the values of the nodes.
+     *
+     * @param context the XQuery context
+     * @param nodes the nodes to aggregate, all of which have the name {@code qname}
+     * @param qname the name of the nodes
+     * @param aggregate the aggregate to compute
+     * @param parent the expression computing the aggregate
+     *
+     * @return the aggregate from the first index that could compute it, or null if none could
+     *
+     * @throws XPathException if an error occurs whilst reading an index
+     */
+    public @Nullable Sequence aggregate(final XQueryContext context, final NodeSet nodes, final QName qname,
+            final AggregatingIndex.Aggregate aggregate, final Expression parent) throws XPathException {
+        for (final IndexWorker indexWorker : indexWorkers.values()) {
+            if (indexWorker instanceof AggregatingIndex aggregatingIndex) {
+                final Sequence result = aggregatingIndex.aggregate(context, nodes, qname, aggregate, parent);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Asks each of the {@link OrderingIndex} workers to order
+     * the nodes by their values.
+     *
+     * @param context the XQuery context
+     * @param nodes the nodes to order, all of which have the name {@code qname}
+     * @param qname the name of the nodes
+     * @param parent the expression ordering the nodes
+     *
+     * @return the nodes grouped by equal values in ascending order, from the first
+     *     index that could order them, or null if none could
+     *
+     * @throws XPathException if an error occurs whilst reading an index
+     */
+    public @Nullable List<List<NodeProxy>> orderByValue(final XQueryContext context, final NodeSet nodes, final QName qname,
+            final Expression parent) throws XPathException {
+        for (final IndexWorker indexWorker : indexWorkers.values()) {
+            if (indexWorker instanceof OrderingIndex orderingIndex) {
+                final List<List<NodeProxy>> ordered = orderingIndex.orderByValue(context, nodes, qname, parent);
+                if (ordered != null) {
+                    return ordered;
+                }
+            }
+        }
+        return null;
+    }
 }
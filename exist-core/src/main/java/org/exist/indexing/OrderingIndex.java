@@ -0,0 +1,63 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.indexing;
+
+import org.exist.dom.QName;
+import org.exist.dom.persistent.NodeProxy;
+import org.exist.dom.persistent.NodeSet;
+import org.exist.xquery.Expression;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQueryContext;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Indexes that keep the values of nodes in order, and can therefore order
+ * a set of nodes by their values without loading the nodes, should
+ * implement this interface.
+ */
+public interface OrderingIndex extends IndexWorker {
+
+    /**
+     * Orders the nodes by their string values, as compared by the
+     * Unicode codepoint collation of an order by clause, i.e. by
+     * {@link String#compareTo(String)}.
+     *
+     * Implementations must only answer if every one of the nodes is in the
+     * index with its string value, otherwise they should return null so
+     * that the caller falls back to loading the nodes.
+     *
+     * @param context the XQuery context
+     * @param nodes the nodes to order, all of which have the name {@code qname}
+     * @param qname the name of the nodes
+     * @param parent the expression ordering the nodes, to which the use of the index is reported
+     *
+     * @return the nodes grouped by equal values, with the groups in ascending
+     *     order of their values, or null if the index cannot order the nodes
+     *
+     * @throws XPathException if an error occurs whilst reading the index
+     */
+    @Nullable List<List<NodeProxy>> orderByValue(XQueryContext context, NodeSet nodes, QName qname, Expression parent) throws XPathException;
+}
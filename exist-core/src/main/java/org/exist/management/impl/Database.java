@@ -113,6 +113,26 @@ public class Database implements DatabaseMXBean {
         return pool.total();
     }
 
+    @Override
+    public int getWaitingForBroker() {
+        return pool.countWaitingForBroker();
+    }
+
+    @Override
+    public long getBrokerLeaseWaits() {
+        return pool.getBrokerLeaseWaits();
+    }
+
+    @Override
+    public long getBrokerLeaseWaitTime() {
+        return pool.getBrokerLeaseWaitTime();
+    }
+
+    @Override
+    public long getBrokerLeaseMaxWaitTime() {
+        return pool.getBrokerLeaseMaxWaitTime();
+    }
+
     @Override
     public Map<String, ActiveBroker> getActiveBrokersMap() {
         final Map<String, ActiveBroker> brokersList = new HashMap<>();
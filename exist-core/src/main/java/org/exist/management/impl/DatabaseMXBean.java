@@ -63,6 +63,14 @@ public interface DatabaseMXBean extends PerInstanceMBean {
     int getActiveBrokers();
 
     int getTotalBrokers();
+
+    int getWaitingForBroker();
+
+    long getBrokerLeaseWaits();
+
+    long getBrokerLeaseWaitTime();
+
+    long getBrokerLeaseMaxWaitTime();
     
     long getReservedMem();
 
@@ -152,6 +152,23 @@ public final class JMXAgent implements Agent {
         }
     }
 
+    @Override
+    public synchronized void removeMBean(final PerInstanceMBean mbean) {
+        try {
+            final ObjectName name = mbean.getName();
+            if (mbean.getInstanceId() != null) {
+                final Deque<ObjectName> stack = registeredMBeans.get(mbean.getInstanceId());
+                if (stack != null) {
+                    stack.remove(name);
+                }
+            }
+            beanInstances.remove(name);
+            removeMBean(name);
+        } catch (final MalformedObjectNameException e) {
+            LOG.warn("Problem deregistering JMX MBean: {}", e.getMessage(), e);
+        }
+    }
+
     private void addMBean(final ObjectName name, final Object mbean) throws DatabaseConfigurationException {
         try {
             if (!server.isRegistered(name)) {
@@ -0,0 +1,90 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.management.impl;
+
+import org.exist.http.urlrewrite.URLCache;
+import org.exist.http.urlrewrite.XQueryURLRewrite;
+import org.exist.storage.BrokerPool;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * JMX MXBean for examining the URL cache of an {@link XQueryURLRewrite} servlet
+ */
+public class URLRewriteCache implements URLRewriteCacheMXBean {
+
+    private final BrokerPool instance;
+    private final String servletName;
+    private final XQueryURLRewrite urlRewrite;
+
+    public URLRewriteCache(final BrokerPool instance, final String servletName, final XQueryURLRewrite urlRewrite) {
+        this.instance = instance;
+        this.servletName = servletName;
+        this.urlRewrite = urlRewrite;
+    }
+
+    public static String getAllInstancesQuery() {
+        return "org.exist.management." + '*' + ":type=URLRewriteCache," + '*';
+    }
+
+    private static String getName(final String instanceId, final String servletName) {
+        return "org.exist.management." + instanceId + ":type=URLRewriteCache,name=" + ObjectName.quote(servletName);
+    }
+
+    @Override
+    public ObjectName getName() throws MalformedObjectNameException {
+        return new ObjectName(getName(instance.getId(), servletName));
+    }
+
+    @Override
+    public String getInstanceId() {
+        return instance.getId();
+    }
+
+    @Override
+    public String getServletName() {
+        return servletName;
+    }
+
+    @Override
+    public int getMaxCacheSize() {
+        return urlRewrite.getUrlCacheMaxSize();
+    }
+
+    @Override
+    public long getExpiry() {
+        return urlRewrite.getUrlCacheExpiry();
+    }
+
+    @Override
+    public long getSize() {
+        return urlRewrite.getUrlCacheSize();
+    }
+
+    @Override
+    public URLCache.Statistics getStatistics() {
+        return urlRewrite.getUrlCacheStatistics();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.management.impl;
+
+import org.exist.http.urlrewrite.URLCache;
+
+/**
+ * JMX MXBean interface for examining the URL cache of an
+ * {@link org.exist.http.urlrewrite.XQueryURLRewrite} servlet
+ */
+public interface URLRewriteCacheMXBean extends PerInstanceMBean {
+
+    /**
+     * Returns the name of the servlet which owns the cache
+     *
+     * @return the name of the servlet
+     */
+    String getServletName();
+
+    /**
+     * Returns the maximum number of entries in the cache
+     *
+     * @return maximum number of entries in the cache
+     */
+    int getMaxCacheSize();
+
+    /**
+     * Returns the time after which an entry in the cache expires
+     *
+     * @return the expiry in milliseconds, or 0 if entries do not expire
+     */
+    long getExpiry();
+
+    /**
+     * Returns the approximate number of entries in the cache
+     *
+     * @return approximate number of entries in the cache
+     */
+    long getSize();
+
+    /**
+     * Get a statistics snapshot of the URL Cache
+     *
+     * @return Statistics for the URL Cache
+     */
+    URLCache.Statistics getStatistics();
+}
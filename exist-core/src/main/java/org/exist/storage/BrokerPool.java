@@ -51,6 +51,7 @@ package org.exist.storage;
 import com.evolvedbinary.j8fu.fsm.AtomicFSM;
 import com.evolvedbinary.j8fu.fsm.FSM;
 import com.evolvedbinary.j8fu.lazy.AtomicLazyVal;
+import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -112,7 +113,12 @@ import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
@@ -244,6 +250,42 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
      */
     private final Map<Thread, DBBroker> activeBrokers = new ConcurrentHashMap<>();
 
+    /**
+     * Guards the leasing and releasing of brokers, i.e. {@link #inactiveBrokers},
+     * {@link #activeBrokers}, and the service mode and sync state.
+     *
+     * A fair lock is used instead of the object monitor, so that threads waiting
+     * for a broker are served in arrival order, and so that a virtual thread
+     * which waits for a broker does not pin its carrier thread.
+     */
+    private final ReentrantLock leaseLock = new ReentrantLock(true);
+
+    /**
+     * Signalled whenever a broker is returned to the pool, or the service mode
+     * of the pool changes.
+     */
+    private final Condition leaseChanged = leaseLock.newCondition();
+
+    /**
+     * The number of threads currently waiting for a broker to become available.
+     */
+    private final AtomicInteger leaseWaiting = new AtomicInteger();
+
+    /**
+     * The number of leases which had to wait for a broker to become available.
+     */
+    private final LongAdder leaseWaits = new LongAdder();
+
+    /**
+     * The total time in nanoseconds spent waiting for a broker to become available.
+     */
+    private final LongAdder leaseWaitTime = new LongAdder();
+
+    /**
+     * The longest time in nanoseconds spent waiting for a broker to become available.
+     */
+    private final AtomicLong leaseMaxWaitTime = new AtomicLong();
+
 
     /**
      * Used when TRACE level logging is enabled
@@ -901,6 +943,47 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
         return inactiveBrokers.size();
     }
 
+    /**
+     * Returns the number of threads which are currently waiting
+     * for a broker to become available.
+     *
+     * @return The number of waiting threads
+     */
+    public int countWaitingForBroker() {
+        return leaseWaiting.get();
+    }
+
+    /**
+     * Returns the number of broker leases which had to wait
+     * for a broker to become available, since the database
+     * instance was started.
+     *
+     * @return The number of leases which waited
+     */
+    public long getBrokerLeaseWaits() {
+        return leaseWaits.sum();
+    }
+
+    /**
+     * Returns the total time spent by leases waiting for a broker
+     * to become available, since the database instance was started.
+     *
+     * @return The total wait time in milliseconds
+     */
+    public long getBrokerLeaseWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(leaseWaitTime.sum());
+    }
+
+    /**
+     * Returns the longest time that a lease has waited for a broker
+     * to become available, since the database instance was started.
+     *
+     * @return The longest wait time in milliseconds
+     */
+    public long getBrokerLeaseMaxWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(leaseMaxWaitTime.get());
+    }
+
     //TODO : getMin() method ?
 
     /**
@@ -1251,17 +1334,20 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
 
         //No active broker : get one ASAP
 
-        while(serviceModeUser != null && subject.isPresent() && !subject.equals(Optional.ofNullable(serviceModeUser))) {
-            try {
-                LOG.debug("Db instance is in service mode. Waiting for db to become available again ...");
-                wait();
-            } catch(final InterruptedException e) {
-                Thread.currentThread().interrupt();
-                LOG.error("Interrupt detected");
+        leaseLock.lock();
+        try {
+            while(serviceModeUser != null && subject.isPresent() && !subject.equals(Optional.ofNullable(serviceModeUser))) {
+                try {
+                    LOG.debug("Db instance is in service mode. Waiting for db to become available again ...");
+                    leaseChanged.await();
+                } catch(final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOG.error("Interrupt detected");
+                    // never lease a broker to another user whilst the db is in service mode
+                    throw new EXistException("Interrupted whilst waiting for the db to leave service mode", e);
+                }
             }
-        }
 
-        synchronized(this) {
             //Are there any available brokers ?
             if(inactiveBrokers.isEmpty()) {
                 //There are no available brokers. If allowed...
@@ -1269,16 +1355,10 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
                 //... create one
                 {
                     createBroker();
-                } else
+                } else {
                     //... or wait until there is one available
-                    while(inactiveBrokers.isEmpty()) {
-                        LOG.debug("waiting for a broker to become available");
-                        try {
-                            this.wait();
-                        } catch(final InterruptedException e) {
-                            //nothing to be done!
-                        }
-                    }
+                    awaitInactiveBroker();
+                }
             }
             broker = inactiveBrokers.pop();
             broker.prepare();
@@ -1305,10 +1385,37 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
                 brokerLeaseChangeTrace.get(broker.getId()).add(TraceableBrokerLeaseChange.get(new TraceableBrokerLeaseChange.BrokerInfo(broker.getId(), broker.getReferenceCount())));
             }
 
-            //Inform the other threads that we have a new-comer
-            // TODO: do they really need to be informed here???????
-            this.notifyAll();
             return broker;
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a broker is returned to the pool,
+     * and records the time spent waiting.
+     *
+     * Must be called whilst holding {@link #leaseLock}.
+     */
+    @GuardedBy("leaseLock")
+    private void awaitInactiveBroker() {
+        leaseWaiting.incrementAndGet();
+        final long waitStart = System.nanoTime();
+        try {
+            while(inactiveBrokers.isEmpty()) {
+                LOG.debug("waiting for a broker to become available");
+                try {
+                    leaseChanged.await();
+                } catch(final InterruptedException e) {
+                    //nothing to be done!
+                }
+            }
+        } finally {
+            final long waited = System.nanoTime() - waitStart;
+            leaseWaiting.decrementAndGet();
+            leaseWaits.increment();
+            leaseWaitTime.add(waited);
+            leaseMaxWaitTime.accumulateAndGet(waited, Math::max);
         }
     }
 
@@ -1341,7 +1448,8 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
             return;
         }
 
-        synchronized(this) {
+        leaseLock.lock();
+        try {
             //Broker is no more used : inactivate it
             for(final DBBroker inactiveBroker : inactiveBrokers) {
                 if(broker == inactiveBroker) {
@@ -1414,7 +1522,9 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
                 }
             }
             //Inform the other threads that someone is gone
-            this.notifyAll();
+            leaseChanged.signalAll();
+        } finally {
+            leaseLock.unlock();
         }
     }
 
@@ -1423,17 +1533,20 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
             throw new PermissionDeniedException("Only users of group dba can switch the db to service mode");
         }
 
-        serviceModeUser = user;
-        synchronized(this) {
+        leaseLock.lock();
+        try {
+            serviceModeUser = user;
             if(activeBrokers.size() != 0) {
                 while(!inServiceMode) {
                     try {
-                        wait();
+                        leaseChanged.await();
                     } catch(final InterruptedException e) {
                         //nothing to be done
                     }
                 }
             }
+        } finally {
+            leaseLock.unlock();
         }
 
         inServiceMode = true;
@@ -1450,10 +1563,13 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
         if(!user.equals(serviceModeUser)) {
             throw new PermissionDeniedException("The db has been locked by a different user");
         }
-        serviceModeUser = null;
-        inServiceMode = false;
-        synchronized(this) {
-            this.notifyAll();
+        leaseLock.lock();
+        try {
+            serviceModeUser = null;
+            inServiceMode = false;
+            leaseChanged.signalAll();
+        } finally {
+            leaseLock.unlock();
         }
     }
 
@@ -1636,7 +1752,8 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
                 statusReporter = new StatusReporter(SIGNAL_SHUTDOWN);
                 statusObservers.forEach(statusReporter::addObserver);
 
-                synchronized (this) {
+                leaseLock.lock();
+                try {
                     final Thread statusThread = newInstanceThread(this, "shutdown-status-reporter", statusReporter);
                     statusThread.start();
 
@@ -1662,7 +1779,7 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
                         while (activeBrokers.size() > 0) {
                             try {
                                 //Wait until they become inactive...
-                                this.wait(1000);
+                                leaseChanged.await(1000, TimeUnit.MILLISECONDS);
                             } catch (final InterruptedException e) {
                                 //nothing to be done
                             }
@@ -1745,6 +1862,8 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
                     if (shutdownListener != null) {
                         shutdownListener.shutdown(instanceName, instancesCount());
                     }
+                } finally {
+                    leaseLock.unlock();
                 }
             } finally {
                 // clear instance variables, just to be sure they will be garbage collected
@@ -1843,10 +1962,13 @@ public class BrokerPool extends BrokerPools implements BrokerPoolConstants, Data
         if(syncRequired) {
             return;
         }
-        synchronized(this) {
+        leaseLock.lock();
+        try {
             syncEvent = Sync.MAJOR;
             syncRequired = true;
             checkpoint = true;
+        } finally {
+            leaseLock.unlock();
         }
     }
 
@@ -760,6 +760,17 @@ public interface DBBroker extends AutoCloseable {
 
     void getCollectionResources(Collection.InternalAccess collectionInternalAccess);
 
+    /**
+     * Reads a single document of a Collection from the collections store.
+     *
+     * @param collectionId the id of the Collection which holds the document
+     * @param resourceType the type of the document, i.e. {@link DocumentImpl#XML_FILE} or {@link DocumentImpl#BINARY_FILE}
+     * @param documentId the id of the document
+     *
+     * @return the document, or null if there is no such document
+     */
+    @Nullable DocumentImpl getCollectionResource(int collectionId, byte resourceType, int documentId);
+
     /**
      * @deprecated use {@link #readBinaryResource(Txn, BinaryDocument, OutputStream)}
      * @param blob
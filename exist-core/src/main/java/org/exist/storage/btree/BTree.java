@@ -224,11 +224,64 @@ public class BTree extends Paged implements Lockable {
     }
 
     protected void initCache() {
-        this.cache = new BTreeCache<>(FileUtils.fileName(getFile()), cacheManager.getDefaultInitialSize(), 1.5,
+        this.cache = createCache(BTreeCache::new, FileUtils.fileName(getFile()), cacheManager.getDefaultInitialSize(), 1.5,
             0, Cache.CacheType.BTREE);
         cacheManager.registerCache(cache);
     }
 
+    /**
+     * Constructs a {@link Cache}.
+     *
+     * @param <T> the type of the cached items
+     */
+    @FunctionalInterface
+    protected interface CacheConstructor<T extends Cacheable> {
+        Cache<T> construct(String name, int size, double growthFactor, double growthThreshold, Cache.CacheType type);
+    }
+
+    /**
+     * Creates a cache for this file of the type configured
+     * by the cache manager.
+     *
+     * @param <T> the type of the cached items
+     * @param defaultCache constructs the cache to use when the cache type is {@link DefaultCacheManager#CACHE_TYPE_DEFAULT}
+     * @param name the name of the cache
+     * @param size the initial size of the cache
+     * @param growthFactor the factor by which the cache may grow
+     * @param growthThreshold the amount of thrashing, as a fraction of the cache size, before the cache should grow
+     * @param type the type of the cache
+     *
+     * @return the cache
+     *
+     * @see DefaultCacheManager#getCacheType()
+     */
+    protected <T extends Cacheable> Cache<T> createCache(final CacheConstructor<T> defaultCache, final String name,
+            final int size, final double growthFactor, final double growthThreshold, final Cache.CacheType type) {
+        if (DefaultCacheManager.CACHE_TYPE_S3_FIFO.equals(cacheManager.getCacheType())) {
+            // NOTE: is thread-safe, so does not need to be guarded
+            return new S3FIFOCache<>(name, size, growthFactor, growthThreshold, type);
+        }
+        return guardCache(defaultCache.construct(name, size, growthFactor, growthThreshold, type));
+    }
+
+    /**
+     * Guards a cache against concurrent access if readers of
+     * this file may share the BTree lock.
+     *
+     * @param <T> the type of the cached items
+     * @param cache the cache
+     *
+     * @return the cache, or a thread-safe view of the cache.
+     *
+     * @see org.exist.storage.lock.LockManager#isBtreeMultiReader()
+     */
+    protected <T extends Cacheable> Cache<T> guardCache(final Cache<T> cache) {
+        if (pool.getLockManager().isBtreeMultiReader()) {
+            return new SynchronizedCache<>(cache);
+        }
+        return cache;
+    }
+
     protected void setSplitFactor(final double factor) {
         if (factor > 1.0) {
             throw new IllegalArgumentException("splitFactor should be <= 1 > 0");
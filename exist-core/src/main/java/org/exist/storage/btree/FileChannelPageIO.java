@@ -0,0 +1,108 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.btree;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * {@link PageIO} which uses positional reads and writes through
+ * a {@link FileChannel}, so that concurrent access does not contend
+ * on a shared file pointer.
+ *
+ * NOTE: Interrupting a thread whilst it is blocked in an operation on
+ * a {@link FileChannel} closes the channel, see {@link java.nio.channels.ClosedByInterruptException}.
+ * To reduce the likelihood of this, the interrupt status of the calling thread
+ * is cleared for the duration of each operation and then restored.
+ */
+@ThreadSafe
+final class FileChannelPageIO implements PageIO {
+
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+
+    FileChannelPageIO(final RandomAccessFile raf) {
+        this.raf = raf;
+        this.channel = raf.getChannel();
+    }
+
+    @Override
+    public void read(final long offset, final byte[] buf, final int off, final int len) throws IOException {
+        read(channel, offset, buf, off, len);
+    }
+
+    @Override
+    public void write(final long offset, final byte[] buf, final int off, final int len) throws IOException {
+        write(channel, offset, buf, off, len);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    static void read(final FileChannel channel, long offset, final byte[] buf, final int off, final int len) throws IOException {
+        final ByteBuffer dst = ByteBuffer.wrap(buf, off, len);
+        final boolean interrupted = Thread.interrupted();
+        try {
+            while (dst.hasRemaining()) {
+                final int read = channel.read(dst, offset);
+                if (read < 0) {
+                    // beyond the end of the file
+                    Arrays.fill(buf, dst.position(), off + len, (byte) 0);
+                    return;
+                }
+                offset += read;
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static void write(final FileChannel channel, long offset, final byte[] buf, final int off, final int len) throws IOException {
+        final ByteBuffer src = ByteBuffer.wrap(buf, off, len);
+        final boolean interrupted = Thread.interrupted();
+        try {
+            while (src.hasRemaining()) {
+                offset += channel.write(src, offset);
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
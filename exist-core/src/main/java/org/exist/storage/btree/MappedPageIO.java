@@ -0,0 +1,160 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.btree;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * {@link PageIO} which memory-maps the file in fixed size regions,
+ * so that reading a page is a copy from the mapping without a system call.
+ *
+ * Only regions which are entirely within the file are mapped, so the file
+ * is never extended by mapping it. Access to the tail of the file which is not yet
+ * covered by a whole region falls back to positional I/O, see {@link FileChannelPageIO},
+ * and further regions are mapped as the file grows.
+ *
+ * NOTE: Java 17 provides no supported way to unmap a {@link MappedByteBuffer},
+ * the mappings are released when the buffers are garbage collected after {@link #close()}.
+ */
+@ThreadSafe
+final class MappedPageIO implements PageIO {
+
+    /**
+     * Size of each mapped region: 64 MB
+     */
+    static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final FileChannel.MapMode mapMode;
+    private final int regionSize;
+
+    /**
+     * the mapped regions, only replaced whilst holding the monitor, but may be read without it
+     */
+    private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+    MappedPageIO(final RandomAccessFile raf, final boolean readOnly) throws IOException {
+        this(raf, readOnly, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Reserved for testing!
+     */
+    MappedPageIO(final RandomAccessFile raf, final boolean readOnly, final int regionSize) throws IOException {
+        this.raf = raf;
+        this.channel = raf.getChannel();
+        this.mapMode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+        this.regionSize = regionSize;
+        mapRegions();
+    }
+
+    @Override
+    public void read(long offset, final byte[] buf, int off, int len) throws IOException {
+        while (len > 0) {
+            final MappedByteBuffer[] regions = this.regions;
+            final int region = (int) (offset / regionSize);
+            final int regionOffset = (int) (offset % regionSize);
+            final int regionLen = Math.min(len, regionSize - regionOffset);
+
+            if (region < regions.length) {
+                regions[region].get(regionOffset, buf, off, regionLen);
+            } else {
+                FileChannelPageIO.read(channel, offset, buf, off, regionLen);
+            }
+
+            offset += regionLen;
+            off += regionLen;
+            len -= regionLen;
+        }
+    }
+
+    @Override
+    public void write(long offset, final byte[] buf, int off, int len) throws IOException {
+        boolean unmapped = false;
+        while (len > 0) {
+            final MappedByteBuffer[] regions = this.regions;
+            final int region = (int) (offset / regionSize);
+            final int regionOffset = (int) (offset % regionSize);
+            final int regionLen = Math.min(len, regionSize - regionOffset);
+
+            if (region < regions.length) {
+                regions[region].put(regionOffset, buf, off, regionLen);
+            } else {
+                FileChannelPageIO.write(channel, offset, buf, off, regionLen);
+                unmapped = true;
+            }
+
+            offset += regionLen;
+            off += regionLen;
+            len -= regionLen;
+        }
+
+        if (unmapped) {
+            // the file may have grown to cover further regions
+            mapRegions();
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        regions = new MappedByteBuffer[0];
+        raf.close();
+    }
+
+    private synchronized void mapRegions() throws IOException {
+        final int available = (int) (channel.size() / regionSize);
+        if (available <= regions.length) {
+            return;
+        }
+
+        final MappedByteBuffer[] newRegions = Arrays.copyOf(regions, available);
+        for (int i = regions.length; i < available; i++) {
+            newRegions[i] = channel.map(mapMode, (long) i * regionSize, regionSize);
+        }
+        regions = newRegions;
+    }
+
+    /**
+     * Get the number of regions which are currently mapped.
+     *
+     * Reserved for testing!
+     *
+     * @return the number of mapped regions
+     */
+    int getMappedRegions() {
+        return regions.length;
+    }
+}
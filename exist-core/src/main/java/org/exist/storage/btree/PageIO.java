@@ -0,0 +1,143 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.btree;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Provides access to the bytes of a {@link Paged} file.
+ *
+ * Implementations must be safe for use by concurrent threads,
+ * and must zero-fill any part of a read that lies beyond the end of the file,
+ * as new pages are read before they are first written.
+ */
+public interface PageIO extends Closeable {
+
+    /**
+     * Read bytes from the file.
+     *
+     * @param offset the offset in the file to start reading from
+     * @param buf the buffer to read into
+     * @param off the offset in the buffer to start writing at
+     * @param len the number of bytes to read
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void read(long offset, byte[] buf, int off, int len) throws IOException;
+
+    /**
+     * Write bytes to the file.
+     *
+     * @param offset the offset in the file to start writing at
+     * @param buf the buffer to write from
+     * @param off the offset in the buffer to start reading from
+     * @param len the number of bytes to write
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void write(long offset, byte[] buf, int off, int len) throws IOException;
+
+    /**
+     * Get the size of the file.
+     *
+     * @return the size of the file in bytes
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    long size() throws IOException;
+
+    /**
+     * The available implementations of {@link PageIO}.
+     */
+    enum Type {
+        /**
+         * Seek and read/write through a {@link RandomAccessFile},
+         * all access to the file is serialized.
+         */
+        RANDOM_ACCESS("random-access"),
+
+        /**
+         * Positional reads and writes through a {@link java.nio.channels.FileChannel},
+         * concurrent access does not contend on a shared file pointer.
+         */
+        POSITIONAL("positional"),
+
+        /**
+         * Memory-mapped access through {@link java.nio.MappedByteBuffer}s,
+         * page reads are copied directly from the mapping without a system call.
+         */
+        MAPPED("mapped");
+
+        private final String configValue;
+
+        Type(final String configValue) {
+            this.configValue = configValue;
+        }
+
+        public String getConfigValue() {
+            return configValue;
+        }
+
+        /**
+         * Get the type for a configuration value.
+         *
+         * @param configValue the configuration value
+         *
+         * @return the type, or null if there is no type for the configuration value
+         */
+        public static @Nullable Type fromConfigValue(final String configValue) {
+            for (final Type type : values()) {
+                if (type.configValue.equals(configValue)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Create a new {@link PageIO} of this type.
+         *
+         * @param raf the file, the {@link PageIO} takes ownership of it and closes it when it is closed
+         * @param readOnly true if the file was opened read-only
+         *
+         * @return the page I/O
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        public PageIO create(final RandomAccessFile raf, final boolean readOnly) throws IOException {
+            switch (this) {
+                case POSITIONAL:
+                    return new FileChannelPageIO(raf);
+                case MAPPED:
+                    return new MappedPageIO(raf, readOnly);
+                case RANDOM_ACCESS:
+                default:
+                    return new RandomAccessFilePageIO(raf);
+            }
+        }
+    }
+}
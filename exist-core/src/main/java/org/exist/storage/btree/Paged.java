@@ -77,9 +77,11 @@ import org.apache.logging.log4j.Logger;
 import org.exist.storage.BrokerPool;
 import org.exist.storage.journal.Lsn;
 import org.exist.util.ByteConversion;
+import org.exist.util.Configuration;
 import org.exist.util.FileUtils;
 import org.exist.xquery.Constants;
 
+import javax.annotation.Nullable;
 import java.lang.AutoCloseable;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -91,6 +93,7 @@ import java.nio.channels.NonWritableChannelException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  *  Paged is a paged file foundation that is used by the BTree class and
@@ -129,12 +132,20 @@ public abstract class Paged implements AutoCloseable {
 
     protected static int PAGE_SIZE = 4096;
 
+    public static final String CONFIGURATION_PAGE_IO_ELEMENT_NAME = "page-io";
+    public static final String CONFIGURATION_PAGE_IO_FILE_ELEMENT_NAME = "file";
+    public static final String PAGE_IO_DEFAULT_ATTRIBUTE = "default";
+    public static final String PAGE_IO_FILE_NAME_ATTRIBUTE = "name";
+    public static final String PAGE_IO_FILE_TYPE_ATTRIBUTE = "type";
+    public static final String PROPERTY_PAGE_IO_DEFAULT = "db-connection.page-io.default";
+    public static final String PROPERTY_PAGE_IO_FILES = "db-connection.page-io.files";
+
     protected final short fileVersion;
     private final FileHeader fileHeader;
     private final byte[] tempPageData;
-    private final byte[] tempHeaderData;
+    @Nullable private final Configuration configuration;
 
-    private RandomAccessFile raf;
+    private PageIO pageIO;
     private Path file;
     private boolean readOnly = false;
     private boolean fileIsNew = false;
@@ -143,7 +154,7 @@ public abstract class Paged implements AutoCloseable {
         this.fileVersion = fileVersion;
         this.fileHeader = createFileHeader(pool.getPageSize());
         this.tempPageData = new byte[fileHeader.pageSize];
-        this.tempHeaderData = new byte[fileHeader.pageHeaderSize];
+        this.configuration = pool.getConfiguration();
     }
 
     public final static void setPageSize(final int pageSize) {
@@ -166,7 +177,7 @@ public abstract class Paged implements AutoCloseable {
     @Override
     public void close() throws DBException {
         try {
-            raf.close();
+            pageIO.close();
         } catch (final IOException e) {
             throw new DBException("An error occurred whilst closing the database file '"
                     + file == null ? "null" : FileUtils.fileName(file) + "': " + e.getMessage());
@@ -242,11 +253,13 @@ public abstract class Paged implements AutoCloseable {
      * @throws IOException if an I/O error occurs
      */
     public void backupToStream(final OutputStream os) throws IOException {
-        raf.seek(0);
         final byte[] buf = new byte[4096];
-        int len;
-        while ((len = raf.read(buf)) > 0) {
+        final long size = pageIO.size();
+        for (long offset = 0; offset < size; ) {
+            final int len = (int) Math.min(buf.length, size - offset);
+            pageIO.read(offset, buf, 0, len);
             os.write(buf, 0, len);
+            offset += len;
         }
     }
 
@@ -397,6 +410,7 @@ public abstract class Paged implements AutoCloseable {
     protected final void setFile(final Path file) throws DBException {
         this.file = file;
         fileIsNew = !Files.exists(file);
+        RandomAccessFile raf;
         try {
             if ((!Files.exists(file)) || Files.isWritable(file)) {
                 try {
@@ -417,11 +431,44 @@ public abstract class Paged implements AutoCloseable {
                 readOnly = true;
                 raf = new RandomAccessFile(file.toFile(), "r");
             }
+
+            final PageIO.Type pageIOType = getPageIOType(configuration, file);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Using {} page I/O for database file {}", pageIOType.getConfigValue(), FileUtils.fileName(file));
+            }
+            pageIO = pageIOType.create(raf, readOnly);
         } catch (final IOException e) {
             LOG.warn("An exception occurred while opening database file {}: {}", file.toAbsolutePath().toString(), e.getMessage(), e);
         }
     }
 
+    /**
+     * Get the type of {@link PageIO} configured for a database file.
+     *
+     * @param configuration the database configuration
+     * @param file the database file
+     *
+     * @return the type of page I/O, {@link PageIO.Type#RANDOM_ACCESS} unless otherwise configured
+     */
+    static PageIO.Type getPageIOType(@Nullable final Configuration configuration, final Path file) {
+        if (configuration != null) {
+            @SuppressWarnings("unchecked")
+            final Map<String, PageIO.Type> fileTypes = (Map<String, PageIO.Type>) configuration.getProperty(PROPERTY_PAGE_IO_FILES);
+            if (fileTypes != null) {
+                final PageIO.Type fileType = fileTypes.get(FileUtils.fileName(file));
+                if (fileType != null) {
+                    return fileType;
+                }
+            }
+
+            final PageIO.Type defaultType = (PageIO.Type) configuration.getProperty(PROPERTY_PAGE_IO_DEFAULT);
+            if (defaultType != null) {
+                return defaultType;
+            }
+        }
+        return PageIO.Type.RANDOM_ACCESS;
+    }
+
     /**
      * Unlinks a set of pages starting at the specified page.
      *
@@ -711,8 +758,7 @@ public abstract class Paged implements AutoCloseable {
         }
 
         public final synchronized void read() throws IOException {
-            raf.seek(0);
-            raf.read(buf);
+            pageIO.read(0, buf, 0, buf.length);
             read(buf);
             calculateWorkSize();
             dirty = false;
@@ -848,9 +894,8 @@ public abstract class Paged implements AutoCloseable {
         }
 
         public final synchronized void write() throws IOException {
-            raf.seek(0);
             write(buf);
-            raf.write(buf);
+            pageIO.write(0, buf, 0, buf.length);
             dirty = false;
         }
     }
@@ -944,16 +989,14 @@ public abstract class Paged implements AutoCloseable {
 
         public byte[] read() throws IOException {
             try {
-                if (raf.getFilePointer() != offset) {
-                    raf.seek(offset);
-                }
-                Arrays.fill(tempHeaderData, (byte)0);
-                raf.read(tempHeaderData);
+                // NOTE: the header buffer is not shared, so that concurrent readers need not be serialized
+                final byte[] headerData = new byte[fileHeader.pageHeaderSize];
+                pageIO.read(offset, headerData, 0, headerData.length);
                 // Read in the header
-                header.read(tempHeaderData, 0);
+                header.read(headerData, 0);
                 // Read the working data
                 final byte[] workData = new byte[header.dataLen];
-                raf.read(workData);
+                pageIO.read(offset + headerData.length, workData, 0, workData.length);
                 return workData;
             } catch(final Exception e) {
                 LOG.warn("error while reading page: {}", getPageInfo(), e);
@@ -971,25 +1014,25 @@ public abstract class Paged implements AutoCloseable {
         }
 
         private final void write(final byte[] data) throws IOException {
-            if(data == null) {
-                // Removed page: fill with 0
-                Arrays.fill(tempPageData, (byte)0);
-                header.setLsn(Lsn.LSN_INVALID);
-            }
-            // Write out the header
-            header.write(tempPageData, 0);
-            header.dirty = false;
-            if (data != null) {
-                if (data.length > fileHeader.workSize) {
-                    throw new IOException("page: " + getPageInfo() + ": data length too large: " + data.length);
-                } else {
-                    System.arraycopy(data, 0, tempPageData, fileHeader.pageHeaderSize, data.length);
+            // NOTE: the temp buffer is shared, so concurrent writers must be serialized
+            synchronized (fileHeader) {
+                if (data == null) {
+                    // Removed page: fill with 0
+                    Arrays.fill(tempPageData, (byte) 0);
+                    header.setLsn(Lsn.LSN_INVALID);
                 }
+                // Write out the header
+                header.write(tempPageData, 0);
+                header.dirty = false;
+                if (data != null) {
+                    if (data.length > fileHeader.workSize) {
+                        throw new IOException("page: " + getPageInfo() + ": data length too large: " + data.length);
+                    } else {
+                        System.arraycopy(data, 0, tempPageData, fileHeader.pageHeaderSize, data.length);
+                    }
+                }
+                pageIO.write(offset, tempPageData, 0, tempPageData.length);
             }
-            if (raf.getFilePointer() != offset) {
-                raf.seek(offset);
-            }
-            raf.write(tempPageData);
         }
 
         @Override
@@ -1009,11 +1052,8 @@ public abstract class Paged implements AutoCloseable {
         }
 
         public void dumpPage() throws IOException {
-            if (raf.getFilePointer() != offset) {
-                raf.seek(offset);
-            }
             final byte[] data = new byte[fileHeader.pageSize];
-            raf.read(data);
+            pageIO.read(offset, data, 0, data.length);
             LOG.debug("Contents of page {}: {}", pageNum, hexDump(data));
         }
     }
@@ -0,0 +1,80 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.btree;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * {@link PageIO} which seeks and reads/writes through a {@link RandomAccessFile}.
+ *
+ * As the file pointer is shared, all access is serialized.
+ */
+@ThreadSafe
+final class RandomAccessFilePageIO implements PageIO {
+
+    private final RandomAccessFile raf;
+
+    RandomAccessFilePageIO(final RandomAccessFile raf) {
+        this.raf = raf;
+    }
+
+    @Override
+    public synchronized void read(final long offset, final byte[] buf, int off, int len) throws IOException {
+        if (raf.getFilePointer() != offset) {
+            raf.seek(offset);
+        }
+        while (len > 0) {
+            final int read = raf.read(buf, off, len);
+            if (read < 0) {
+                // beyond the end of the file
+                Arrays.fill(buf, off, off + len, (byte) 0);
+                return;
+            }
+            off += read;
+            len -= read;
+        }
+    }
+
+    @Override
+    public synchronized void write(final long offset, final byte[] buf, final int off, final int len) throws IOException {
+        if (raf.getFilePointer() != offset) {
+            raf.seek(offset);
+        }
+        raf.write(buf, off, len);
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        return raf.length();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        raf.close();
+    }
+}
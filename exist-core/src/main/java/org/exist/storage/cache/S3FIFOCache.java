@@ -0,0 +1,451 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.cache;
+
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.exist.storage.CacheManager;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent cache with a scan resistant replacement policy
+ * based on S3-FIFO, a variation of 2Q.
+ *
+ * New items are admitted to a small FIFO queue which holds about 10% of
+ * the cache. When an item reaches the head of the small queue, it is
+ * promoted to the main FIFO queue if it was accessed more than once whilst in the
+ * small queue, otherwise it is evicted, and its key is remembered in a ghost queue.
+ * Items whose key is found in the ghost queue are admitted directly to the
+ * main queue. When an item reaches the head of the main queue, it is
+ * reinserted at the tail if it was accessed since it was last there, otherwise
+ * it is evicted. As such, pages which are only read once, e.g. by a
+ * full scan of a collection, pass through the small queue without
+ * evicting the hot pages from the main queue.
+ *
+ * Inner pages of a B+-tree ({@link BTreeCacheable#isInnerPage()}) are
+ * always admitted to the main queue.
+ *
+ * Lookups do not take a lock, they record the access with a racy update
+ * of a small counter on the item. Admission and eviction are serialized
+ * by a latch. As this cache is thread-safe, it does not need to be guarded
+ * by a {@link SynchronizedCache}.
+ *
+ * An access to an item whose key is in the ghost queue is recorded as
+ * thrashing, if the thrashing exceeds the growth threshold the
+ * {@link CacheManager} is asked to grow the cache.
+ *
+ * @param <T> The type that implements {@link Cacheable}
+ */
+@ThreadSafe
+public class S3FIFOCache<T extends Cacheable> implements Cache<T> {
+    private static final Logger LOG = LogManager.getLogger(S3FIFOCache.class);
+
+    /**
+     * The fraction of the cache used for the small queue.
+     */
+    static final double SMALL_QUEUE_RATIO = 0.1;
+
+    /**
+     * The maximum access frequency recorded for an item.
+     */
+    private static final int MAX_FREQUENCY = 3;
+
+    /**
+     * The period (in milliseconds) for which thrashing is recorded.
+     */
+    private static final long THRASHING_CHECK_PERIOD = 30_000;
+
+    private final String name;
+    private final CacheType type;
+    private final double growthFactor;
+    private final double growthThreshold;
+
+    private final ConcurrentHashMap<Long, Node<T>> map;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final ReentrantLock latch = new ReentrantLock();
+    @GuardedBy("latch") private final ArrayDeque<Node<T>> small = new ArrayDeque<>();
+    @GuardedBy("latch") private final ArrayDeque<Node<T>> main = new ArrayDeque<>();
+    @GuardedBy("latch") private final LongLinkedOpenHashSet ghost = new LongLinkedOpenHashSet();
+    @GuardedBy("latch") private int smallSize = 0;
+    @GuardedBy("latch") private int mainSize = 0;
+    @GuardedBy("latch") private int removedNodes = 0;
+    @GuardedBy("latch") private int thrashing = 0;
+    @GuardedBy("latch") private long thrashingPeriodStart = System.currentTimeMillis();
+
+    private volatile int max;
+    private volatile CacheManager cacheManager = null;
+    @GuardedBy("latch") private long hitsOld = -1;
+
+    public S3FIFOCache(final String name, final int size, final double growthFactor, final double growthThreshold, final CacheType type) {
+        this.name = name;
+        this.max = size;
+        this.growthFactor = growthFactor;
+        this.growthThreshold = growthThreshold;
+        this.type = type;
+        this.map = new ConcurrentHashMap<>(size * 2);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CacheType getType() {
+        return type;
+    }
+
+    @Override
+    public void add(final T item) {
+        add(item, 1);
+    }
+
+    @Override
+    public void add(final T item, final int initialRefCount) {
+        final Node<T> existing = map.get(item.getKey());
+        if (existing != null && existing.item == item) {
+            existing.touch();
+            return;
+        }
+
+        final boolean resizeNeeded;
+        latch.lock();
+        try {
+            final Node<T> current = map.get(item.getKey());
+            if (current != null) {
+                // replace the item, but keep its position in the queues
+                final T displaced = current.item;
+                if (displaced != item && displaced.isDirty()) {
+                    // the displaced item must not lose its changes
+                    displaced.sync(true);
+                }
+                current.item = item;
+                current.touch();
+                return;
+            }
+
+            final boolean wasGhost = ghost.remove(item.getKey());
+            if (wasGhost) {
+                recordThrashing();
+            }
+
+            final Node<T> node = new Node<>(item);
+            if (wasGhost || (item instanceof BTreeCacheable && ((BTreeCacheable) item).isInnerPage())) {
+                node.inMain = true;
+                main.addLast(node);
+                mainSize++;
+            } else {
+                small.addLast(node);
+                smallSize++;
+            }
+            map.put(item.getKey(), node);
+
+            evict(max);
+
+            resizeNeeded = wasGhost && isResizeNeeded();
+        } finally {
+            latch.unlock();
+        }
+
+        // NOTE: request memory outside of the latch, as the cache manager may resize other caches
+        final CacheManager cacheManager = this.cacheManager;
+        if (resizeNeeded && cacheManager != null) {
+            cacheManager.requestMem(this);
+        }
+    }
+
+    @Override
+    public T get(final T item) {
+        return get(item.getKey());
+    }
+
+    @Override
+    public T get(final long key) {
+        final Node<T> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        node.touch();
+        return node.item;
+    }
+
+    @Override
+    public void remove(final T item) {
+        latch.lock();
+        try {
+            final Node<T> node = map.remove(item.getKey());
+            if (node == null) {
+                return;
+            }
+
+            // NOTE: the node is lazily removed from its queue
+            node.removed = true;
+            if (node.inMain) {
+                mainSize--;
+            } else {
+                smallSize--;
+            }
+            if (++removedNodes > smallSize + mainSize) {
+                small.removeIf(n -> n.removed);
+                main.removeIf(n -> n.removed);
+                removedNodes = 0;
+            }
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public boolean flush() {
+        latch.lock();
+        try {
+            boolean flushed = false;
+            for (final Node<T> node : map.values()) {
+                final T cacheable = node.item;
+                if (cacheable.isDirty()) {
+                    flushed = flushed | cacheable.sync(false);
+                }
+            }
+            return flushed;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasDirtyItems() {
+        for (final Node<T> node : map.values()) {
+            if (node.item.isDirty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getBuffers() {
+        return max;
+    }
+
+    @Override
+    public double getGrowthFactor() {
+        return growthFactor;
+    }
+
+    @Override
+    public void resize(final int newSize) {
+        latch.lock();
+        try {
+            max = newSize;
+            evict(newSize);
+            thrashing = 0;
+            thrashingPeriodStart = System.currentTimeMillis();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public void setCacheManager(final CacheManager manager) {
+        this.cacheManager = manager;
+    }
+
+    @Override
+    public int getUsedBuffers() {
+        return map.size();
+    }
+
+    @Override
+    public int getHits() {
+        return hits.intValue();
+    }
+
+    @Override
+    public int getFails() {
+        return misses.intValue();
+    }
+
+    public int getThrashing() {
+        latch.lock();
+        try {
+            return thrashing;
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public int getLoad() {
+        final long currentHits = hits.sum();
+        latch.lock();
+        try {
+            if (hitsOld < 0) {
+                hitsOld = currentHits;
+                return Integer.MAX_VALUE;
+            }
+            final long load = currentHits - hitsOld;
+            hitsOld = currentHits;
+            return (int) Math.min(load, Integer.MAX_VALUE);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    /**
+     * Evict items until the cache holds no more than {@code size} items.
+     *
+     * Items which do not allow themselves to be unloaded are skipped. If no
+     * item can be evicted after passing over the queues a number of times,
+     * the cache is allowed to temporarily exceed its size.
+     *
+     * @param size the maximum number of items to retain
+     */
+    @GuardedBy("latch")
+    private void evict(final int size) {
+        // each item may be passed over at most MAX_FREQUENCY + 1 times before it is evictable
+        int budget = (smallSize + mainSize + removedNodes) * (MAX_FREQUENCY + 2);
+        while (smallSize + mainSize > size && budget-- > 0) {
+            final int smallTarget = Math.max(1, (int) (size * SMALL_QUEUE_RATIO));
+            if (smallSize >= smallTarget || mainSize == 0) {
+                evictFromSmall();
+            } else {
+                evictFromMain();
+            }
+        }
+
+        if (smallSize + mainSize > size && LOG.isDebugEnabled()) {
+            LOG.debug("Unable to evict enough items from cache: {}, size: {}, used: {}", name, size, smallSize + mainSize);
+        }
+    }
+
+    @GuardedBy("latch")
+    private void evictFromSmall() {
+        final Node<T> node = small.pollFirst();
+        if (node == null) {
+            return;
+        }
+        if (node.removed) {
+            removedNodes--;
+            return;
+        }
+
+        smallSize--;
+        if (node.frequency > 1 || !node.item.allowUnload()) {
+            // accessed more than once whilst in the small queue (or pinned), promote it
+            node.inMain = true;
+            main.addLast(node);
+            mainSize++;
+        } else {
+            unload(node);
+            ghost.add(node.item.getKey());
+            while (ghost.size() > max) {
+                ghost.removeFirstLong();
+            }
+        }
+    }
+
+    @GuardedBy("latch")
+    private void evictFromMain() {
+        final Node<T> node = main.pollFirst();
+        if (node == null) {
+            return;
+        }
+        if (node.removed) {
+            removedNodes--;
+            return;
+        }
+
+        if (node.frequency > 0 || !node.item.allowUnload()) {
+            // accessed since it was last at the head of the queue, give it another chance
+            node.frequency = Math.max(0, node.frequency - 1);
+            main.addLast(node);
+        } else {
+            mainSize--;
+            unload(node);
+        }
+    }
+
+    @GuardedBy("latch")
+    private void unload(final Node<T> node) {
+        map.remove(node.item.getKey());
+        node.removed = true;
+        node.item.sync(true);
+    }
+
+    @GuardedBy("latch")
+    private void recordThrashing() {
+        final long now = System.currentTimeMillis();
+        if (now - thrashingPeriodStart > THRASHING_CHECK_PERIOD) {
+            thrashing = 0;
+            thrashingPeriodStart = now;
+        }
+        thrashing++;
+    }
+
+    @GuardedBy("latch")
+    private boolean isResizeNeeded() {
+        if (growthFactor <= 1.0) {
+            return false;
+        }
+        if (growthThreshold == 0) {
+            return thrashing > 0;
+        }
+        return thrashing > max * growthThreshold;
+    }
+
+    private static final class Node<T extends Cacheable> {
+        volatile T item;
+        volatile int frequency = 0;
+        @GuardedBy("latch") boolean inMain = false;
+        @GuardedBy("latch") boolean removed = false;
+
+        Node(final T item) {
+            this.item = item;
+        }
+
+        /**
+         * Record an access to the item.
+         *
+         * NOTE: the update is intentionally racy, as a lost
+         * update only makes the frequency approximate.
+         */
+        void touch() {
+            final int f = frequency;
+            if (f < MAX_FREQUENCY) {
+                frequency = f + 1;
+            }
+        }
+    }
+}
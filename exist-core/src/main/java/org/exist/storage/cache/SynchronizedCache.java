@@ -0,0 +1,207 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.cache;
+
+import net.jcip.annotations.ThreadSafe;
+import org.exist.storage.CacheManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorates a {@link Cache} so that it may be safely accessed
+ * by multiple threads.
+ *
+ * The cache implementations themselves are not thread-safe, as access to
+ * them was traditionally guarded by an exclusive lock on the file that
+ * owns the cache. When readers of a {@link org.exist.storage.btree.BTree}
+ * are permitted to share the file lock, each operation on the cache
+ * must instead be guarded by a short-lived latch.
+ *
+ * @param <T> The type that implements {@link Cacheable}
+ */
+@ThreadSafe
+public class SynchronizedCache<T extends Cacheable> implements Cache<T> {
+
+    private final Cache<T> cache;
+    private final ReentrantLock latch = new ReentrantLock();
+
+    public SynchronizedCache(final Cache<T> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public CacheType getType() {
+        return cache.getType();
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public void add(final T item) {
+        latch.lock();
+        try {
+            cache.add(item);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public void add(final T item, final int initialRefCount) {
+        latch.lock();
+        try {
+            cache.add(item, initialRefCount);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public T get(final T item) {
+        latch.lock();
+        try {
+            return cache.get(item);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public T get(final long key) {
+        latch.lock();
+        try {
+            return cache.get(key);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public void remove(final T item) {
+        latch.lock();
+        try {
+            cache.remove(item);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasDirtyItems() {
+        latch.lock();
+        try {
+            return cache.hasDirtyItems();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public boolean flush() {
+        latch.lock();
+        try {
+            return cache.flush();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public int getBuffers() {
+        latch.lock();
+        try {
+            return cache.getBuffers();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public double getGrowthFactor() {
+        return cache.getGrowthFactor();
+    }
+
+    @Override
+    public void resize(final int newSize) {
+        latch.lock();
+        try {
+            cache.resize(newSize);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public void setCacheManager(final CacheManager manager) {
+        latch.lock();
+        try {
+            cache.setCacheManager(manager);
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public int getUsedBuffers() {
+        latch.lock();
+        try {
+            return cache.getUsedBuffers();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public int getHits() {
+        latch.lock();
+        try {
+            return cache.getHits();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public int getFails() {
+        latch.lock();
+        try {
+            return cache.getFails();
+        } finally {
+            latch.unlock();
+        }
+    }
+
+    @Override
+    public int getLoad() {
+        latch.lock();
+        try {
+            return cache.getLoad();
+        } finally {
+            latch.unlock();
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -30,7 +57,7 @@ import org.exist.util.FileUtils;
 import org.exist.util.LockException;
 import org.exist.util.ReadOnlyException;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * DOMTransaction controls access to the DOM file
@@ -48,7 +75,7 @@ public abstract class DOMTransaction<T> {
 
     private final Object ownerObject;
     private final DOMFile file;
-    private final SupplierE<ManagedLock<ReentrantLock>, LockException> acquireFn;
+    private final SupplierE<ManagedLock<ReentrantReadWriteLock>, LockException> acquireFn;
     private final DocumentImpl document;
 
     /**
@@ -58,7 +85,7 @@ public abstract class DOMTransaction<T> {
      * @param file a <code>DOMFile</code> value
      * @param acquireFn a <code>Supplier</code> value
      */
-    public DOMTransaction(final Object owner, final DOMFile file, final SupplierE<ManagedLock<ReentrantLock>, LockException> acquireFn) {
+    public DOMTransaction(final Object owner, final DOMFile file, final SupplierE<ManagedLock<ReentrantReadWriteLock>, LockException> acquireFn) {
         this(owner, file, acquireFn, null);
     }
 
@@ -70,7 +97,7 @@ public abstract class DOMTransaction<T> {
      * @param acquireFn a <code>Supplier</code> value
      * @param doc a <code>DocumentImpl</code> value
      */
-    public DOMTransaction(final Object owner, final DOMFile file, final SupplierE<ManagedLock<ReentrantLock>, LockException> acquireFn, final DocumentImpl doc) {
+    public DOMTransaction(final Object owner, final DOMFile file, final SupplierE<ManagedLock<ReentrantReadWriteLock>, LockException> acquireFn, final DocumentImpl doc) {
         this.ownerObject = owner;
         this.file = file;
         this.acquireFn = acquireFn;
@@ -92,7 +119,7 @@ public abstract class DOMTransaction<T> {
      */
     public T run() {
         // try to acquire a lock on the file
-        try(final ManagedLock<ReentrantLock> domFileLock = acquireFn.get()) {
+        try(final ManagedLock<ReentrantReadWriteLock> domFileLock = acquireFn.get()) {
             file.setOwnerObject(ownerObject);
             file.setCurrentDocument(document);
             return start();
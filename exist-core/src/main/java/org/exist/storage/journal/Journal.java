@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -31,6 +58,8 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
 import net.jcip.annotations.GuardedBy;
@@ -259,6 +288,33 @@ public final class Journal implements Closeable {
      */
     @GuardedBy("this") private boolean initialised = false;
 
+    /**
+     * Latch and condition used to coordinate a group commit,
+     * see {@link #writeToLogAndSync(Loggable)}
+     */
+    private final ReentrantLock groupCommitLock = new ReentrantLock();
+    private final Condition groupCommitSynced = groupCommitLock.newCondition();
+
+    /**
+     * true whilst a group commit leader is flushing and syncing the journal
+     */
+    @GuardedBy("groupCommitLock") private boolean groupCommitSyncing = false;
+
+    /**
+     * the LSN up to which the journal is known to be synced by a group commit
+     */
+    @GuardedBy("groupCommitLock") private Lsn groupCommitSyncedLsn = Lsn.LSN_INVALID;
+
+    /**
+     * the number of entries committed via a group commit
+     */
+    @GuardedBy("groupCommitLock") private long groupCommitCount = 0;
+
+    /**
+     * the number of file syncs performed by group commit leaders
+     */
+    @GuardedBy("groupCommitLock") private long groupCommitSyncCount = 0;
+
 
     // NOTE(AR) called from BrokerPool.prepare -- single thread!
     public Journal(final BrokerPool pool, final Path directory) throws EXistException {
@@ -385,6 +441,15 @@ public final class Journal implements Closeable {
         }
     }
 
+    /**
+     * Returns true if the journal file is synced after every commit.
+     *
+     * @return true if sync-on-commit is enabled
+     */
+    public boolean isSyncOnCommit() {
+        return syncOnCommit;
+    }
+
     /**
      * Returns the last LSN physically written to the journal.
      *
@@ -436,6 +501,152 @@ public final class Journal implements Closeable {
         }
     }
 
+    /**
+     * Write a log entry to the journal, and wait until the
+     * entry has been synced to disk.
+     *
+     * Concurrent callers are grouped together: the first caller
+     * to find no sync in progress becomes the leader, it flushes
+     * the buffer (which includes the entries of all waiting callers)
+     * and syncs the file once on behalf of the group, whilst further
+     * callers may continue to append to the buffer. When the sync completes,
+     * all callers whose entries were covered by it are released together.
+     *
+     * The durability is the same as calling {@link #writeToLog(Loggable)}
+     * followed by {@link #flushToLog(boolean)} with sync-on-commit enabled,
+     * but the cost of each file sync is shared by all the entries in the group.
+     *
+     * @param entry the journal entry to write
+     * @throws JournalException if the entry could not be written
+     */
+    public void writeToLogAndSync(final Loggable entry) throws JournalException {
+        writeToLog(entry);
+        final Lsn lsn = entry.getLsn();
+
+        groupCommitLock.lock();
+        try {
+            groupCommitCount++;
+            while (groupCommitSyncedLsn.compareTo(lsn) < 0) {
+                if (!groupCommitSyncing) {
+                    // become the leader
+                    groupCommitSyncing = true;
+                    Lsn syncedLsn = Lsn.LSN_INVALID;
+                    groupCommitLock.unlock();
+                    try {
+                        syncedLsn = syncGroup();
+                    } finally {
+                        groupCommitLock.lock();
+                        groupCommitSyncing = false;
+                        if (syncedLsn.compareTo(groupCommitSyncedLsn) > 0) {
+                            groupCommitSyncedLsn = syncedLsn;
+                        }
+                        groupCommitSynced.signalAll();
+                    }
+
+                    // NOTE: if the sync failed, the error has been logged, do not retry on behalf of the group
+                    return;
+                }
+
+                groupCommitSynced.awaitUninterruptibly();
+            }
+        } finally {
+            groupCommitLock.unlock();
+        }
+    }
+
+    /**
+     * Flush the buffer and sync the journal file on behalf
+     * of a group commit.
+     *
+     * The journal monitor is only held whilst flushing the buffer
+     * so that other threads may continue to write to the journal
+     * whilst the file is synced.
+     *
+     * @return the LSN up to which the journal has been synced,
+     *     or {@link Lsn#LSN_INVALID} if the journal could not be synced.
+     */
+    private Lsn syncGroup() {
+        final FileChannel syncChannel;
+        final Lsn syncLsn;
+        synchronized (this) {
+            if (inRecovery || channel == null) {
+                return currentLsn;
+            }
+
+            flushBuffer();
+
+            syncLsn = currentLsn;
+            if (syncLsn.compareTo(lastSyncLsn) <= 0) {
+                // already synced, e.g. by a checkpoint
+                return syncLsn;
+            }
+            syncChannel = channel;
+        }
+
+        try {
+            syncChannel.force(true);
+        } catch (final IOException e) {
+            LOG.error("Could not sync Journal to disk: {}", e.getMessage(), e);
+            return Lsn.LSN_INVALID;
+        }
+
+        synchronized (this) {
+            if (syncLsn.compareTo(lastSyncLsn) > 0) {
+                lastSyncLsn = syncLsn;
+            }
+
+            groupCommitLock.lock();
+            try {
+                groupCommitSyncCount++;
+            } finally {
+                groupCommitLock.unlock();
+            }
+
+            try {
+                if (channel != null && channel.size() >= journalSizeLimit) {
+                    pool.triggerCheckpoint();
+                }
+            } catch (final IOException e) {
+                LOG.warn("Failed to trigger checkpoint!", e);
+            }
+        }
+
+        return syncLsn;
+    }
+
+    /**
+     * Get the number of entries that have been committed
+     * by {@link #writeToLogAndSync(Loggable)}.
+     *
+     * @return the number of group committed entries
+     */
+    public long getGroupCommitCount() {
+        groupCommitLock.lock();
+        try {
+            return groupCommitCount;
+        } finally {
+            groupCommitLock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of file syncs that have been performed
+     * on behalf of {@link #writeToLogAndSync(Loggable)}.
+     *
+     * The ratio of {@link #getGroupCommitCount()} to this value
+     * gives the average number of commits per sync.
+     *
+     * @return the number of group commit syncs
+     */
+    public long getGroupCommitSyncCount() {
+        groupCommitLock.lock();
+        try {
+            return groupCommitSyncCount;
+        } finally {
+            groupCommitLock.unlock();
+        }
+    }
+
     private void sync() throws IOException {
         channel.force(true);
     }
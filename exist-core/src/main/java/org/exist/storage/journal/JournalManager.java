@@ -104,20 +104,44 @@ public class JournalManager implements BrokerPoolService {
     /**
      * Write a group of entrys to the journal
      *
+     * If group commits are enabled together with sync-on-commit, the
+     * entry is written and this method waits until it has been synced
+     * to disk, sharing the sync with any other concurrently committing
+     * groups, see {@link Journal#writeToLogAndSync(Loggable)}. If group
+     * commits are enabled without sync-on-commit, the entry is written
+     * but the journal is not flushed.
+     *
      * @see Journal#writeToLog(Loggable)
      * @see Journal#flushToLog(boolean)
+     * @see Journal#writeToLogAndSync(Loggable)
      *
      * @param loggable The entry to write in the journalGroup
      *
      * @throws JournalException of the journal group cannot be written
      */
-    public synchronized void journalGroup(final Loggable loggable) throws JournalException {
-        if (!journallingDisabled) {
-            journal.writeToLog(loggable);
+    public void journalGroup(final Loggable loggable) throws JournalException {
+        final Journal groupCommitJournal;
+        synchronized (this) {
+            if (journallingDisabled) {
+                return;
+            }
+
             if (!groupCommits) {
+                journal.writeToLog(loggable);
                 journal.flushToLog(true);
+                return;
             }
+
+            if (!journal.isSyncOnCommit()) {
+                journal.writeToLog(loggable);
+                return;
+            }
+
+            groupCommitJournal = journal;
         }
+
+        // NOTE: must not hold our monitor whilst waiting for the sync, otherwise no other commits could join the group
+        groupCommitJournal.writeToLogAndSync(loggable);
     }
 
     /**
@@ -173,11 +197,36 @@ public class JournalManager implements BrokerPoolService {
      */
     public synchronized void shutdown(final long transactionId, final boolean checkpoint) {
         if(initialized) {
+            if (groupCommits && LOG.isDebugEnabled()) {
+                LOG.debug("Group commits: {} commits in {} syncs", journal.getGroupCommitCount(), journal.getGroupCommitSyncCount());
+            }
             journal.shutdown(transactionId, checkpoint);
             initialized = false;
         }
     }
 
+    /**
+     * Get the number of entries committed by group commits.
+     *
+     * @see Journal#getGroupCommitCount()
+     *
+     * @return the number of group committed entries, or 0 if journalling is disabled
+     */
+    public synchronized long getGroupCommitCount() {
+        return journal != null ? journal.getGroupCommitCount() : 0;
+    }
+
+    /**
+     * Get the number of file syncs performed for group commits.
+     *
+     * @see Journal#getGroupCommitSyncCount()
+     *
+     * @return the number of group commit syncs, or 0 if journalling is disabled
+     */
+    public synchronized long getGroupCommitSyncCount() {
+        return journal != null ? journal.getGroupCommitSyncCount() : 0;
+    }
+
     /**
      * @see Journal#lastWrittenLsn()
      *
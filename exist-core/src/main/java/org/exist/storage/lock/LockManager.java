@@ -32,7 +32,7 @@ import org.exist.util.WeakLazyStripes;
 import org.exist.xmldb.XmldbURI;
 import uk.ac.ic.doc.slurp.multilock.MultiLock;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
 /**
@@ -68,6 +68,7 @@ public class LockManager {
     public final static String CONFIGURATION_WARN_WAIT_ON_READ_FOR_WRITE = "lock-manager.warn-wait-on-read-for-write";
     public final static String CONFIGURATION_PATH_LOCKS_FOR_DOCUMENTS = "lock-manager.document.use-path-locks";
     public final static String CONFIGURATION_PATHS_MULTI_WRITER = "lock-manager.paths-multi-writer";
+    public final static String CONFIGURATION_BTREE_MULTI_READER = "lock-manager.btree-multi-reader";
 
     //TODO(AR) remove eventually!
     // legacy properties for overriding the config
@@ -75,6 +76,9 @@ public class LockManager {
     public final static String PROP_UPGRADE_CHECK = "exist.lockmanager.upgrade.check";
     public final static String PROP_WARN_WAIT_ON_READ_FOR_WRITE = "exist.lockmanager.warn.waitonreadforwrite";
 
+    // properties for overriding the config
+    public final static String PROP_BTREE_MULTI_READER = "org.exist.lock-manager.btree-multi-reader";
+
     private static final Logger LOG = LogManager.getLogger(LockManager.class);
 
     /**
@@ -89,6 +93,13 @@ public class LockManager {
      */
     private final boolean pathsMultiWriter;
 
+    /**
+     * Set to true to enable Single-Writer/Multi-Reader semantics for
+     * {@link org.exist.storage.btree.BTree} files, as opposed to the
+     * default where readers are also exclusive.
+     */
+    private final boolean btreeMultiReader;
+
     /**
      * Set to true to enable checking for lock upgrading within the same
      * thread, i.e. READ_LOCK -> WRITE_LOCK
@@ -105,18 +116,23 @@ public class LockManager {
     private final LockTable lockTable;
     private final WeakLazyStripes<String, MultiLock> pathLocks;
     private final WeakLazyStripes<String, MultiLock> documentLocks;
-    private final WeakLazyStripes<String, ReentrantLock> btreeLocks;
+    private final WeakLazyStripes<String, ReentrantReadWriteLock> btreeLocks;
 
     /**
      * @param configuration database configuration
      * @param concurrencyLevel Concurrency Level of the lock table.
      */
     public LockManager(final Configuration configuration, final int concurrencyLevel) {
+        this(configuration, concurrencyLevel, getLegacySystemPropertyOrConfigPropertyBool(PROP_BTREE_MULTI_READER, configuration, CONFIGURATION_BTREE_MULTI_READER, false));
+    }
+
+    private LockManager(final Configuration configuration, final int concurrencyLevel, final boolean btreeMultiReader) {
         // set configuration
         this.usePathLocksForDocuments = getConfigPropertyBool(configuration, CONFIGURATION_PATH_LOCKS_FOR_DOCUMENTS, false);
         this.pathsMultiWriter = getLegacySystemPropertyOrConfigPropertyBool(PROP_ENABLE_PATHS_MULTI_WRITER, configuration, CONFIGURATION_PATHS_MULTI_WRITER, false);
         this.upgradeCheck = getLegacySystemPropertyOrConfigPropertyBool(PROP_UPGRADE_CHECK, configuration, CONFIGURATION_UPGRADE_CHECK, false);
         this.warnWaitOnReadForWrite = getLegacySystemPropertyOrConfigPropertyBool(PROP_WARN_WAIT_ON_READ_FOR_WRITE, configuration, CONFIGURATION_WARN_WAIT_ON_READ_FOR_WRITE, false);
+        this.btreeMultiReader = btreeMultiReader;
 
         this.lockTable = new LockTable(configuration);
         this.pathLocks = new WeakLazyStripes<>(concurrencyLevel, LockManager::createCollectionLock);
@@ -127,7 +143,7 @@ public class LockManager {
         }
         this.btreeLocks = new WeakLazyStripes<>(concurrencyLevel, LockManager::createBtreeLock);
 
-        LOG.info("Configured LockManager with concurrencyLevel={} use-path-locks-for-documents={} paths-multi-writer={}", concurrencyLevel, usePathLocksForDocuments, pathsMultiWriter);
+        LOG.info("Configured LockManager with concurrencyLevel={} use-path-locks-for-documents={} paths-multi-writer={} btree-multi-reader={}", concurrencyLevel, usePathLocksForDocuments, pathsMultiWriter, btreeMultiReader);
     }
 
     /**
@@ -139,6 +155,26 @@ public class LockManager {
         this(null, concurrencyLevel);
     }
 
+    /**
+     * Reserved for testing!
+     *
+     * @param concurrencyLevel Concurrency Level of the lock table.
+     * @param btreeMultiReader true to enable Single-Writer/Multi-Reader semantics for BTrees.
+     */
+    LockManager(final int concurrencyLevel, final boolean btreeMultiReader) {
+        this(null, concurrencyLevel, btreeMultiReader);
+    }
+
+    /**
+     * Returns true if readers of a {@link org.exist.storage.btree.BTree}
+     * may share the BTree lock, i.e. Single-Writer/Multi-Reader semantics.
+     *
+     * @return true if BTree readers are not exclusive.
+     */
+    public boolean isBtreeMultiReader() {
+        return btreeMultiReader;
+    }
+
     /**
      * Get the lock table.
      *
@@ -176,8 +212,8 @@ public class LockManager {
      * Creates a new lock for a {@link org.exist.storage.btree.BTree}
      * will be Striped by the btreeFileName
      */
-    private static ReentrantLock createBtreeLock(final String btreeFileName) {
-        return new ReentrantLock();
+    private static ReentrantReadWriteLock createBtreeLock(final String btreeFileName) {
+        return new ReentrantReadWriteLock();
     }
 
     /**
@@ -614,12 +650,15 @@ public class LockManager {
      *
      * @return A lock for the DOMFile
      */
-    ReentrantLock getBTreeLock(final String domFileName) {
+    ReentrantReadWriteLock getBTreeLock(final String domFileName) {
         return btreeLocks.get(domFileName);
     }
 
     /**
-     * Acquire a WRITE_LOCK on a {@link org.exist.storage.btree.BTree}
+     * Acquire a READ_LOCK on a {@link org.exist.storage.btree.BTree}
+     *
+     * Unless {@link #isBtreeMultiReader()} is enabled, the READ_LOCK
+     * is exclusive, i.e. it is the same as the WRITE_LOCK.
      *
      * @param btreeFileName the filename of the BTree
      *
@@ -627,14 +666,15 @@ public class LockManager {
      *
      * @throws LockException if the lock could not be acquired
      */
-    public ManagedLock<ReentrantLock> acquireBtreeReadLock(final String btreeFileName) throws LockException {
+    public ManagedLock<ReentrantReadWriteLock> acquireBtreeReadLock(final String btreeFileName) throws LockException {
         final long groupId = System.nanoTime();
 
-        final ReentrantLock lock = getBTreeLock(btreeFileName);
+        final ReentrantReadWriteLock lock = getBTreeLock(btreeFileName);
+        final java.util.concurrent.locks.Lock modeLock = btreeMultiReader ? lock.readLock() : lock.writeLock();
         try {
             lockTable.attempt(groupId, btreeFileName, LockType.BTREE, Lock.LockMode.READ_LOCK);
 
-            lock.lockInterruptibly();
+            modeLock.lockInterruptibly();
 
             lockTable.acquired(groupId, btreeFileName, LockType.BTREE, Lock.LockMode.READ_LOCK);
         } catch(final InterruptedException e) {
@@ -642,8 +682,8 @@ public class LockManager {
             throw new LockException("Unable to acquire READ_LOCK for: " + btreeFileName, e);
         }
 
-        return new ManagedLock(lock, () -> {
-            lock.unlock();
+        return new ManagedLock<>(lock, () -> {
+            modeLock.unlock();
             lockTable.released(groupId, btreeFileName, LockType.BTREE, Lock.LockMode.READ_LOCK);
         });
     }
@@ -655,16 +695,22 @@ public class LockManager {
      *
      * @return the lock for the BTree
      *
-     * @throws LockException if the lock could not be acquired
+     * @throws LockException if the lock could not be acquired, or if
+     *     the calling thread already holds a shared READ_LOCK on the BTree,
+     *     as a READ_LOCK cannot be upgraded to a WRITE_LOCK.
      */
-    public ManagedLock<ReentrantLock> acquireBtreeWriteLock(final String btreeFileName) throws LockException {
+    public ManagedLock<ReentrantReadWriteLock> acquireBtreeWriteLock(final String btreeFileName) throws LockException {
         final long groupId = System.nanoTime();
 
-        final ReentrantLock lock = getBTreeLock(btreeFileName);
+        final ReentrantReadWriteLock lock = getBTreeLock(btreeFileName);
+        if (lock.getReadHoldCount() > 0 && !lock.isWriteLockedByCurrentThread()) {
+            throw new LockException("Unable to upgrade READ_LOCK to WRITE_LOCK for: " + btreeFileName);
+        }
+
         try {
             lockTable.attempt(groupId, btreeFileName, LockType.BTREE, Lock.LockMode.WRITE_LOCK);
 
-            lock.lockInterruptibly();
+            lock.writeLock().lockInterruptibly();
 
             lockTable.acquired(groupId, btreeFileName, LockType.BTREE, Lock.LockMode.WRITE_LOCK);
         } catch(final InterruptedException e) {
@@ -672,8 +718,8 @@ public class LockManager {
             throw new LockException("Unable to acquire WRITE_LOCK for: " + btreeFileName, e);
         }
 
-        return new ManagedLock(lock, () -> {
-            lock.unlock();
+        return new ManagedLock<>(lock, () -> {
+            lock.writeLock().unlock();
             lockTable.released(groupId, btreeFileName, LockType.BTREE, Lock.LockMode.WRITE_LOCK);
         });
     }
@@ -683,14 +729,11 @@ public class LockManager {
      *
      * @param btreeFileName The name of the .dbx file.
      *
-     * @return true if the Btree is locked.
-     *
-     * @deprecated Just a place holder until we can make the BTree reader/writer safe
+     * @return true if the Btree is locked for either reads or writes.
      */
-    @Deprecated
     public boolean isBtreeLocked(final String btreeFileName) {
-        final ReentrantLock lock = getBTreeLock(btreeFileName);
-        return lock.isLocked();
+        final ReentrantReadWriteLock lock = getBTreeLock(btreeFileName);
+        return lock.isWriteLocked() || lock.getReadLockCount() > 0;
     }
 
     /**
@@ -701,7 +744,8 @@ public class LockManager {
      * @return true if the Btree is locked for writes.
      */
     public boolean isBtreeLockedForWrite(final String btreeFileName) {
-        return isBtreeLocked(btreeFileName);
+        final ReentrantReadWriteLock lock = getBTreeLock(btreeFileName);
+        return lock.isWriteLocked();
     }
 
     /**
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -51,7 +78,12 @@ import java.util.List;
  */
 public class DataGuide {
 
-    private final static int BYTES_PER_NODE = 16;
+    /**
+     * Marks the current format of the serialized data guide, which also
+     * records attributes and distinct values. The legacy format started
+     * directly with the number of root nodes, and used 16 bytes per node.
+     */
+    private final static int FORMAT_MAGIC = 0x53544132;
 
     // the (virtual) root of the tree whose name will always be null.
     private NodeStats root = new NodeStatsRoot();
@@ -63,7 +95,7 @@ public class DataGuide {
     /**
      * Add the given node path (a path like /root/childA/childB) to the data guide.
      * The frequency for the target element (i.e. the last component in the path)
-     * is incremented by one.
+     * is incremented by one. The last component may also be an attribute.
      *
      * @param path the node path
      *
@@ -86,7 +118,8 @@ public class DataGuide {
         NodeStats current = root;
         for (int i = 0; i < path.length(); i++) {
             final QName qn = path.getComponent(i);
-            if (qn.getNameType() != ElementValue.ELEMENT) {
+            if (qn.getNameType() != ElementValue.ELEMENT
+                    && (qn.getNameType() != ElementValue.ATTRIBUTE || i < path.length() - 1)) {
                 return null;
             }
             current = current.addChild(qn);
@@ -116,6 +149,33 @@ public class DataGuide {
         return temp.getMaxDepth();
     }
 
+    /**
+     * Returns the total number of elements with the given name,
+     * summed over all the paths on which the element occurs.
+     *
+     * @param qname the name of the element
+     *
+     * @return the number of elements
+     */
+    public long getNodeCount(QName qname) {
+        return root.getNodeCount(qname);
+    }
+
+    /**
+     * Returns the estimated number of distinct values of the elements
+     * or attributes with the given name, over all the paths on which they occur.
+     * Only the values of elements without child elements are recorded.
+     *
+     * @param qname the name of the element or attribute
+     *
+     * @return the estimated number of distinct values, or -1 if no values have been recorded
+     */
+    public long getDistinctValueCount(QName qname) {
+        final DistinctValues sketch = new DistinctValues();
+        root.getDistinctValues(qname, sketch);
+        return sketch.isEmpty() ? -1 : sketch.estimate();
+    }
+
     public String toString() {
         final List<StringBuilder> paths = new ArrayList<>();
         root.dump(new StringBuilder(), paths);
@@ -133,8 +193,8 @@ public class DataGuide {
     }
 
     public void write(SeekableByteChannel chan, SymbolTable symbols) throws IOException {
-        final int nodeCount = root.getSize();
-        final ByteBuffer buffer = ByteBuffer.allocate(nodeCount * BYTES_PER_NODE + 4);
+        final ByteBuffer buffer = ByteBuffer.allocate(root.getSerializedSize() + 8);
+        buffer.putInt(FORMAT_MAGIC);
         root.write(buffer, symbols);
         buffer.flip();
         chan.write(buffer);
@@ -144,7 +204,14 @@ public class DataGuide {
         final ByteBuffer buffer = ByteBuffer.allocate((int) chan.size());
         chan.read(buffer);
         buffer.flip();
-        root.read(buffer, symbols);
+        if (buffer.remaining() < 4) {
+            return;
+        }
+        final boolean legacy = buffer.getInt(0) != FORMAT_MAGIC;
+        if (!legacy) {
+            buffer.getInt();
+        }
+        root.read(buffer, symbols, legacy);
     }
 
     private static class NodeStatsRoot extends NodeStats {
@@ -164,13 +231,13 @@ public class DataGuide {
             }
         }
 
-        protected void read(ByteBuffer buffer, SymbolTable symbols) {
+        protected void read(ByteBuffer buffer, SymbolTable symbols, boolean legacy) {
             final int childCount = buffer.getInt();
             if (childCount > 0) {
                 children = new NodeStats[childCount];
                 for (int i = 0; i < childCount; i++) {
                     children[i] = new NodeStats(null);
-                    children[i].read(buffer, symbols);
+                    children[i].read(buffer, symbols, legacy);
                 }
             }
         }
@@ -0,0 +1,119 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.statistics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Estimates the number of distinct values of a node, using
+ * a HyperLogLog sketch of 64 registers, i.e. with a standard
+ * error of about 13%.
+ *
+ * The sketches of two nodes may be merged, and are small enough to be
+ * kept for every node in the {@link DataGuide}.
+ */
+class DistinctValues {
+
+    private static final int INDEX_BITS = 6;
+    static final int REGISTERS = 1 << INDEX_BITS;
+
+    private static final double ALPHA = 0.709;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    void add(final CharSequence value) {
+        final long hash = hash(value);
+        final int index = (int) (hash >>> (Long.SIZE - INDEX_BITS));
+        // position of the first 1 bit in the remaining bits
+        final int rank = Math.min(Long.numberOfLeadingZeros(hash << INDEX_BITS), Long.SIZE - INDEX_BITS) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    void merge(final DistinctValues other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        for (final byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate the number of distinct values which were added.
+     *
+     * @return the estimated number of distinct values
+     */
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (final byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // small range correction
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    void write(final ByteBuffer buffer) {
+        buffer.put(registers);
+    }
+
+    void read(final ByteBuffer buffer) {
+        buffer.get(registers);
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters, followed by the
+     * finalizer of MurmurHash3 to spread the bits.
+     */
+    private static long hash(final CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
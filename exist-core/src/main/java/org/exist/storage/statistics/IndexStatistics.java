@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -60,7 +87,7 @@ public class IndexStatistics extends AbstractIndex implements RawBackupSupport {
     protected final static Logger LOG = LogManager.getLogger(IndexStatistics.class);
 
     private Path dataFile;
-    private DataGuide dataGuide = new DataGuide();
+    private volatile DataGuide dataGuide = new DataGuide();
 
     public String getIndexId() {
         return ID;
@@ -70,6 +97,31 @@ public class IndexStatistics extends AbstractIndex implements RawBackupSupport {
         return dataGuide.getMaxParentDepth(qname);
     }
 
+    /**
+     * Returns the number of elements or attributes with the given name in the database.
+     * Used by the query optimizer to estimate the cardinality of a node test.
+     *
+     * @param qname the name of the element or attribute
+     *
+     * @return the number of nodes, or 0 if no node with the name has been seen
+     */
+    public long getNodeCount(QName qname) {
+        return dataGuide.getNodeCount(qname);
+    }
+
+    /**
+     * Returns the estimated number of distinct values of the elements or attributes
+     * with the given name in the database. Used by the query optimizer to estimate
+     * the selectivity of a comparison.
+     *
+     * @param qname the name of the element or attribute
+     *
+     * @return the estimated number of distinct values, or -1 if no values have been recorded
+     */
+    public long getDistinctValueCount(QName qname) {
+        return dataGuide.getDistinctValueCount(qname);
+    }
+
     protected void mergeStats(DataGuide other) {
         dataGuide = other.mergeInto(dataGuide);
     }
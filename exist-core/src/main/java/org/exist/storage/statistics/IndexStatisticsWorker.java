@@ -22,6 +22,8 @@
 package org.exist.storage.statistics;
 
 import org.exist.collections.Collection;
+import org.exist.dom.persistent.AbstractCharacterData;
+import org.exist.dom.persistent.AttrImpl;
 import org.exist.dom.persistent.DocumentImpl;
 import org.exist.dom.persistent.DocumentSet;
 import org.exist.dom.persistent.ElementImpl;
@@ -165,7 +167,7 @@ public class IndexStatisticsWorker implements IndexWorker {
         final int rootLevel = root.getNodeId().getTreeLevel();
         try {
             final NodePath path = new NodePath();
-            final Deque<NodeStats> stack = new ArrayDeque<>();
+            final Deque<OpenElement> stack = new ArrayDeque<>();
             final ExtendedXMLStreamReader reader = broker.getXMLStreamReader(root, false);
             while (reader.hasNext()) {
                 final int status = reader.next();
@@ -173,19 +175,24 @@ public class IndexStatisticsWorker implements IndexWorker {
                 switch (status) {
 
                     case XMLStreamReader.START_ELEMENT:
-                        for (final NodeStats next : stack) {
-                            next.incDepth();
-                        }
                         final QName qname = reader.getQName();
                         path.addComponent(qname);
-                        final NodeStats nodeStats = perDocGuide.add(path);
-                        stack.push(nodeStats);
+                        startElement(stack, perDocGuide.add(path));
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            final NodePath attrPath = new NodePath(path);
+                            attrPath.addComponent(reader.getAttributeQName(i));
+                            attribute(perDocGuide.add(attrPath), reader.getAttributeValue(i));
+                        }
+                        break;
+
+                    case XMLStreamReader.CHARACTERS:
+                    case XMLStreamReader.CDATA:
+                        characters(stack, reader.getText());
                         break;
 
                     case XMLStreamReader.END_ELEMENT:
                         path.removeLastComponent();
-                        final NodeStats stats = stack.pop();
-                        stats.updateMaxDepth();
+                        endElement(stack);
 
                         final NodeId otherId = (NodeId) reader.getProperty(ExtendedXMLStreamReader.PROPERTY_NODE_ID);
                         final int otherLevel = otherId.getTreeLevel();
@@ -201,6 +208,52 @@ public class IndexStatisticsWorker implements IndexWorker {
         }
     }
 
+    private static void startElement(final Deque<OpenElement> stack, final NodeStats stats) {
+        for (final OpenElement next : stack) {
+            next.stats.incDepth();
+        }
+        final OpenElement parent = stack.peek();
+        if (parent != null) {
+            // only the values of elements without child elements are recorded
+            parent.value = null;
+        }
+        stack.push(new OpenElement(stats));
+    }
+
+    private static void characters(final Deque<OpenElement> stack, final CharSequence text) {
+        final OpenElement current = stack.peek();
+        if (current != null && current.value != null) {
+            current.value.append(text);
+        }
+    }
+
+    private static void endElement(final Deque<OpenElement> stack) {
+        final OpenElement current = stack.pop();
+        current.stats.updateMaxDepth();
+        if (current.value != null) {
+            current.stats.addValue(current.value);
+        }
+    }
+
+    private static void attribute(final NodeStats stats, final String value) {
+        if (stats != null) {
+            stats.addValue(value);
+        }
+    }
+
+    /**
+     * An element whose end has not yet been reached, together with its
+     * string value as long as it has no child elements.
+     */
+    private static class OpenElement {
+        private final NodeStats stats;
+        private StringBuilder value = new StringBuilder();
+
+        private OpenElement(final NodeStats stats) {
+            this.stats = stats;
+        }
+    }
+
     @Override
     public void removeCollection(final Collection collection, final DBBroker broker, final boolean reindex) {
         //no-op
@@ -218,17 +271,31 @@ public class IndexStatisticsWorker implements IndexWorker {
     }
 
     private class StatisticsListener extends AbstractStreamListener {
-        private final Deque<NodeStats> stack = new ArrayDeque<>();
+        private final Deque<OpenElement> stack = new ArrayDeque<>();
 
         @Override
         public void startElement(final Txn transaction, final ElementImpl element, final NodePath path) {
             super.startElement(transaction, element, path);
             if (perDocGuide != null) {
-                for (final NodeStats next : stack) {
-                    next.incDepth();
-                }
-                final NodeStats nodeStats = perDocGuide.add(path);
-                stack.push(nodeStats);
+                IndexStatisticsWorker.startElement(stack, perDocGuide.add(path));
+            }
+        }
+
+        @Override
+        public void attribute(final Txn transaction, final AttrImpl attrib, final NodePath path) {
+            super.attribute(transaction, attrib, path);
+            if (perDocGuide != null) {
+                final NodePath attrPath = new NodePath(path);
+                attrPath.addComponent(attrib.getQName());
+                IndexStatisticsWorker.attribute(perDocGuide.add(attrPath), attrib.getValue());
+            }
+        }
+
+        @Override
+        public void characters(final Txn transaction, final AbstractCharacterData text, final NodePath path) {
+            super.characters(transaction, text, path);
+            if (perDocGuide != null) {
+                IndexStatisticsWorker.characters(stack, text.getXMLString());
             }
         }
 
@@ -236,8 +303,7 @@ public class IndexStatisticsWorker implements IndexWorker {
         public void endElement(final Txn transaction, final ElementImpl element, final NodePath path) {
             super.endElement(transaction, element, path);
             if (perDocGuide != null) {
-                final NodeStats stats = stack.pop();
-                stats.updateMaxDepth();
+                IndexStatisticsWorker.endElement(stack);
             }
         }
 
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -24,6 +51,7 @@ package org.exist.storage.statistics;
 import org.exist.Namespaces;
 import org.exist.dom.QName;
 import org.exist.dom.persistent.SymbolTable;
+import org.exist.storage.ElementValue;
 import org.exist.storage.NodePath;
 import org.w3c.dom.Node;
 import org.xml.sax.ContentHandler;
@@ -35,13 +63,26 @@ import java.util.List;
 
 /**
  * Collects statistics for a single node in the data guide.
+ *
+ * Besides the frequency and depth of the node, the number of distinct
+ * values of attributes and of elements which have no child elements
+ * is estimated, so that the query optimizer may estimate
+ * the selectivity of a comparison.
  */
 class NodeStats {
 
+    /**
+     * Size of a node in the serialized data guide, without its distinct values and children.
+     */
+    static final int BYTES_PER_NODE = 22;
+
     private QName qname;
     private int nodeCount = 0;
     private int maxDepth = 0;
 
+    private int valueCount = 0;
+    private DistinctValues distinctValues = null;
+
     transient private int depth = 0;
 
     protected NodeStats parent = null;
@@ -74,10 +115,31 @@ class NodeStats {
         nodeCount++;
     }
 
+    /**
+     * Record the value of an occurrence of the node.
+     *
+     * @param value the string value of the attribute, or of the element without child elements
+     */
+    protected void addValue(CharSequence value) {
+        valueCount++;
+        if (distinctValues == null) {
+            distinctValues = new DistinctValues();
+        }
+        distinctValues.add(value);
+    }
+
+    /**
+     * Returns true if this node has the name, including the type of the name,
+     * as elements and attributes are counted separately.
+     */
+    private boolean matches(QName name) {
+        return qname != null && qname.equals(name) && qname.getNameType() == name.getNameType();
+    }
+
     protected NodeStats addChild(QName qn) {
         if (children != null) {
             for (final NodeStats child : children) {
-                if (child.qname.equals(qn)) {
+                if (child.matches(qn)) {
                     return child;
                 }
             }
@@ -114,6 +176,13 @@ class NodeStats {
         nodeCount += other.nodeCount;
         if (other.maxDepth > maxDepth)
             {maxDepth = other.maxDepth;}
+        valueCount += other.valueCount;
+        if (other.distinctValues != null) {
+            if (distinctValues == null) {
+                distinctValues = new DistinctValues();
+            }
+            distinctValues.merge(other.distinctValues);
+        }
     }
 
     protected int getSize() {
@@ -126,8 +195,58 @@ class NodeStats {
         return s;
     }
 
+    protected int getSerializedSize() {
+        int s = qname == null ? 0 : BYTES_PER_NODE + (distinctValues == null ? 0 : DistinctValues.REGISTERS);
+        if (children != null) {
+            for (NodeStats child : children) {
+                s += child.getSerializedSize();
+            }
+        }
+        return s;
+    }
+
+    protected long getNodeCount(QName name) {
+        long count = 0;
+        if (matches(name)) {
+            count += nodeCount;
+        }
+        // NOTE: children may be concurrently extended, in which case the last slot can still be null
+        final NodeStats[] currentChildren = children;
+        if (currentChildren != null) {
+            for (NodeStats child : currentChildren) {
+                if (child != null) {
+                    count += child.getNodeCount(name);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Merge the distinct values of all the nodes with the given name into the sketch.
+     *
+     * @return the number of values of the nodes with the given name
+     */
+    protected long getDistinctValues(QName name, DistinctValues sketch) {
+        long count = 0;
+        if (matches(name) && distinctValues != null) {
+            count += valueCount;
+            sketch.merge(distinctValues);
+        }
+        // NOTE: see getNodeCount(QName)
+        final NodeStats[] currentChildren = children;
+        if (currentChildren != null) {
+            for (NodeStats child : currentChildren) {
+                if (child != null) {
+                    count += child.getDistinctValues(name, sketch);
+                }
+            }
+        }
+        return count;
+    }
+
     protected void getMaxParentDepth(QName name, NodeStats max) {
-        if (parent != null && qname != null && qname.equals(name)) {
+        if (parent != null && matches(name)) {
             max.maxDepth = Math.max(parent.maxDepth, max.maxDepth);
         }
         if (children != null) {
@@ -140,8 +259,16 @@ class NodeStats {
     protected void write(ByteBuffer buffer, SymbolTable symbols) {
         buffer.putShort(symbols.getNSSymbol(qname.getNamespaceURI()));
         buffer.putShort(symbols.getSymbol(qname.getLocalPart()));
+        buffer.put(qname.getNameType());
         buffer.putInt(nodeCount);
         buffer.putInt(maxDepth);
+        buffer.putInt(valueCount);
+        if (distinctValues == null) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) 1);
+            distinctValues.write(buffer);
+        }
 
         buffer.putInt(children == null ? 0: children.length);
         if (children != null) {
@@ -151,22 +278,33 @@ class NodeStats {
         }
     }
 
-    protected void read(ByteBuffer buffer, SymbolTable symbols) {
+    /**
+     * @param legacy true if the buffer is in the format which had no name types and values
+     */
+    protected void read(ByteBuffer buffer, SymbolTable symbols, boolean legacy) {
         final short nsid = buffer.getShort();
         final short localid = buffer.getShort();
         final String namespaceURI = symbols.getNamespace(nsid);
         final String localName = symbols.getName(localid);
-        qname = symbols.getQName(Node.ELEMENT_NODE, namespaceURI,
-            localName, "");
+        final byte nameType = legacy ? ElementValue.ELEMENT : buffer.get();
+        qname = symbols.getQName(nameType == ElementValue.ATTRIBUTE ? Node.ATTRIBUTE_NODE : Node.ELEMENT_NODE,
+            namespaceURI, localName, "");
         nodeCount = buffer.getInt();
         maxDepth = buffer.getInt();
+        if (!legacy) {
+            valueCount = buffer.getInt();
+            if (buffer.get() != 0) {
+                distinctValues = new DistinctValues();
+                distinctValues.read(buffer);
+            }
+        }
 
         final int childCount = buffer.getInt();
         if (childCount > 0) {
             children = new NodeStats[childCount];
             for (int i = 0; i < childCount; i++) {
                 children[i] = new NodeStats(this, null);
-                children[i].read(buffer, symbols);
+                children[i].read(buffer, symbols, legacy);
             }
         }
     }
@@ -179,9 +317,16 @@ class NodeStats {
             newPath = new StringBuilder(currentPath);
             if (newPath.length() > 0)
                 {newPath.append(" -> ");}
+            if (qname.getNameType() == ElementValue.ATTRIBUTE) {
+                newPath.append('@');
+            }
             newPath.append(qname);
             newPath.append('[').append(nodeCount).append(',');
-            newPath.append(maxDepth).append(']');
+            newPath.append(maxDepth);
+            if (distinctValues != null) {
+                newPath.append(',').append(distinctValues.estimate());
+            }
+            newPath.append(']');
         }
         paths.add(newPath);
         if (children != null) {
@@ -197,6 +342,12 @@ class NodeStats {
         attribs.addAttribute("", "namespace", "namespace", "CDATA", qname.getNamespaceURI());
         attribs.addAttribute("", "node-count", "node-count", "CDATA", Integer.toString(nodeCount));
         attribs.addAttribute("", "max-depth", "max-depth", "CDATA", Integer.toString(maxDepth));
+        if (qname.getNameType() == ElementValue.ATTRIBUTE) {
+            attribs.addAttribute("", "type", "type", "CDATA", "attribute");
+        }
+        if (distinctValues != null) {
+            attribs.addAttribute("", "distinct-values", "distinct-values", "CDATA", Long.toString(distinctValues.estimate()));
+        }
         handler.startElement(Namespaces.EXIST_NS, "node", "node", attribs);
         if (children != null) {
             for (NodeStats child : children) {
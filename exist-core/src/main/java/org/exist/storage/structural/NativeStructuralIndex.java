@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -24,7 +51,7 @@ package org.exist.storage.structural;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Path;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -42,8 +69,14 @@ import org.exist.storage.lock.ManagedLock;
 import org.exist.util.DatabaseConfigurationException;
 import org.exist.util.FileUtils;
 import org.exist.util.LockException;
+import org.exist.util.NamedThreadFactory;
+import org.exist.xquery.XQueryContext;
 import org.w3c.dom.Element;
 
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class NativeStructuralIndex extends AbstractIndex implements RawBackupSupport {
 
     protected static final Logger LOG = LogManager.getLogger(NativeStructuralIndex.class);
@@ -60,6 +93,24 @@ public class NativeStructuralIndex extends AbstractIndex implements RawBackupSup
     protected LockManager lockManager;
     protected SymbolTable symbols;
 
+    /**
+     * The minimum number of documents for which a scan
+     * of the index is done in parallel, or 0 to never scan in parallel.
+     */
+    protected int parallelScanThreshold;
+
+    /**
+     * The number of threads which scan the index in parallel.
+     */
+    protected int scanParallelism;
+
+    /**
+     * The threads which scan the index in parallel, or null if the index
+     * is never scanned in parallel. The scans block on I/O, and so are
+     * not run by the common fork-join pool.
+     */
+    @Nullable protected ExecutorService scanExecutor;
+
     public NativeStructuralIndex() {
         //Nothing to do
     }
@@ -69,6 +120,7 @@ public class NativeStructuralIndex extends AbstractIndex implements RawBackupSup
         super.configure(pool, dataDir, config);
         lockManager = pool.getLockManager();
         symbols = pool.getSymbols();
+        parallelScanThreshold = pool.getConfiguration().getInteger(XQueryContext.PROPERTY_PARALLEL_SCAN_THRESHOLD, XQueryContext.DEFAULT_PARALLEL_SCAN_THRESHOLD);
     }
 
     @Override
@@ -82,10 +134,20 @@ public class NativeStructuralIndex extends AbstractIndex implements RawBackupSup
             LOG.error("Failed to initialize structural index: {}", e.getMessage(), e);
             throw new DatabaseConfigurationException(e.getMessage(), e);
         }
+
+        if (parallelScanThreshold > 0 && lockManager.isBtreeMultiReader()) {
+            scanParallelism = Runtime.getRuntime().availableProcessors();
+            scanExecutor = Executors.newFixedThreadPool(scanParallelism,
+                    new NamedThreadFactory(pool.getThreadGroup(), pool.getId(), "structural-index-scan"));
+        }
     }
 
     @Override
     public void close() throws DBException {
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+        }
         btree.close();
         btree = null;
     }
@@ -95,7 +157,7 @@ public class NativeStructuralIndex extends AbstractIndex implements RawBackupSup
         if (btree == null) {
             return;
         }
-        try(final ManagedLock<ReentrantLock> bfileLock = lockManager.acquireBtreeWriteLock(btree.getLockName())) {
+        try(final ManagedLock<ReentrantReadWriteLock> bfileLock = lockManager.acquireBtreeWriteLock(btree.getLockName())) {
             btree.flush();
         } catch (final LockException e) {
             LOG.warn("Failed to acquire lock for '{}'", FileUtils.fileName(btree.getFile()), e);
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -55,8 +82,13 @@ import org.exist.xquery.*;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.exist.security.PermissionDeniedException;
 
@@ -69,6 +101,12 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
 
     private final static Logger LOG = LogManager.getLogger(NativeStructuralIndexWorker.class);
 
+    /**
+     * The number of partitions that a parallel scan of the index
+     * is split into, for each of the scan threads of the index.
+     */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     private NativeStructuralIndex index;
     private ReindexMode mode = ReindexMode.STORE;
     private DocumentImpl document;
@@ -97,6 +135,9 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
      * It will be fast for bulk-loading a large node set, but slow if you need to operate on a small
      * context set.
      *
+     * If BTree readers may share the lock, and the document set holds at least as many documents as the
+     * xquery/@parallel-scan-threshold, the document id ranges are scanned in parallel.
+     *
      * @param type the type of the element
      * @param docs the document working set
      * @param qname the name
@@ -108,26 +149,133 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
     }
 
     public NodeSet findElementsByTagName(byte type, DocumentSet docs, QName qname, NodeSelector selector, Expression parent) {
+        final List<Range> ranges = getDocIdRanges(docs);
+
+        // NOTE: selectors consult the context set, which is not safe to share between threads
+        @Nullable final ExecutorService scanExecutor = index.scanExecutor;
+        if (selector == null && scanExecutor != null
+                && index.parallelScanThreshold > 0 && docs.getDocumentCount() >= index.parallelScanThreshold) {
+            @Nullable final NodeSet result = findElementsByTagNameParallel(scanExecutor, type, docs, qname, ranges, parent);
+            if (result != null) {
+                return result;
+            }
+            // the parallel scan did not complete, so scan again sequentially rather than return a partial result
+        }
+
         final NewArrayNodeSet result = new NewArrayNodeSet();
         final FindElementsCallback callback = new FindElementsCallback(type, qname, result, docs, selector, parent);
 
         // for each document id range, scan the index to find matches
-        for (final Range range : getDocIdRanges(docs)) {
-            final byte[] fromKey = computeKey(type, qname, range.start);
-            final byte[] toKey = computeKey(type, qname, range.end + 1);
-            final IndexQuery query = new IndexQuery(IndexQuery.RANGE, new Value(fromKey), new Value(toKey));
+        for (final Range range : ranges) {
+            scanRange(type, qname, range, callback);
+        }
+        return result;
+    }
 
-            try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
-                index.btree.query(query, callback);
-            } catch (final LockException e) {
-                NativeStructuralIndex.LOG.warn("Lock problem while searching structural index: {}", e.getMessage(), e);
-            } catch (final TerminatedException e) {
-                NativeStructuralIndex.LOG.warn("Query was terminated while searching structural index: {}", e.getMessage(), e);
-            } catch (final Exception e) {
-                NativeStructuralIndex.LOG.error("Error while searching structural index: {}", e.getMessage(), e);
+    /**
+     * Partitions the document id ranges, and scans the partitions of the index concurrently
+     * using the scan threads of the index. The results of the partitions are merged in document order.
+     *
+     * @param scanExecutor the scan threads of the index
+     * @param type the type of the element
+     * @param docs the document working set
+     * @param qname the name
+     * @param ranges the document id ranges of the document working set
+     * @param parent the expression which is being evaluated
+     * @return nodeset the matching nodeset, or null if any of the partitions could not be scanned
+     */
+    private @Nullable NodeSet findElementsByTagNameParallel(final ExecutorService scanExecutor, final byte type, final DocumentSet docs,
+            final QName qname, final List<Range> ranges, final Expression parent) {
+        final int targetPartitions = index.scanParallelism * PARTITIONS_PER_THREAD;
+        final int partitionSize = Math.max(1, (docs.getDocumentCount() + targetPartitions - 1) / targetPartitions);
+        final List<List<Range>> partitions = partition(ranges, partitionSize);
+
+        final List<Future<NewArrayNodeSet>> partitionResults = new ArrayList<>(partitions.size());
+        final NewArrayNodeSet result = new NewArrayNodeSet();
+        try {
+            for (final List<Range> partition : partitions) {
+                partitionResults.add(scanExecutor.submit(() -> {
+                    final NewArrayNodeSet partitionResult = new NewArrayNodeSet();
+                    final FindElementsCallback callback = new FindElementsCallback(type, qname, partitionResult, docs, null, parent);
+                    for (final Range range : partition) {
+                        scanRange(type, qname, range, callback);
+                    }
+                    return partitionResult;
+                }));
+            }
+
+            for (final Future<NewArrayNodeSet> partitionResult : partitionResults) {
+                result.addAll(partitionResult.get());
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            NativeStructuralIndex.LOG.warn("Interrupted while searching structural index in parallel");
+            return null;
+        } catch (final ExecutionException | RejectedExecutionException e) {
+            NativeStructuralIndex.LOG.warn("Error while searching structural index in parallel: {}", e.getMessage(), e);
+            return null;
+        } finally {
+            for (final Future<NewArrayNodeSet> partitionResult : partitionResults) {
+                partitionResult.cancel(true);
             }
         }
-        return result;
+    }
+
+    private void scanRange(final byte type, final QName qname, final Range range, final FindElementsCallback callback) {
+        final byte[] fromKey = computeKey(type, qname, range.start);
+        final byte[] toKey = computeKey(type, qname, range.end + 1);
+        final IndexQuery query = new IndexQuery(IndexQuery.RANGE, new Value(fromKey), new Value(toKey));
+
+        try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
+            index.btree.query(query, callback);
+        } catch (final LockException e) {
+            NativeStructuralIndex.LOG.warn("Lock problem while searching structural index: {}", e.getMessage(), e);
+        } catch (final TerminatedException e) {
+            NativeStructuralIndex.LOG.warn("Query was terminated while searching structural index: {}", e.getMessage(), e);
+        } catch (final Exception e) {
+            NativeStructuralIndex.LOG.error("Error while searching structural index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits document id ranges into partitions which each cover the same number
+     * of documents, apart from the last partition which may cover fewer. The ranges
+     * are ordered by document id first, so that the partitions are in document order.
+     * A range which does not fit into the remainder of a partition is split.
+     *
+     * @param ranges the document id ranges
+     * @param partitionSize the number of documents in each partition
+     * @return the partitions
+     */
+    static List<List<Range>> partition(final List<Range> ranges, final int partitionSize) {
+        final List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingInt(range -> range.start));
+
+        final List<List<Range>> partitions = new ArrayList<>();
+        List<Range> partition = new ArrayList<>();
+        int size = 0;
+        for (final Range range : sorted) {
+            int start = range.start;
+            while (true) {
+                final int end = (int) Math.min(range.end, (long) start + (partitionSize - size) - 1);
+                partition.add(new Range(start, end));
+                size += end - start + 1;
+                if (size == partitionSize) {
+                    partitions.add(partition);
+                    partition = new ArrayList<>();
+                    size = 0;
+                }
+                if (end == range.end) {
+                    break;
+                }
+                start = end + 1;
+            }
+        }
+        if (!partition.isEmpty()) {
+            partitions.add(partition);
+        }
+        return partitions;
     }
 
     /**
@@ -169,6 +317,11 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
             this.start = start;
             this.end = start;
         }
+
+        private Range(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
     }
     
     /**
@@ -194,7 +347,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
     public NodeSet findDescendantsByTagName(byte type, QName qname, int axis, DocumentSet docs, NodeSet contextSet, int contextId, Expression parent) {
         final NewArrayNodeSet result = new NewArrayNodeSet();
         final FindDescendantsCallback callback = new FindDescendantsCallback(type, axis, qname, contextId, result, parent);
-        try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
+        try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
             for (final NodeProxy ancestor : contextSet) {
                 final DocumentImpl doc = ancestor.getOwnerDocument();
                 final NodeId ancestorId = ancestor.getNodeId();
@@ -225,7 +378,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
     public NodeSet findAncestorsByTagName(byte type, QName qname, int axis, DocumentSet docs, NodeSet contextSet,
                                           int contextId) {
         final NewArrayNodeSet result = new NewArrayNodeSet();
-        try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
+        try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
             for (final NodeProxy descendant : contextSet) {
                 NodeId parentId;
                 if (axis == Constants.ANCESTOR_SELF_AXIS || axis == Constants.SELF_AXIS)
@@ -271,7 +424,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
             final DocumentImpl doc = ancestor.getOwnerDocument();
             final NodeId ancestorId = ancestor.getNodeId();
             final List<QName> qnames = getQNamesForDoc(doc);
-            try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
+            try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
 	            for (final QName qname : qnames) {
 	            	if (test.getName() == null || test.matches(qname)) {
 	            		callback.setAncestor(doc, ancestor);
@@ -492,7 +645,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
         try {
             for (final Map.Entry<QName,List<NodeProxy>> entry: pending.entrySet()) {
                 final QName qname = entry.getKey();
-                try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
+                try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
                     final List<NodeProxy> nodes = entry.getValue();
                     for (final NodeProxy proxy : nodes) {
                         final NodeId nodeId = proxy.getNodeId();
@@ -518,7 +671,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
             final byte[] fromKey = computeKey(qname.getNameType(), qname, docToRemove.getDocId());
             final byte[] toKey = computeKey(qname.getNameType(), qname, docToRemove.getDocId() + 1);
             final IndexQuery query = new IndexQuery(IndexQuery.RANGE, new Value(fromKey), new Value(toKey));
-            try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
+            try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
                 index.btree.remove(query, null);
             } catch (final LockException e) {
                 NativeStructuralIndex.LOG.warn("Failed to lock structural index: {}", e.getMessage(), e);
@@ -533,7 +686,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
         final byte[] fromKey = computeDocKey(doc.getDocId());
         final byte[] toKey = computeDocKey(doc.getDocId() + 1);
         final IndexQuery query = new IndexQuery(IndexQuery.RANGE, new Value(fromKey), new Value(toKey));
-        try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
+        try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
             index.btree.remove(query, null);
         } catch (final LockException e) {
             NativeStructuralIndex.LOG.warn("Failed to lock structural index: {}", e.getMessage(), e);
@@ -549,7 +702,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
         final byte[] fromKey = computeDocKey(doc.getDocId());
         final byte[] toKey = computeDocKey(doc.getDocId() + 1);
         final IndexQuery query = new IndexQuery(IndexQuery.RANGE, new Value(fromKey), new Value(toKey));
-        try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
+        try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
             index.btree.query(query, (value, pointer) -> {
                 final QName qname = readQName(value.getData());
                 qnames.add(qname);
@@ -605,7 +758,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
                 final byte[] toKey = computeKey(qname.getNameType(), qname, doc.getDocId() + 1);
                 final IndexQuery query = new IndexQuery(IndexQuery.RANGE, new Value(fromKey), new Value(toKey));
 
-                try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
+                try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeReadLock(index.btree.getLockName())) {
                     index.btree.query(query, (value, pointer) -> {
                         Occurrences oc = occurrences.get(name);
                         if (oc == null) {
@@ -665,7 +818,7 @@ public class NativeStructuralIndexWorker implements IndexWorker, StructuralIndex
         try {
             for (final Map.Entry<QName,List<NodeProxy>> entry: pending.entrySet()) {
                 final QName qname = entry.getKey();
-                try(final ManagedLock<ReentrantLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
+                try(final ManagedLock<ReentrantReadWriteLock> btreeLock = index.lockManager.acquireBtreeWriteLock(index.btree.getLockName())) {
                     final List<NodeProxy> nodes = entry.getValue();
                     for (final NodeProxy proxy : nodes) {
                         final NodeId nodeId = proxy.getNodeId();
@@ -52,6 +52,7 @@ import com.evolvedbinary.j8fu.tuple.Tuple2;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import org.exist.backup.Restore;
 import org.exist.backup.SystemExport;
 import org.exist.collections.CollectionCache;
 import org.exist.repo.Deployment;
@@ -86,6 +87,8 @@ import org.exist.storage.DefaultCacheManager;
 import org.exist.storage.IndexSpec;
 import org.exist.storage.NativeBroker;
 import org.exist.storage.XQueryPool;
+import org.exist.storage.btree.PageIO;
+import org.exist.storage.btree.Paged;
 import org.exist.storage.serializers.CustomMatchListenerFactory;
 import org.exist.storage.serializers.Serializer;
 import org.exist.validation.GrammarPool;
@@ -135,12 +138,18 @@ import static org.exist.scheduler.JobConfig.JOB_XQUERY_ATTRIBUTE;
 import static org.exist.scheduler.JobConfig.PROPERTY_SCHEDULER_JOBS;
 import static org.exist.storage.BrokerFactory.PROPERTY_DATABASE;
 import static org.exist.Indexer.CONFIGURATION_INDEX_ELEMENT_NAME;
+import static org.exist.Indexer.DEFAULT_SINGLE_PASS_MAX_BUFFER;
 import static org.exist.Indexer.PRESERVE_WS_MIXED_CONTENT_ATTRIBUTE;
 import static org.exist.Indexer.PROPERTY_INDEXER_CONFIG;
 import static org.exist.Indexer.PROPERTY_PRESERVE_WS_MIXED_CONTENT;
+import static org.exist.Indexer.PROPERTY_SINGLE_PASS_MAX_BUFFER;
 import static org.exist.Indexer.PROPERTY_SUPPRESS_WHITESPACE;
+import static org.exist.Indexer.SINGLE_PASS_MAX_BUFFER_ATTRIBUTE;
 import static org.exist.Indexer.SUPPRESS_WHITESPACE_ATTRIBUTE;
 import static org.exist.collections.CollectionCache.PROPERTY_CACHE_SIZE_BYTES;
+import static org.exist.collections.MutableCollection.DEFAULT_RESIDENT_DOCUMENTS;
+import static org.exist.collections.MutableCollection.PROPERTY_RESIDENT_DOCUMENTS;
+import static org.exist.collections.MutableCollection.RESIDENT_DOCUMENTS_ATTRIBUTE;
 import static org.exist.storage.BrokerPoolConstants.CONFIGURATION_CONNECTION_ELEMENT_NAME;
 import static org.exist.storage.BrokerPoolConstants.DATA_DIR_ATTRIBUTE;
 import static org.exist.storage.BrokerPoolConstants.DISK_SPACE_MIN_PROPERTY;
@@ -238,15 +247,24 @@ import static org.exist.xquery.FunctionFactory.PROPERTY_ENABLE_JAVA_BINDING;
 import static org.exist.xquery.XQueryContext.BUILT_IN_MODULE_CLASS_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.BUILT_IN_MODULE_SOURCE_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.BUILT_IN_MODULE_URI_ATTRIBUTE;
+import static org.exist.xquery.XQueryContext.DEFAULT_HASH_JOIN_SPILL_THRESHOLD;
+import static org.exist.xquery.XQueryContext.DEFAULT_PARALLEL_SCAN_THRESHOLD;
+import static org.exist.xquery.XQueryContext.DEFAULT_SORT_SPILL_THRESHOLD;
 import static org.exist.xquery.XQueryContext.ENABLE_QUERY_REWRITING_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.ENFORCE_INDEX_USE_ATTRIBUTE;
+import static org.exist.xquery.XQueryContext.HASH_JOIN_SPILL_THRESHOLD_ATTRIBUTE;
+import static org.exist.xquery.XQueryContext.PARALLEL_SCAN_THRESHOLD_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.PROPERTY_BUILT_IN_MODULES;
 import static org.exist.xquery.XQueryContext.PROPERTY_ENABLE_QUERY_REWRITING;
 import static org.exist.xquery.XQueryContext.PROPERTY_ENFORCE_INDEX_USE;
+import static org.exist.xquery.XQueryContext.PROPERTY_HASH_JOIN_SPILL_THRESHOLD;
 import static org.exist.xquery.XQueryContext.PROPERTY_MODULE_PARAMETERS;
+import static org.exist.xquery.XQueryContext.PROPERTY_PARALLEL_SCAN_THRESHOLD;
+import static org.exist.xquery.XQueryContext.PROPERTY_SORT_SPILL_THRESHOLD;
 import static org.exist.xquery.XQueryContext.PROPERTY_STATIC_MODULE_MAP;
 import static org.exist.xquery.XQueryContext.PROPERTY_XQUERY_BACKWARD_COMPATIBLE;
 import static org.exist.xquery.XQueryContext.PROPERTY_XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL;
+import static org.exist.xquery.XQueryContext.SORT_SPILL_THRESHOLD_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.XQUERY_BACKWARD_COMPATIBLE_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL_ATTRIBUTE;
 import static org.exist.xquery.XQueryContext.XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL_DEFAULT;
@@ -403,6 +421,8 @@ public class Configuration implements ErrorHandler {
             configureElement(doc, XMLReaderObjectFactory.CONFIGURATION_ELEMENT_NAME, element -> configureValidation(existHomePath, element));
             // RPC server
             configureElement(doc, "rpc-server", this::configureRpcServer);
+            // Restore settings
+            configureElement(doc, Restore.CONFIGURATION_ELEMENT_NAME, this::configureRestore);
         } catch (final SAXException | IOException | ParserConfigurationException e) {
             LOG.error("error while reading config file: {}", configFilename, e);
             throw new DatabaseConfigurationException(e.getMessage(), e);
@@ -474,6 +494,18 @@ public class Configuration implements ErrorHandler {
         return null;
     }
 
+    @Nullable
+    private static PageIO.Type asPageIOType(@Nullable final String value) {
+        if (value != null) {
+            final PageIO.Type type = PageIO.Type.fromConfigValue(value);
+            if (type == null) {
+                LOG.warn("Cannot convert {} value to a Page I/O type", value);
+            }
+            return type;
+        }
+        return null;
+    }
+
     @Nullable
     private static Long asLong(@Nullable final String value) {
         if (value != null) {
@@ -511,6 +543,7 @@ public class Configuration implements ErrorHandler {
         configureProperty(lockManager, "upgrade-check", LockManager.CONFIGURATION_UPGRADE_CHECK, Configuration::asBoolean, FALSE);
         configureProperty(lockManager, "warn-wait-on-read-for-write", LockManager.CONFIGURATION_WARN_WAIT_ON_READ_FOR_WRITE, Configuration::asBoolean, FALSE);
         configureProperty(lockManager, "paths-multi-writer", LockManager.CONFIGURATION_PATHS_MULTI_WRITER, Configuration::asBoolean, FALSE);
+        configureProperty(lockManager, "btree-multi-reader", LockManager.CONFIGURATION_BTREE_MULTI_READER, Configuration::asBoolean, FALSE);
 
         configureElement(lockManager, "lock-table", lockTable -> {
             final boolean lockTableDisabled = parseBoolean(getConfigAttributeValue(lockTable, "disabled"), false);
@@ -552,6 +585,9 @@ public class Configuration implements ErrorHandler {
         configureProperty(xquery, DISABLE_DEPRECATED_FUNCTIONS_ATTRIBUTE, PROPERTY_DISABLE_DEPRECATED_FUNCTIONS, Configuration::asBoolean, DISABLE_DEPRECATED_FUNCTIONS_BY_DEFAULT);
         configureProperty(xquery, ENABLE_QUERY_REWRITING_ATTRIBUTE, PROPERTY_ENABLE_QUERY_REWRITING);
         configureProperty(xquery, ENFORCE_INDEX_USE_ATTRIBUTE, PROPERTY_ENFORCE_INDEX_USE);
+        configureProperty(xquery, HASH_JOIN_SPILL_THRESHOLD_ATTRIBUTE, PROPERTY_HASH_JOIN_SPILL_THRESHOLD, Configuration::asInteger, DEFAULT_HASH_JOIN_SPILL_THRESHOLD);
+        configureProperty(xquery, SORT_SPILL_THRESHOLD_ATTRIBUTE, PROPERTY_SORT_SPILL_THRESHOLD, Configuration::asInteger, DEFAULT_SORT_SPILL_THRESHOLD);
+        configureProperty(xquery, PARALLEL_SCAN_THRESHOLD_ATTRIBUTE, PROPERTY_PARALLEL_SCAN_THRESHOLD, Configuration::asInteger, DEFAULT_PARALLEL_SCAN_THRESHOLD);
         configureProperty(xquery, XQUERY_BACKWARD_COMPATIBLE_ATTRIBUTE, PROPERTY_XQUERY_BACKWARD_COMPATIBLE);
         configureProperty(xquery, XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL_ATTRIBUTE, PROPERTY_XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL, Configuration::asBoolean, XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL_DEFAULT);
         configureProperty(xquery, PerformanceStats.CONFIG_ATTR_TRACE, PerformanceStats.CONFIG_PROPERTY_TRACE);
@@ -1012,6 +1048,16 @@ public class Configuration implements ErrorHandler {
             }
         }
 
+        configureProperty(con, RESIDENT_DOCUMENTS_ATTRIBUTE, PROPERTY_RESIDENT_DOCUMENTS, Configuration::asInteger, DEFAULT_RESIDENT_DOCUMENTS);
+
+        configureProperty(con, DefaultCacheManager.CACHE_TYPE_ATTRIBUTE, DefaultCacheManager.PROPERTY_CACHE_TYPE, cacheType -> {
+            if (DefaultCacheManager.CACHE_TYPE_DEFAULT.equals(cacheType) || DefaultCacheManager.CACHE_TYPE_S3_FIFO.equals(cacheType)) {
+                return cacheType;
+            }
+            LOG.warn("Unknown {} value: {}, using: {}", DefaultCacheManager.CACHE_TYPE_ATTRIBUTE, cacheType, DefaultCacheManager.CACHE_TYPE_DEFAULT);
+            return null;
+        }, DefaultCacheManager.CACHE_TYPE_DEFAULT);
+
         configureProperty(con, NativeBroker.PAGE_SIZE_ATTRIBUTE, PROPERTY_PAGE_SIZE, Configuration::asInteger, null);
 
         //Not clear : rather looks like a buffers count
@@ -1052,6 +1098,30 @@ public class Configuration implements ErrorHandler {
         configureElement(con, XQueryPool.CONFIGURATION_ELEMENT_NAME, this::configureXQueryPool);
         configureElement(con, XQueryWatchDog.CONFIGURATION_ELEMENT_NAME, this::configureWatchdog);
         configureElement(con, BrokerPoolConstants.CONFIGURATION_RECOVERY_ELEMENT_NAME, element -> configureRecovery(dbHome, element));
+        configureElement(con, Paged.CONFIGURATION_PAGE_IO_ELEMENT_NAME, this::configurePageIO);
+    }
+
+    private void configurePageIO(final Element pageIO) {
+        configureProperty(pageIO, Paged.PAGE_IO_DEFAULT_ATTRIBUTE, Paged.PROPERTY_PAGE_IO_DEFAULT, Configuration::asPageIOType, null);
+
+        final NodeList nlFiles = pageIO.getElementsByTagName(Paged.CONFIGURATION_PAGE_IO_FILE_ELEMENT_NAME);
+        if (nlFiles.getLength() > 0) {
+            final Map<String, PageIO.Type> fileTypes = new HashMap<>(nlFiles.getLength());
+
+            for (int i = 0; i < nlFiles.getLength(); i++) {
+                final Element fileElem = (Element) nlFiles.item(i);
+                final String fileName = fileElem.getAttribute(Paged.PAGE_IO_FILE_NAME_ATTRIBUTE);
+                final PageIO.Type type = asPageIOType(nullIfEmpty(fileElem.getAttribute(Paged.PAGE_IO_FILE_TYPE_ATTRIBUTE)));
+
+                if (!fileName.isEmpty() && type != null) {
+                    fileTypes.put(fileName, type);
+                    LOG.debug(PRP_DETAILS, Paged.PROPERTY_PAGE_IO_FILES, fileName + "=" + type.getConfigValue());
+                } else {
+                    LOG.warn("Configuration element " + Paged.CONFIGURATION_PAGE_IO_FILE_ELEMENT_NAME + " needs the attributes '" + Paged.PAGE_IO_FILE_NAME_ATTRIBUTE + "' and '" + Paged.PAGE_IO_FILE_TYPE_ATTRIBUTE + "'");
+                }
+            }
+            setProperty(Paged.PROPERTY_PAGE_IO_FILES, fileTypes);
+        }
     }
 
     private void configureRecovery(final Optional<Path> dbHome, final Element recovery) throws DatabaseConfigurationException {
@@ -1196,6 +1266,7 @@ public class Configuration implements ErrorHandler {
 
         configureProperty(indexer, SUPPRESS_WHITESPACE_ATTRIBUTE, PROPERTY_SUPPRESS_WHITESPACE);
         configureProperty(indexer, PRESERVE_WS_MIXED_CONTENT_ATTRIBUTE, PROPERTY_PRESERVE_WS_MIXED_CONTENT, Configuration::asBoolean, FALSE);
+        configureProperty(indexer, SINGLE_PASS_MAX_BUFFER_ATTRIBUTE, PROPERTY_SINGLE_PASS_MAX_BUFFER, Configuration::asInteger, DEFAULT_SINGLE_PASS_MAX_BUFFER);
 
         // index settings
         final NodeList cl = doc.getElementsByTagName(CONFIGURATION_INDEX_ELEMENT_NAME);
@@ -1312,6 +1383,11 @@ public class Configuration implements ErrorHandler {
         });
     }
 
+    private void configureRestore(final Element restore) {
+        configureProperty(restore, Restore.PARALLELISM_ATTRIBUTE, Restore.PROPERTY_PARALLELISM, Configuration::asInteger, Restore.DEFAULT_PARALLELISM);
+        configureProperty(restore, Restore.DOCUMENTS_PER_TRANSACTION_ATTRIBUTE, Restore.PROPERTY_DOCUMENTS_PER_TRANSACTION, Configuration::asInteger, Restore.DEFAULT_DOCUMENTS_PER_TRANSACTION);
+    }
+
     /**
      * Gets the value of a configuration attribute
      * <p>
@@ -0,0 +1,329 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.util.sax.event;
+
+import net.jcip.annotations.NotThreadSafe;
+import org.exist.util.sax.event.contenthandler.*;
+import org.exist.util.sax.event.lexicalhandler.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards SAX events to a {@link ContentHandler} and {@link LexicalHandler},
+ * whilst recording them so that they may be replayed to other handlers later,
+ * without having to parse the document again.
+ *
+ * The recorded events are held in memory. To bound the memory used, recording
+ * is abandoned once the estimated size of the recorded events exceeds a
+ * maximum, after which events are only forwarded, and {@link #isComplete()}
+ * returns false.
+ */
+@NotThreadSafe
+public class SAXEventRecorder implements ContentHandler, LexicalHandler {
+
+    /**
+     * Estimated overhead in bytes of each recorded event and of each string it holds.
+     */
+    private static final int EVENT_OVERHEAD = 48;
+
+    private final long maxSize;
+
+    @Nullable private ContentHandler contentHandler;
+    @Nullable private LexicalHandler lexicalHandler;
+
+    private List<SAXEvent<?>> events = new ArrayList<>();
+    private long size = 0;
+    private boolean overflowed = false;
+    private boolean ended = false;
+
+    /**
+     * @param maxSize the maximum estimated size in bytes of the recorded events.
+     */
+    public SAXEventRecorder(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Set the handlers to which events are forwarded whilst recording.
+     *
+     * @param contentHandler the content handler, or null to only record events.
+     * @param lexicalHandler the lexical handler, or null to only record events.
+     */
+    public void setHandlers(@Nullable final ContentHandler contentHandler, @Nullable final LexicalHandler lexicalHandler) {
+        this.contentHandler = contentHandler;
+        this.lexicalHandler = lexicalHandler;
+    }
+
+    /**
+     * Returns true if all events of a document have been recorded,
+     * and so may be replayed.
+     *
+     * @return true if the recording is complete.
+     */
+    public boolean isComplete() {
+        return ended && !overflowed;
+    }
+
+    /**
+     * @return the estimated size in bytes of the recorded events.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Replay the recorded events to handlers.
+     *
+     * @param contentHandler the content handler to receive the events.
+     * @param lexicalHandler the lexical handler to receive the events.
+     *
+     * @throws SAXException if a handler raises an error.
+     * @throws IllegalStateException if the recording is not complete.
+     */
+    @SuppressWarnings("unchecked")
+    public void replay(final ContentHandler contentHandler, final LexicalHandler lexicalHandler) throws SAXException {
+        if (!isComplete()) {
+            throw new IllegalStateException("Cannot replay an incomplete recording of SAX events");
+        }
+        for (final SAXEvent<?> event : events) {
+            if (event instanceof ContentHandlerEvent contentHandlerEvent) {
+                contentHandlerEvent.apply(contentHandler);
+            } else {
+                ((SAXEvent<LexicalHandler>) event).apply(lexicalHandler);
+            }
+        }
+    }
+
+    /**
+     * Discard the recorded events.
+     */
+    public void clear() {
+        events = new ArrayList<>();
+        size = 0;
+        overflowed = false;
+        ended = false;
+    }
+
+    private void record(final SAXEvent<?> event, final long eventSize) {
+        if (overflowed) {
+            return;
+        }
+        size += eventSize;
+        if (size > maxSize) {
+            // release the recorded events as soon as possible
+            overflowed = true;
+            events = new ArrayList<>();
+        } else {
+            events.add(event);
+        }
+    }
+
+    private static long sizeOf(@Nullable final String str) {
+        return EVENT_OVERHEAD + (str == null ? 0 : 2L * str.length());
+    }
+
+    private static long sizeOf(final Attributes attributes) {
+        long attributesSize = 0;
+        for (int i = 0; i < attributes.getLength(); i++) {
+            attributesSize += sizeOf(attributes.getURI(i)) + sizeOf(attributes.getLocalName(i))
+                    + sizeOf(attributes.getQName(i)) + sizeOf(attributes.getValue(i));
+        }
+        return attributesSize;
+    }
+
+    //<editor-fold desc="ContentHandler">
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        if (contentHandler != null) {
+            contentHandler.setDocumentLocator(locator);
+        }
+        record(new SetDocumentLocator(locator), EVENT_OVERHEAD);
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.startDocument();
+        }
+        record(StartDocument.INSTANCE, EVENT_OVERHEAD);
+    }
+
+    @Override
+    public void declaration(@Nullable final String version, @Nullable final String encoding, @Nullable final String standalone) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.declaration(version, encoding, standalone);
+        }
+        record(new Declaration(version, encoding, standalone), EVENT_OVERHEAD);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.endDocument();
+        }
+        record(EndDocument.INSTANCE, EVENT_OVERHEAD);
+        ended = true;
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.startPrefixMapping(prefix, uri);
+        }
+        record(new StartPrefixMapping(prefix, uri), sizeOf(prefix) + sizeOf(uri));
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.endPrefixMapping(prefix);
+        }
+        record(new EndPrefixMapping(prefix), sizeOf(prefix));
+    }
+
+    @Override
+    public void startElement(final String namespaceURI, final String localName, final String qname, final Attributes attributes) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.startElement(namespaceURI, localName, qname, attributes);
+        }
+        if (!overflowed) {
+            record(new StartElement(namespaceURI, localName, qname, attributes),
+                    sizeOf(namespaceURI) + sizeOf(localName) + sizeOf(qname) + sizeOf(attributes));
+        }
+    }
+
+    @Override
+    public void endElement(final String namespaceURI, final String localName, final String qname) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.endElement(namespaceURI, localName, qname);
+        }
+        if (!overflowed) {
+            record(new EndElement(namespaceURI, localName, qname), sizeOf(namespaceURI) + sizeOf(localName) + sizeOf(qname));
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.characters(ch, start, length);
+        }
+        if (!overflowed) {
+            record(new Characters(ch, start, length), EVENT_OVERHEAD + 2L * length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.ignorableWhitespace(ch, start, length);
+        }
+        if (!overflowed) {
+            record(new IgnorableWhitespace(ch, start, length), EVENT_OVERHEAD + 2L * length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.processingInstruction(target, data);
+        }
+        record(new ProcessingInstruction(target, data), sizeOf(target) + sizeOf(data));
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        if (contentHandler != null) {
+            contentHandler.skippedEntity(name);
+        }
+        record(new SkippedEntity(name), sizeOf(name));
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="LexicalHandler">
+    @Override
+    public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startDTD(name, publicId, systemId);
+        }
+        record(new StartDTD(name, publicId, systemId), sizeOf(name) + sizeOf(publicId) + sizeOf(systemId));
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endDTD();
+        }
+        record(EndDTD.INSTANCE, EVENT_OVERHEAD);
+    }
+
+    @Override
+    public void startEntity(final String name) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startEntity(name);
+        }
+        record(new StartEntity(name), sizeOf(name));
+    }
+
+    @Override
+    public void endEntity(final String name) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endEntity(name);
+        }
+        record(new EndEntity(name), sizeOf(name));
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.startCDATA();
+        }
+        record(StartCDATA.INSTANCE, EVENT_OVERHEAD);
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.endCDATA();
+        }
+        record(EndCDATA.INSTANCE, EVENT_OVERHEAD);
+    }
+
+    @Override
+    public void comment(final char[] ch, final int start, final int length) throws SAXException {
+        if (lexicalHandler != null) {
+            lexicalHandler.comment(ch, start, length);
+        }
+        if (!overflowed) {
+            record(new Comment(ch, start, length), EVENT_OVERHEAD + 2L * length);
+        }
+    }
+    //</editor-fold>
+}
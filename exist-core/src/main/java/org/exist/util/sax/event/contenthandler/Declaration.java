@@ -0,0 +1,46 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.util.sax.event.contenthandler;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import javax.annotation.Nullable;
+
+public class Declaration implements ContentHandlerEvent {
+    @Nullable public final String version;
+    @Nullable public final String encoding;
+    @Nullable public final String standalone;
+
+    public Declaration(@Nullable final String version, @Nullable final String encoding, @Nullable final String standalone) {
+        this.version = version;
+        this.encoding = encoding;
+        this.standalone = standalone;
+    }
+
+    @Override
+    public void apply(final ContentHandler handler) throws SAXException {
+        handler.declaration(version, encoding, standalone);
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -58,7 +85,7 @@ public abstract class BasicFunction extends Function {
         final Sequence[] args = new Sequence[argCount];
         for (int i = 0; i < argCount; i++) {
             try {
-                args[i] = getArgument(i).eval(contextSequence, contextItem);
+                args[i] = evalArgument(i, contextSequence, contextItem);
             } catch (final XPathException e) {
                 if (e.getErrorCode() == null || e.getErrorCode() == ErrorCodes.ERROR) {
                     e.prependMessage(
@@ -79,6 +106,21 @@ public abstract class BasicFunction extends Function {
         return result;
     }
 
+    /**
+     * Evaluate a single argument of the function. May be overridden by
+     * functions which only need part of an argument's value.
+     *
+     * @param i the position of the argument
+     * @param contextSequence The context sequence for the function or null.
+     * @param contextItem The context item for the function or null.
+     * @throws XPathException An error occurred.
+     *
+     * @return The value of the argument
+     */
+    protected Sequence evalArgument(final int i, final Sequence contextSequence, final Item contextItem) throws XPathException {
+        return getArgument(i).eval(contextSequence, contextItem);
+    }
+
     /**
      * Process the function. All arguments are passed in the array args. The number of
      * arguments, their type and cardinality have already been checked to match
@@ -0,0 +1,346 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery;
+
+import org.exist.dom.QName;
+import org.exist.indexing.IndexManager;
+import org.exist.storage.ElementValue;
+import org.exist.storage.statistics.IndexStatistics;
+import org.exist.xquery.Constants.Comparison;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimates the relative cost of evaluating expressions, so that the
+ * {@link Optimizer} can choose the cheapest of several equivalent plans.
+ *
+ * Cardinalities and the number of distinct values of elements and
+ * attributes come from the distribution gathered by {@link IndexStatistics},
+ * when that module is enabled in conf.xml. From these the selectivity of
+ * a comparison is estimated, i.e. the fraction of its context which it selects.
+ * Without the module, only the shape of an expression, i.e. whether
+ * it may be answered from an index, is taken into account.
+ *
+ * The cost model also decides whether an equality comparison
+ * should be evaluated as a hash join, see {@link #preferHashJoin(long, long, long)}.
+ *
+ * Costs are only meaningful relative to each other.
+ */
+public class CostModel {
+
+    /**
+     * Returned when the cardinality of a node test cannot be estimated.
+     */
+    public static final long UNKNOWN_CARDINALITY = -1;
+
+    /**
+     * Cost of a predicate which may be answered from an index, but
+     * whose cardinality is unknown.
+     */
+    static final long UNKNOWN_INDEX_COST = 1_000;
+
+    /**
+     * Cost of a predicate which must be evaluated for each item in its context,
+     * and whose cardinality is unknown.
+     */
+    static final long UNKNOWN_SCAN_COST = 1_000_000;
+
+    /**
+     * How much cheaper an index lookup is assumed to be than
+     * evaluating the same comparison against each node.
+     */
+    static final long INDEX_SPEEDUP = 16;
+
+    /**
+     * Returned when the selectivity of a predicate cannot be estimated.
+     */
+    public static final double UNKNOWN_SELECTIVITY = -1;
+
+    /**
+     * Selectivity assumed for a predicate which cannot be estimated.
+     */
+    static final double DEFAULT_SELECTIVITY = 0.5;
+
+    /**
+     * Selectivity assumed for a range comparison, as no
+     * histogram of the values is available.
+     */
+    static final double RANGE_SELECTIVITY = 1.0 / 3;
+
+    /**
+     * Cost of comparing two values in a nested loop.
+     */
+    static final long COMPARISON_COST = 1;
+
+    /**
+     * Cost of adding a value to the table of a hash join.
+     */
+    static final long HASH_BUILD_COST = 4;
+
+    /**
+     * Cost of looking up a value in the table of a hash join.
+     */
+    static final long HASH_PROBE_COST = 2;
+
+    @Nullable private final IndexStatistics statistics;
+    // NOTE: QName#equals ignores the name type, so elements and attributes are kept apart
+    private final Map<QName, Long> elementCardinalities = new HashMap<>();
+    private final Map<QName, Long> attributeCardinalities = new HashMap<>();
+    private final Map<QName, Long> elementDistinctValues = new HashMap<>();
+    private final Map<QName, Long> attributeDistinctValues = new HashMap<>();
+
+    public CostModel(final XQueryContext context) {
+        this.statistics = getIndexStatistics(context);
+    }
+
+    private static @Nullable IndexStatistics getIndexStatistics(final XQueryContext context) {
+        if (context.getBroker() == null) {
+            return null;
+        }
+        final IndexManager indexManager = context.getBroker().getBrokerPool().getIndexManager();
+        if (indexManager == null) {
+            return null;
+        }
+        // module may not be enabled
+        return (IndexStatistics) indexManager.getIndexById(IndexStatistics.ID);
+    }
+
+    /**
+     * Returns true if index statistics are available to this cost model.
+     *
+     * @return true if cardinalities may be estimated
+     */
+    public boolean hasStatistics() {
+        return statistics != null;
+    }
+
+    /**
+     * Estimate the number of nodes in the database which match
+     * the node test of the step.
+     *
+     * @param step the location step
+     *
+     * @return the estimated number of nodes, or {@link #UNKNOWN_CARDINALITY}
+     */
+    public long estimateCardinality(@Nullable final LocationStep step) {
+        @Nullable final QName qname = getStatisticsName(step);
+        if (qname == null) {
+            return UNKNOWN_CARDINALITY;
+        }
+        final Map<QName, Long> cardinalities = qname.getNameType() == ElementValue.ATTRIBUTE ? attributeCardinalities : elementCardinalities;
+        return cardinalities.computeIfAbsent(qname, statistics::getNodeCount);
+    }
+
+    /**
+     * Estimate the number of distinct values of the nodes in
+     * the database which match the node test of the step.
+     *
+     * @param step the location step
+     *
+     * @return the estimated number of distinct values, or {@link #UNKNOWN_CARDINALITY}
+     */
+    public long estimateDistinctValues(@Nullable final LocationStep step) {
+        @Nullable final QName qname = getStatisticsName(step);
+        if (qname == null) {
+            return UNKNOWN_CARDINALITY;
+        }
+        final Map<QName, Long> distinctValues = qname.getNameType() == ElementValue.ATTRIBUTE ? attributeDistinctValues : elementDistinctValues;
+        final long count = distinctValues.computeIfAbsent(qname, statistics::getDistinctValueCount);
+        return count < 0 ? UNKNOWN_CARDINALITY : count;
+    }
+
+    /**
+     * Get the name of the element or attribute which the step selects,
+     * if statistics are gathered for it.
+     */
+    private @Nullable QName getStatisticsName(@Nullable final LocationStep step) {
+        if (statistics == null || step == null || step.getTest() == null || step.getTest().isWildcardTest()) {
+            return null;
+        }
+        final QName qname = step.getTest().getName();
+        if (qname == null || (qname.getNameType() != ElementValue.ELEMENT && qname.getNameType() != ElementValue.ATTRIBUTE)) {
+            // statistics are only gathered for elements and attributes
+            return null;
+        }
+        return qname;
+    }
+
+    /**
+     * Estimate the fraction of its context which the predicate selects.
+     *
+     * For a comparison between a path ending in an element or attribute
+     * and an expression which does not depend on the context item,
+     * an equality selects one of the distinct values of that element or attribute,
+     * and an inequality all of the others. A range comparison is assumed to select
+     * a third of the values. A conjunction or disjunction of such comparisons is
+     * estimated assuming that they are independent.
+     *
+     * @param predicate the predicate
+     *
+     * @return the estimated selectivity between 0 and 1, or {@link #UNKNOWN_SELECTIVITY}
+     */
+    public double estimateSelectivity(final Predicate predicate) {
+        if (statistics == null || predicate.getSubExpressionCount() != 1) {
+            return UNKNOWN_SELECTIVITY;
+        }
+        return estimateSelectivity(predicate.getSubExpression(0));
+    }
+
+    private double estimateSelectivity(final Expression expr) {
+        if (expr instanceof OpAnd and) {
+            final double left = estimateSelectivity(and.getLeft());
+            final double right = estimateSelectivity(and.getRight());
+            if (left == UNKNOWN_SELECTIVITY || right == UNKNOWN_SELECTIVITY) {
+                // a conjunction selects no more than either of its operands
+                return Math.max(left, right);
+            }
+            return left * right;
+        } else if (expr instanceof OpOr or) {
+            final double left = estimateSelectivity(or.getLeft());
+            final double right = estimateSelectivity(or.getRight());
+            if (left == UNKNOWN_SELECTIVITY || right == UNKNOWN_SELECTIVITY) {
+                return UNKNOWN_SELECTIVITY;
+            }
+            return left + right - left * right;
+        } else if (expr instanceof GeneralComparison comparison) {
+            return estimateSelectivity(comparison);
+        } else if (expr instanceof PathExpr path && path.getSubExpressionCount() == 1) {
+            return estimateSelectivity(path.getSubExpression(0));
+        }
+        return UNKNOWN_SELECTIVITY;
+    }
+
+    private double estimateSelectivity(final GeneralComparison comparison) {
+        @Nullable LocationStep step = findValueStep(comparison.getLeft());
+        Expression other = comparison.getRight();
+        if (step == null) {
+            step = findValueStep(comparison.getRight());
+            other = comparison.getLeft();
+        }
+        if (step == null || Dependency.dependsOn(other, Dependency.CONTEXT_ITEM)) {
+            return UNKNOWN_SELECTIVITY;
+        }
+
+        final Comparison relation = comparison.getRelation();
+        if (relation == Comparison.LT || relation == Comparison.LTEQ
+                || relation == Comparison.GT || relation == Comparison.GTEQ) {
+            return estimateCardinality(step) == UNKNOWN_CARDINALITY ? UNKNOWN_SELECTIVITY : RANGE_SELECTIVITY;
+        }
+
+        final long distinct = estimateDistinctValues(step);
+        if (distinct == UNKNOWN_CARDINALITY) {
+            return UNKNOWN_SELECTIVITY;
+        }
+        final double equal = 1.0 / Math.max(distinct, 1);
+        return switch (relation) {
+            case EQ -> equal;
+            case NEQ -> 1 - equal;
+            default -> UNKNOWN_SELECTIVITY;
+        };
+    }
+
+    /**
+     * Find the step whose value is compared, i.e. the last step
+     * of a relative path expression.
+     */
+    private static @Nullable LocationStep findValueStep(final Expression expr) {
+        if (expr instanceof LocationStep step) {
+            return step;
+        } else if (expr instanceof PathExpr path && !(expr instanceof BinaryOp) && path.getSubExpressionCount() > 0) {
+            return findValueStep(path.getLastExpression());
+        }
+        return null;
+    }
+
+    /**
+     * Estimate the cost of filtering a context sequence by the predicate.
+     *
+     * @param predicate the predicate
+     * @param indexable true if the predicate contains an expression which may be answered from an index
+     *
+     * @return the estimated cost
+     */
+    public long estimateCost(final Predicate predicate, final boolean indexable) {
+        final long cardinality = estimateCardinality(BasicExpressionVisitor.findFirstStep(predicate));
+        if (indexable) {
+            return cardinality == UNKNOWN_CARDINALITY ? UNKNOWN_INDEX_COST : 1 + cardinality / INDEX_SPEEDUP;
+        } else {
+            return cardinality == UNKNOWN_CARDINALITY ? UNKNOWN_SCAN_COST : 1 + cardinality;
+        }
+    }
+
+    /**
+     * Estimate the rank of the predicate, by which adjacent predicates are ordered:
+     * a predicate should be evaluated earlier if it is cheap, or if it
+     * removes many items from the context of the predicates following it.
+     *
+     * @param cost the estimated cost of the predicate, see {@link #estimateCost(Predicate, boolean)}
+     * @param selectivity the estimated selectivity of the predicate, see {@link #estimateSelectivity(Predicate)}
+     *
+     * @return the rank, lower ranks should be evaluated first
+     */
+    public static double estimateRank(final long cost, final double selectivity) {
+        final double s = selectivity == UNKNOWN_SELECTIVITY ? DEFAULT_SELECTIVITY : selectivity;
+        return cost / Math.max(1 - s, 1e-6);
+    }
+
+    /**
+     * Decide whether the context of a step should be pre-selected by looking up
+     * the predicate in an index, see {@link org.exist.xquery.pragmas.Optimize}.
+     * Looking up the index costs about a fraction {@link #INDEX_SPEEDUP} of filtering
+     * the nodes it returns, so it is only worthwhile if the predicate is estimated
+     * to select less than all of the context.
+     *
+     * @param predicate the predicate which may be answered from an index
+     *
+     * @return true unless the index lookup is estimated to be more expensive than filtering
+     */
+    public boolean preferIndexPreselection(final Predicate predicate) {
+        final double selectivity = estimateSelectivity(predicate);
+        if (selectivity == UNKNOWN_SELECTIVITY) {
+            return true;
+        }
+        return selectivity / INDEX_SPEEDUP + selectivity < 1;
+    }
+
+    /**
+     * Decide whether an equality comparison should be evaluated as a hash join,
+     * by comparing the cost of a nested loop, which compares each probe value
+     * with each build value, to the cost of building a hash table once and
+     * looking up each probe value in it.
+     *
+     * @param buildSize the number of values from which the table would be built
+     * @param probeSize the number of values which are looked up in each evaluation
+     * @param evaluations the number of evaluations over which the table is used, including this one
+     *
+     * @return true if a hash join is estimated to be cheaper than a nested loop
+     */
+    public static boolean preferHashJoin(final long buildSize, final long probeSize, final long evaluations) {
+        final long nestedLoop = evaluations * buildSize * probeSize * COMPARISON_COST;
+        final long hashJoin = buildSize * HASH_BUILD_COST + evaluations * probeSize * HASH_PROBE_COST;
+        return hashJoin < nestedLoop;
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -22,8 +49,10 @@
 package org.exist.xquery;
 
 import org.exist.dom.QName;
+import org.exist.xquery.value.Item;
 import org.exist.xquery.value.Sequence;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 /**
@@ -37,6 +66,12 @@ public interface FLWORClause extends Expression {
         FOR, LET, GROUPBY, ORDERBY, WHERE, SOME, EVERY, COUNT, WINDOW
     }
 
+    /**
+     * Passed as the {@code maxItems} of {@link #eval(Sequence, Item, long)}
+     * when the whole result of the FLWOR expression is required.
+     */
+    long UNLIMITED = Long.MAX_VALUE;
+
     /**
      * Returns the type of clause implemented by a subclass.
      *
@@ -97,6 +132,119 @@ public interface FLWORClause extends Expression {
      */
     Sequence postEval(Sequence seq) throws XPathException;
 
+    /**
+     * Evaluate the clause, but stop pulling tuples from the tuple stream
+     * as soon as at least {@code maxItems} items of the result have been
+     * produced. Used when the consumer of the FLWOR expression is only
+     * interested in a prefix of its result, e.g. {@code fn:head},
+     * {@code fn:subsequence} or a positional predicate such as {@code [1]}.
+     *
+     * The limit is a hint only: the returned sequence may contain more
+     * items than requested, and clauses which need to see the whole tuple
+     * stream (e.g. group by) ignore it. A final order by clause still sees
+     * the whole tuple stream, but retains only the first items of its result,
+     * see {@link #getLimitableOrderByClause()}.
+     *
+     * @param contextSequence the context sequence
+     * @param contextItem the context item
+     * @param maxItems the number of result items required by the caller, or {@link #UNLIMITED}
+     * @return the result sequence, or a prefix of it holding at least {@code maxItems} items
+     * @throws XPathException if an error occurs during evaluation
+     */
+    default Sequence eval(final Sequence contextSequence, final Item contextItem, final long maxItems)
+            throws XPathException {
+        return eval(contextSequence, contextItem);
+    }
+
+    /**
+     * Determine if the FLWOR expression, starting with this clause and
+     * following the return expressions, consists only of clauses which
+     * can terminate early, i.e. for, let and where.
+     *
+     * @return true if evaluation may stop once enough results have been produced
+     */
+    default boolean isPipelined() {
+        Expression expr = this;
+        while (expr instanceof FLWORClause clause) {
+            switch (clause.getType()) {
+                case FOR:
+                case LET:
+                case WHERE:
+                    break;
+                default:
+                    return false;
+            }
+            expr = clause.getReturnExpression();
+        }
+        return true;
+    }
+
+    /**
+     * Get the order by clause of the FLWOR expression, starting with this
+     * clause, if it consists of for, let and where clauses followed by a
+     * final order by clause which can retain only the first items of its
+     * result.
+     *
+     * @return the order by clause, or null
+     */
+    default @Nullable OrderByClause getLimitableOrderByClause() {
+        Expression expr = this;
+        while (expr instanceof FLWORClause clause) {
+            switch (clause.getType()) {
+                case FOR:
+                case LET:
+                case WHERE:
+                    break;
+                case ORDERBY:
+                    final OrderByClause orderByClause = (OrderByClause) clause;
+                    return orderByClause.isLimitable() ? orderByClause : null;
+                default:
+                    return null;
+            }
+            expr = clause.getReturnExpression();
+        }
+        return null;
+    }
+
+    /**
+     * Get the first order by clause of the FLWOR expression, starting with this clause.
+     *
+     * @return the order by clause, or null if there is none
+     */
+    default @Nullable OrderByClause getOrderByClause() {
+        Expression expr = this;
+        while (expr instanceof FLWORClause clause) {
+            if (clause instanceof OrderByClause orderByClause) {
+                return orderByClause;
+            }
+            expr = clause.getReturnExpression();
+        }
+        return null;
+    }
+
+    /**
+     * Get the top clause of a FLWOR expression which can be evaluated with
+     * {@link #eval(Sequence, Item, long)}, looking through a cardinality
+     * check of {@link Cardinality#ZERO_OR_MORE} as added for function
+     * arguments.
+     *
+     * @param expr the expression, typically the argument of a function or the
+     *     base of a filter expression
+     * @return the top clause of the FLWOR expression, or null if expr is not a
+     *     FLWOR expression that can terminate early or order only its first items
+     */
+    static @Nullable FLWORClause getPipelinedClause(Expression expr) {
+        if (expr instanceof DynamicCardinalityCheck cardinalityCheck
+                && cardinalityCheck.getRequiredCardinality() == Cardinality.ZERO_OR_MORE) {
+            expr = cardinalityCheck.getSubExpression(0);
+        }
+        if (expr instanceof FLWORClause clause && clause.getPreviousClause() == null
+                && (clause.isPipelined() || clause.getLimitableOrderByClause() != null)) {
+            return clause;
+        }
+        return null;
+    }
+
     /**
      * Create a new local variable for the FLWOR clause.
      * Tracks the variables for this expression.
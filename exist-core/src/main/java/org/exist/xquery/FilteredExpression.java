@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -99,7 +126,7 @@ public class FilteredExpression extends AbstractExpression {
         }
 
         final Sequence result;
-        final Sequence seq = expression.eval(contextSequence, contextItem);
+        final Sequence seq = evalExpression(contextSequence, contextItem);
         if (seq.isEmpty()) {
             result = Sequence.EMPTY_SEQUENCE;
         } else {
@@ -144,6 +171,37 @@ public class FilteredExpression extends AbstractExpression {
         return result;
     }
 
+    private Sequence evalExpression(final Sequence contextSequence, final Item contextItem) throws XPathException {
+        final FLWORClause flworClause = FLWORClause.getPipelinedClause(expression);
+        if (flworClause != null) {
+            final long position = getLiteralPosition();
+            if (position > 0) {
+                // e.g. (for $x in ... return $x)[1], there is no need to evaluate beyond the selected position
+                return flworClause.eval(contextSequence, contextItem, position);
+            }
+        }
+        return expression.eval(contextSequence, contextItem);
+    }
+
+    /**
+     * Get the position selected by the first predicate if it is
+     * a positional predicate with an integer literal, e.g. {@code [1]}.
+     *
+     * @return the selected position, or -1 if the first predicate is not a literal positional predicate
+     */
+    private long getLiteralPosition() {
+        if (abbreviated || predicates.isEmpty()) {
+            return -1;
+        }
+        final Predicate pred = predicates.get(0);
+        if (pred.getExecutionMode() == Predicate.ExecutionMode.POSITIONAL && pred.getSubExpressionCount() == 1
+                && pred.getSubExpression(0) instanceof LiteralValue literal
+                && literal.getValue() instanceof IntegerValue position) {
+            return position.getLong();
+        }
+        return -1;
+    }
+
     private Sequence processPredicate(@Nullable Sequence contextSequence, Sequence seq) throws XPathException {
         int line = -1;
         int column = -1;
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -21,12 +48,22 @@
  */
 package org.exist.xquery;
 
+import com.ibm.icu.text.Collator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import org.exist.dom.QName;
+import org.exist.dom.persistent.DocumentImpl;
+import org.exist.dom.persistent.NodeHandle;
+import org.exist.dom.persistent.NodeProxy;
 import org.exist.dom.persistent.NodeSet;
+import org.exist.numbering.NodeId;
+import org.exist.storage.UpdateListener;
 import org.exist.xquery.util.ExpressionDumper;
 import org.exist.xquery.value.*;
 
+import javax.annotation.Nullable;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -40,6 +77,18 @@ public class ForExpr extends BindingExpression {
     private boolean allowEmpty = false;
     private boolean isOuterFor = true;
 
+    // equi-join between this for and an enclosing clause, see #analyzeHashJoin()
+    private GeneralComparison joinComparison = null;
+    private Expression joinBuildExpr = null;
+    private Expression joinProbeExpr = null;
+    private Sequence joinInput = null;
+    private Item[] joinItems = null;
+    private Collator joinCollator = null;
+    private HashJoin joinTable = null;
+    private long joinEvaluations = 0;
+    private boolean joinBuildable = true;
+    private UpdateListener joinListener = null;
+
     public ForExpr(XQueryContext context, boolean allowingEmpty) {
         super(context);
         this.allowEmpty = allowingEmpty;
@@ -87,12 +136,115 @@ public class ForExpr extends BindingExpression {
             final AnalyzeContextInfo newContextInfo = new AnalyzeContextInfo(contextInfo);
             newContextInfo.addFlag(SINGLE_STEP_EXECUTION);
             returnExpr.analyze(newContextInfo);
+
+            analyzeHashJoin();
         } finally {
             // restore the local variable stack
             context.popLocalVariables(mark);
         }
     }
 
+    /**
+     * Detects an equi-join between the items of this "for" and those of an
+     * enclosing clause, i.e. a "where" clause of the form:
+     *
+     * <pre>
+     * for $a in $as
+     * for $b in $bs
+     * where $a/@id = $b/@ref
+     * </pre>
+     *
+     * Rather than evaluating the "where" clause for every item of
+     * {@code $bs} for each {@code $a}, the items of {@code $bs} are
+     * hashed once by the value of the side of the comparison that
+     * depends only on {@code $b}. For each {@code $a}, only those items
+     * whose value is equal to the other side of the comparison are
+     * then iterated, and the "where" clause is evaluated for those only.
+     */
+    private void analyzeHashJoin() {
+        joinComparison = null;
+        joinBuildExpr = null;
+        joinProbeExpr = null;
+        if (positionalVariable != null || sequenceType != null || allowEmpty || getPreviousClause() == null
+                || !(returnExpr instanceof WhereClause whereClause)) {
+            return;
+        }
+
+        final Expression whereExpr = unwrap(whereClause.getWhereExpr());
+        if (!(whereExpr instanceof GeneralComparison comparison)
+                || comparison.getRelation() != Constants.Comparison.EQ
+                || comparison.getTruncation() != Constants.StringTruncationOperator.NONE) {
+            return;
+        }
+
+        final Expression left = comparison.getLeft();
+        final Expression right = comparison.getRight();
+        if (varName.equals(getPathVariable(left)) && isIndependentOf(right)) {
+            joinBuildExpr = left;
+            joinProbeExpr = right;
+        } else if (varName.equals(getPathVariable(right)) && isIndependentOf(left)) {
+            joinBuildExpr = right;
+            joinProbeExpr = left;
+        } else {
+            return;
+        }
+        joinComparison = comparison;
+
+        if (context.getProfiler().isEnabled()) {
+            context.getProfiler().message(this, Profiler.OPTIMIZATIONS, "OPTIMIZATION",
+                    "Equi-join on $" + varName + " may be evaluated as a hash join: " + comparison);
+        }
+    }
+
+    private static Expression unwrap(Expression expr) {
+        while (expr.getClass() == PathExpr.class && expr.getSubExpressionCount() == 1) {
+            expr = expr.getSubExpression(0);
+        }
+        return expr;
+    }
+
+    /**
+     * Get the variable of an expression of the form {@code $var}
+     * or {@code $var/step/step}, where the steps do not reference
+     * any variables.
+     *
+     * @param expr the expression
+     *
+     * @return the name of the variable, or null if the expression is of another form
+     */
+    private static @Nullable QName getPathVariable(Expression expr) {
+        expr = unwrap(expr);
+        if (expr instanceof VariableReference ref) {
+            return ref.getName();
+        }
+        if (expr.getClass() != PathExpr.class || expr.getSubExpressionCount() < 2
+                || !(unwrap(expr.getSubExpression(0)) instanceof VariableReference ref)) {
+            return null;
+        }
+        for (int i = 1; i < expr.getSubExpressionCount(); i++) {
+            final Expression step = expr.getSubExpression(i);
+            if (!(step instanceof LocationStep) || Dependency.dependsOn(step, Dependency.VARS)) {
+                return null;
+            }
+        }
+        return ref.getName();
+    }
+
+    /**
+     * Determine if an expression is independent of the variable of this "for".
+     *
+     * @param expr the expression
+     *
+     * @return true if the expression does not reference the variable of this "for"
+     */
+    private boolean isIndependentOf(final Expression expr) {
+        if (!Dependency.dependsOn(expr, Dependency.VARS)) {
+            return true;
+        }
+        final QName pathVariable = getPathVariable(expr);
+        return pathVariable != null && !pathVariable.equals(varName);
+    }
+
     /**
      * This implementation tries to process the "where" clause in advance, i.e. in one single
      * step. This is possible if the input sequence is a node set and the where expression
@@ -102,6 +254,45 @@ public class ForExpr extends BindingExpression {
      */
     public Sequence eval(Sequence contextSequence, Item contextItem)
             throws XPathException {
+        return eval(contextSequence, contextItem, UNLIMITED);
+    }
+
+    /**
+     * Iterates the input sequence only until at least {@code maxItems}
+     * result items have been produced, provided that the remainder of
+     * the FLWOR expression consists of for, let and where clauses only.
+     * Otherwise, a final order by clause may retain only the first
+     * {@code maxItems} items of its result.
+     *
+     * @see FLWORClause#eval(Sequence, Item, long)
+     */
+    @Override
+    public Sequence eval(Sequence contextSequence, Item contextItem, long maxItems)
+            throws XPathException {
+        @Nullable final OrderByClause orderByClause = getPreviousClause() == null ? getOrderByClause() : null;
+        if (orderByClause == null) {
+            return evalClause(contextSequence, contextItem, maxItems);
+        }
+
+        // the order by clause keeps the state of this evaluation until postEval
+        final int orderByMark = orderByClause.mark();
+        try {
+            return evalClause(contextSequence, contextItem, maxItems);
+        } catch (final XPathException | RuntimeException e) {
+            orderByClause.discard(orderByMark);
+            throw e;
+        }
+    }
+
+    private Sequence evalClause(Sequence contextSequence, Item contextItem, long maxItems)
+            throws XPathException {
+        @Nullable OrderByClause limitedOrderBy = null;
+        final long orderByLimit = maxItems;
+        if (maxItems != UNLIMITED && !isPipelined()) {
+            // an order by clause may still retain only the first items of its result
+            limitedOrderBy = getLimitableOrderByClause();
+            maxItems = UNLIMITED;
+        }
         if (context.getProfiler().isEnabled()) {
             context.getProfiler().start(this);
             context.getProfiler().message(this, Profiler.DEPENDENCIES,
@@ -122,6 +313,10 @@ public class ForExpr extends BindingExpression {
         try {
             // Evaluate the "in" expression
             in = inputSequence.eval(contextSequence, null);
+            if (joinComparison != null && isSameSequence(in, joinInput)) {
+                // reuse the sequence from which the hash join was built
+                in = joinInput;
+            }
             clearContext(getExpressionId(), in);
             // Declare the iteration variable
             var = createVariable(varName);
@@ -174,13 +369,39 @@ public class ForExpr extends BindingExpression {
                                 ", got " + in.getCardinality().getHumanDescription());
             }
 
+            // See if the "order by" clause which follows can be processed by iterating
+            // the input sequence in the order of an index, rather than sorting the tuples
+            @Nullable Sequence orderedIn = null;
+            if (returnExpr instanceof OrderByClause orderByClause && getPreviousClause() == null && at == null
+                    && joinComparison == null) {
+                orderedIn = orderByClause.orderByIndex(varName, in, orderByLimit);
+            }
+            if (orderedIn != null) {
+                // the tuples arrive in order, so only the first of them are needed
+                maxItems = orderByLimit;
+            } else if (limitedOrderBy != null) {
+                limitedOrderBy.limit(orderByLimit);
+            }
+
             // Loop through each variable binding
             int p = 0;
             if (in.isEmpty() && allowEmpty) {
-                processItem(var, AtomicValue.EMPTY_VALUE, Sequence.EMPTY_SEQUENCE, resultSequence, at, p);
+                processItem(var, AtomicValue.EMPTY_VALUE, Sequence.EMPTY_SEQUENCE, resultSequence, at, p, maxItems);
             } else {
-                for (final SequenceIterator i = in.iterate(); i.hasNext(); p++) {
-                    processItem(var, i.nextItem(), in, resultSequence, at, p);
+                @Nullable final IntArrayList joined = joinComparison != null && !isOuterFor ? hashJoin(var, in) : null;
+                if (joined != null) {
+                    // only iterate the items which satisfy the equi-join in the where clause
+                    final Item[] items = joinItems;
+                    for (int j = 0; j < joined.size() && (maxItems == UNLIMITED || resultSequence.getItemCountLong() < maxItems); j++) {
+                        p = joined.getInt(j);
+                        processItem(var, items[p], in, resultSequence, at, p, maxItems);
+                    }
+                } else {
+                    final Sequence iterated = orderedIn != null ? orderedIn : in;
+                    for (final SequenceIterator i = iterated.iterate();
+                            i.hasNext() && (maxItems == UNLIMITED || resultSequence.getItemCountLong() < maxItems); p++) {
+                        processItem(var, i.nextItem(), iterated, resultSequence, at, p, maxItems);
+                    }
                 }
             }
         } finally {
@@ -225,7 +446,7 @@ public class ForExpr extends BindingExpression {
     }
 
     private void processItem(LocalVariable var, Item contextItem, Sequence in, Sequence resultSequence, LocalVariable
-            at, int p) throws XPathException {
+            at, int p, long maxItems) throws XPathException {
         context.proceed(this);
         context.setContextSequencePosition(p, in);
         if (positionalVariable != null) {
@@ -243,6 +464,8 @@ public class ForExpr extends BindingExpression {
         final Sequence returnExprResult;
         if (returnExpr instanceof OrderByClause) {
             returnExprResult = returnExpr.eval(contextSequence, null);
+        } else if (maxItems != UNLIMITED && returnExpr instanceof FLWORClause flworClause) {
+            returnExprResult = flworClause.eval(null, null, maxItems - resultSequence.getItemCountLong());
         } else {
             returnExprResult = returnExpr.eval(null, null);
         }
@@ -252,6 +475,168 @@ public class ForExpr extends BindingExpression {
         var.destroy(context, resultSequence);
     }
 
+    /**
+     * Finds the positions of the items of the input sequence which
+     * may satisfy the equi-join of the where clause, building
+     * the hash table from the input sequence if required.
+     *
+     * The table is only built once the {@link CostModel} estimates it to be
+     * cheaper than iterating all items in each evaluation so far with the
+     * same input sequence, see {@link CostModel#preferHashJoin(long, long, long)}.
+     *
+     * @param var the variable of this "for"
+     * @param in the input sequence
+     *
+     * @return the positions of the items in ascending order,
+     *     or null if all items must be iterated
+     */
+    private @Nullable IntArrayList hashJoin(final LocalVariable var, final Sequence in) throws XPathException {
+        final Collator collator = joinComparison.getCollator(null);
+        if (in != joinInput || !Objects.equals(collator, joinCollator)) {
+            releaseHashJoin();
+            joinInput = in;
+            joinCollator = collator;
+        }
+
+        if (joinTable == null && !joinBuildable) {
+            return null;
+        }
+
+        final Sequence probe = Atomize.atomize(joinProbeExpr.eval(null, null));
+        if (joinTable == null) {
+            if (!CostModel.preferHashJoin(in.getItemCountLong(), probe.getItemCountLong(), ++joinEvaluations)) {
+                return null;
+            }
+            buildHashJoin(var, in, collator);
+            if (joinTable == null) {
+                return null;
+            }
+        }
+        final IntArrayList positions = new IntArrayList();
+        for (final SequenceIterator i = probe.iterate(); i.hasNext(); ) {
+            final Object key = joinTable.probeKey(i.nextItem().atomize());
+            if (key == null) {
+                // not comparable by key, e.g. of a different type
+                return null;
+            }
+            positions.addAll(joinTable.lookup(key));
+        }
+
+        if (probe.getItemCountLong() > 1) {
+            IntArrays.quickSort(positions.elements(), 0, positions.size());
+        }
+        // an item is iterated only once, even if several of its values match
+        int distinct = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            if (distinct == 0 || positions.getInt(i) != positions.getInt(distinct - 1)) {
+                positions.set(distinct++, positions.getInt(i));
+            }
+        }
+        positions.size(distinct);
+        return positions;
+    }
+
+    private void buildHashJoin(final LocalVariable var, final Sequence in, final Collator collator) throws XPathException {
+        final int size = in.getItemCount();
+        final Item[] items = new Item[size];
+        final HashJoin.Builder builder = new HashJoin.Builder(context, collator);
+        try {
+            int p = 0;
+            for (final SequenceIterator i = in.iterate(); i.hasNext(); p++) {
+                final Item item = i.nextItem();
+                items[p] = item;
+                var.setValue(item.toSequence());
+                for (final SequenceIterator keys = Atomize.atomize(joinBuildExpr.eval(null, null)).iterate(); keys.hasNext(); ) {
+                    if (!builder.add(keys.nextItem().atomize(), p)) {
+                        builder.discard();
+                        joinBuildable = false;
+                        return;
+                    }
+                }
+            }
+        } finally {
+            var.setValue(in);
+        }
+
+        joinTable = builder.build();
+        joinItems = items;
+        joinBuildable = joinTable != null;
+        if (joinTable != null && joinListener == null && Type.subTypeOf(in.getItemType(), Type.NODE)) {
+            // the keys are no longer valid if the nodes are updated
+            joinListener = new HashJoinUpdateListener();
+            context.registerUpdateListener(joinListener);
+        }
+
+        if (joinTable != null) {
+            if (context.getProfiler().isEnabled()) {
+                context.getProfiler().message(this, Profiler.OPTIMIZATIONS, "OPTIMIZATION",
+                        "Using hash join on $" + varName + " (" + joinTable.size() + " entries"
+                                + (joinTable.isSpilled() ? ", spilled to disk)" : ")"));
+            }
+            if (context.getProfiler().traceFunctions()) {
+                context.getProfiler().traceOptimization(context, PerformanceStats.OptimizationType.HASH_JOIN, this);
+            }
+        }
+    }
+
+    private void releaseHashJoin() {
+        if (joinTable != null) {
+            joinTable.close();
+        }
+        joinTable = null;
+        joinInput = null;
+        joinItems = null;
+        joinCollator = null;
+        joinEvaluations = 0;
+        joinBuildable = true;
+    }
+
+    /**
+     * Determine if a sequence contains the same items as the sequence from
+     * which the hash join was built, e.g. when re-evaluating a path
+     * expression which does not depend on the enclosing clauses.
+     */
+    private static boolean isSameSequence(final Sequence in, @Nullable final Sequence joinInput) throws XPathException {
+        if (in == joinInput) {
+            return true;
+        }
+        if (joinInput == null || !in.isPersistentSet() || !joinInput.isPersistentSet()
+                || in.getItemCount() != joinInput.getItemCount()) {
+            return false;
+        }
+        final SequenceIterator i = in.iterate();
+        final SequenceIterator j = joinInput.iterate();
+        while (i.hasNext()) {
+            final Item item = i.nextItem();
+            if (!(item instanceof NodeProxy) || !item.equals(j.nextItem())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class HashJoinUpdateListener implements UpdateListener {
+        @Override
+        public void documentUpdated(final DocumentImpl document, final int event) {
+            releaseHashJoin();
+        }
+
+        @Override
+        public void nodeMoved(final NodeId oldNodeId, final NodeHandle newNode) {
+            releaseHashJoin();
+        }
+
+        @Override
+        public void unsubscribe() {
+            joinListener = null;
+        }
+
+        @Override
+        public void debug() {
+            // no-op
+        }
+    }
+
     private boolean callPostEval() {
         FLWORClause prev = getPreviousClause();
         while (prev != null) {
@@ -268,6 +653,14 @@ public class ForExpr extends BindingExpression {
         return true;
     }
 
+    @Override
+    public void resetState(final boolean postOptimization) {
+        super.resetState(postOptimization);
+        if (!postOptimization) {
+            releaseHashJoin();
+        }
+    }
+
     @Override
     public Sequence preEval(Sequence seq) throws XPathException {
         // if preEval gets called, we know we're inside another FOR
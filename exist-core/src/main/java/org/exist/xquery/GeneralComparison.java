@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -25,16 +52,20 @@ import com.ibm.icu.text.Collator;
 import org.exist.EXistException;
 import org.exist.collections.Collection;
 import org.exist.dom.persistent.ContextItem;
+import org.exist.dom.persistent.DocumentImpl;
 import org.exist.dom.persistent.DocumentSet;
 import org.exist.dom.persistent.NewArrayNodeSet;
+import org.exist.dom.persistent.NodeHandle;
 import org.exist.dom.persistent.NodeProxy;
 import org.exist.dom.persistent.NodeSet;
 import org.exist.dom.QName;
 import org.exist.dom.persistent.VirtualNodeSet;
+import org.exist.numbering.NodeId;
 import org.exist.storage.DBBroker;
 import org.exist.storage.ElementValue;
 import org.exist.storage.IndexSpec;
 import org.exist.storage.Indexable;
+import org.exist.storage.UpdateListener;
 import org.exist.xmldb.XmldbURI;
 import org.exist.xquery.Constants.Comparison;
 import org.exist.xquery.Constants.StringTruncationOperator;
@@ -48,6 +79,7 @@ import org.exist.xquery.value.SequenceIterator;
 import org.exist.xquery.value.StringValue;
 import org.exist.xquery.value.Type;
 
+import javax.annotation.Nullable;
 import java.util.Iterator;
 import java.util.List;
 
@@ -101,6 +133,13 @@ public class GeneralComparison extends BinaryOp implements Optimizable, IndexUse
 
     private IndexFlags     idxflags         = new IndexFlags();
 
+    private Sequence       hashJoinInput    = null;
+    private Collator       hashJoinCollator = null;
+    private HashJoin       hashJoin         = null;
+    private long           hashJoinEvaluations = 0;
+    private boolean        hashJoinBuildable   = true;
+    private UpdateListener hashJoinListener = null;
+
     public GeneralComparison( XQueryContext context, Comparison relation )
     {
         this( context, relation, StringTruncationOperator.NONE );
@@ -551,32 +590,19 @@ public class GeneralComparison extends BinaryOp implements Optimizable, IndexUse
             result = BooleanValue.valueOf( compareAtomic( collator, ls.itemAt( 0 ).atomize(), rs.itemAt( 0 ).atomize() ) );
         } else {
 
-            for( final SequenceIterator i1 = Atomize.atomize(ls).iterate(); i1.hasNext(); ) {
-                final AtomicValue lv = i1.nextItem().atomize();
-
-                if( rs.isEmpty() ) {
-
-                    if( compareAtomic( collator, lv, AtomicValue.EMPTY_VALUE ) ) {
-                        result = BooleanValue.TRUE;
-                        break;
-                    }
-                } else if( rs.hasOne() && rs.itemAt(0).getType() != Type.ARRAY_ITEM) {
+            @Nullable final HashJoin join = getHashJoin( collator, ls, rs );
+            if( join != null ) {
+                result = BooleanValue.valueOf( hashJoinCompare( join, collator, ls, rs ) );
+            } else {
 
-                    if( compareAtomic( collator, lv, rs.itemAt( 0 ).atomize() ) ) {
+                for( final SequenceIterator i1 = Atomize.atomize(ls).iterate(); i1.hasNext(); ) {
+                    final AtomicValue lv = i1.nextItem().atomize();
 
+                    if( compareAtomic( collator, lv, rs ) ) {
                         //return early if we are successful, continue otherwise
                         result = BooleanValue.TRUE;
                         break;
                     }
-                } else {
-
-                    for( final SequenceIterator i2 = Atomize.atomize(rs).iterate(); i2.hasNext(); ) {
-
-                        if( compareAtomic( collator, lv, i2.nextItem().atomize() ) ) {
-                            result = BooleanValue.TRUE;
-                            break;
-                        }
-                    }
                 }
             }
         }
@@ -588,6 +614,200 @@ public class GeneralComparison extends BinaryOp implements Optimizable, IndexUse
     }
 
 
+    /**
+     * Compares an atomic value against each item of a sequence.
+     *
+     * @param   collator  the collator to use, or null
+     * @param   lv        the atomic value
+     * @param   rs        the sequence
+     *
+     * @return  true if the comparison holds for any item of the sequence
+     *
+     * @throws  XPathException in case of dynamic error
+     */
+    private boolean compareAtomic( final Collator collator, final AtomicValue lv, final Sequence rs ) throws XPathException
+    {
+        if( rs.isEmpty() ) {
+            return( compareAtomic( collator, lv, AtomicValue.EMPTY_VALUE ) );
+        }
+
+        if( rs.hasOne() && rs.itemAt(0).getType() != Type.ARRAY_ITEM ) {
+            return( compareAtomic( collator, lv, rs.itemAt( 0 ).atomize() ) );
+        }
+
+        for( final SequenceIterator i2 = Atomize.atomize(rs).iterate(); i2.hasNext(); ) {
+
+            if( compareAtomic( collator, lv, i2.nextItem().atomize() ) ) {
+                return( true );
+            }
+        }
+        return( false );
+    }
+
+
+    /**
+     * Get a hash table of the atomized values of the right operand, so
+     * that an equality comparison between two sequences may be evaluated
+     * as a hash join. As the right operand often does not change between
+     * evaluations, e.g. in a predicate, the table is kept for as long as
+     * the same sequence is compared.
+     *
+     * A table is only built if the {@link CostModel} estimates it to be
+     * cheaper than a linear scan, which returns early, over the evaluations
+     * so far with the same right operand, see {@link CostModel#preferHashJoin(long, long, long)}.
+     * So a right operand which does not depend on the context item is scanned
+     * for the first few evaluations, until building the table pays off.
+     *
+     * @param   collator  the collator to use, or null
+     * @param   ls        the evaluated left operand
+     * @param   rs        the evaluated right operand
+     *
+     * @return  the hash table, or null if the comparison cannot be evaluated
+     *          as a hash join
+     *
+     * @throws  XPathException in case of dynamic error
+     */
+    private @Nullable HashJoin getHashJoin( final Collator collator, final Sequence ls, final Sequence rs ) throws XPathException
+    {
+        if( ( relation != Comparison.EQ ) || ( truncation != StringTruncationOperator.NONE ) ) {
+            return( null );
+        }
+
+        if( ( rs == hashJoinInput ) && ( collator == hashJoinCollator ) ) {
+
+            if( ( hashJoin != null ) || !hashJoinBuildable ) {
+                return( hashJoin );
+            }
+            hashJoinEvaluations++;
+        } else {
+
+            if( !ls.hasMany() && Dependency.dependsOn( getRight(), Dependency.CONTEXT_ITEM ) ) {
+                // the table would only be probed once
+                return( null );
+            }
+            releaseHashJoin();
+            hashJoinInput       = rs;
+            hashJoinCollator    = collator;
+            hashJoinEvaluations = 1;
+        }
+
+        if( !CostModel.preferHashJoin( rs.getItemCountLong(), ls.getItemCountLong(), hashJoinEvaluations ) ) {
+            return( null );
+        }
+
+        final Sequence atomized = Atomize.atomize( rs );
+        final HashJoin.Builder builder = new HashJoin.Builder( context, collator );
+        int position = 0;
+
+        for( final SequenceIterator i = atomized.iterate(); i.hasNext(); position++ ) {
+
+            if( !builder.add( i.nextItem().atomize(), position ) ) {
+                builder.discard();
+                hashJoinBuildable = false;
+                return( null );
+            }
+        }
+
+        final HashJoin join = builder.build();
+        hashJoin          = join;
+        hashJoinBuildable = join != null;
+
+        if( ( join != null ) && ( hashJoinListener == null ) && Type.subTypeOf( rs.getItemType(), Type.NODE ) ) {
+            // the keys are no longer valid if the nodes are updated
+            hashJoinListener = new HashJoinUpdateListener();
+            context.registerUpdateListener( hashJoinListener );
+        }
+        return( join );
+    }
+
+
+    private void releaseHashJoin()
+    {
+        if( hashJoin != null ) {
+            hashJoin.close();
+        }
+        hashJoinInput       = null;
+        hashJoinCollator    = null;
+        hashJoin            = null;
+        hashJoinEvaluations = 0;
+        hashJoinBuildable   = true;
+    }
+
+
+    private class HashJoinUpdateListener implements UpdateListener
+    {
+        @Override
+        public void documentUpdated( final DocumentImpl document, final int event )
+        {
+            releaseHashJoin();
+        }
+
+        @Override
+        public void nodeMoved( final NodeId oldNodeId, final NodeHandle newNode )
+        {
+            releaseHashJoin();
+        }
+
+        @Override
+        public void unsubscribe()
+        {
+            hashJoinListener = null;
+        }
+
+        @Override
+        public void debug()
+        {
+            // no-op
+        }
+    }
+
+
+    /**
+     * Evaluates an equality comparison by probing the atomized values
+     * of the left operand against a hash table of the right operand.
+     *
+     * @param   join      the hash table of the right operand
+     * @param   collator  the collator to use, or null
+     * @param   ls        the evaluated left operand
+     * @param   rs        the evaluated right operand
+     *
+     * @return  true if any value of the left operand is equal to any value of the right operand
+     *
+     * @throws  XPathException in case of dynamic error
+     */
+    private boolean hashJoinCompare( final HashJoin join, final Collator collator, final Sequence ls, final Sequence rs ) throws XPathException
+    {
+        if( context.getProfiler().isEnabled() ) {
+            context.getProfiler().message( this, Profiler.OPTIMIZATION_FLAGS, "OPTIMIZATION CHOICE", "hashJoin (" + join.size() + " entries" + ( join.isSpilled() ? ", spilled to disk)" : ")" ) );
+        }
+        if( context.getProfiler().traceFunctions() ) {
+            context.getProfiler().traceOptimization( context, PerformanceStats.OptimizationType.HASH_JOIN, this );
+        }
+
+        // probe the values one partition at a time, so that each
+        // partition of a spilled table is only read once
+        final int partitions = join.getPartitionCount();
+        for( int partition = 0; partition < partitions; partition++ ) {
+
+            for( final SequenceIterator i1 = Atomize.atomize(ls).iterate(); i1.hasNext(); ) {
+                final AtomicValue lv  = i1.nextItem().atomize();
+                final Object      key = join.probeKey( lv );
+
+                if( key == null ) {
+
+                    // the value cannot be keyed against the table, e.g. it is of another type
+                    if( ( partition == 0 ) && compareAtomic( collator, lv, rs ) ) {
+                        return( true );
+                    }
+                } else if( ( key != HashJoin.NO_KEY ) && ( join.getPartition( key ) == partition ) && !join.lookup( key ).isEmpty() ) {
+                    return( true );
+                }
+            }
+        }
+        return( false );
+    }
+
+
     /**
      * Optimized implementation, which can be applied if the left operand returns a node set. In this case, the left expression is executed first. All
      * matching context nodes are then passed to the right expression.
@@ -1309,6 +1529,7 @@ public class GeneralComparison extends BinaryOp implements Optimizable, IndexUse
             cached          = null;
             preselectResult = null;
             hasUsedIndex    = false;
+            releaseHashJoin();
         }
     }
 
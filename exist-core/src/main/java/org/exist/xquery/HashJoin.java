@@ -0,0 +1,520 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery;
+
+import com.ibm.icu.text.Collator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.exist.util.io.TemporaryFileManager;
+import org.exist.xquery.value.AtomicValue;
+import org.exist.xquery.value.DecimalValue;
+import org.exist.xquery.value.NumericValue;
+import org.exist.xquery.value.Type;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash table used to evaluate an equality {@link GeneralComparison}
+ * between two independent sequences with a build/probe hash join
+ * instead of comparing every pair of items.
+ *
+ * The table is built from the atomized values of one operand, each
+ * of which is associated with the position of the item it was
+ * obtained from. The other operand is then probed against it.
+ *
+ * Keys are derived from the typed atomic values, so that two keys
+ * are equal if, and only if, the general comparison would consider
+ * the values equal:
+ * <ul>
+ *     <li>xs:string, xs:anyURI and xs:untypedAtomic are compared
+ *     as strings, or by their collation key when a collation is in effect.</li>
+ *     <li>xs:decimal and its subtypes are compared by their exact value.</li>
+ *     <li>xs:double is compared by its value, NaN never being equal.</li>
+ * </ul>
+ * Any other type, or a mixture of the above on the build side, cannot
+ * be keyed, in which case the caller must fall back to a nested loop.
+ *
+ * When the number of entries exceeds the configured spill threshold
+ * (see {@link XQueryContext#PROPERTY_HASH_JOIN_SPILL_THRESHOLD}), the
+ * entries are partitioned by key into temporary files, and only a
+ * single partition is held in memory at any time.
+ */
+final class HashJoin implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(HashJoin.class);
+
+    /**
+     * The number of partitions used when the table spills to disk.
+     */
+    private static final int SPILL_PARTITIONS = 16;
+
+    /**
+     * Key of a value that can never be equal to any other value, e.g. NaN.
+     */
+    static final Object NO_KEY = new Object();
+
+    private static final byte RECORD_STRING = 0;
+    private static final byte RECORD_COLLATION_KEY = 1;
+    private static final byte RECORD_DECIMAL = 2;
+    private static final byte RECORD_DOUBLE = 3;
+
+    enum KeyClass {
+        STRING,
+        DECIMAL,
+        DOUBLE
+    }
+
+    private final KeyClass keyClass;
+    @Nullable private final Collator collator;
+    private final int size;
+    @Nullable private final Path[] partitionFiles;
+
+    private int residentPartition;
+    private Map<Object, IntArrayList> resident;
+
+    private HashJoin(final KeyClass keyClass, @Nullable final Collator collator, final int size,
+            final Map<Object, IntArrayList> resident) {
+        this.keyClass = keyClass;
+        this.collator = collator;
+        this.size = size;
+        this.partitionFiles = null;
+        this.residentPartition = 0;
+        this.resident = resident;
+    }
+
+    private HashJoin(final KeyClass keyClass, @Nullable final Collator collator, final int size,
+            final Path[] partitionFiles) {
+        this.keyClass = keyClass;
+        this.collator = collator;
+        this.size = size;
+        this.partitionFiles = partitionFiles;
+        this.residentPartition = -1;
+        this.resident = null;
+    }
+
+    /**
+     * Get the spill threshold configured for the database.
+     *
+     * @param context the XQuery context
+     *
+     * @return the maximum number of entries held in memory
+     */
+    static int getSpillThreshold(final XQueryContext context) {
+        final Integer threshold = context.getBroker().getConfiguration().getProperty(
+                XQueryContext.PROPERTY_HASH_JOIN_SPILL_THRESHOLD, XQueryContext.DEFAULT_HASH_JOIN_SPILL_THRESHOLD);
+        return threshold > 0 ? threshold : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the class of key for an atomic value.
+     *
+     * @param value the atomic value
+     *
+     * @return the class of key, or null if the value cannot be keyed
+     */
+    static @Nullable KeyClass keyClassOf(final AtomicValue value) {
+        final int type = value.getType();
+        if (type == Type.UNTYPED_ATOMIC || type == Type.ANY_URI || Type.subTypeOf(type, Type.STRING)) {
+            return KeyClass.STRING;
+        } else if (Type.subTypeOf(type, Type.DECIMAL)) {
+            return KeyClass.DECIMAL;
+        } else if (type == Type.DOUBLE) {
+            return KeyClass.DOUBLE;
+        }
+        return null;
+    }
+
+    private static Object key(final AtomicValue value, final KeyClass keyClass, @Nullable final Collator collator)
+            throws XPathException {
+        switch (keyClass) {
+            case STRING:
+                if (collator == null) {
+                    return value.getStringValue();
+                }
+                return new CollationKey(collator.getCollationKey(value.getStringValue()).toByteArray());
+
+            case DECIMAL:
+                return ((DecimalValue) value.convertTo(Type.DECIMAL)).getValue().stripTrailingZeros();
+
+            case DOUBLE:
+            default:
+                final double d = ((NumericValue) value).getDouble();
+                if (Double.isNaN(d)) {
+                    return NO_KEY;
+                }
+                // -0.0 and 0.0 are equal
+                return d == 0.0d ? 0.0d : d;
+        }
+    }
+
+    /**
+     * Get the key with which a value is probed against this table.
+     *
+     * @param value the value to probe with
+     *
+     * @return the key, {@link #NO_KEY} if the value cannot be equal to any
+     *     other value, or null if the value cannot be compared using this table
+     *     and the caller must compare it by other means.
+     *
+     * @throws XPathException if the value cannot be converted
+     */
+    @Nullable Object probeKey(final AtomicValue value) throws XPathException {
+        final KeyClass valueClass = keyClassOf(value);
+        if (valueClass == keyClass) {
+            return key(value, keyClass, collator);
+        } else if (valueClass == KeyClass.DECIMAL && keyClass == KeyClass.DOUBLE) {
+            // xs:decimal is promoted to xs:double when compared with a xs:double
+            return key(value, KeyClass.DOUBLE, collator);
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of entries in the table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the table has been partitioned to disk
+     */
+    boolean isSpilled() {
+        return partitionFiles != null;
+    }
+
+    /**
+     * @return the number of partitions of the table
+     */
+    int getPartitionCount() {
+        return partitionFiles == null ? 1 : partitionFiles.length;
+    }
+
+    /**
+     * Get the partition which would hold a key.
+     *
+     * Callers probing many keys can minimise the loading of
+     * partitions by probing all the keys of one partition before
+     * moving to the next.
+     *
+     * @param key the key
+     *
+     * @return the partition
+     */
+    int getPartition(final Object key) {
+        return partitionOf(key, getPartitionCount());
+    }
+
+    private static int partitionOf(final Object key, final int partitions) {
+        return partitions == 1 ? 0 : (key.hashCode() & Integer.MAX_VALUE) % partitions;
+    }
+
+    /**
+     * Find the positions of the build items which have a value equal to the key.
+     *
+     * @param key a key obtained from {@link #probeKey(AtomicValue)}
+     *
+     * @return the positions in ascending order, which may contain duplicates
+     *     if an item has several equal values
+     *
+     * @throws XPathException if a spilled partition cannot be read
+     */
+    IntList lookup(final Object key) throws XPathException {
+        if (key == NO_KEY) {
+            return IntLists.EMPTY_LIST;
+        }
+        final int partition = getPartition(key);
+        if (partition != residentPartition) {
+            loadPartition(partition);
+        }
+        final IntArrayList positions = resident.get(key);
+        return positions == null ? IntLists.EMPTY_LIST : positions;
+    }
+
+    private void loadPartition(final int partition) throws XPathException {
+        // release the previous partition before loading the next
+        resident = null;
+        residentPartition = -1;
+
+        final Map<Object, IntArrayList> entries = new HashMap<>();
+        try (final DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(partitionFiles[partition])))) {
+            while (true) {
+                final byte recordType;
+                try {
+                    recordType = is.readByte();
+                } catch (final EOFException e) {
+                    break;
+                }
+                final Object key;
+                switch (recordType) {
+                    case RECORD_STRING:
+                        key = new String(readBytes(is), StandardCharsets.UTF_8);
+                        break;
+                    case RECORD_COLLATION_KEY:
+                        key = new CollationKey(readBytes(is));
+                        break;
+                    case RECORD_DECIMAL:
+                        key = new BigDecimal(new String(readBytes(is), StandardCharsets.US_ASCII));
+                        break;
+                    case RECORD_DOUBLE:
+                        key = is.readDouble();
+                        break;
+                    default:
+                        throw new IOException("Unknown hash join record type: " + recordType);
+                }
+                entries.computeIfAbsent(key, k -> new IntArrayList()).add(is.readInt());
+            }
+        } catch (final IOException e) {
+            throw new XPathException("Unable to read hash join partition: " + e.getMessage(), e);
+        }
+
+        resident = entries;
+        residentPartition = partition;
+    }
+
+    private static byte[] readBytes(final DataInputStream is) throws IOException {
+        final byte[] bytes = new byte[is.readInt()];
+        is.readFully(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        resident = null;
+        residentPartition = -1;
+        if (partitionFiles != null) {
+            final TemporaryFileManager temporaryFileManager = TemporaryFileManager.getInstance();
+            for (final Path partitionFile : partitionFiles) {
+                if (partitionFile != null) {
+                    temporaryFileManager.returnTemporaryFile(partitionFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a {@link HashJoin} table.
+     */
+    static final class Builder {
+        @Nullable private final Collator collator;
+        private final int spillThreshold;
+
+        @Nullable private KeyClass keyClass = null;
+        private int size = 0;
+        private Map<Object, IntArrayList> entries = new HashMap<>();
+        @Nullable private Path[] partitionFiles = null;
+        @Nullable private DataOutputStream[] partitions = null;
+
+        Builder(final XQueryContext context, @Nullable final Collator collator) {
+            this(collator, getSpillThreshold(context));
+        }
+
+        Builder(@Nullable final Collator collator, final int spillThreshold) {
+            this.collator = collator;
+            this.spillThreshold = spillThreshold;
+        }
+
+        /**
+         * Add a value to the table.
+         *
+         * @param value the value
+         * @param position the position of the item from which the value was obtained
+         *
+         * @return false if the value cannot be keyed, or is not of the same
+         *     class as the previous values, in which case the table cannot be built
+         *
+         * @throws XPathException if the value cannot be converted, or the table cannot be spilled
+         */
+        boolean add(final AtomicValue value, final int position) throws XPathException {
+            final KeyClass valueClass = keyClassOf(value);
+            if (valueClass == null || (keyClass != null && valueClass != keyClass)) {
+                return false;
+            }
+            keyClass = valueClass;
+
+            final Object key = key(value, keyClass, collator);
+            if (key == NO_KEY) {
+                return true;
+            }
+
+            size++;
+            if (partitions != null) {
+                write(key, position);
+            } else {
+                entries.computeIfAbsent(key, k -> new IntArrayList()).add(position);
+                if (size > spillThreshold) {
+                    spill();
+                }
+            }
+            return true;
+        }
+
+        private void spill() throws XPathException {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Hash join table exceeded {} entries, spilling to disk", spillThreshold);
+            }
+            partitionFiles = new Path[SPILL_PARTITIONS];
+            partitions = new DataOutputStream[SPILL_PARTITIONS];
+            try {
+                final TemporaryFileManager temporaryFileManager = TemporaryFileManager.getInstance();
+                for (int i = 0; i < SPILL_PARTITIONS; i++) {
+                    partitionFiles[i] = temporaryFileManager.getTemporaryFile();
+                    partitions[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partitionFiles[i])));
+                }
+            } catch (final IOException e) {
+                discard();
+                throw new XPathException("Unable to spill hash join table: " + e.getMessage(), e);
+            }
+
+            final Map<Object, IntArrayList> inMemory = entries;
+            entries = null;
+            for (final Map.Entry<Object, IntArrayList> entry : inMemory.entrySet()) {
+                for (final int position : entry.getValue()) {
+                    write(entry.getKey(), position);
+                }
+            }
+        }
+
+        private void write(final Object key, final int position) throws XPathException {
+            final DataOutputStream os = partitions[partitionOf(key, SPILL_PARTITIONS)];
+            try {
+                if (key instanceof String str) {
+                    os.writeByte(RECORD_STRING);
+                    writeBytes(os, str.getBytes(StandardCharsets.UTF_8));
+                } else if (key instanceof CollationKey collationKey) {
+                    os.writeByte(RECORD_COLLATION_KEY);
+                    writeBytes(os, collationKey.bytes);
+                } else if (key instanceof BigDecimal decimal) {
+                    os.writeByte(RECORD_DECIMAL);
+                    writeBytes(os, decimal.toString().getBytes(StandardCharsets.US_ASCII));
+                } else {
+                    os.writeByte(RECORD_DOUBLE);
+                    os.writeDouble((Double) key);
+                }
+                os.writeInt(position);
+            } catch (final IOException e) {
+                discard();
+                throw new XPathException("Unable to spill hash join table: " + e.getMessage(), e);
+            }
+        }
+
+        private static void writeBytes(final DataOutputStream os, final byte[] bytes) throws IOException {
+            os.writeInt(bytes.length);
+            os.write(bytes);
+        }
+
+        /**
+         * Finish building the table.
+         *
+         * @return the table, or null if no values were added
+         *
+         * @throws XPathException if a spilled partition cannot be written
+         */
+        @Nullable HashJoin build() throws XPathException {
+            if (keyClass == null) {
+                return null;
+            }
+            if (partitions == null) {
+                return new HashJoin(keyClass, collator, size, entries);
+            }
+
+            try {
+                for (final DataOutputStream partition : partitions) {
+                    partition.close();
+                }
+            } catch (final IOException e) {
+                discard();
+                throw new XPathException("Unable to spill hash join table: " + e.getMessage(), e);
+            }
+            return new HashJoin(keyClass, collator, size, partitionFiles);
+        }
+
+        /**
+         * Discard the table being built, releasing any temporary files.
+         */
+        void discard() {
+            entries = null;
+            if (partitions != null) {
+                for (final DataOutputStream partition : partitions) {
+                    if (partition != null) {
+                        try {
+                            partition.close();
+                        } catch (final IOException e) {
+                            LOG.warn("Unable to close hash join partition: {}", e.getMessage(), e);
+                        }
+                    }
+                }
+                partitions = null;
+            }
+            if (partitionFiles != null) {
+                final TemporaryFileManager temporaryFileManager = TemporaryFileManager.getInstance();
+                for (final Path partitionFile : partitionFiles) {
+                    if (partitionFile != null) {
+                        temporaryFileManager.returnTemporaryFile(partitionFile);
+                    }
+                }
+                partitionFiles = null;
+            }
+        }
+    }
+
+    /**
+     * A collation key, compared by its bytes.
+     */
+    private static final class CollationKey {
+        private final byte[] bytes;
+        private final int hashCode;
+
+        CollationKey(final byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof CollationKey && Arrays.equals(bytes, ((CollationKey) other).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -27,6 +54,7 @@ import org.exist.xquery.value.*;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.annotation.Nullable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -75,6 +103,36 @@ public class LetExpr extends BindingExpression {
      */
     public Sequence eval(Sequence contextSequence, Item contextItem)
             throws XPathException {
+        return eval(contextSequence, contextItem, UNLIMITED);
+    }
+
+    @Override
+    public Sequence eval(Sequence contextSequence, Item contextItem, long maxItems)
+            throws XPathException {
+        @Nullable final OrderByClause orderByClause = getPreviousClause() == null ? getOrderByClause() : null;
+        if (orderByClause == null) {
+            return evalClause(contextSequence, contextItem, maxItems);
+        }
+
+        // the order by clause keeps the state of this evaluation until postEval
+        final int orderByMark = orderByClause.mark();
+        try {
+            return evalClause(contextSequence, contextItem, maxItems);
+        } catch (final XPathException | RuntimeException e) {
+            orderByClause.discard(orderByMark);
+            throw e;
+        }
+    }
+
+    private Sequence evalClause(Sequence contextSequence, Item contextItem, long maxItems)
+            throws XPathException {
+        OrderByClause limitedOrderBy = null;
+        final long orderByLimit = maxItems;
+        if (maxItems != UNLIMITED && !isPipelined()) {
+            // an order by clause may still retain only the first items of its result
+            limitedOrderBy = getLimitableOrderByClause();
+            maxItems = UNLIMITED;
+        }
         if (context.getProfiler().isEnabled()){
             context.getProfiler().start(this);
             context.getProfiler().message(this, Profiler.DEPENDENCIES,
@@ -108,7 +166,14 @@ public class LetExpr extends BindingExpression {
                 var.setContextDocs(inputSequence.getContextDocSet());
                 registerUpdateListener(in);
 
-                resultSequence = returnExpr.eval(contextSequence, null);
+                if (limitedOrderBy != null) {
+                    limitedOrderBy.limit(orderByLimit);
+                }
+                if (maxItems != UNLIMITED && returnExpr instanceof FLWORClause flworClause) {
+                    resultSequence = flworClause.eval(contextSequence, null, maxItems);
+                } else {
+                    resultSequence = returnExpr.eval(contextSequence, null);
+                }
 
                 if (sequenceType != null) {
                     Cardinality actualCardinality;
@@ -54,6 +54,7 @@ import org.exist.xquery.pragmas.Optimize;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.exist.xquery.util.ExpressionDumper;
+import org.exist.xquery.value.Type;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -75,6 +76,14 @@ import java.util.*;
  *
  * <pre>declare option exist:optimize "enable=yes|no";</pre>
  *
+ * Adjacent predicates of a location step, which are neither positional nor depend
+ * on the context position, are reordered by their cost and selectivity, as estimated
+ * by the {@link CostModel}, so that cheap predicates which select few nodes are evaluated
+ * first. As the (#exist:optimize#) pragma pre-selects with each index in predicate order,
+ * this also determines the order in which indexes are used. The chosen order is reported
+ * by the profiler. A step is not enclosed in the pragma if its predicate is estimated
+ * to select nearly all nodes, in which case the index lookup would not pay off.
+ *
  */
 public class Optimizer extends DefaultExpressionVisitor {
 
@@ -83,6 +92,7 @@ public class Optimizer extends DefaultExpressionVisitor {
     private final XQueryContext context;
     private final List<QueryRewriter> rewriters;
     private final FindOptimizable findOptimizable = new FindOptimizable();
+    private final CostModel costModel;
 
     private int predicates = 0;
 
@@ -92,6 +102,7 @@ public class Optimizer extends DefaultExpressionVisitor {
         this.context = context;
         final DBBroker broker = context.getBroker();
         this.rewriters = broker != null ? broker.getIndexController().getQueryRewriters(context) : Collections.emptyList();
+        this.costModel = new CostModel(context);
     }
 
     public boolean hasOptimized() {
@@ -102,6 +113,8 @@ public class Optimizer extends DefaultExpressionVisitor {
     public void visitLocationStep(final LocationStep locationStep) {
         super.visitLocationStep(locationStep);
 
+        reorderPredicates(locationStep);
+
         // check query rewriters if they want to rewrite the location step
         Pragma optimizePragma = null;
         try {  // Keep try-catch out of loop
@@ -132,6 +145,17 @@ public class Optimizer extends DefaultExpressionVisitor {
                 }
                 findOptimizable.reset();
                 if (optimize) {
+                    if (!costModel.preferIndexPreselection(pred)) {
+                        optimize = false;
+                        if (context.getProfiler().isEnabled() || LOG.isDebugEnabled()) {
+                            final String message = "Not pre-selecting by index, as the predicate is estimated to select nearly all nodes: "
+                                    + ExpressionDumper.dump(pred) + " {selectivity: " + costModel.estimateSelectivity(pred) + "}";
+                            context.getProfiler().message(locationStep, Profiler.OPTIMIZATIONS, "OPTIMIZATION", message);
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("{}: {}", locationStep, message);
+                            }
+                        }
+                    }
                     break;
                 }
             }
@@ -237,6 +261,185 @@ public class Optimizer extends DefaultExpressionVisitor {
         }
     }
 
+    /**
+     * Reorders each run of adjacent predicates of the step which may be
+     * evaluated in any order, so that the cheapest is evaluated first.
+     *
+     * @param locationStep the location step whose predicates should be reordered
+     */
+    private void reorderPredicates(final LocationStep locationStep) {
+        @Nullable final Predicate[] preds = locationStep.getPredicates();
+        if (preds == null || preds.length < 2) {
+            return;
+        }
+
+        final boolean[] reorderable = new boolean[preds.length];
+        final long[] costs = new long[preds.length];
+        final double[] selectivities = new double[preds.length];
+        final double[] ranks = new double[preds.length];
+        for (int i = 0; i < preds.length; i++) {
+            reorderable[i] = isReorderable(preds[i]);
+            if (reorderable[i]) {
+                costs[i] = costModel.estimateCost(preds[i], hasOptimizable(Collections.singletonList(preds[i])));
+                selectivities[i] = costModel.estimateSelectivity(preds[i]);
+                ranks[i] = CostModel.estimateRank(costs[i], selectivities[i]);
+            }
+        }
+
+        final Predicate[] reordered = preds.clone();
+        final long[] reorderedCosts = costs.clone();
+        final double[] reorderedSelectivities = selectivities.clone();
+        boolean changed = false;
+        int start = 0;
+        while (start < preds.length) {
+            if (!reorderable[start]) {
+                start++;
+                continue;
+            }
+            int end = start + 1;
+            while (end < preds.length && reorderable[end]) {
+                end++;
+            }
+
+            if (end - start > 1) {
+                final Integer[] order = new Integer[end - start];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = start + i;
+                }
+                // NOTE: the sort is stable, so predicates of equal rank keep their order
+                Arrays.sort(order, Comparator.comparingDouble(i -> ranks[i]));
+                for (int i = 0; i < order.length; i++) {
+                    reordered[start + i] = preds[order[i]];
+                    reorderedCosts[start + i] = costs[order[i]];
+                    reorderedSelectivities[start + i] = selectivities[order[i]];
+                    changed |= order[i] != start + i;
+                }
+            }
+            start = end;
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        locationStep.reorderPredicates(reordered);
+        hasOptimized = true;
+
+        if (context.getProfiler().isEnabled() || LOG.isDebugEnabled()) {
+            final StringBuilder plan = new StringBuilder("Reordered predicates by estimated cost and selectivity");
+            if (!costModel.hasStatistics()) {
+                plan.append(" (no index statistics)");
+            }
+            plan.append(':');
+            for (int i = 0; i < reordered.length; i++) {
+                plan.append(' ').append(ExpressionDumper.dump(reordered[i]));
+                if (reorderable[i]) {
+                    plan.append(" {cost: ").append(reorderedCosts[i]);
+                    if (reorderedSelectivities[i] != CostModel.UNKNOWN_SELECTIVITY) {
+                        plan.append(", selectivity: ").append(reorderedSelectivities[i]);
+                    }
+                    plan.append('}');
+                }
+            }
+            context.getProfiler().message(locationStep, Profiler.OPTIMIZATIONS, "OPTIMIZATION", plan.toString());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("{}: {}", locationStep, plan);
+            }
+        }
+    }
+
+    /**
+     * Check if a predicate may be moved relative to its neighbours
+     * without changing the result of the step. This is the case for predicates
+     * which filter by an effective boolean value, and so are not positional,
+     * and do not depend on the position of the context item.
+     *
+     * The predicate must also neither raise errors nor have side effects,
+     * as a preceding predicate may guard against them, e.g.
+     * {@code [@x castable as xs:integer][xs:integer(@x) > 5]}.
+     *
+     * @param predicate the predicate
+     *
+     * @return true if the predicate may be reordered
+     */
+    private static boolean isReorderable(final Predicate predicate) {
+        final Predicate.ExecutionMode executionMode = predicate.getExecutionMode();
+        if (executionMode != Predicate.ExecutionMode.NODE && executionMode != Predicate.ExecutionMode.BOOLEAN) {
+            return false;
+        }
+        if (Dependency.dependsOn(predicate, Dependency.CONTEXT_POSITION)) {
+            return false;
+        }
+        // a predicate could still become positional at runtime unless it statically returns nodes or a boolean
+        final int returnType = predicate.returnsType();
+        if (returnType != Type.BOOLEAN && !Type.subTypeOf(returnType, Type.NODE)) {
+            return false;
+        }
+        return isSafe(predicate);
+    }
+
+    /**
+     * Check if an expression can neither raise a dynamic error nor have side effects.
+     *
+     * This is conservatively limited to paths of location steps, "and" and "or",
+     * general comparisons of nodes or strings, which never have to cast a value
+     * to a type other than xs:string, and index functions whose arguments are
+     * such paths, literals or variables.
+     *
+     * @param expr the expression
+     *
+     * @return true if the expression is known to be safe
+     */
+    private static boolean isSafe(final Expression expr) {
+        if (expr instanceof LiteralValue || expr instanceof VariableReference) {
+            return true;
+        }
+        if (expr instanceof Atomize atomize) {
+            return isSafe(atomize.getExpression());
+        }
+        if (expr instanceof LocationStep step) {
+            @Nullable final Predicate[] stepPredicates = step.getPredicates();
+            if (stepPredicates != null) {
+                for (final Predicate stepPredicate : stepPredicates) {
+                    if (!isSafe(stepPredicate)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        if (expr instanceof GeneralComparison comparison) {
+            return isStringOrNodes(comparison.getLeft()) && isStringOrNodes(comparison.getRight());
+        }
+        if (expr instanceof OpAnd || expr instanceof OpOr || expr.getClass() == PathExpr.class
+                || expr.getClass() == Predicate.class) {
+            for (int i = 0; i < expr.getSubExpressionCount(); i++) {
+                if (!isSafe(expr.getSubExpression(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expr instanceof InternalFunctionCall call) {
+            final Function function = call.getFunction();
+            if (!(function instanceof Optimizable)) {
+                return false;
+            }
+            for (int i = 0; i < function.getArgumentCount(); i++) {
+                if (!isSafe(function.getArgument(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isStringOrNodes(final Expression expr) {
+        final int type = expr.returnsType();
+        return (Type.subTypeOf(type, Type.STRING) || Type.subTypeOf(type, Type.NODE)) && isSafe(expr);
+    }
+
     private boolean hasOptimizable(final List<Predicate> preds) {
         // walk through the predicates attached to the current location step.
         // try to find a predicate containing an expression which is an instance
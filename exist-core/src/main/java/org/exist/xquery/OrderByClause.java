@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -22,11 +49,18 @@
 package org.exist.xquery;
 
 import org.exist.dom.QName;
+import org.exist.dom.persistent.NodeProxy;
+import org.exist.dom.persistent.NodeSet;
+import org.exist.storage.ElementValue;
 import org.exist.xquery.util.ExpressionDumper;
+import org.exist.xquery.value.ExternalMergeSort;
 import org.exist.xquery.value.Item;
 import org.exist.xquery.value.OrderedValueSequence;
 import org.exist.xquery.value.Sequence;
+import org.exist.xquery.value.Type;
+import org.exist.xquery.value.ValueSequence;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -75,7 +109,8 @@ public class OrderByClause extends AbstractFLWORClause {
         final Sequence result = getReturnExpression().eval(contextSequence, contextItem);
 
         if (orderedResult == null) {
-            orderedResult = new OrderedValueSequence(orderSpecs, result != null ? result.getItemCount() : 100);
+            orderedResult = new OrderedValueSequence(orderSpecs, result != null ? result.getItemCount() : 100,
+                    ExternalMergeSort.getSpillThreshold(context), UNLIMITED);
         }
 
         if (result != null) {
@@ -89,6 +124,194 @@ public class OrderByClause extends AbstractFLWORClause {
         return result;
     }
 
+    /**
+     * Start an evaluation of the FLWOR expression of which only the first
+     * {@code maxItems} items of the result are required, so that only those
+     * items are retained while the tuple stream is ordered.
+     *
+     * Must be called by the top clause of the FLWOR expression before it
+     * starts to iterate, and only if {@link #isLimitable()} is true.
+     *
+     * @param maxItems the number of result items required by the caller
+     */
+    void limit(final long maxItems) {
+        stack.addFirst(new OrderedValueSequence(orderSpecs, 100, ExternalMergeSort.getSpillThreshold(context), maxItems));
+    }
+
+    /**
+     * Start an evaluation of the FLWOR expression in which the "for" clause
+     * iterates its input sequence in the order of this clause, as determined
+     * by an {@link org.exist.indexing.OrderingIndex}, so that neither the order
+     * specs have to be evaluated for each item, nor the tuple stream sorted.
+     *
+     * This is possible if the only order spec is the string value of a child
+     * element or attribute of the variable of the "for" clause, e.g.
+     * {@code order by $x/title}, compared by the codepoint collation, and the
+     * values of all of those nodes are in an index.
+     *
+     * Must be called by the "for" clause before it starts to iterate, instead
+     * of {@link #limit(long)}.
+     *
+     * @param varName the name of the variable of the "for" clause, which must be bound to the whole input sequence
+     * @param in the input sequence of the "for" clause
+     * @param maxItems the number of result items required by the caller, or {@link #UNLIMITED}
+     *
+     * @return the items of the input sequence in order, or null if they could not be ordered from an index
+     *
+     * @throws XPathException if an error occurs whilst reading an index
+     */
+    @Nullable Sequence orderByIndex(final QName varName, final Sequence in, final long maxItems) throws XPathException {
+        if (orderSpecs.size() != 1 || returnExpr instanceof FLWORClause || !(in instanceof NodeSet contextNodes)
+                || in.isEmpty()) {
+            return null;
+        }
+        final OrderSpec orderSpec = orderSpecs.get(0);
+        final QName keyName = getKeyName(orderSpec.getSortExpression(), varName);
+        if (keyName == null || orderSpec.getCollator() != null) {
+            return null;
+        }
+
+        // the variable is bound to the whole input sequence, so this selects the keys of all of the items
+        final Sequence keys = orderSpec.getSortExpression().eval(null, null);
+        if (keys.isEmpty() || !keys.isPersistentSet()) {
+            return null;
+        }
+        final NodeSet keyNodes = keys.toNodeSet();
+        final Set<NodeProxy> keyedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final NodeProxy key : keyNodes) {
+            final NodeProxy item = contextNodes.get(key.getOwnerDocument(), key.getNodeId().getParentId());
+            if (item == null || !keyedItems.add(item)) {
+                // more than one key for an item is an error, which is raised when evaluating the order spec
+                return null;
+            }
+        }
+
+        final List<List<NodeProxy>> groups = context.getBroker().getIndexController().orderByValue(context, keyNodes, keyName, this);
+        if (groups == null) {
+            return null;
+        }
+
+        final boolean descending = (orderSpec.getModifiers() & OrderSpec.DESCENDING_ORDER) != 0;
+        final boolean emptyLeast = (orderSpec.getModifiers() & OrderSpec.EMPTY_LEAST) != 0;
+        final ValueSequence ordered = new ValueSequence(contextNodes.getItemCount());
+        if (descending != emptyLeast) {
+            addItemsWithoutKey(contextNodes, keyedItems, ordered);
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            final List<NodeProxy> group = groups.get(descending ? groups.size() - 1 - i : i);
+            final NodeProxy[] items = new NodeProxy[group.size()];
+            for (int j = 0; j < items.length; j++) {
+                final NodeProxy key = group.get(j);
+                items[j] = contextNodes.get(key.getOwnerDocument(), key.getNodeId().getParentId());
+            }
+            // items with equal keys stay in the order of the input sequence
+            Arrays.sort(items);
+            for (final NodeProxy item : items) {
+                ordered.add(item);
+            }
+        }
+        if (descending == emptyLeast) {
+            addItemsWithoutKey(contextNodes, keyedItems, ordered);
+        }
+
+        // the tuples arrive in order, so they only have to be retained in the order in which they are added
+        stack.addFirst(new OrderedValueSequence(Collections.emptyList(), ordered.getItemCount(),
+                ExternalMergeSort.getSpillThreshold(context), maxItems));
+        return ordered;
+    }
+
+    /**
+     * Get a mark of the evaluations of the FLWOR expression which are in progress,
+     * to be passed to {@link #discard(int)} if an evaluation fails.
+     *
+     * @return the mark
+     */
+    int mark() {
+        return stack.size();
+    }
+
+    /**
+     * Discard the state of the evaluations of the FLWOR expression which were
+     * started after the mark was taken, as they failed before {@link #postEval(Sequence)}
+     * could complete them. Otherwise, the next evaluation would continue with
+     * that state, e.g. the limit set by {@link #limit(long)}.
+     *
+     * @param mark the mark taken by {@link #mark()} before the evaluation started
+     */
+    void discard(final int mark) {
+        while (stack.size() > mark) {
+            stack.pollFirst().discard();
+        }
+    }
+
+    private static void addItemsWithoutKey(final NodeSet contextNodes, final Set<NodeProxy> keyedItems,
+            final ValueSequence ordered) throws XPathException {
+        for (final NodeProxy item : contextNodes) {
+            if (!keyedItems.contains(item)) {
+                ordered.add(item);
+            }
+        }
+    }
+
+    /**
+     * Get the name of the key of an order spec of the form {@code $var/name} or {@code $var/@name}.
+     *
+     * @param sortExpression the expression of the order spec
+     * @param varName the name of the variable
+     *
+     * @return the name of the key, or null if the order spec is not of that form
+     */
+    private static @Nullable QName getKeyName(Expression sortExpression, final QName varName) {
+        while (sortExpression.getClass() == PathExpr.class && sortExpression.getSubExpressionCount() == 1) {
+            sortExpression = sortExpression.getSubExpression(0);
+        }
+        if (sortExpression.getClass() != PathExpr.class || sortExpression.getSubExpressionCount() != 2
+                || !(sortExpression.getSubExpression(0) instanceof VariableReference variable)
+                || !variable.getName().equals(varName)
+                || !(sortExpression.getSubExpression(1) instanceof LocationStep step) || step.hasPredicates()) {
+            return null;
+        }
+
+        final NodeTest test = step.getTest();
+        if (test.isWildcardTest() || test.getName() == null) {
+            return null;
+        }
+        if (step.getAxis() == Constants.CHILD_AXIS && test.getType() == Type.ELEMENT) {
+            return new QName(test.getName(), ElementValue.ELEMENT);
+        } else if (step.getAxis() == Constants.ATTRIBUTE_AXIS && test.getType() == Type.ATTRIBUTE) {
+            return new QName(test.getName(), ElementValue.ATTRIBUTE);
+        }
+        return null;
+    }
+
+    /**
+     * Determine if the ordered result may be limited to its first items,
+     * see {@link #limit(long)}.
+     *
+     * This is the case if this is the last clause of the FLWOR expression,
+     * and the static type of each order spec guarantees that its values
+     * never have to be cast to a common type, which would only be known
+     * once the whole tuple stream has been seen.
+     *
+     * @return true if the ordered result may be limited
+     */
+    boolean isLimitable() {
+        if (returnExpr instanceof FLWORClause) {
+            return false;
+        }
+        for (final OrderSpec orderSpec : orderSpecs) {
+            final int type = orderSpec.getSortExpression().returnsType();
+            if (Type.subTypeOf(type, Type.NODE)) {
+                // atomized to xs:untypedAtomic, and so compared as xs:string
+                continue;
+            }
+            if (type == Type.ANY_ATOMIC || type == Type.NUMERIC || !Type.subTypeOf(type, Type.ANY_ATOMIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public Sequence postEval(final Sequence seq) throws XPathException {
         final OrderedValueSequence orderedResult = stack.pollFirst();
@@ -141,6 +364,9 @@ public class OrderByClause extends AbstractFLWORClause {
     public void resetState(boolean postOptimization) {
         super.resetState(postOptimization);
         returnExpr.resetState(postOptimization);
+        for (final OrderedValueSequence orderedResult : stack) {
+            orderedResult.discard();
+        }
         stack.clear();
     }
 
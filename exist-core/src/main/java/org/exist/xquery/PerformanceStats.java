@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -37,7 +64,9 @@ public interface PerformanceStats {
     String RANGE_IDX_TYPE = "range";
 
     enum OptimizationType {
-        POSITIONAL_PREDICATE
+        POSITIONAL_PREDICATE,
+        PREDICATE_REORDER,
+        HASH_JOIN
     }
 
     enum IndexOptimizationLevel {
@@ -77,6 +106,15 @@ public interface PerformanceStats {
      */
     void recordFunctionCall(final QName qname, final String source, final long elapsed);
 
+    /**
+     * Record the time taken for execution of a Trigger.
+     *
+     * @param source the source of the Trigger's Query.
+     * @param event the name of the event that fired the Trigger.
+     * @param elapsed the time taken by the Trigger.
+     */
+    void recordTrigger(final String source, final String event, final long elapsed);
+
     /**
      * Record the time taken for an Index Lookup.
      *
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -161,6 +188,36 @@ public class PerformanceStatsImpl implements PerformanceStats {
         }
     }
 
+    private static class TriggerStats extends QueryStats {
+        final String event;
+
+        TriggerStats(final String source, final String event) {
+            super(source);
+            this.event = event;
+        }
+
+        public static TriggerStats copy(final TriggerStats other) {
+            final TriggerStats copy = new TriggerStats(other.source, other.event);
+            copy.executionTime = other.executionTime;
+            copy.callCount = other.callCount;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * event.hashCode() + source.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof TriggerStats other) {
+                return event.equals(other.event) &&
+                        source.equals(other.source);
+            }
+            return false;
+        }
+    }
+
     @ThreadSafe
     private static class OptimizationStats {
         final String source;
@@ -205,6 +262,7 @@ public class PerformanceStatsImpl implements PerformanceStats {
 
     private final Map<String, QueryStats> queries = new HashMap<>();
     private final Map<FunctionStats, FunctionStats> functions = new HashMap<>();
+    private final Map<TriggerStats, TriggerStats> triggers = new HashMap<>();
     private final Map<IndexStats, IndexStats> indexStats = new HashMap<>();
     private final Set<OptimizationStats> optimizations = new HashSet<>();
 
@@ -263,6 +321,22 @@ public class PerformanceStatsImpl implements PerformanceStats {
         }
     }
 
+    @Override
+    public void recordTrigger(final String source, final String event, final long elapsed) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final TriggerStats newStats = new TriggerStats(source, event);
+        final TriggerStats stats = triggers.get(newStats);
+        if (stats == null) {
+            newStats.executionTime = elapsed;
+            triggers.put(newStats, newStats);
+        } else {
+            stats.recordCall(elapsed);
+        }
+    }
+
     @Override
     public void recordIndexUse(final Expression expression, final String indexName, final String source, final IndexOptimizationLevel indexOptimizationLevel, final long elapsed) {
         if (!isEnabled()) {
@@ -323,6 +397,17 @@ public class PerformanceStatsImpl implements PerformanceStats {
             }
         }
 
+        for (final TriggerStats otherTriggerStats : other.triggers.values()) {
+            final TriggerStats copy = TriggerStats.copy(otherTriggerStats);
+            final TriggerStats mine = triggers.get(copy);
+            if (mine == null) {
+                triggers.put(copy, copy);
+            } else {
+                mine.callCount += copy.callCount;
+                mine.executionTime += copy.executionTime;
+            }
+        }
+
         for (final IndexStats otherIndexStats : other.indexStats.values()) {
             final IndexStats copy = IndexStats.copy(otherIndexStats);
             final IndexStats mine = indexStats.get(copy);
@@ -387,6 +472,15 @@ public class PerformanceStatsImpl implements PerformanceStats {
                 builder.startElement(new QName("function", XML_NAMESPACE, XML_PREFIX), attrs);
                 builder.endElement();
             }
+            for (final TriggerStats stats : triggers.values()) {
+                attrs.clear();
+                attrs.addAttribute("", "source", "source", "CDATA", stats.source);
+                attrs.addAttribute("", "event", "event", "CDATA", stats.event);
+                attrs.addAttribute("", "elapsed", "elapsed", "CDATA", Double.toString(stats.executionTime / 1000.0));
+                attrs.addAttribute("", "calls", "calls", "CDATA", Integer.toString(stats.callCount));
+                builder.startElement(new QName("trigger", XML_NAMESPACE, XML_PREFIX), attrs);
+                builder.endElement();
+            }
             for (final IndexStats stats : indexStats.values()) {
                 attrs.clear();
                 attrs.addAttribute("", "type", "type", "CDATA", stats.indexType);
@@ -415,6 +509,7 @@ public class PerformanceStatsImpl implements PerformanceStats {
     public void reset() {
         queries.clear();
         functions.clear();
+        triggers.clear();
         indexStats.clear();
         optimizations.clear();
     }
@@ -117,6 +117,18 @@ public class PerformanceStatsService implements BrokerPoolService, PerformanceSt
         }
     }
 
+    @Override
+    public void recordTrigger(final String source, final String event, final long elapsed) {
+        if (performanceStats == null) {
+            // not initialized or disabled
+            return;
+        }
+
+        try (final ManagedLock<ReadWriteLock> writeLock = acquire(performanceStatsLock, Lock.LockMode.WRITE_LOCK)) {
+            performanceStats.recordTrigger(source, event, elapsed);
+        }
+    }
+
     @Override
     public void recordIndexUse(final Expression expression, final String indexName, final String source, final IndexOptimizationLevel indexOptimizationLevel, final long elapsed) {
         if (performanceStats == null) {
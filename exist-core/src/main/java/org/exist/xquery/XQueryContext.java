@@ -152,6 +152,9 @@ public class XQueryContext implements BinaryValueManager, Context {
     public static final String XQUERY_BACKWARD_COMPATIBLE_ATTRIBUTE = "backwardCompatible";
     public static final String XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL_ATTRIBUTE = "raise-error-on-failed-retrieval";
     public static final String ENFORCE_INDEX_USE_ATTRIBUTE = "enforce-index-use";
+    public static final String HASH_JOIN_SPILL_THRESHOLD_ATTRIBUTE = "hash-join-spill-threshold";
+    public static final String SORT_SPILL_THRESHOLD_ATTRIBUTE = "sort-spill-threshold";
+    public static final String PARALLEL_SCAN_THRESHOLD_ATTRIBUTE = "parallel-scan-threshold";
 
     //TODO : move elsewhere ?
     public static final String BUILT_IN_MODULE_URI_ATTRIBUTE = "uri";
@@ -163,6 +166,12 @@ public class XQueryContext implements BinaryValueManager, Context {
     public static final String PROPERTY_XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL = "xquery.raise-error-on-failed-retrieval";
     public static final boolean XQUERY_RAISE_ERROR_ON_FAILED_RETRIEVAL_DEFAULT = false;
     public static final String PROPERTY_ENFORCE_INDEX_USE = "xquery.enforce-index-use";
+    public static final String PROPERTY_HASH_JOIN_SPILL_THRESHOLD = "xquery.hash-join-spill-threshold";
+    public static final int DEFAULT_HASH_JOIN_SPILL_THRESHOLD = 500_000;
+    public static final String PROPERTY_SORT_SPILL_THRESHOLD = "xquery.sort-spill-threshold";
+    public static final int DEFAULT_SORT_SPILL_THRESHOLD = 500_000;
+    public static final String PROPERTY_PARALLEL_SCAN_THRESHOLD = "xquery.parallel-scan-threshold";
+    public static final int DEFAULT_PARALLEL_SCAN_THRESHOLD = 1_000;
 
     //TODO : move elsewhere ?
     public static final String PROPERTY_BUILT_IN_MODULES = "xquery.modules";
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -28,11 +55,14 @@ import com.ibm.icu.text.Collator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.exist.dom.QName;
+import org.exist.indexing.AggregatingIndex;
+import org.exist.xquery.AnalyzeContextInfo;
 import org.exist.xquery.Cardinality;
 import org.exist.xquery.Constants;
 import org.exist.xquery.Constants.Comparison;
 import org.exist.xquery.Constants.StringTruncationOperator;
 import org.exist.xquery.Dependency;
+import org.exist.xquery.Expression;
 import org.exist.xquery.Function;
 import org.exist.xquery.FunctionSignature;
 import org.exist.xquery.Profiler;
@@ -50,6 +80,8 @@ import org.exist.xquery.value.SequenceType;
 import org.exist.xquery.value.Type;
 import org.exist.xquery.value.ValueSequence;
 
+import javax.annotation.Nullable;
+
 /**
  * Implements the fn:distinct-values standard library function.
  * 
@@ -88,10 +120,21 @@ public class FunDistinctValues extends CollatingFunction {
         )
     };
 
+    /**
+     * The path of the argument when the distinct values may be computed from an index, or null.
+     */
+    @Nullable private Expression nodePath = null;
+
     public FunDistinctValues(XQueryContext context, FunctionSignature signature) {
         super(context, signature);
     }
 
+    @Override
+    public void analyze(final AnalyzeContextInfo contextInfo) throws XPathException {
+        super.analyze(contextInfo);
+        nodePath = IndexAggregation.getNodePath(contextInfo, getArgument(0));
+    }
+
     /* (non-Javadoc)
      * @see org.exist.xquery.PathExpr#returnsType()
      */
@@ -115,8 +158,15 @@ public class FunDistinctValues extends CollatingFunction {
                 {context.getProfiler().message(this, Profiler.START_SEQUENCES,
                     "CONTEXT ITEM", contextItem.toSequence());}
         }
-        final Sequence seq = getArgument(0).eval(contextSequence, contextItem);
-        final Collator collator = getCollator(contextSequence, contextItem, 2);		
+        final Collator collator = getCollator(contextSequence, contextItem, 2);
+        final Expression nodePath = collator == null ? this.nodePath : null;
+        final Sequence seq = (nodePath != null ? nodePath : getArgument(0)).eval(contextSequence, contextItem);
+        final Sequence indexed = nodePath != null ? IndexAggregation.aggregate(context, this, nodePath, seq, AggregatingIndex.Aggregate.DISTINCT_VALUES) : null;
+        if (indexed != null) {
+            if (context.getProfiler().isEnabled())
+                {context.getProfiler().end(this, "", indexed);}
+            return indexed;
+        }
         final TreeSet<AtomicValue> set = new TreeSet<>(new ValueComparator(collator));
         final ValueSequence result = new ValueSequence();
         Item item;
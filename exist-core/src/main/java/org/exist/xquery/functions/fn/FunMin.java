@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -23,10 +50,13 @@ package org.exist.xquery.functions.fn;
 
 import com.ibm.icu.text.Collator;
 import org.exist.dom.QName;
+import org.exist.indexing.AggregatingIndex;
 import org.exist.util.Collations;
+import org.exist.xquery.AnalyzeContextInfo;
 import org.exist.xquery.Cardinality;
 import org.exist.xquery.Dependency;
 import org.exist.xquery.ErrorCodes;
+import org.exist.xquery.Expression;
 import org.exist.xquery.Function;
 import org.exist.xquery.FunctionSignature;
 import org.exist.xquery.Profiler;
@@ -47,6 +77,8 @@ import org.exist.xquery.value.SequenceIterator;
 import org.exist.xquery.value.SequenceType;
 import org.exist.xquery.value.Type;
 
+import javax.annotation.Nullable;
+
 /**
  * @author <a href="mailto:wolfgang@exist-db.org">Wolfgang Meier</a>
  */
@@ -114,10 +146,21 @@ public class FunMin extends CollatingFunction {
 		)
 	};
 
+	/**
+	 * The path of the argument when the minimum may be computed from an index, or null.
+	 */
+	@Nullable private Expression nodePath = null;
+
 	public FunMin(XQueryContext context, FunctionSignature signature) {
 		super(context, signature);
 	}
 
+	@Override
+	public void analyze(final AnalyzeContextInfo contextInfo) throws XPathException {
+		super.analyze(contextInfo);
+		nodePath = getSignature().getArgumentCount() == 1 ? IndexAggregation.getNodePath(contextInfo, getArgument(0)) : null;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.exist.xquery.Expression#eval(org.exist.dom.persistent.DocumentSet, org.exist.xquery.value.Sequence, org.exist.xquery.value.Item)
 	 */
@@ -133,8 +176,11 @@ public class FunMin extends CollatingFunction {
         
 		boolean computableProcessing = false;
         Sequence result;
-		final Sequence arg = getArgument(0).eval(contextSequence, contextItem);
-		if (arg.isEmpty())
+		final Sequence arg = (nodePath != null ? nodePath : getArgument(0)).eval(contextSequence, contextItem);
+		final Sequence indexed = nodePath != null ? IndexAggregation.aggregate(context, this, nodePath, arg, AggregatingIndex.Aggregate.MIN) : null;
+		if (indexed != null)
+			{result = indexed;}
+		else if (arg.isEmpty())
 			{result = Sequence.EMPTY_SEQUENCE;}
         else {
         	//TODO : test if a range index is defined *iff* it is compatible with the collator
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -24,6 +51,8 @@ package org.exist.xquery.functions.fn;
 import com.ibm.icu.text.Collator;
 import org.exist.dom.QName;
 import org.exist.xquery.*;
+import org.exist.xquery.value.AtomicValue;
+import org.exist.xquery.value.ExternalMergeSort;
 import org.exist.xquery.value.FunctionParameterSequenceType;
 import org.exist.xquery.value.FunctionReference;
 import org.exist.xquery.value.FunctionReturnSequenceType;
@@ -97,24 +126,67 @@ public class FunSort extends BasicFunction {
   public Sequence eval(final Sequence[] args, final Sequence contextSequence) throws XPathException {
     final Sequence seq = args[0];
     final Collator collator = collator(args, 1);
-    final List<Sequence> keys = new ArrayList<>(seq.getItemCount());
+    final int spillThreshold = ExternalMergeSort.getSpillThreshold(context);
 
     try (final FunctionReference ref = function(args, 2)) {
+      if (seq.getItemCount() > spillThreshold) {
+        return externalSort(seq, ref, collator, spillThreshold);
+      }
+
+      final List<Sequence> keys = new ArrayList<>(seq.getItemCount());
       final Sequence[] refArgs = new Sequence[1];
       for (final SequenceIterator i = seq.iterate(); i.hasNext(); ) {
-        final Item item = i.nextItem();
-        final Sequence value;
-        if (ref != null) {
-          refArgs[0] = item.toSequence();
-          value = ref.evalFunction(null, null, refArgs);
-        } else {
-          value = item.toSequence();
+        keys.add(key(ref, refArgs, i.nextItem()));
+      }
+      return sort(seq, keys, collator);
+    }
+  }
+
+  private static Sequence key(@Nullable final FunctionReference ref, final Sequence[] refArgs, final Item item) throws XPathException {
+    final Sequence value;
+    if (ref != null) {
+      refArgs[0] = item.toSequence();
+      value = ref.evalFunction(null, null, refArgs);
+    } else {
+      value = item.toSequence();
+    }
+    return Atomize.atomize(value);
+  }
+
+  /**
+   * Sorts a supplied sequence which has more items than the spill threshold,
+   * by writing their sort keys in sorted runs to temporary files, and merging them.
+   */
+  private Sequence externalSort(final Sequence seq, @Nullable final FunctionReference ref, final Collator collator,
+      final int spillThreshold) throws XPathException {
+    final int[] order;
+    try (final ExternalMergeSort externalMergeSort = new ExternalMergeSort(
+        (keys1, keys2) -> FnSortComparator.compareKeys(new ValueSequence(keys1), new ValueSequence(keys2), collator),
+        spillThreshold)) {
+      final Sequence[] refArgs = new Sequence[1];
+      int position = 0;
+      for (final SequenceIterator i = seq.iterate(); i.hasNext(); position++) {
+        final Sequence key = key(ref, refArgs, i.nextItem());
+        final AtomicValue[] keys = new AtomicValue[key.getItemCount()];
+        for (int j = 0; j < keys.length; j++) {
+          keys[j] = (AtomicValue) key.itemAt(j);
         }
-        keys.add(Atomize.atomize(value));
+        externalMergeSort.add(position, keys);
       }
+      order = externalMergeSort.sort();
+    } catch (final FnSortComparator.SortCompareException e) {
+      throw (XPathException) e.getCause();
     }
 
-    return sort(seq, keys, collator);
+    // form the final sequence
+    final ValueSequence result = new ValueSequence(order.length);
+    result.keepUnOrdered(true);
+
+    for (final int position : order) {
+      result.add(seq.itemAt(position));
+    }
+
+    return result;
   }
 
   private Sequence sort(final Sequence seq, final List<Sequence> keys, final Collator collator) throws XPathException {
@@ -155,9 +227,10 @@ public class FunSort extends BasicFunction {
 
     @Override
     public int compare(final Integer i1, final Integer i2) {
-      final Sequence seq1 = keys.get(i1);
-      final Sequence seq2 = keys.get(i2);
+      return compareKeys(keys.get(i1), keys.get(i2), collator);
+    }
 
+    private static int compareKeys(final Sequence seq1, final Sequence seq2, @Nullable final Collator collator) {
       // If (fn:deep-equal($key($A), $key($B), $C), then the relative order of $A and $B in the output
       // is the same as their relative order in the input (that is, the sort is stable)
       if (FunDeepEqual.deepEqualsSeq(seq1, seq2, collator)) {
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -109,14 +136,19 @@ public class FunSubSequence extends Function {
         }
 
         final Sequence result;
-        final Sequence seq = getArgument(0).eval(contextSequence, contextItem);
-        if (seq.isEmpty()) {
-            result = Sequence.EMPTY_SEQUENCE;
+        final FLWORClause flworClause = getArgumentCount() == 3 ? FLWORClause.getPipelinedClause(getArgument(0)) : null;
+        if (flworClause != null) {
+            // the positions are needed up front, so that the FLWOR expression may stop early
+            final DoubleValue startLoc = (DoubleValue) getArgument(1).eval(contextSequence, contextItem).convertTo(Type.DOUBLE);
+            final DoubleValue length = (DoubleValue) getArgument(2).eval(contextSequence, contextItem).convertTo(Type.DOUBLE);
+            final Sequence seq = flworClause.eval(contextSequence, contextItem, getMaxItems(startLoc, length));
+            if (seq.isEmpty()) {
+                result = Sequence.EMPTY_SEQUENCE;
+            } else {
+                result = subsequence(seq, startLoc, length);
+            }
         } else {
-            return subsequence(seq,
-                    ((DoubleValue)getArgument(1).eval(contextSequence, contextItem).convertTo(Type.DOUBLE)),
-                    getArgumentCount() != 3 ? null : ((DoubleValue)getArgument(2).eval(contextSequence, contextItem).convertTo(Type.DOUBLE))
-            );
+            result = evalSubsequence(contextSequence, contextItem);
         }
 
         if (context.getProfiler().isEnabled()) {
@@ -126,6 +158,37 @@ public class FunSubSequence extends Function {
         return result;
     }
 
+    private Sequence evalSubsequence(final Sequence contextSequence, final Item contextItem) throws XPathException {
+        final Sequence seq = getArgument(0).eval(contextSequence, contextItem);
+        if (seq.isEmpty()) {
+            return Sequence.EMPTY_SEQUENCE;
+        }
+        return subsequence(seq,
+                ((DoubleValue)getArgument(1).eval(contextSequence, contextItem).convertTo(Type.DOUBLE)),
+                getArgumentCount() != 3 ? null : ((DoubleValue)getArgument(2).eval(contextSequence, contextItem).convertTo(Type.DOUBLE))
+        );
+    }
+
+    /**
+     * Get the number of items of the source sequence that are needed
+     * to compute the subsequence.
+     *
+     * @param startLoc the starting location value as passed to {@code fn:subsequence}
+     * @param length the length value as passed to {@code fn:subsequence}
+     *
+     * @return the number of leading items of the source sequence needed, or {@link FLWORClause#UNLIMITED}
+     */
+    private static long getMaxItems(final DoubleValue startLoc, final DoubleValue length) {
+        if (startLoc.isNaN() || startLoc.isInfinite() || length.isNaN() || length.isInfinite()) {
+            return FLWORClause.UNLIMITED;
+        }
+        final long toExclusive = startLoc.getLong() + length.getLong();
+        if (toExclusive <= 1) {
+            return 0;
+        }
+        return toExclusive - 1;
+    }
+
     /**
      * Creates a Subsequence from a sequence
      *
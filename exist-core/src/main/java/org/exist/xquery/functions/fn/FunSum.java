@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -22,9 +49,12 @@
 package org.exist.xquery.functions.fn;
 
 import org.exist.dom.QName;
+import org.exist.indexing.AggregatingIndex;
+import org.exist.xquery.AnalyzeContextInfo;
 import org.exist.xquery.Cardinality;
 import org.exist.xquery.Dependency;
 import org.exist.xquery.ErrorCodes;
+import org.exist.xquery.Expression;
 import org.exist.xquery.Function;
 import org.exist.xquery.FunctionSignature;
 import org.exist.xquery.Profiler;
@@ -44,6 +74,8 @@ import org.exist.xquery.value.SequenceIterator;
 import org.exist.xquery.value.SequenceType;
 import org.exist.xquery.value.Type;
 
+import javax.annotation.Nullable;
+
 public class FunSum extends Function {
 	
 	//Used to detect overflows : currently not used.
@@ -70,10 +102,21 @@ public class FunSum extends Function {
 		)
 	};
 				
+	/**
+	 * The path of the argument when the sum may be computed from an index, or null.
+	 */
+	@Nullable private Expression nodePath = null;
+
     public FunSum(XQueryContext context, FunctionSignature signature) {
 		super(context, signature);
     }
 
+	@Override
+	public void analyze(final AnalyzeContextInfo contextInfo) throws XPathException {
+		super.analyze(contextInfo);
+		nodePath = IndexAggregation.getNodePath(contextInfo, getArgument(0));
+	}
+
 	public Sequence eval(Sequence contextSequence, Item contextItem) throws XPathException {
         if (context.getProfiler().isEnabled()) {
             context.getProfiler().start(this);
@@ -90,8 +133,11 @@ public class FunSum extends Function {
         
         Sequence result;
         
-		final Sequence inner = getArgument(0).eval(contextSequence, contextItem);	
-		if (inner.isEmpty()) {
+		final Sequence inner = (nodePath != null ? nodePath : getArgument(0)).eval(contextSequence, contextItem);
+		final Sequence indexed = nodePath != null ? IndexAggregation.aggregate(context, this, nodePath, inner, AggregatingIndex.Aggregate.SUM) : null;
+		if (indexed != null) {
+			result = indexed;
+		} else if (inner.isEmpty()) {
 			//If $zero is not specified, then the value returned for an empty sequence is the xs:integer value 0
 			Sequence zero = IntegerValue.ZERO;
 			if(getSignature().getArgumentCount() == 2)
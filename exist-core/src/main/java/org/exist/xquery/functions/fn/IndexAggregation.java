@@ -0,0 +1,130 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery.functions.fn;
+
+import org.exist.dom.QName;
+import org.exist.dom.persistent.NodeSet;
+import org.exist.indexing.AggregatingIndex;
+import org.exist.storage.ElementValue;
+import org.exist.xquery.AnalyzeContextInfo;
+import org.exist.xquery.Atomize;
+import org.exist.xquery.Constants;
+import org.exist.xquery.DynamicCardinalityCheck;
+import org.exist.xquery.DynamicTypeCheck;
+import org.exist.xquery.Expression;
+import org.exist.xquery.LocationStep;
+import org.exist.xquery.NodeTest;
+import org.exist.xquery.PathExpr;
+import org.exist.xquery.UntypedValueCheck;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQueryContext;
+import org.exist.xquery.value.Sequence;
+import org.exist.xquery.value.Type;
+
+import javax.annotation.Nullable;
+
+/**
+ * Allows fn:min, fn:max, fn:sum and fn:distinct-values to compute
+ * their result from an {@link AggregatingIndex} when their argument
+ * is a path that selects named nodes from the database.
+ */
+final class IndexAggregation {
+
+    private IndexAggregation() {
+    }
+
+    /**
+     * Finds the path expression underneath the cardinality, atomization
+     * and type checks that {@link org.exist.xquery.Function} wraps around
+     * an xs:anyAtomicType* argument.
+     *
+     * The checks may be skipped when evaluating the path directly, as
+     * the functions atomize each item themselves, and for nodes from
+     * the database that yields xs:untypedAtomic which passes all of the checks.
+     *
+     * The indexes are not asked when the function is evaluated once for each
+     * item of a predicate or each tuple of a FLWOR expression, as each of those
+     * evaluations would read the index entries of all of the nodes with the name.
+     *
+     * @param contextInfo the context in which the function is analyzed
+     * @param argument the argument of the function
+     *
+     * @return the path expression, or null if the argument does not select named nodes,
+     *     or the function is evaluated repeatedly
+     */
+    static @Nullable Expression getNodePath(final AnalyzeContextInfo contextInfo, Expression argument) {
+        if ((contextInfo.getFlags() & Expression.SINGLE_STEP_EXECUTION) != 0) {
+            return null;
+        }
+        while (argument instanceof DynamicCardinalityCheck || argument instanceof DynamicTypeCheck
+                || argument instanceof UntypedValueCheck || argument instanceof Atomize) {
+            argument = argument.getSubExpression(0);
+        }
+        return getName(argument) != null ? argument : null;
+    }
+
+    /**
+     * Asks the indexes for an aggregate over the nodes selected by the path.
+     *
+     * @param context the XQuery context
+     * @param parent the function computing the aggregate
+     * @param nodePath the path as returned by {@link #getNodePath(AnalyzeContextInfo, Expression)}
+     * @param nodes the result of evaluating the path
+     * @param aggregate the aggregate to compute
+     *
+     * @return the aggregate, or null if none of the indexes could compute it
+     *
+     * @throws XPathException if an error occurs whilst reading an index
+     */
+    static @Nullable Sequence aggregate(final XQueryContext context, final Expression parent, final Expression nodePath, final Sequence nodes,
+            final AggregatingIndex.Aggregate aggregate) throws XPathException {
+        if (nodes.isEmpty() || !nodes.isPersistentSet()) {
+            return null;
+        }
+        final QName qname = getName(nodePath);
+        final NodeSet nodeSet = nodes.toNodeSet();
+        return context.getBroker().getIndexController().aggregate(context, nodeSet, qname, aggregate, parent);
+    }
+
+    private static @Nullable QName getName(final Expression expression) {
+        final Expression lastStep = expression instanceof PathExpr path ? path.getLastExpression() : expression;
+        if (!(lastStep instanceof LocationStep step)) {
+            return null;
+        }
+
+        final NodeTest test = step.getTest();
+        if (test.isWildcardTest() || test.getName() == null) {
+            return null;
+        }
+
+        final QName name = test.getName();
+        final int axis = step.getAxis();
+        if (test.getType() == Type.ATTRIBUTE && (axis == Constants.ATTRIBUTE_AXIS || axis == Constants.DESCENDANT_ATTRIBUTE_AXIS)) {
+            return new QName(name, ElementValue.ATTRIBUTE);
+        } else if (test.getType() == Type.ELEMENT) {
+            return new QName(name, ElementValue.ELEMENT);
+        }
+        return null;
+    }
+}
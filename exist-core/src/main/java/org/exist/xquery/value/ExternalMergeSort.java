@@ -0,0 +1,430 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery.value;
+
+import net.jcip.annotations.NotThreadSafe;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.exist.util.io.TemporaryFileManager;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQueryContext;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts the positions of the items of a sequence by their sort keys,
+ * spilling the keys to temporary files when there are too many of them
+ * to be held in memory.
+ *
+ * Keys are added together with the position of the item they were
+ * obtained from. Once the configured number of keys has been added
+ * (see {@link XQueryContext#PROPERTY_SORT_SPILL_THRESHOLD}), they are
+ * sorted and written to a temporary file as a run. {@link #sort()}
+ * then merges the runs, and returns the positions of the items in
+ * sorted order. Items with equal keys retain their relative order.
+ *
+ * Only the following keys can be written to a run:
+ * <ul>
+ *     <li>the empty sequence;</li>
+ *     <li>xs:string and its subtypes, xs:anyURI and xs:untypedAtomic;</li>
+ *     <li>xs:boolean, and xs:decimal, xs:float and xs:double and their subtypes;</li>
+ *     <li>xs:dateTime, xs:date, xs:time and xs:duration and their subtypes.</li>
+ * </ul>
+ * As soon as a key of any other type is added, no further runs are
+ * written and the remaining keys are held in memory.
+ */
+@NotThreadSafe
+public final class ExternalMergeSort implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(ExternalMergeSort.class);
+
+    private static final byte KEY_EMPTY = 0;
+    private static final byte KEY_LEXICAL = 1;
+    private static final byte KEY_FLOAT = 2;
+    private static final byte KEY_DOUBLE = 3;
+
+    private final Comparator<Record> comparator;
+    private final int runSize;
+    private final List<Path> runs = new ArrayList<>();
+    private final List<Conversion> conversions = new ArrayList<>();
+
+    private Record[] records;
+    private int size = 0;
+    private int count = 0;
+    private boolean spillable = true;
+
+    /**
+     * @param comparator the comparator for the sort keys of two items
+     * @param runSize the maximum number of keys held in memory before they are written to a run
+     */
+    public ExternalMergeSort(final Comparator<AtomicValue[]> comparator, final int runSize) {
+        this.comparator = Comparator.comparing(Record::keys, comparator)
+                .thenComparingInt(Record::position);
+        this.runSize = runSize;
+        this.records = new Record[Math.min(runSize, 1024)];
+    }
+
+    /**
+     * Get the spill threshold configured for the database.
+     *
+     * @param context the XQuery context
+     *
+     * @return the maximum number of sort keys held in memory
+     */
+    public static int getSpillThreshold(final XQueryContext context) {
+        final Integer threshold = context.getBroker().getConfiguration().getProperty(
+                XQueryContext.PROPERTY_SORT_SPILL_THRESHOLD, XQueryContext.DEFAULT_SORT_SPILL_THRESHOLD);
+        return threshold > 0 ? threshold : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Add the sort keys of an item.
+     *
+     * @param position the position of the item, positions must be unique
+     * @param keys the sort keys of the item
+     *
+     * @throws XPathException if a run cannot be written
+     */
+    public void add(final int position, final AtomicValue[] keys) throws XPathException {
+        if (spillable && !isSpillable(keys)) {
+            spillable = false;
+        }
+        if (size == records.length) {
+            records = Arrays.copyOf(records, size * 2);
+        }
+        records[size++] = new Record(position, keys);
+        count++;
+        if (spillable && size >= runSize) {
+            writeRun();
+        }
+    }
+
+    /**
+     * Get the number of items whose keys were added.
+     *
+     * @return the number of items
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Cast a sort key of every item to another type, e.g. as required
+     * when an order spec yields values of different numeric types.
+     * Must only be called once all keys have been added.
+     *
+     * @param keyIndex the index of the sort key
+     * @param requiredType the type to cast the key to
+     *
+     * @throws XPathException if a key cannot be cast
+     */
+    public void convert(final int keyIndex, final int requiredType) throws XPathException {
+        final Conversion conversion = new Conversion(keyIndex, requiredType);
+        for (int i = 0; i < size; i++) {
+            conversion.apply(records[i].keys());
+        }
+        conversions.add(conversion);
+    }
+
+    /**
+     * Sort the items by their keys.
+     *
+     * @return the positions of the items in sorted order
+     *
+     * @throws XPathException if a run cannot be read or written
+     */
+    public int[] sort() throws XPathException {
+        Arrays.parallelSort(records, 0, size, comparator);
+
+        final int[] order = new int[count];
+        if (runs.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                order[i] = records[i].position();
+            }
+            return order;
+        }
+
+        if (!conversions.isEmpty()) {
+            // the runs were sorted before the keys were cast, so must be sorted again
+            for (int i = 0; i < runs.size(); i++) {
+                runs.set(i, sortRun(runs.get(i)));
+            }
+        }
+
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size() + 1,
+                (reader1, reader2) -> comparator.compare(reader1.current, reader2.current));
+        final List<RunReader> readers = new ArrayList<>(runs.size() + 1);
+        try {
+            for (final Path run : runs) {
+                readers.add(new FileRunReader(run));
+            }
+            readers.add(new MemoryRunReader(records, size));
+            for (final RunReader reader : readers) {
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+
+            int i = 0;
+            while (!queue.isEmpty()) {
+                final RunReader reader = queue.poll();
+                order[i++] = reader.current.position();
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+        } catch (final IOException e) {
+            throw new XPathException("Unable to merge sort runs: " + e.getMessage(), e);
+        } finally {
+            for (final RunReader reader : readers) {
+                reader.close();
+            }
+        }
+        return order;
+    }
+
+    private void writeRun() throws XPathException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Sort exceeded {} keys, spilling run {} to disk", runSize, runs.size() + 1);
+        }
+        Arrays.parallelSort(records, 0, size, comparator);
+        runs.add(writeRun(records, size));
+        Arrays.fill(records, 0, size, null);
+        size = 0;
+    }
+
+    private static Path writeRun(final Record[] records, final int size) throws XPathException {
+        final TemporaryFileManager temporaryFileManager = TemporaryFileManager.getInstance();
+        Path run = null;
+        try {
+            run = temporaryFileManager.getTemporaryFile();
+            try (final DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+                for (int i = 0; i < size; i++) {
+                    writeRecord(os, records[i]);
+                }
+            }
+            return run;
+        } catch (final IOException e) {
+            if (run != null) {
+                temporaryFileManager.returnTemporaryFile(run);
+            }
+            throw new XPathException("Unable to spill sort run: " + e.getMessage(), e);
+        }
+    }
+
+    private Path sortRun(final Path run) throws XPathException {
+        final List<Record> runRecords = new ArrayList<>();
+        try (final FileRunReader reader = new FileRunReader(run)) {
+            while (reader.next()) {
+                for (final Conversion conversion : conversions) {
+                    conversion.apply(reader.current.keys());
+                }
+                runRecords.add(reader.current);
+            }
+        } catch (final IOException e) {
+            throw new XPathException("Unable to read sort run: " + e.getMessage(), e);
+        }
+        TemporaryFileManager.getInstance().returnTemporaryFile(run);
+
+        final Record[] sorted = runRecords.toArray(new Record[0]);
+        Arrays.parallelSort(sorted, comparator);
+        return writeRun(sorted, sorted.length);
+    }
+
+    private static boolean isSpillable(final AtomicValue[] keys) {
+        for (final AtomicValue key : keys) {
+            if (key.isEmpty()) {
+                continue;
+            }
+            final int type = key.getType();
+            if (!(type == Type.UNTYPED_ATOMIC || type == Type.ANY_URI || type == Type.BOOLEAN
+                    || type == Type.FLOAT || type == Type.DOUBLE
+                    || Type.subTypeOf(type, Type.STRING)
+                    || Type.subTypeOf(type, Type.DECIMAL)
+                    || Type.subTypeOf(type, Type.DATE_TIME)
+                    || Type.subTypeOf(type, Type.DATE)
+                    || Type.subTypeOf(type, Type.TIME)
+                    || Type.subTypeOf(type, Type.DURATION))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeRecord(final DataOutputStream os, final Record record) throws IOException {
+        os.writeInt(record.position());
+        os.writeInt(record.keys().length);
+        for (final AtomicValue key : record.keys()) {
+            if (key.isEmpty()) {
+                os.writeByte(KEY_EMPTY);
+            } else if (key.getType() == Type.FLOAT) {
+                os.writeByte(KEY_FLOAT);
+                os.writeFloat(((FloatValue) key).getValue());
+            } else if (key.getType() == Type.DOUBLE) {
+                os.writeByte(KEY_DOUBLE);
+                os.writeDouble(((DoubleValue) key).getValue());
+            } else {
+                os.writeByte(KEY_LEXICAL);
+                os.writeInt(key.getType());
+                try {
+                    final byte[] lexical = key.getStringValue().getBytes(StandardCharsets.UTF_8);
+                    os.writeInt(lexical.length);
+                    os.write(lexical);
+                } catch (final XPathException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static @Nullable Record readRecord(final DataInputStream is) throws IOException {
+        final int position;
+        try {
+            position = is.readInt();
+        } catch (final EOFException e) {
+            return null;
+        }
+        final AtomicValue[] keys = new AtomicValue[is.readInt()];
+        for (int i = 0; i < keys.length; i++) {
+            final byte keyType = is.readByte();
+            switch (keyType) {
+                case KEY_EMPTY:
+                    keys[i] = AtomicValue.EMPTY_VALUE;
+                    break;
+                case KEY_FLOAT:
+                    keys[i] = new FloatValue(is.readFloat());
+                    break;
+                case KEY_DOUBLE:
+                    keys[i] = new DoubleValue(is.readDouble());
+                    break;
+                case KEY_LEXICAL:
+                    final int type = is.readInt();
+                    final byte[] lexical = new byte[is.readInt()];
+                    is.readFully(lexical);
+                    keys[i] = fromLexical(type, new String(lexical, StandardCharsets.UTF_8));
+                    break;
+                default:
+                    throw new IOException("Unknown sort key type: " + keyType);
+            }
+        }
+        return new Record(position, keys);
+    }
+
+    private static AtomicValue fromLexical(final int type, final String lexical) throws IOException {
+        if (type == Type.STRING) {
+            return new StringValue(lexical);
+        } else if (type == Type.UNTYPED_ATOMIC) {
+            return new UntypedAtomicValue(lexical);
+        }
+        try {
+            return new StringValue(lexical).convertTo(type);
+        } catch (final XPathException e) {
+            throw new IOException("Unable to read sort key of type " + Type.getTypeName(type) + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        records = null;
+        size = 0;
+        final TemporaryFileManager temporaryFileManager = TemporaryFileManager.getInstance();
+        for (final Path run : runs) {
+            temporaryFileManager.returnTemporaryFile(run);
+        }
+        runs.clear();
+    }
+
+    private record Record(int position, AtomicValue[] keys) {
+    }
+
+    private record Conversion(int keyIndex, int requiredType) {
+        void apply(final AtomicValue[] keys) throws XPathException {
+            keys[keyIndex] = keys[keyIndex].convertTo(requiredType);
+        }
+    }
+
+    private abstract static class RunReader implements AutoCloseable {
+        @Nullable Record current;
+
+        abstract boolean next() throws IOException;
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class MemoryRunReader extends RunReader {
+        private final Record[] records;
+        private final int size;
+        private int next = 0;
+
+        private MemoryRunReader(final Record[] records, final int size) {
+            this.records = records;
+            this.size = size;
+        }
+
+        @Override
+        boolean next() {
+            current = next < size ? records[next++] : null;
+            return current != null;
+        }
+    }
+
+    private static final class FileRunReader extends RunReader {
+        private final DataInputStream is;
+
+        private FileRunReader(final Path run) throws IOException {
+            this.is = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            current = readRecord(is);
+            return current != null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                is.close();
+            } catch (final IOException e) {
+                LOG.warn("Unable to close sort run: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -30,6 +57,7 @@ import org.exist.numbering.NodeId;
 import org.exist.xquery.Constants;
 import org.exist.xquery.ErrorCodes;
 import org.exist.xquery.Expression;
+import org.exist.xquery.FLWORClause;
 import org.exist.xquery.OrderSpec;
 import org.exist.xquery.XPathException;
 import org.exist.xquery.util.ExpressionDumper;
@@ -40,7 +68,9 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -52,27 +82,56 @@ import java.util.stream.IntStream;
  * all order expressions are evaluated once for each item in the sequence
  * <b>while</b> items are added.
  *
+ * When more items than the spill threshold are added, their sort keys are
+ * handed to an {@link ExternalMergeSort}, which may write them to temporary
+ * files. When only the first items of the sorted sequence are needed, only
+ * those are retained while items are added.
+ *
  * @author wolf
  */
 public class OrderedValueSequence extends AbstractSequence {
 
     private final List<OrderSpec> orderSpecs;
     private final List<BitSet> encounteredPrimitiveTypesForOrderSpecs;
+    private final int spillThreshold;
+    private final int maxItems;
     private Entry[] items;
     private int count = 0;
+    private int position = 0;
     private int state = 0;
 
+    @Nullable private PriorityQueue<Entry> topItems = null;
+    @Nullable private ExternalMergeSort spilledKeys = null;
+
     // used to keep track of the type of added items.
     private int itemType = Type.ANY_TYPE;
     private Sequence contextSequence;
 
     public OrderedValueSequence(final List<OrderSpec> orderSpecs, final int size) {
+        this(orderSpecs, size, Integer.MAX_VALUE, FLWORClause.UNLIMITED);
+    }
+
+    /**
+     * @param orderSpecs the ordering specifications
+     * @param size the expected number of items
+     * @param spillThreshold the maximum number of sort keys held in memory, see {@link ExternalMergeSort}
+     * @param maxItems the number of items of the sorted sequence which are required, or {@link FLWORClause#UNLIMITED}.
+     *     Items which sort after the first {@code maxItems} items are discarded.
+     */
+    public OrderedValueSequence(final List<OrderSpec> orderSpecs, final int size, final int spillThreshold, final long maxItems) {
         this.orderSpecs = orderSpecs;
+        this.spillThreshold = spillThreshold;
+        if (maxItems > 0 && maxItems <= spillThreshold) {
+            this.maxItems = (int) maxItems;
+            this.topItems = new PriorityQueue<>(Math.min(this.maxItems, 1024) + 1, Collections.reverseOrder());
+        } else {
+            this.maxItems = Integer.MAX_VALUE;
+        }
         this.encounteredPrimitiveTypesForOrderSpecs = new ArrayList<>(orderSpecs.size());
         for (int i = 0; i < orderSpecs.size(); i++) {
             this.encounteredPrimitiveTypesForOrderSpecs.add(new BitSet(Type.ARRAY_ITEM + 1));
         }
-        this.items = new Entry[size == 0 ? 1 : size];
+        this.items = new Entry[size == 0 ? 1 : Math.min(size, this.maxItems)];
     }
 
     @Override
@@ -109,6 +168,20 @@ public class OrderedValueSequence extends AbstractSequence {
             hasOne = true;
         }
         isEmpty = false;
+        final Entry entry = Entry.create(encounteredPrimitiveTypesForOrderSpecs, orderSpecs, item, position++, contextSequence);
+        checkItemType(item.getType());
+        setHasChanged();
+
+        if (topItems != null) {
+            // only retain the first maxItems entries, later entries always sort after equal ones
+            topItems.add(entry);
+            if (topItems.size() > maxItems) {
+                topItems.poll();
+            }
+            count = topItems.size();
+            return;
+        }
+
         if (count == 0 && items.length == 1) {
             items = new Entry[2];
         } else if (count == items.length) {
@@ -116,9 +189,38 @@ public class OrderedValueSequence extends AbstractSequence {
             System.arraycopy(items, 0, newItems, 0, count);
             items = newItems;
         }
-        items[count] = Entry.create(encounteredPrimitiveTypesForOrderSpecs, orderSpecs, item, count++, contextSequence);
-        checkItemType(item.getType());
-        setHasChanged();
+        items[count++] = entry;
+
+        if (spilledKeys == null && count > spillThreshold) {
+            spilledKeys = new ExternalMergeSort(this::compareKeys, spillThreshold);
+            for (int i = 0; i < count - 1; i++) {
+                spillKeys(items[i]);
+            }
+        }
+        if (spilledKeys != null) {
+            spillKeys(entry);
+        }
+    }
+
+    private void spillKeys(final Entry entry) throws XPathException {
+        spilledKeys.add(entry.pos, entry.values);
+        entry.values = null;
+    }
+
+    private int compareKeys(final AtomicValue[] values, final AtomicValue[] otherValues) {
+        return Entry.compareKeys(orderSpecs, values, otherValues);
+    }
+
+    /**
+     * Move the retained entries from the priority queue to
+     * the items array, once all items have been added.
+     */
+    private void drainTopItems() {
+        if (topItems != null) {
+            items = topItems.toArray(new Entry[0]);
+            count = items.length;
+            topItems = null;
+        }
     }
 
     @Override
@@ -142,6 +244,7 @@ public class OrderedValueSequence extends AbstractSequence {
      * @throws XPathException if the types cannot be coerced as according to the spec.
      */
     public void coerceTypesForOrderBy() throws XPathException {
+        drainTopItems();
         for (int t = 0; t < encounteredPrimitiveTypesForOrderSpecs.size(); t++) {
             final BitSet encounteredPrimitiveTypesForOrderSpec = encounteredPrimitiveTypesForOrderSpecs.get(t);
             final int valueTypeCardinality = encounteredPrimitiveTypesForOrderSpec.cardinality();
@@ -188,10 +291,13 @@ public class OrderedValueSequence extends AbstractSequence {
                 }
 
                 // perform the coercion
-                for (int i = 0; i < count; i++) {
-                    final Entry item = items[i];
-                    final AtomicValue value = item.values.get(t);
-                    item.values.set(t, value.convertTo(coerceToType));
+                if (spilledKeys != null) {
+                    spilledKeys.convert(t, coerceToType);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        final Entry item = items[i];
+                        item.values[t] = item.values[t].convertTo(coerceToType);
+                    }
                 }
                 checkItemType(coerceToType);
             }
@@ -208,11 +314,46 @@ public class OrderedValueSequence extends AbstractSequence {
         return setBitsCount;
     }
 
-    public void sort() {
+    /**
+     * Sort the items by their sort keys.
+     *
+     * @throws XPathException if the spilled sort keys cannot be read or written
+     */
+    public void sort() throws XPathException {
 //		FastQSort.sort(items, 0, count - 1);
 
-        Arrays.parallelSort(items, 0, count);
-        Arrays.stream(items, 0, count).parallel().forEach(Entry::clear);
+        drainTopItems();
+        if (spilledKeys == null) {
+            Arrays.parallelSort(items, 0, count);
+            Arrays.stream(items, 0, count).parallel().forEach(Entry::clear);
+            return;
+        }
+
+        final int[] order;
+        try {
+            order = spilledKeys.sort();
+        } finally {
+            discard();
+        }
+        // the position of each entry is its index in the unsorted items
+        final Entry[] sorted = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = items[order[i]];
+        }
+        items = sorted;
+        for (final BitSet encounteredPrimitiveTypesForOrderSpec : encounteredPrimitiveTypesForOrderSpecs) {
+            encounteredPrimitiveTypesForOrderSpec.clear();
+        }
+    }
+
+    /**
+     * Release any sort keys which have been spilled to disk.
+     */
+    public void discard() {
+        if (spilledKeys != null) {
+            spilledKeys.close();
+            spilledKeys = null;
+        }
     }
 
     @Override
@@ -412,7 +553,7 @@ public class OrderedValueSequence extends AbstractSequence {
         private final List<OrderSpec> orderSpecs;
         private Item item;
         private final int pos;
-        @Nullable private List<AtomicValue> values;
+        @Nullable private AtomicValue[] values;
 
         /**
          * Private constructor, use {@link #create(List, List, Item, int, Sequence)} instead.
@@ -422,7 +563,7 @@ public class OrderedValueSequence extends AbstractSequence {
          * @param position the original position of the item in the result sequence.
          * @param values the values for the entry.
          */
-        private Entry(final List<BitSet> encounteredPrimitiveTypesForOrderSpecs, final List<OrderSpec> orderSpecs, final Item item, final int position, final List<AtomicValue> values) {
+        private Entry(final List<BitSet> encounteredPrimitiveTypesForOrderSpecs, final List<OrderSpec> orderSpecs, final Item item, final int position, final AtomicValue[] values) {
             this.encounteredPrimitiveTypesForOrderSpecs = encounteredPrimitiveTypesForOrderSpecs;
             this.orderSpecs = orderSpecs;
             this.item = item;
@@ -442,7 +583,7 @@ public class OrderedValueSequence extends AbstractSequence {
          * @throws XPathException thrown if the evaluation of an order spec raises an error.
          */
         public static Entry create(final List<BitSet> encounteredPrimitiveTypesForOrderSpecs, final List<OrderSpec> orderSpecs, final Item item, final int position, @Nullable final Sequence contextSequence) throws XPathException {
-            final List<AtomicValue> values = new ArrayList<>(orderSpecs.size());
+            final AtomicValue[] values = new AtomicValue[orderSpecs.size()];
             for (int i = 0; i < orderSpecs.size(); i++) {
                 final OrderSpec orderSpec = orderSpecs.get(i);
                 final Expression sortExpression = orderSpec.getSortExpression();
@@ -462,7 +603,7 @@ public class OrderedValueSequence extends AbstractSequence {
 
                     final BitSet encounteredPrimitiveTypesForOrderSpec = encounteredPrimitiveTypesForOrderSpecs.get(i);
                     encounteredPrimitiveTypesForOrderSpec.set(Type.primitiveTypeOf(valueType));
-                    values.add(value);
+                    values[i] = value;
 
                 } else if (seq.hasMany()) {
                     throw new XPathException(item.getExpression(), ErrorCodes.XPTY0004,
@@ -470,7 +611,7 @@ public class OrderedValueSequence extends AbstractSequence {
                                     ExpressionDumper.dump(sortExpression) +
                                     " ; found: " + seq.getItemCount());
                 } else {
-                    values.add(AtomicValue.EMPTY_VALUE);
+                    values[i] = AtomicValue.EMPTY_VALUE;
                 }
             }
 
@@ -479,11 +620,29 @@ public class OrderedValueSequence extends AbstractSequence {
 
         @Override
         public int compareTo(final Entry other) {
+            int cmp = compareKeys(orderSpecs, values, other.values);
+            // if the sort keys are equal, we need to order by the original position in the result sequence
+            if (cmp == Constants.EQUAL) {
+                cmp = (pos > other.pos ? Constants.SUPERIOR : (pos == other.pos ? Constants.EQUAL : Constants.INFERIOR));
+            }
+            return cmp;
+        }
+
+        /**
+         * Compare the sort keys of two entries.
+         *
+         * @param orderSpecs the ordering specifications.
+         * @param values the sort keys of the first entry.
+         * @param otherValues the sort keys of the second entry.
+         *
+         * @return the result of the comparison, without regard to the positions of the entries.
+         */
+        static int compareKeys(final List<OrderSpec> orderSpecs, final AtomicValue[] values, final AtomicValue[] otherValues) {
             int cmp = 0;
-            for (int i = 0; i < values.size(); i++) {
+            for (int i = 0; i < values.length; i++) {
                 try {
-                    final AtomicValue a = values.get(i);
-                    final AtomicValue b = other.values.get(i);
+                    final AtomicValue a = values[i];
+                    final AtomicValue b = otherValues[i];
 
                     final boolean aIsEmpty = (a.isEmpty() || (Type.subTypeOfUnion(a.getType(), Type.NUMERIC) && ((NumericValue) a).isNaN()));
                     final boolean bIsEmpty = (b.isEmpty() || (Type.subTypeOfUnion(b.getType(), Type.NUMERIC) && ((NumericValue) b).isNaN()));
@@ -528,10 +687,6 @@ public class OrderedValueSequence extends AbstractSequence {
                 } catch (final XPathException e) {
                 }
             }
-            // if the sort keys are equal, we need to order by the original position in the result sequence
-            if (cmp == Constants.EQUAL) {
-                cmp = (pos > other.pos ? Constants.SUPERIOR : (pos == other.pos ? Constants.EQUAL : Constants.INFERIOR));
-            }
             return cmp;
         }
 
@@ -543,11 +698,11 @@ public class OrderedValueSequence extends AbstractSequence {
                 final StringBuilder builder = new StringBuilder();
                 builder.append(item);
                 builder.append(" [");
-                for (int i = 0; i < values.size(); i++) {
+                for (int i = 0; i < values.length; i++) {
                     if (i > 0) {
                         builder.append(", ");
                     }
-                    builder.append(values.get(i).toString());
+                    builder.append(values[i].toString());
                 }
                 builder.append("]");
                 return builder.toString();
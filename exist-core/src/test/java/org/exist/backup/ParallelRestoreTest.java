@@ -0,0 +1,172 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.backup;
+
+import org.exist.EXistException;
+import org.exist.backup.restore.listener.AbstractRestoreListener;
+import org.exist.collections.Collection;
+import org.exist.collections.triggers.TriggerException;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.exist.test.TestConstants.TEST_COLLECTION_URI;
+import static org.exist.util.PropertiesBuilder.propertiesBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelRestoreTest {
+
+    private static final int SUB_COLLECTIONS = 4;
+    private static final int DOCUMENTS_PER_COLLECTION = 5;
+    private static final int PRIVATE_MODE = 0700;
+
+    @ClassRule
+    public static final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(
+            propertiesBuilder()
+                    .put(Restore.PROPERTY_PARALLELISM, 4)
+                    .put(Restore.PROPERTY_DOCUMENTS_PER_TRANSACTION, 2)
+                    .build(),
+            true,
+            true);
+
+    @Test
+    public void restoreSubCollectionsInParallel() throws EXistException, PermissionDeniedException, IOException, SAXException, LockException, TriggerException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        storeTestCollections(pool);
+
+        final Path backup;
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            final SystemExport export = new SystemExport(broker, transaction, null, null, true);
+            backup = export.export(temporaryFolder.newFolder().getAbsolutePath(), false, true, null);
+
+            transaction.commit();
+        }
+
+        removeTestCollection(pool);
+
+        final CountingRestoreListener listener = new CountingRestoreListener();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            new Restore().restore(broker, null, null, backup, listener, true);
+        }
+
+        assertTrue(listener.errors.toString(), listener.errors.isEmpty());
+        assertTrue(listener.restored >= SUB_COLLECTIONS * DOCUMENTS_PER_COLLECTION);
+
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            for (int i = 0; i < SUB_COLLECTIONS; i++) {
+                final Collection collection = broker.getCollection(TEST_COLLECTION_URI.append("sub" + i));
+                assertNotNull(collection);
+                assertEquals(DOCUMENTS_PER_COLLECTION, collection.getDocumentCount(broker));
+
+                final Collection privateCollection = broker.getCollection(TEST_COLLECTION_URI.append("sub" + i).append("private"));
+                assertNotNull(privateCollection);
+                assertEquals(PRIVATE_MODE, privateCollection.getPermissionsNoLock().getMode());
+            }
+        }
+
+        removeTestCollection(pool);
+    }
+
+    private static void storeTestCollections(final BrokerPool pool) throws EXistException, PermissionDeniedException, IOException, SAXException, LockException, TriggerException {
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            for (int i = 0; i < SUB_COLLECTIONS; i++) {
+                final XmldbURI subCollectionUri = TEST_COLLECTION_URI.append("sub" + i);
+                final Collection subCollection = broker.getOrCreateCollection(transaction, subCollectionUri);
+                broker.saveCollection(transaction, subCollection);
+                for (int j = 0; j < DOCUMENTS_PER_COLLECTION; j++) {
+                    broker.storeDocument(transaction, XmldbURI.create("doc" + j + ".xml"), new StringInputSource("<doc n=\"" + j + "\"/>"), MimeType.XML_TYPE, subCollection);
+                }
+
+                final Collection privateCollection = broker.getOrCreateCollection(transaction, subCollectionUri.append("private"));
+                privateCollection.getPermissionsNoLock().setMode(PRIVATE_MODE);
+                broker.saveCollection(transaction, privateCollection);
+            }
+
+            transaction.commit();
+        }
+    }
+
+    private static void removeTestCollection(final BrokerPool pool) throws EXistException, PermissionDeniedException, IOException, TriggerException {
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            final Collection test = broker.getCollection(TEST_COLLECTION_URI);
+            if (test != null) {
+                broker.removeCollection(transaction, test);
+            }
+
+            transaction.commit();
+        }
+
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            assertNull(broker.getCollection(TEST_COLLECTION_URI));
+        }
+    }
+
+    private static class CountingRestoreListener extends AbstractRestoreListener {
+        private int restored;
+        private final List<String> errors = new ArrayList<>();
+
+        @Override
+        public void restoredResource(final String resource) {
+            restored++;
+        }
+
+        @Override
+        public void info(final String message) {
+        }
+
+        @Override
+        public void warn(final String message) {
+        }
+
+        @Override
+        public void error(final String message) {
+            errors.add(message);
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -48,6 +75,7 @@ import org.exist.dom.persistent.DocumentImpl;
 import org.exist.security.AuthenticationException;
 import org.exist.security.PermissionDeniedException;
 import org.exist.storage.BrokerPool;
+import org.exist.storage.ConsistencyCheckTask;
 import org.exist.storage.DBBroker;
 import org.exist.storage.serializers.EXistOutputKeys;
 import org.exist.storage.serializers.Serializer;
@@ -76,13 +104,15 @@ import org.xmldb.api.base.XMLDBException;
 @RunWith(Parameterized.class)
 public class SystemExportImportTest {
 
-    @Parameters(name = "{0} zip:{2}")
+    @Parameters(name = "{0} zip:{2} parallelism:{3}")
     public static java.util.Collection<Object[]> data() {
         return Arrays.asList(new Object[][]{
-                {"direct", true, false},
-                {"non-direct", false, false},
-                {"direct", true, true},
-                {"non-direct", false, true}
+                {"direct", true, false, 1},
+                {"non-direct", false, false, 1},
+                {"direct", true, true, 1},
+                {"non-direct", false, true, 1},
+                {"direct", true, false, 4},
+                {"non-direct", false, true, 4}
         });
     }
 
@@ -95,6 +125,9 @@ public class SystemExportImportTest {
     @Parameter(value = 2)
     public boolean zip;
 
+    @Parameter(value = 3)
+    public int parallelism;
+
     @ClassRule
     public static TemporaryFolder temporaryFolder = new TemporaryFolder();
 
@@ -139,12 +172,43 @@ public class SystemExportImportTest {
             assertNotNull(test);
 
             final SystemExport sysexport = new SystemExport(broker, transaction, null, null, direct);
+            sysexport.setParallelism(parallelism);
             final String backupDir = temporaryFolder.newFolder().getAbsolutePath();
             file = sysexport.export(backupDir, false, zip, null);
 
             transaction.commit();
         }
 
+        assertRestored(file);
+    }
+
+    /**
+     * The Consistency Check Task exports whilst the database is executing
+     * system tasks, during which time no other thread may begin a transaction.
+     */
+    @Test(timeout = 60_000)
+    public void exportImportFromConsistencyCheckTask() throws EXistException, IOException, PermissionDeniedException, SAXException, ParserConfigurationException, AuthenticationException, URISyntaxException, XMLDBException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+
+        final Properties properties = new Properties();
+        properties.setProperty(ConsistencyCheckTask.OUTPUT_PROP_NAME, temporaryFolder.newFolder().getAbsolutePath());
+        properties.setProperty(ConsistencyCheckTask.BACKUP_PROP_NAME, "yes");
+        properties.setProperty(ConsistencyCheckTask.ZIP_PROP_NAME, zip ? "yes" : "no");
+        properties.setProperty(ConsistencyCheckTask.PARALLELISM_PROP_NAME, String.valueOf(parallelism));
+
+        final ConsistencyCheckTask task = new ConsistencyCheckTask();
+        task.configure(pool.getConfiguration(), properties);
+        pool.triggerSystemTask(task);
+
+        final Path file = task.getLastExportedBackup();
+        assertNotNull(file);
+
+        assertRestored(file);
+    }
+
+    private void assertRestored(final Path file) throws EXistException, IOException, PermissionDeniedException, SAXException, ParserConfigurationException, AuthenticationException, URISyntaxException, XMLDBException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+
         clean();
 
         final SystemImport restore = new SystemImport(pool);
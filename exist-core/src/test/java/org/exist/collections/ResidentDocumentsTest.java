@@ -0,0 +1,208 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.collections;
+
+import org.exist.EXistException;
+import org.exist.collections.triggers.TriggerException;
+import org.exist.dom.persistent.DocumentImpl;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.lock.Lock;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.DatabaseConfigurationException;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.exist.util.PropertiesBuilder.propertiesBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for Collections which hold more Documents than
+ * {@link MutableCollection#PROPERTY_RESIDENT_DOCUMENTS}.
+ */
+public class ResidentDocumentsTest {
+
+    private static final int RESIDENT_DOCUMENTS = 10;
+    private static final int DOCUMENT_COUNT = 100;
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(
+            propertiesBuilder()
+                    .put(MutableCollection.PROPERTY_RESIDENT_DOCUMENTS, RESIDENT_DOCUMENTS)
+                    .build(),
+            true,
+            true);
+
+    private static final XmldbURI TEST_COLLECTION = XmldbURI.ROOT_COLLECTION_URI.append("testResidentDocuments");
+
+    @Test
+    public void documentsAreReadOnDemand() throws EXistException, PermissionDeniedException, IOException, SAXException, LockException, TriggerException, DatabaseConfigurationException {
+        final List<String> documentNames = documentNames(DOCUMENT_COUNT);
+        createDocuments(existEmbeddedServer.getBrokerPool(), documentNames);
+
+        // restart the server so that the Collection is read from disk
+        existEmbeddedServer.restart();
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            try (final Collection testCollection = broker.openCollection(TEST_COLLECTION, Lock.LockMode.READ_LOCK)) {
+                assertEquals(DOCUMENT_COUNT, testCollection.getDocumentCount(broker));
+                assertTrue(testCollection.getMemorySize() < DOCUMENT_COUNT * 450);
+
+                for (final String documentName : documentNames) {
+                    assertTrue(testCollection.hasDocument(broker, XmldbURI.create(documentName)));
+                }
+
+                // a Document which is still in use is the same object when it is requested again
+                final DocumentImpl last = testCollection.getDocument(broker, XmldbURI.create(documentNames.get(DOCUMENT_COUNT - 1)));
+                assertNotNull(last);
+                for (final String documentName : documentNames) {
+                    final DocumentImpl document = testCollection.getDocument(broker, XmldbURI.create(documentName));
+                    assertNotNull(document);
+                    assertEquals(documentName, document.getFileURI().lastSegmentString());
+                    assertEquals(testCollection.getURI(), document.getCollection().getURI());
+                    assertTrue(document.getChildCount() > 0);
+                }
+                assertSame(last, testCollection.getDocument(broker, XmldbURI.create(documentNames.get(DOCUMENT_COUNT - 1))));
+
+                assertNull(testCollection.getDocument(broker, XmldbURI.create("no-such-document.xml")));
+            }
+        }
+
+        assertOrderOfDocuments(pool, documentNames);
+    }
+
+    @Test
+    public void removeDocuments() throws EXistException, PermissionDeniedException, IOException, SAXException, LockException, TriggerException, DatabaseConfigurationException {
+        final List<String> documentNames = documentNames(DOCUMENT_COUNT);
+        createDocuments(existEmbeddedServer.getBrokerPool(), documentNames);
+
+        existEmbeddedServer.restart();
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+
+        final List<String> removed = new ArrayList<>();
+        final List<String> remaining = new ArrayList<>();
+        for (int i = 0; i < documentNames.size(); i++) {
+            if (i % 3 == 0) {
+                removed.add(documentNames.get(i));
+            } else {
+                remaining.add(documentNames.get(i));
+            }
+        }
+
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            try (final Collection testCollection = broker.openCollection(TEST_COLLECTION, Lock.LockMode.WRITE_LOCK)) {
+                for (final String documentName : removed) {
+                    testCollection.removeXMLResource(transaction, broker, XmldbURI.create(documentName));
+                }
+                assertEquals(remaining.size(), testCollection.getDocumentCount(broker));
+            }
+            transaction.commit();
+        }
+
+        assertOrderOfDocuments(pool, remaining);
+
+        existEmbeddedServer.restart();
+        assertOrderOfDocuments(existEmbeddedServer.getBrokerPool(), remaining);
+    }
+
+    private static List<String> documentNames(final int count) {
+        final List<String> documentNames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documentNames.add("document-" + i + ".xml");
+        }
+        return documentNames;
+    }
+
+    private static void createDocuments(final BrokerPool pool, final List<String> documentNames) throws EXistException, PermissionDeniedException, IOException, SAXException, LockException {
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            try (final Collection testCollection = broker.openCollection(TEST_COLLECTION, Lock.LockMode.WRITE_LOCK)) {
+                for (final String documentName : documentNames) {
+                    final String xml = "<document><name>" + documentName + "</name></document>";
+                    broker.storeDocument(transaction, XmldbURI.create(documentName), new StringInputSource(xml), MimeType.XML_TYPE, testCollection);
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    private static void assertOrderOfDocuments(final BrokerPool pool, final List<String> documentNames) throws EXistException, PermissionDeniedException, LockException {
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            try (final Collection testCollection = broker.openCollection(TEST_COLLECTION, Lock.LockMode.READ_LOCK)) {
+                final Iterator<DocumentImpl> documents = testCollection.iterator(broker);
+                int idx = 0;
+                while (documents.hasNext()) {
+                    final DocumentImpl document = documents.next();
+                    assertEquals("Document names are not equal at index: " + idx, documentNames.get(idx++), document.getFileURI().lastSegmentString());
+                }
+                assertEquals(documentNames.size(), idx);
+            }
+        }
+    }
+
+    @Before
+    public void createTestCollection() throws EXistException, PermissionDeniedException, IOException, TriggerException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            broker.getOrCreateCollection(transaction, TEST_COLLECTION);
+            transaction.commit();
+        }
+    }
+
+    @After
+    public void removeTestCollection() throws EXistException, PermissionDeniedException, IOException, TriggerException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = pool.getTransactionManager().beginTransaction()) {
+            try (final Collection testCollection = broker.openCollection(TEST_COLLECTION, Lock.LockMode.WRITE_LOCK)) {
+                if (testCollection != null) {
+                    broker.removeCollection(transaction, testCollection);
+                }
+                transaction.commit();
+            }
+        }
+    }
+}
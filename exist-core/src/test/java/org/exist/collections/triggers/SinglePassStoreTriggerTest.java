@@ -0,0 +1,152 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.collections.triggers;
+
+import org.exist.EXistException;
+import org.exist.Indexer;
+import org.exist.collections.Collection;
+import org.exist.collections.CollectionConfigurationException;
+import org.exist.collections.CollectionConfigurationManager;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.txn.TransactionManager;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.test.TestConstants;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQuery;
+import org.exist.xquery.value.Sequence;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Stores documents into a Collection which has a trigger configured,
+ * both when the events recorded whilst validating are replayed to store
+ * the document, and when the document is parsed again instead.
+ */
+@RunWith(Parameterized.class)
+public class SinglePassStoreTriggerTest {
+
+    private static final String COLLECTION_CONFIG =
+            "<exist:collection xmlns:exist='http://exist-db.org/collection-config/1.0'>"
+            + "  <exist:triggers>"
+            + "     <exist:trigger class='org.exist.collections.triggers.StoreTrigger'/>"
+            + "  </exist:triggers>"
+            + "</exist:collection>";
+
+    private static final XmldbURI DOC_URI = XmldbURI.create("data.xml");
+
+    @Parameters(name = "{0}")
+    public static java.util.Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+                { "replay", Indexer.DEFAULT_SINGLE_PASS_MAX_BUFFER, 10 },
+                { "disabled", 0, 10 },
+                { "buffer-exceeded", 1, 20_000 }
+        });
+    }
+
+    @Parameter
+    public String name;
+
+    @Parameter(value = 1)
+    public int maxBuffer;
+
+    @Parameter(value = 2)
+    public int items;
+
+    @Rule
+    public final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+
+    @Test
+    public void storeAndReplace() throws EXistException, PermissionDeniedException, IOException, SAXException, LockException, CollectionConfigurationException, XPathException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        pool.getConfiguration().setProperty(Indexer.PROPERTY_SINGLE_PASS_MAX_BUFFER, maxBuffer);
+
+        store(pool, document(items, "a"));
+        assertDocument(pool, items, "a");
+
+        // replaces the document
+        store(pool, document(items + 1, "b"));
+        assertDocument(pool, items + 1, "b");
+    }
+
+    private static String document(final int items, final String value) {
+        final StringBuilder builder = new StringBuilder("<test>");
+        for (int i = 1; i <= items; i++) {
+            builder.append("<item id='").append(i).append("'><price>").append(value).append("</price></item>");
+        }
+        return builder.append("</test>").toString();
+    }
+
+    private static void store(final BrokerPool pool, final String content) throws EXistException, PermissionDeniedException, IOException, SAXException, LockException, CollectionConfigurationException {
+        final TransactionManager transact = pool.getTransactionManager();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+                final Txn transaction = transact.beginTransaction();
+                final Collection collection = broker.getOrCreateCollection(transaction, TestConstants.TEST_COLLECTION_URI)) {
+
+            final CollectionConfigurationManager mgr = pool.getConfigurationManager();
+            mgr.addConfiguration(transaction, broker, collection, COLLECTION_CONFIG);
+
+            broker.storeDocument(transaction, DOC_URI, new StringInputSource(content), MimeType.XML_TYPE, collection);
+
+            transact.commit(transaction);
+        }
+    }
+
+    private static void assertDocument(final BrokerPool pool, final int items, final String value) throws EXistException, PermissionDeniedException, XPathException {
+        final XQuery xquery = pool.getXQueryService();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            final String doc = "doc('" + TestConstants.TEST_COLLECTION_URI.append(DOC_URI) + "')";
+
+            // every element has been modified by the trigger
+            Sequence result = xquery.execute(broker, "count(" + doc + "//*[@test = 'valueTest'])", null);
+            assertEquals(1 + (2 * items), (int) result.itemAt(0).toJavaObject(int.class));
+
+            result = xquery.execute(broker, "count(" + doc + "//*)", null);
+            assertEquals(1 + (2 * items), (int) result.itemAt(0).toJavaObject(int.class));
+
+            result = xquery.execute(broker, "count(" + doc + "//item[@id = " + items + "][price = '" + value + "'])", null);
+            assertEquals(1, (int) result.itemAt(0).toJavaObject(int.class));
+
+            result = xquery.execute(broker, "count(" + doc + "//price[. = '" + value + "'])", null);
+            assertEquals(items, (int) result.itemAt(0).toJavaObject(int.class));
+        }
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -580,6 +607,71 @@ public class XQueryTrigger2Test {
         assertEquals(4, result.getSize());
     }
 
+    /** test that a modification of the trigger's module is observed by subsequent events */
+    @Test
+    public void moduleModified() throws XMLDBException {
+        final IndexQueryService idxConf = triggeredCollection.getService(IndexQueryService.class);
+        idxConf.configureCollection(COLLECTION_CONFIG);
+
+        // this will fire the trigger, and compile the module
+        XMLResource doc = triggeredCollection.createResource(DOCUMENT_NAME, XMLResource.class);
+        doc.setContent(DOCUMENT_CONTENT);
+        triggeredCollection.storeResource(doc);
+
+        // modify the module, so that the previously compiled module is invalid
+        final BinaryResource module = testCollection.createResource(MODULE_NAME, BinaryResource.class);
+        ((EXistResource)module).setMimeType("application/xquery");
+        module.setContent(MODULE.replace("'after', 'create', 'document'", "'after', 'recreate', 'document'").getBytes());
+        testCollection.storeResource(module);
+
+        // this will fire the trigger again
+        doc = triggeredCollection.createResource("test2.xml", XMLResource.class);
+        doc.setContent(DOCUMENT_CONTENT);
+        triggeredCollection.storeResource(doc);
+
+        // remove the trigger for the Collection under test
+        idxConf.configureCollection(EMPTY_COLLECTION_CONFIG);
+
+        final XPathQueryService service = eventsCollection.getService(XPathQueryService.class);
+
+        ResourceSet result = service.query(AFTER+CREATE+DOCUMENT+documentURI);
+        assertEquals(1, result.getSize());
+
+        result = service.query(AFTER+"[@event = 'recreate']"+DOCUMENT+"[uri/text() = '/db/testXQueryTrigger/triggered/test2.xml']");
+        assertEquals(1, result.getSize());
+    }
+
+    private final static String IMPORT_SYSTEM_MODULE = "import module namespace system = 'http://exist-db.org/xquery/system'; ";
+
+    /** test that the executions of the trigger are recorded by the function trace */
+    @Test
+    public void executionsTraced() throws XMLDBException {
+        existEmbeddedServer.executeQuery(IMPORT_SYSTEM_MODULE + "system:clear-trace(), system:enable-tracing(true())");
+        try {
+            final IndexQueryService idxConf = triggeredCollection.getService(IndexQueryService.class);
+            idxConf.configureCollection(COLLECTION_CONFIG);
+
+            // this will fire the trigger twice
+            for (int i = 0; i < 2; i++) {
+                final XMLResource doc = triggeredCollection.createResource("test" + i + ".xml", XMLResource.class);
+                doc.setContent(DOCUMENT_CONTENT);
+                triggeredCollection.storeResource(doc);
+            }
+
+            // remove the trigger for the Collection under test
+            idxConf.configureCollection(EMPTY_COLLECTION_CONFIG);
+
+            final ResourceSet result = existEmbeddedServer.executeQuery(
+                    IMPORT_SYSTEM_MODULE +
+                    "declare namespace stats = 'http://exist-db.org/xquery/profiling'; " +
+                    "string(system:trace()/stats:trigger[@event eq 'after-create-document'][ends-with(@source, '" + MODULE_NAME + "')]/@calls)");
+            assertEquals(1, result.getSize());
+            assertEquals("2", result.getResource(0).getContent().toString());
+        } finally {
+            existEmbeddedServer.executeQuery(IMPORT_SYSTEM_MODULE + "system:enable-tracing(false()), system:clear-trace()");
+        }
+    }
+
     @Test
     public void storeDocumentInvalidTriggerForPrepare() throws XMLDBException {
         final BinaryResource invalidModule = testCollection.createResource(MODULE_NAME, BinaryResource.class);
@@ -596,7 +688,7 @@ public class XQueryTrigger2Test {
         for(int i = 0; i < max_store_attempts; i++) {
             try {
                 // this will fire the trigger
-                final XMLResource doc = triggeredCollection.createResource(DOCUMENT_NAME, XMLResource.class);
+                final XMLResource doc = triggeredCollection.createResource("test" + i + ".xml", XMLResource.class);
                 doc.setContent(DOCUMENT_CONTENT);
                 triggeredCollection.storeResource(doc);
             } catch(XMLDBException xdbe) {
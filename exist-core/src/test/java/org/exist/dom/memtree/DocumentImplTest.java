@@ -157,6 +157,36 @@ public class DocumentImplTest {
 //        assertEquals("http://exist-db.org/xquery/repo", attr2.getValue());
     }
 
+    @Test
+    public void attributeValues() throws IOException, SAXException, ParserConfigurationException {
+        final StringBuilder xml = new StringBuilder("<items>");
+        for (int i = 0; i < 1000; i++) {
+            xml.append("<item id=\"i").append(i).append("\" empty=\"\" name=\"caf\u00e9 ").append(i).append("\"/>");
+        }
+        xml.append("</items>");
+
+        final DocumentImpl doc;
+        try(final InputStream is = new UnsynchronizedByteArrayInputStream(xml.toString().getBytes(UTF_8))) {
+            doc = parseExist(is);
+        }
+
+        final NodeList items = doc.getDocumentElement().getChildNodes();
+        assertEquals(1000, items.getLength());
+        for (int i = 0; i < items.getLength(); i++) {
+            final Element item = (Element) items.item(i);
+            assertEquals("i" + i, item.getAttribute("id"));
+            assertEquals("", item.getAttribute("empty"));
+            assertEquals("caf\u00e9 " + i, item.getAttribute("name"));
+        }
+
+        // replacing a value must not affect the values of other attributes
+        final Attr id = ((Element) items.item(500)).getAttributeNode("id");
+        id.setValue("replaced");
+        assertEquals("replaced", ((Element) items.item(500)).getAttribute("id"));
+        assertEquals("i499", ((Element) items.item(499)).getAttribute("id"));
+        assertEquals("i501", ((Element) items.item(501)).getAttribute("id"));
+    }
+
     private Document parseXerces(final InputStream is) throws ParserConfigurationException, SAXException, IOException {
         final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         factory.setNamespaceAware(true);
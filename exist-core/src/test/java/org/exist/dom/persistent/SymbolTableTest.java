@@ -24,7 +24,9 @@
 package org.exist.dom.persistent;
 
 import com.googlecode.junittoolbox.ParallelRunner;
+import org.exist.dom.QName;
 import org.exist.storage.BrokerPool;
+import org.exist.storage.ElementValue;
 import org.exist.storage.BrokerPoolServiceException;
 import org.exist.storage.io.VariableByteInput;
 import org.easymock.Capture;
@@ -33,13 +35,24 @@ import org.exist.storage.io.VariableByteOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.exist.util.Configuration;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.w3c.dom.Node;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author <a href="mailto:adam@evolvedbinary.com">Adam Retter</a>
@@ -225,6 +238,73 @@ public class SymbolTableTest {
         symbolTable.close();
     }
 
+    @Test
+    public void concurrent_allocation_assigns_one_id_per_symbol() throws Exception {
+        final Path tmpDir = createTempDir();
+        SymbolTable symbolTable = createSymbolTable(tmpDir);
+
+        final int threads = 8;
+        final int symbols = 500;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Callable<short[]>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final SymbolTable table = symbolTable;
+            tasks.add(() -> {
+                start.await();
+                final short[] ids = new short[symbols];
+                for (int i = 0; i < symbols; i++) {
+                    ids[i] = table.getSymbol("name-" + i);
+                    assertEquals("name-" + i, table.getName(ids[i]));
+                }
+                return ids;
+            });
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        final short[] expected;
+        try {
+            final List<Future<short[]>> futures = new ArrayList<>();
+            for (final Callable<short[]> task : tasks) {
+                futures.add(executorService.submit(task));
+            }
+            start.countDown();
+
+            expected = futures.get(0).get();
+            for (final Future<short[]> future : futures) {
+                assertArrayEquals(expected, future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        symbolTable.close();
+
+        symbolTable = createSymbolTable(tmpDir);
+        for (int i = 0; i < symbols; i++) {
+            assertEquals("name-" + i, symbolTable.getName(expected[i]));
+        }
+        symbolTable.close();
+    }
+
+    @Test
+    public void qnames_are_shared_between_threads() throws Exception {
+        final SymbolTable symbolTable = createSymbolTable(createTempDir());
+        final QName element = symbolTable.getQName(Node.ELEMENT_NODE, "http://example.com", "name", "ex");
+        assertSame(element, symbolTable.getQName(Node.ELEMENT_NODE, "http://example.com", "name", "ex"));
+
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            assertSame(element, executorService.submit(() -> symbolTable.getQName(Node.ELEMENT_NODE, "http://example.com", "name", "ex")).get());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        final QName attribute = symbolTable.getQName(Node.ATTRIBUTE_NODE, "http://example.com", "name", "ex");
+        assertNotSame(element, attribute);
+        assertEquals(ElementValue.ATTRIBUTE, attribute.getNameType());
+        assertEquals(ElementValue.ELEMENT, element.getNameType());
+        symbolTable.close();
+    }
+
     private static Path createTempDir() throws IOException {
         return Files.createTempDirectory("exist-symbolTableTest");
     }
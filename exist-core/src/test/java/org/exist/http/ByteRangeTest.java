@@ -0,0 +1,106 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.http;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangeTest {
+
+    @Test
+    public void singleRange() {
+        assertEquals(List.of(new ByteRange(0, 499)), ByteRange.parse("bytes=0-499", 10_000));
+    }
+
+    @Test
+    public void lastBytePosBeyondLength() {
+        assertEquals(List.of(new ByteRange(9_500, 9_999)), ByteRange.parse("bytes=9500-20000", 10_000));
+    }
+
+    @Test
+    public void openRange() {
+        assertEquals(List.of(new ByteRange(9_500, 9_999)), ByteRange.parse("bytes=9500-", 10_000));
+    }
+
+    @Test
+    public void suffixRange() {
+        assertEquals(List.of(new ByteRange(9_500, 9_999)), ByteRange.parse("bytes=-500", 10_000));
+        assertEquals(List.of(new ByteRange(0, 99)), ByteRange.parse("bytes=-500", 100));
+    }
+
+    @Test
+    public void multipleRangesAreSortedAndCoalesced() {
+        assertEquals(
+                List.of(new ByteRange(0, 199), new ByteRange(500, 599)),
+                ByteRange.parse("bytes=500-599, 100-199, 0-99, 50-120", 10_000));
+    }
+
+    @Test
+    public void unsatisfiable() {
+        final List<ByteRange> ranges = ByteRange.parse("bytes=10000-", 10_000);
+        assertTrue(ranges != null && ranges.isEmpty());
+
+        final List<ByteRange> suffixRanges = ByteRange.parse("bytes=-0", 10_000);
+        assertTrue(suffixRanges != null && suffixRanges.isEmpty());
+    }
+
+    @Test
+    public void partiallySatisfiable() {
+        assertEquals(List.of(new ByteRange(0, 9)), ByteRange.parse("bytes=0-9,20000-30000", 10_000));
+    }
+
+    @Test
+    public void ignored() {
+        assertNull(ByteRange.parse(null, 10_000));
+        assertNull(ByteRange.parse("bytes=", 10_000));
+        assertNull(ByteRange.parse("items=0-1", 10_000));
+        assertNull(ByteRange.parse("bytes=1-0", 10_000));
+        assertNull(ByteRange.parse("bytes=a-b", 10_000));
+        assertNull(ByteRange.parse("bytes=0-1-2", 10_000));
+        assertNull(ByteRange.parse("bytes=+1-2", 10_000));
+    }
+
+    @Test
+    public void tooManyRangesAreIgnored() {
+        final StringBuilder range = new StringBuilder(ByteRange.UNIT).append('=');
+        for (int i = 0; i <= ByteRange.MAX_RANGES; i++) {
+            if (i > 0) {
+                range.append(',');
+            }
+            range.append(i * 10).append('-').append(i * 10 + 1);
+        }
+        assertNull(ByteRange.parse(range.toString(), 10_000));
+    }
+
+    @Test
+    public void contentRange() {
+        assertEquals("bytes 0-499/10000", new ByteRange(0, 499).toContentRange(10_000));
+        assertEquals(500, new ByteRange(0, 499).length());
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.http;
+
+import org.apache.commons.codec.binary.Base64;
+import org.eclipse.jetty.http.HttpStatus;
+import org.exist.test.ExistWebServer;
+import org.exist.xmldb.XmldbURI;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for byte ranges and conditional requests of binary resources
+ * served by the REST Server.
+ */
+public class RESTServerBinaryResourceTest {
+
+    @ClassRule
+    public static final ExistWebServer existWebServer = new ExistWebServer(true, false, true, true);
+
+    private static final byte[] CONTENT = new byte[100];
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    private static String credentials;
+
+    private static String getResourceUri() {
+        return "http://localhost:" + existWebServer.getPort() + "/rest" + XmldbURI.ROOT_COLLECTION + "/test-byte-ranges/data.bin";
+    }
+
+    @BeforeClass
+    public static void storeBinaryResource() throws IOException {
+        credentials = Base64.encodeBase64String("admin:".getBytes(UTF_8));
+
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestMethod("PUT");
+            connect.setDoOutput(true);
+            connect.setRequestProperty("Content-Type", "application/octet-stream");
+            try (final OutputStream os = connect.getOutputStream()) {
+                os.write(CONTENT);
+            }
+
+            final int responseCode = connect.getResponseCode();
+            assertEquals("Server returned response code " + responseCode, HttpStatus.CREATED_201, responseCode);
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void getWithoutRange() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            assertEquals(HttpStatus.OK_200, connect.getResponseCode());
+            assertEquals(ByteRange.UNIT, connect.getHeaderField("Accept-Ranges"));
+            assertNotNull(connect.getHeaderField("ETag"));
+            assertArrayEquals(CONTENT, readBody(connect.getInputStream()));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void singleRange() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("Range", "bytes=10-19");
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT_206, connect.getResponseCode());
+            assertEquals("bytes 10-19/100", connect.getHeaderField("Content-Range"));
+            assertEquals("10", connect.getHeaderField("Content-Length"));
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 10, 20), readBody(connect.getInputStream()));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void multipleRanges() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("Range", "bytes=0-9,50-59");
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT_206, connect.getResponseCode());
+            final String contentType = connect.getContentType();
+            assertThat(contentType, startsWith("multipart/byteranges; boundary="));
+            final String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+
+            final byte[] body = readBody(connect.getInputStream());
+            assertEquals(Long.toString(body.length), connect.getHeaderField("Content-Length"));
+
+            // NOTE: ISO-8859-1 maps each byte to exactly one char, so the binary parts can be compared as Strings
+            final String multipart = new String(body, ISO_8859_1);
+            assertThat(multipart, startsWith("\r\n--" + boundary + "\r\n"));
+            assertThat(multipart, containsString("Content-Range: bytes 0-9/100\r\n"
+                    + "\r\n"
+                    + new String(CONTENT, 0, 10, ISO_8859_1)));
+            assertThat(multipart, containsString("Content-Range: bytes 50-59/100\r\n"
+                    + "\r\n"
+                    + new String(CONTENT, 50, 10, ISO_8859_1)));
+            assertTrue(multipart.endsWith("\r\n--" + boundary + "--\r\n"));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void unsatisfiableRange() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("Range", "bytes=1000-");
+
+            assertEquals(HttpStatus.RANGE_NOT_SATISFIABLE_416, connect.getResponseCode());
+            assertEquals("bytes */100", connect.getHeaderField("Content-Range"));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void ifNoneMatch() throws IOException {
+        final String entityTag = getEntityTag();
+
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("If-None-Match", entityTag);
+
+            assertEquals(HttpStatus.NOT_MODIFIED_304, connect.getResponseCode());
+            assertEquals(entityTag, connect.getHeaderField("ETag"));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void ifNoneMatchMismatch() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("If-None-Match", "\"other\"");
+
+            assertEquals(HttpStatus.OK_200, connect.getResponseCode());
+            assertArrayEquals(CONTENT, readBody(connect.getInputStream()));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void ifRangeMatch() throws IOException {
+        final String entityTag = getEntityTag();
+
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("Range", "bytes=90-");
+            connect.setRequestProperty("If-Range", entityTag);
+
+            assertEquals(HttpStatus.PARTIAL_CONTENT_206, connect.getResponseCode());
+            assertEquals("bytes 90-99/100", connect.getHeaderField("Content-Range"));
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 90, 100), readBody(connect.getInputStream()));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void ifRangeMismatch() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            connect.setRequestProperty("Range", "bytes=90-");
+            connect.setRequestProperty("If-Range", "\"other\"");
+
+            assertEquals(HttpStatus.OK_200, connect.getResponseCode());
+            assertNull(connect.getHeaderField("Content-Range"));
+            assertArrayEquals(CONTENT, readBody(connect.getInputStream()));
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    @Test
+    public void entityTagMatches() {
+        assertTrue(RESTServer.entityTagMatches("*", "\"abc\"", false));
+        assertTrue(RESTServer.entityTagMatches("\"xyz\", \"abc\"", "\"abc\"", false));
+        assertTrue(RESTServer.entityTagMatches("W/\"abc\"", "\"abc\"", false));
+        assertFalse(RESTServer.entityTagMatches("W/\"abc\"", "\"abc\"", true));
+        assertFalse(RESTServer.entityTagMatches("\"xyz\"", "\"abc\"", false));
+    }
+
+    private static String getEntityTag() throws IOException {
+        final HttpURLConnection connect = getConnection();
+        try {
+            assertEquals(HttpStatus.OK_200, connect.getResponseCode());
+            final String entityTag = connect.getHeaderField("ETag");
+            assertNotNull(entityTag);
+            return entityTag;
+        } finally {
+            connect.disconnect();
+        }
+    }
+
+    private static byte[] readBody(final InputStream is) throws IOException {
+        try (is) {
+            return is.readAllBytes();
+        }
+    }
+
+    private static HttpURLConnection getConnection() throws IOException {
+        final HttpURLConnection connect = (HttpURLConnection) new URL(getResourceUri()).openConnection();
+        connect.setRequestProperty("Authorization", "Basic " + credentials);
+        return connect;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.http.urlrewrite;
+
+import org.easymock.EasyMock;
+import org.exist.EXistException;
+import org.exist.security.PermissionDeniedException;
+import org.exist.source.Source;
+import org.junit.Test;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class URLCacheTest {
+
+    private record Entry(String name, Source controller) {
+    }
+
+    @Test
+    public void hitsAndMisses() throws EXistException, PermissionDeniedException {
+        final Source controller = controller(1);
+        final URLCache<Entry> cache = new URLCache<>(10, 0, Entry::controller);
+        final Entry entry = new Entry("a", controller);
+        cache.put("localhost/a", entry);
+
+        assertNull(cache.get("localhost/b", c -> true));
+        assertSame(entry, cache.get("localhost/a", c -> true));
+        assertSame(entry, cache.get("localhost/a", c -> true));
+
+        final URLCache.Statistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(3, statistics.getRequestCount());
+        assertEquals(2.0 / 3.0, statistics.getHitRate(), 0.0001);
+        assertEquals(0, statistics.getInvalidationCount());
+        assertEquals(0, statistics.getEvictionCount());
+    }
+
+    @Test
+    public void staleControllerInvalidatesAllItsEntries() throws EXistException, PermissionDeniedException {
+        final Source staleController = controller(1);
+        final Source controller = controller(2);
+        final URLCache<Entry> cache = new URLCache<>(10, 0, Entry::controller);
+        cache.put("localhost/a", new Entry("a", staleController));
+        cache.put("localhost/b", new Entry("b", staleController));
+        final Entry entry = new Entry("c", controller);
+        cache.put("localhost/c", entry);
+
+        final URLCache.ControllerValidator validator = c -> c != staleController;
+        assertNull(cache.get("localhost/a", validator));
+
+        // the other entry of the stale controller was also removed
+        assertEquals(1, cache.getSize());
+        assertNull(cache.get("localhost/b", validator));
+        assertSame(entry, cache.get("localhost/c", validator));
+
+        final URLCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(2, statistics.getMissCount());
+        assertEquals(2, statistics.getInvalidationCount());
+        assertEquals(0, statistics.getEvictionCount());
+    }
+
+    @Test
+    public void sizeBoundedEviction() throws EXistException, PermissionDeniedException {
+        final Source controller = controller(1);
+        final URLCache<Entry> cache = new URLCache<>(2, 0, Entry::controller, Runnable::run);
+        for (int i = 0; i < 5; i++) {
+            cache.put("localhost/" + i, new Entry(Integer.toString(i), controller));
+        }
+        cache.cleanUp();
+
+        assertEquals(2, cache.getMaxSize());
+        assertEquals(2, cache.getSize());
+
+        final URLCache.Statistics statistics = cache.getStatistics();
+        assertEquals(3, statistics.getEvictionCount());
+        assertEquals(0, statistics.getInvalidationCount());
+    }
+
+    @Test
+    public void invalidateAll() throws EXistException, PermissionDeniedException {
+        final URLCache<Entry> cache = new URLCache<>(10, 0, Entry::controller);
+        cache.put("localhost/a", new Entry("a", controller(1)));
+        cache.put("localhost/b", new Entry("b", controller(2)));
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get("localhost/a", c -> true));
+    }
+
+    private static Source controller(final long key) {
+        final Source controller = EasyMock.createMock(Source.class);
+        expect(controller.getKey()).andStubReturn(key);
+        replay(controller);
+        return controller;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.http.urlrewrite;
+
+import jakarta.servlet.ServletConfig;
+import org.easymock.EasyMock;
+import org.exist.storage.BrokerPool;
+import org.exist.test.ExistEmbeddedServer;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class XQueryURLRewriteCacheMBeanTest {
+
+    private static final String SERVLET_NAME = "XQueryURLRewriteCacheMBeanTest";
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(true, true);
+
+    @Test
+    public void registeredUntilDestroyed() throws JMException {
+        final ServletConfig mockServletConfig = EasyMock.createNiceMock(ServletConfig.class);
+        expect(mockServletConfig.getServletName()).andStubReturn(SERVLET_NAME);
+        expect(mockServletConfig.getInitParameter("url-cache-size")).andReturn("10");
+        replay(mockServletConfig);
+
+        final XQueryURLRewrite rewriter = new XQueryURLRewrite();
+        rewriter.init(mockServletConfig);
+
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        rewriter.registerUrlCacheMBean(pool);
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName("org.exist.management." + pool.getId() + ":type=URLRewriteCache,name=" + ObjectName.quote(SERVLET_NAME));
+        assertTrue(server.isRegistered(name));
+        assertEquals(SERVLET_NAME, server.getAttribute(name, "ServletName"));
+        assertEquals(10, server.getAttribute(name, "MaxCacheSize"));
+        assertEquals(0L, server.getAttribute(name, "Size"));
+        final CompositeData statistics = (CompositeData) server.getAttribute(name, "Statistics");
+        assertEquals(0L, statistics.get("requestCount"));
+        assertEquals(0L, statistics.get("invalidationCount"));
+
+        rewriter.destroy();
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Map;
 
 import com.googlecode.junittoolbox.ParallelRunner;
 import org.easymock.EasyMock;
+import jakarta.servlet.ServletConfig;
 import jakarta.servlet.http.HttpServletRequest;
 import org.exist.http.urlrewrite.XQueryURLRewrite.RequestWrapper;
 import org.junit.Test;
@@ -85,6 +86,38 @@ public class XQueryURLRewriteTest
         assertEquals(adjustedPath, "xquery/functions.xql");
     }
 
+    @Test
+    public void init_urlCacheParams() {
+        final ServletConfig mockServletConfig = EasyMock.createNiceMock(ServletConfig.class);
+        expect(mockServletConfig.getInitParameter("url-cache-size")).andReturn("10");
+        expect(mockServletConfig.getInitParameter("url-cache-expiry")).andReturn("5000");
+        replay(mockServletConfig);
+
+        final XQueryURLRewrite rewriter = new XQueryURLRewrite();
+        rewriter.init(mockServletConfig);
+        verify(mockServletConfig);
+
+        assertEquals(10, rewriter.getUrlCacheMaxSize());
+        assertEquals(5000, rewriter.getUrlCacheExpiry());
+        assertEquals(0, rewriter.getUrlCacheSize());
+        assertEquals(0, rewriter.getUrlCacheStatistics().getRequestCount());
+    }
+
+    @Test
+    public void init_invalidUrlCacheParams() {
+        final ServletConfig mockServletConfig = EasyMock.createNiceMock(ServletConfig.class);
+        expect(mockServletConfig.getInitParameter("url-cache-size")).andReturn("lots");
+        expect(mockServletConfig.getInitParameter("url-cache-expiry")).andReturn("-1");
+        replay(mockServletConfig);
+
+        final XQueryURLRewrite rewriter = new XQueryURLRewrite();
+        rewriter.init(mockServletConfig);
+        verify(mockServletConfig);
+
+        assertEquals(XQueryURLRewrite.DEFAULT_URL_CACHE_SIZE, rewriter.getUrlCacheMaxSize());
+        assertEquals(0, rewriter.getUrlCacheExpiry());
+    }
+
     @Test
     public void requestWrapper_copiesRequestParams() {
 
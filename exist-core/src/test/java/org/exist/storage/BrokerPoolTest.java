@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -187,6 +214,59 @@ public class BrokerPoolTest {
         }
     }
 
+    /**
+     * Checks that a lease which has to wait for a broker
+     * to be released is recorded in the lease wait metrics.
+     */
+    @Test
+    public void leaseWaitIsRecordedWhenSaturated() throws InterruptedException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final int maxBrokers = pool.getMax();
+        final long leaseWaitsBefore = pool.getBrokerLeaseWaits();
+
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final Thread brokerUsers[] = new Thread[maxBrokers];
+        try {
+            // lease all brokers
+            final CountDownLatch acquiredLatch = new CountDownLatch(maxBrokers);
+            for (int i = 0; i < maxBrokers; i++) {
+                brokerUsers[i] = new Thread(new BrokerUser(pool, acquiredLatch, releaseLatch));
+                brokerUsers[i].start();
+            }
+            acquiredLatch.await();
+            assertEquals(0, pool.available());
+            assertEquals(0, pool.countWaitingForBroker());
+
+            // attempt to get an additional broker, which has to wait
+            final CountDownLatch additionalBrokerAcquiredLatch = new CountDownLatch(1);
+            final Thread additionalBrokerUser = new Thread(new BrokerUser(pool, additionalBrokerAcquiredLatch, new CountDownLatch(0)), "additional-brokerUser");
+            additionalBrokerUser.start();
+            while (pool.countWaitingForBroker() == 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, pool.countWaitingForBroker());
+            Thread.sleep(100);  // ensure that the wait is measurable
+
+            // release the leased brokers, the additional lease should now advance
+            releaseLatch.countDown();
+            additionalBrokerUser.join();
+
+            assertEquals(0, additionalBrokerAcquiredLatch.getCount());
+            assertEquals(0, pool.countWaitingForBroker());
+            assertEquals(leaseWaitsBefore + 1, pool.getBrokerLeaseWaits());
+            assertTrue(pool.getBrokerLeaseMaxWaitTime() >= 100);
+            assertTrue(pool.getBrokerLeaseWaitTime() >= pool.getBrokerLeaseMaxWaitTime());
+
+        } finally {
+            releaseLatch.countDown();
+            for (final Thread brokerUser : brokerUsers) {
+                if (brokerUser != null) {
+                    brokerUser.join();
+                }
+            }
+        }
+    }
+
     public static class BrokerUser implements Runnable {
 
         final BrokerPool brokerPool;
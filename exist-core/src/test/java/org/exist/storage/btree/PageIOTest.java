@@ -0,0 +1,151 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.btree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(Parameterized.class)
+public class PageIOTest {
+
+    @Parameters(name = "{0}")
+    public static java.util.Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {
+                { PageIO.Type.RANDOM_ACCESS },
+                { PageIO.Type.POSITIONAL },
+                { PageIO.Type.MAPPED }
+        });
+    }
+
+    @Parameter
+    public PageIO.Type pageIOType;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void readBeyondEndOfFileIsZeroFilled() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        try (final PageIO pageIO = pageIOType.create(new RandomAccessFile(file.toFile(), "rw"), false)) {
+            final byte[] buf = new byte[16];
+            Arrays.fill(buf, (byte) 1);
+            pageIO.read(4096, buf, 0, buf.length);
+            assertArrayEquals(new byte[16], buf);
+        }
+    }
+
+    @Test
+    public void writeThenRead() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        try (final PageIO pageIO = pageIOType.create(new RandomAccessFile(file.toFile(), "rw"), false)) {
+            final byte[] page1 = page(4096, (byte) 1);
+            final byte[] page2 = page(4096, (byte) 2);
+            pageIO.write(0, page1, 0, page1.length);
+            pageIO.write(4096, page2, 0, page2.length);
+            assertEquals(8192, pageIO.size());
+
+            final byte[] buf = new byte[4096];
+            pageIO.read(4096, buf, 0, buf.length);
+            assertArrayEquals(page2, buf);
+            pageIO.read(0, buf, 0, buf.length);
+            assertArrayEquals(page1, buf);
+
+            // partial read across the page boundary
+            final byte[] straddle = new byte[4];
+            pageIO.read(4094, straddle, 0, straddle.length);
+            assertArrayEquals(new byte[] {1, 1, 2, 2}, straddle);
+        }
+    }
+
+    @Test
+    public void writesAreVisibleAfterReopen() throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        final byte[] page = page(4096, (byte) 7);
+        try (final PageIO pageIO = pageIOType.create(new RandomAccessFile(file.toFile(), "rw"), false)) {
+            pageIO.write(4096, page, 0, page.length);
+        }
+
+        try (final PageIO pageIO = pageIOType.create(new RandomAccessFile(file.toFile(), "r"), true)) {
+            assertEquals(8192, pageIO.size());
+            final byte[] buf = new byte[4096];
+            pageIO.read(4096, buf, 0, buf.length);
+            assertArrayEquals(page, buf);
+            pageIO.read(0, buf, 0, buf.length);
+            assertArrayEquals(new byte[4096], buf);
+        }
+    }
+
+    @Test
+    public void mappedRegionsGrowWithFile() throws IOException {
+        assumeTrue(pageIOType == PageIO.Type.MAPPED);
+
+        final Path file = temporaryFolder.newFile().toPath();
+        final int regionSize = 8192;
+        try (final MappedPageIO pageIO = new MappedPageIO(new RandomAccessFile(file.toFile(), "rw"), false, regionSize)) {
+            assertEquals(0, pageIO.getMappedRegions());
+
+            // write through the tail of the file, completing the first region
+            final byte[] page1 = page(4096, (byte) 1);
+            final byte[] page2 = page(4096, (byte) 2);
+            pageIO.write(0, page1, 0, page1.length);
+            assertEquals(0, pageIO.getMappedRegions());
+            pageIO.write(4096, page2, 0, page2.length);
+            assertEquals(1, pageIO.getMappedRegions());
+
+            // overwrite within the mapped region, and read it back from the mapping
+            final byte[] page3 = page(4096, (byte) 3);
+            pageIO.write(4096, page3, 0, page3.length);
+            final byte[] buf = new byte[4096];
+            pageIO.read(4096, buf, 0, buf.length);
+            assertArrayEquals(page3, buf);
+
+            // read across the boundary of the mapped region and the unmapped tail
+            final byte[] page4 = page(4096, (byte) 4);
+            pageIO.write(8192, page4, 0, page4.length);
+            assertEquals(1, pageIO.getMappedRegions());
+            final byte[] straddle = new byte[4];
+            pageIO.read(8190, straddle, 0, straddle.length);
+            assertArrayEquals(new byte[] {3, 3, 4, 4}, straddle);
+        }
+    }
+
+    private static byte[] page(final int size, final byte value) {
+        final byte[] page = new byte[size];
+        Arrays.fill(page, value);
+        return page;
+    }
+}
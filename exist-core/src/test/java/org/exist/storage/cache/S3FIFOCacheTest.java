@@ -0,0 +1,241 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class S3FIFOCacheTest {
+
+    @Test
+    public void addAndGet() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 10, 0.0, 1.0, Cache.CacheType.DATA);
+        final TestCacheable item = new TestCacheable(1);
+        cache.add(item);
+
+        assertSame(item, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getFails());
+        assertEquals(1, cache.getUsedBuffers());
+    }
+
+    @Test
+    public void evictsWhenFull() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 10, 0.0, 1.0, Cache.CacheType.DATA);
+        for (int i = 0; i < 100; i++) {
+            cache.add(new TestCacheable(i));
+            assertTrue(cache.getUsedBuffers() <= 10);
+        }
+        assertEquals(10, cache.getUsedBuffers());
+    }
+
+    @Test
+    public void evictedItemsAreSynced() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 1, 0.0, 1.0, Cache.CacheType.DATA);
+        final TestCacheable item1 = new TestCacheable(1);
+        cache.add(item1);
+        cache.add(new TestCacheable(2));
+
+        assertNull(cache.get(1));
+        assertTrue(item1.synced);
+    }
+
+    @Test
+    public void scanDoesNotEvictHotItems() {
+        final int size = 100;
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", size, 0.0, 1.0, Cache.CacheType.DATA);
+
+        // a working set of hot items, each accessed several times
+        final int hot = size / 2;
+        for (int i = 0; i < hot; i++) {
+            cache.add(new TestCacheable(i));
+            cache.get(i);
+            cache.get(i);
+        }
+
+        // a scan of items which are each accessed only once
+        for (int i = 0; i < size * 10; i++) {
+            final long key = 1_000 + i;
+            if (cache.get(key) == null) {
+                cache.add(new TestCacheable(key));
+            }
+        }
+
+        for (int i = 0; i < hot; i++) {
+            assertNotNull("hot item " + i + " was evicted by the scan", cache.get(i));
+        }
+    }
+
+    @Test
+    public void itemsWhichDisallowUnloadAreNotEvicted() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 2, 0.0, 1.0, Cache.CacheType.DATA);
+        final TestCacheable pinned = new TestCacheable(1);
+        pinned.allowUnload = false;
+        cache.add(pinned);
+
+        for (int i = 2; i < 20; i++) {
+            cache.add(new TestCacheable(i));
+        }
+
+        assertSame(pinned, cache.get(1));
+        assertFalse(pinned.synced);
+    }
+
+    @Test
+    public void remove() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 10, 0.0, 1.0, Cache.CacheType.DATA);
+        for (int i = 0; i < 10; i++) {
+            cache.add(new TestCacheable(i));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            cache.remove(new TestCacheable(i));
+        }
+
+        assertEquals(5, cache.getUsedBuffers());
+        for (int i = 0; i < 10; i++) {
+            if (i % 2 == 0) {
+                assertNull(cache.get(i));
+            } else {
+                assertNotNull(cache.get(i));
+            }
+        }
+
+        // the freed space can be reused
+        for (int i = 10; i < 15; i++) {
+            cache.add(new TestCacheable(i));
+        }
+        assertEquals(10, cache.getUsedBuffers());
+    }
+
+    @Test
+    public void resize() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 10, 1.5, 0.0, Cache.CacheType.DATA);
+        for (int i = 0; i < 10; i++) {
+            cache.add(new TestCacheable(i));
+        }
+
+        cache.resize(5);
+        assertEquals(5, cache.getBuffers());
+        assertEquals(5, cache.getUsedBuffers());
+
+        cache.resize(20);
+        for (int i = 10; i < 30; i++) {
+            cache.add(new TestCacheable(i));
+        }
+        assertEquals(20, cache.getBuffers());
+        assertEquals(20, cache.getUsedBuffers());
+    }
+
+    @Test
+    public void replacedDirtyItemIsSynced() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 10, 0.0, 1.0, Cache.CacheType.DATA);
+        final TestCacheable item = new TestCacheable(1);
+        item.dirty = true;
+        cache.add(item);
+
+        final TestCacheable replacement = new TestCacheable(1);
+        cache.add(replacement);
+
+        assertTrue(item.synced);
+        assertSame(replacement, cache.get(1));
+        assertEquals(1, cache.getUsedBuffers());
+    }
+
+    @Test
+    public void replacedCleanItemIsNotSynced() {
+        final S3FIFOCache<TestCacheable> cache = new S3FIFOCache<>("test", 10, 0.0, 1.0, Cache.CacheType.DATA);
+        final TestCacheable item = new TestCacheable(1);
+        cache.add(item);
+        cache.add(new TestCacheable(1));
+
+        assertFalse(item.synced);
+    }
+
+    private static class TestCacheable implements Cacheable {
+        private final long key;
+        private int refCount = 0;
+        private int timestamp = 0;
+        boolean allowUnload = true;
+        boolean synced = false;
+        boolean dirty = false;
+
+        TestCacheable(final long key) {
+            this.key = key;
+        }
+
+        @Override
+        public long getKey() {
+            return key;
+        }
+
+        @Override
+        public int getReferenceCount() {
+            return refCount;
+        }
+
+        @Override
+        public int incReferenceCount() {
+            return ++refCount;
+        }
+
+        @Override
+        public int decReferenceCount() {
+            return refCount > 0 ? --refCount : 0;
+        }
+
+        @Override
+        public void setReferenceCount(final int count) {
+            this.refCount = count;
+        }
+
+        @Override
+        public void setTimestamp(final int timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public int getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean sync(final boolean syncJournal) {
+            synced = true;
+            dirty = false;
+            return true;
+        }
+
+        @Override
+        public boolean allowUnload() {
+            return allowUnload;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return dirty;
+        }
+    }
+}
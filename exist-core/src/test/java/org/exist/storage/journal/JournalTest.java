@@ -28,6 +28,8 @@ import org.easymock.CaptureType;
 import org.exist.EXistException;
 import org.exist.scheduler.Scheduler;
 import org.exist.storage.BrokerPool;
+import org.exist.storage.txn.TransactionManager;
+import org.exist.storage.txn.TxnCommit;
 import org.exist.util.Configuration;
 import org.exist.util.FileUtils;
 import org.exist.util.ReadOnlyException;
@@ -41,9 +43,14 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -414,6 +421,66 @@ public class JournalTest {
         verify(mockBrokerPool, mockConfiguration);
     }
 
+    @Test
+    public void writeToLogAndSyncGroupsConcurrentCommits() throws EXistException, IOException, ReadOnlyException, InterruptedException, ExecutionException {
+        final BrokerPool mockBrokerPool = mock(BrokerPool.class);
+        final Configuration mockConfiguration = mock(Configuration.class);
+        final Scheduler mockScheduler = createNiceMock(Scheduler.class);
+        final TransactionManager mockTransactionManager = createNiceMock(TransactionManager.class);
+        expect(mockBrokerPool.getConfiguration()).andReturn(mockConfiguration);
+        expect(mockConfiguration.getProperty(Journal.PROPERTY_RECOVERY_SYNC_ON_COMMIT, Journal.DEFAULT_SYNC_ON_COMMIT)).andReturn(true);
+        expect(mockConfiguration.getProperty(Journal.PROPERTY_RECOVERY_JOURNAL_DIR)).andReturn(null);
+        expect(mockConfiguration.getProperty(Journal.PROPERTY_RECOVERY_SIZE_MIN, Journal.DEFAULT_MIN_SIZE)).andReturn(Journal.DEFAULT_MIN_SIZE);
+        expect(mockConfiguration.getProperty(Journal.PROPERTY_RECOVERY_SIZE_LIMIT, Journal.DEFAULT_MAX_SIZE)).andReturn(Journal.DEFAULT_MAX_SIZE);
+        expect(mockBrokerPool.getScheduler()).andReturn(mockScheduler);
+        expect(mockBrokerPool.getTransactionManager()).andReturn(mockTransactionManager).anyTimes();
+
+        replay(mockBrokerPool, mockConfiguration, mockTransactionManager);
+
+        final Path tempJournalDir = TEMPORARY_FOLDER.newFolder().toPath();
+        Files.createDirectories(tempJournalDir);
+        assertTrue(Files.exists(tempJournalDir));
+
+        final Journal journal = new Journal(mockBrokerPool, tempJournalDir);
+        journal.initialize();
+        journal.switchFiles();
+
+        final int threads = 8;
+        final int commitsPerThread = 50;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<List<Lsn>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final long firstTxnId = i * commitsPerThread;
+                futures.add(executorService.submit(() -> {
+                    final List<Lsn> lsns = new ArrayList<>();
+                    for (int j = 0; j < commitsPerThread; j++) {
+                        final TxnCommit txnCommit = new TxnCommit(firstTxnId + j);
+                        journal.writeToLogAndSync(txnCommit);
+
+                        // once the commit returns, its entry must have been written to the file
+                        assertTrue(journal.lastWrittenLsn().compareTo(txnCommit.getLsn()) >= 0);
+                        lsns.add(txnCommit.getLsn());
+                    }
+                    return lsns;
+                }));
+            }
+
+            for (final Future<List<Lsn>> future : futures) {
+                assertEquals(commitsPerThread, future.get().size());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(threads * commitsPerThread, journal.getGroupCommitCount());
+        final long syncs = journal.getGroupCommitSyncCount();
+        assertTrue(syncs > 0);
+        assertTrue(syncs <= threads * commitsPerThread);
+
+        verify(mockBrokerPool, mockConfiguration);
+    }
+
     private static Path createTempDirWithFiles(final List<String> fileNames) throws IOException {
         final Path tempFolder = TEMPORARY_FOLDER.newFolder().toPath();
         Files.createDirectories(tempFolder);
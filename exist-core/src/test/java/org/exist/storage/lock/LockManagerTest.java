@@ -36,7 +36,7 @@ import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Stack;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.junit.Assert.*;
 
@@ -677,19 +677,19 @@ public class LockManagerTest {
     public void getBtreeLock_isStripedByPath() {
         final LockManager lockManager = new LockManager(CONCURRENCY_LEVEL);
 
-        final ReentrantLock btree1Lock1 = lockManager.getBTreeLock("btree1.dbx");
+        final ReentrantReadWriteLock btree1Lock1 = lockManager.getBTreeLock("btree1.dbx");
         assertNotNull(btree1Lock1);
 
-        final ReentrantLock btree1Lock2 = lockManager.getBTreeLock("btree1.dbx");
+        final ReentrantReadWriteLock btree1Lock2 = lockManager.getBTreeLock("btree1.dbx");
         assertNotNull(btree1Lock2);
 
         assertTrue(btree1Lock1 == btree1Lock2);
 
-        final ReentrantLock btree2Lock = lockManager.getBTreeLock("btree2.dbx");
+        final ReentrantReadWriteLock btree2Lock = lockManager.getBTreeLock("btree2.dbx");
         assertNotNull(btree2Lock);
         assertFalse(btree1Lock1 == btree2Lock);
 
-        final ReentrantLock btree3Lock = lockManager.getBTreeLock("btree3.dbx");
+        final ReentrantReadWriteLock btree3Lock = lockManager.getBTreeLock("btree3.dbx");
         assertNotNull(btree3Lock);
         assertFalse(btree1Lock1 == btree3Lock);
 
@@ -707,7 +707,7 @@ public class LockManagerTest {
 
         final LockManager lockManager = new LockManager(CONCURRENCY_LEVEL);
         final Stack<LockAction> events = recordLockEvents(lockManager, () -> {
-            try (final ManagedLock<ReentrantLock> btree1Lock
+            try (final ManagedLock<ReentrantReadWriteLock> btree1Lock
                          = lockManager.acquireBtreeReadLock(btree1Name)) {
                 assertNotNull(btree1Lock);
             }
@@ -743,7 +743,7 @@ public class LockManagerTest {
 
         final LockManager lockManager = new LockManager(CONCURRENCY_LEVEL);
         final Stack<LockAction> events = recordLockEvents(lockManager, () -> {
-            try (final ManagedLock<ReentrantLock> btree1Lock
+            try (final ManagedLock<ReentrantReadWriteLock> btree1Lock
                          = lockManager.acquireBtreeWriteLock(btree1Name)) {
                 assertNotNull(btree1Lock);
             }
@@ -769,6 +769,73 @@ public class LockManagerTest {
     }
 
 
+    /**
+     * By default a READ lock on a BTree is exclusive.
+     */
+    @Test
+    public void acquireBTreeReadLock_exclusiveByDefault() throws LockException, InterruptedException {
+        final String btree1Name = "btree1.dbx";
+
+        final LockManager lockManager = new LockManager(CONCURRENCY_LEVEL, false);
+        try (final ManagedLock<ReentrantReadWriteLock> btree1Lock = lockManager.acquireBtreeReadLock(btree1Name)) {
+            assertTrue(lockManager.isBtreeLockedForWrite(btree1Name));
+            assertFalse(tryAcquireBtreeReadLockFromOtherThread(lockManager, btree1Name));
+        }
+        assertFalse(lockManager.isBtreeLocked(btree1Name));
+    }
+
+    /**
+     * With multi-reader enabled, READ locks on a BTree are shared,
+     * but are still excluded by the WRITE lock.
+     */
+    @Test
+    public void acquireBTreeReadLock_multiReader() throws LockException, InterruptedException {
+        final String btree1Name = "btree1.dbx";
+
+        final LockManager lockManager = new LockManager(CONCURRENCY_LEVEL, true);
+        try (final ManagedLock<ReentrantReadWriteLock> btree1Lock = lockManager.acquireBtreeReadLock(btree1Name)) {
+            assertTrue(lockManager.isBtreeLocked(btree1Name));
+            assertFalse(lockManager.isBtreeLockedForWrite(btree1Name));
+            assertTrue(tryAcquireBtreeReadLockFromOtherThread(lockManager, btree1Name));
+        }
+
+        try (final ManagedLock<ReentrantReadWriteLock> btree1Lock = lockManager.acquireBtreeWriteLock(btree1Name)) {
+            assertTrue(lockManager.isBtreeLockedForWrite(btree1Name));
+            assertFalse(tryAcquireBtreeReadLockFromOtherThread(lockManager, btree1Name));
+        }
+        assertFalse(lockManager.isBtreeLocked(btree1Name));
+    }
+
+    /**
+     * With multi-reader enabled, a shared READ lock cannot be upgraded
+     * to a WRITE lock, as that would self-deadlock.
+     */
+    @Test(expected = LockException.class)
+    public void acquireBTreeWriteLock_multiReaderUpgrade() throws LockException {
+        final String btree1Name = "btree1.dbx";
+
+        final LockManager lockManager = new LockManager(CONCURRENCY_LEVEL, true);
+        try (final ManagedLock<ReentrantReadWriteLock> btree1ReadLock = lockManager.acquireBtreeReadLock(btree1Name);
+                final ManagedLock<ReentrantReadWriteLock> btree1WriteLock = lockManager.acquireBtreeWriteLock(btree1Name)) {
+            fail("Expected LockException for lock upgrade");
+        }
+    }
+
+    private static boolean tryAcquireBtreeReadLockFromOtherThread(final LockManager lockManager, final String btreeName) throws InterruptedException {
+        final ReentrantReadWriteLock lock = lockManager.getBTreeLock(btreeName);
+        final java.util.concurrent.locks.Lock modeLock = lockManager.isBtreeMultiReader() ? lock.readLock() : lock.writeLock();
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final Thread other = new Thread(() -> {
+            if (modeLock.tryLock()) {
+                acquired.set(true);
+                modeLock.unlock();
+            }
+        });
+        other.start();
+        other.join();
+        return acquired.get();
+    }
+
     private Stack<LockAction> recordLockEvents(final LockManager lockManager, final RunnableE<LockException> runnable) throws LockException{
         final LockTable lockTable = lockManager.getLockTable();
         final LockEventRecordingListener lockEventRecordingListener = new LockEventRecordingListener();
@@ -23,16 +23,43 @@
  */
 package org.exist.storage.statistics;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 
+import org.exist.EXistException;
+import org.exist.dom.QName;
+import org.exist.dom.persistent.SymbolTable;
+import org.exist.security.PermissionDeniedException;
 import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.ElementValue;
 import org.exist.test.ExistEmbeddedServer;
+import org.exist.util.DatabaseConfigurationException;
+import org.exist.xquery.CostModel;
+import org.exist.xquery.GeneralComparison;
+import org.exist.xquery.LiteralValue;
+import org.exist.xquery.LocationStep;
+import org.exist.xquery.NameTest;
+import org.exist.xquery.Predicate;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQuery;
+import org.exist.xquery.XQueryContext;
+import org.exist.xquery.value.StringValue;
+import org.exist.xquery.value.Type;
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 
 import static org.exist.storage.NativeBroker.DEFAULT_DATA_DIR;
+import static org.exist.xquery.Constants.ATTRIBUTE_AXIS;
+import static org.exist.xquery.Constants.Comparison.EQ;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class StatisticsIndexTest {
@@ -48,12 +75,132 @@ public class StatisticsIndexTest {
         configFile = Paths.get(loader.getResource(packagePath + separator + "conf.xml").toURI());
     }
 
+    private static final QName ITEM = new QName("stats-item", "", ElementValue.ELEMENT);
+    private static final QName NAME = new QName("stats-name", "", ElementValue.ELEMENT);
+    private static final QName TYPE = new QName("stats-type", "", ElementValue.ATTRIBUTE);
+    private static final QName ID = new QName("stats-id", "", ElementValue.ATTRIBUTE);
+
     @Rule
     public final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer("db1", configFile, null, true);
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void statsFileExists() {
         final Path dataDir = existEmbeddedServer.getBrokerPool().getConfiguration().getProperty(BrokerPool.PROPERTY_DATA_DIR, Paths.get(DEFAULT_DATA_DIR));
         assertTrue(Files.exists(dataDir.resolve("stats.dbx")));
     }
+
+    @Test
+    public void attributesAndDistinctValues() throws EXistException, PermissionDeniedException, XPathException {
+        final IndexStatistics statistics = getIndexStatistics();
+        final long items = statistics.getNodeCount(ITEM);
+        final long types = statistics.getNodeCount(TYPE);
+
+        storeItems();
+
+        assertEquals(60, statistics.getNodeCount(ITEM) - items);
+        assertEquals(60, statistics.getNodeCount(TYPE) - types);
+        // an attribute is not counted as an element of the same name
+        assertEquals(0, statistics.getNodeCount(new QName(TYPE.getLocalPart(), "", ElementValue.ELEMENT)));
+
+        assertDistinctValues(statistics);
+    }
+
+    @Test
+    public void distinctValuesAfterRestart() throws EXistException, PermissionDeniedException, XPathException, DatabaseConfigurationException, IOException {
+        storeItems();
+        existEmbeddedServer.restart();
+
+        assertDistinctValues(getIndexStatistics());
+    }
+
+    @Test
+    public void selectivity() throws EXistException, PermissionDeniedException, XPathException {
+        storeItems();
+
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            final XQueryContext context = new XQueryContext(pool);
+            final Predicate predicate = new Predicate(context);
+            predicate.add(new GeneralComparison(context,
+                    new LocationStep(context, ATTRIBUTE_AXIS, new NameTest(Type.ATTRIBUTE, TYPE)),
+                    new LiteralValue(context, new StringValue("a")), EQ));
+
+            final CostModel costModel = new CostModel(context);
+            final double selectivity = costModel.estimateSelectivity(predicate);
+            assertTrue("selectivity: " + selectivity, selectivity >= 0.25 && selectivity <= 0.5);
+            assertTrue(costModel.preferIndexPreselection(predicate));
+        }
+    }
+
+    @Test
+    public void readLegacyFormat() throws IOException {
+        final SymbolTable symbols = existEmbeddedServer.getBrokerPool().getSymbols();
+        final Path file = temporaryFolder.newFile("stats.dbx").toPath();
+
+        // one root node without children, as written before attributes and values were recorded
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + 16);
+        buffer.putInt(1);
+        buffer.putShort(symbols.getNSSymbol(""));
+        buffer.putShort(symbols.getSymbol(ITEM.getLocalPart()));
+        buffer.putInt(42);
+        buffer.putInt(1);
+        buffer.putInt(0);
+        buffer.flip();
+        try (final SeekableByteChannel chan = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            chan.write(buffer);
+        }
+
+        final DataGuide dataGuide = new DataGuide();
+        try (final SeekableByteChannel chan = Files.newByteChannel(file)) {
+            dataGuide.read(chan, symbols);
+        }
+        assertEquals(42, dataGuide.getNodeCount(ITEM));
+        assertEquals(-1, dataGuide.getDistinctValueCount(ITEM));
+
+        // and is written in the current format
+        final Path copy = temporaryFolder.newFile("stats-copy.dbx").toPath();
+        try (final SeekableByteChannel chan = Files.newByteChannel(copy, StandardOpenOption.WRITE)) {
+            dataGuide.write(chan, symbols);
+        }
+        final DataGuide copied = new DataGuide();
+        try (final SeekableByteChannel chan = Files.newByteChannel(copy)) {
+            copied.read(chan, symbols);
+        }
+        assertEquals(42, copied.getNodeCount(ITEM));
+    }
+
+    private IndexStatistics getIndexStatistics() {
+        return (IndexStatistics) existEmbeddedServer.getBrokerPool().getIndexManager().getIndexById(IndexStatistics.ID);
+    }
+
+    private void storeItems() throws EXistException, PermissionDeniedException, XPathException {
+        final String query =
+                "xmldb:store('/db', 'stats-items.xml',\n" +
+                "    <stats-items>{\n" +
+                "        for $i in 1 to 60\n" +
+                "        return\n" +
+                "            <stats-item stats-type='{('a', 'b', 'c')[$i mod 3 + 1]}' stats-id='{$i}'>\n" +
+                "                <stats-name>n{$i mod 10}</stats-name>\n" +
+                "            </stats-item>\n" +
+                "    }</stats-items>)";
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final XQuery xquery = pool.getXQueryService();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            xquery.execute(broker, query, null);
+        }
+    }
+
+    private static void assertDistinctValues(final IndexStatistics statistics) {
+        final long types = statistics.getDistinctValueCount(TYPE);
+        assertTrue("distinct types: " + types, types >= 2 && types <= 4);
+        final long ids = statistics.getDistinctValueCount(ID);
+        assertTrue("distinct ids: " + ids, ids >= 45 && ids <= 75);
+        final long names = statistics.getDistinctValueCount(NAME);
+        assertTrue("distinct names: " + names, names >= 8 && names <= 12);
+        // elements with child elements have no values
+        assertEquals(-1, statistics.getDistinctValueCount(ITEM));
+    }
 }
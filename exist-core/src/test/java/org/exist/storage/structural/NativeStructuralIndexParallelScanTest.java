@@ -0,0 +1,172 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.storage.structural;
+
+import org.exist.EXistException;
+import org.exist.collections.Collection;
+import org.exist.dom.QName;
+import org.exist.dom.persistent.DefaultDocumentSet;
+import org.exist.dom.persistent.DocumentSet;
+import org.exist.dom.persistent.NodeProxy;
+import org.exist.dom.persistent.NodeSet;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.ElementValue;
+import org.exist.storage.lock.Lock.LockMode;
+import org.exist.storage.lock.LockManager;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.test.TestConstants;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.exist.xquery.XQueryContext;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.exist.util.PropertiesBuilder.propertiesBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the results of parallel scans of the structural index
+ * with those of sequential scans.
+ */
+public class NativeStructuralIndexParallelScanTest {
+
+    private static final int PARALLEL_SCAN_THRESHOLD = 2;
+    private static final int DOCUMENTS = 40;
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(
+            propertiesBuilder()
+                    .put(LockManager.CONFIGURATION_BTREE_MULTI_READER, true)
+                    .put(XQueryContext.PROPERTY_PARALLEL_SCAN_THRESHOLD, PARALLEL_SCAN_THRESHOLD)
+                    .build(),
+            true,
+            true);
+
+    @BeforeClass
+    public static void storeDocuments() throws EXistException, PermissionDeniedException, IOException, SAXException, LockException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+                final Txn transaction = pool.getTransactionManager().beginTransaction();
+                final Collection collection = broker.getOrCreateCollection(transaction, TestConstants.TEST_COLLECTION_URI)) {
+
+            for (int i = 0; i < DOCUMENTS; i++) {
+                final StringBuilder xml = new StringBuilder("<items>");
+                // some documents have no items at all
+                for (int j = 0; j < i % 7; j++) {
+                    xml.append("<item n='").append(j).append("'><name>").append(i).append('-').append(j).append("</name></item>");
+                }
+                xml.append("</items>");
+                broker.storeDocument(transaction, XmldbURI.create("doc" + i + ".xml"), new StringInputSource(xml.toString()), MimeType.XML_TYPE, collection);
+            }
+
+            transaction.commit();
+        }
+    }
+
+    @Test
+    public void elements() throws EXistException, PermissionDeniedException, LockException {
+        assertParallelScanEqualsSequentialScan(ElementValue.ELEMENT, new QName("item", XMLConstants.NULL_NS_URI));
+        assertParallelScanEqualsSequentialScan(ElementValue.ELEMENT, new QName("name", XMLConstants.NULL_NS_URI));
+    }
+
+    @Test
+    public void attributes() throws EXistException, PermissionDeniedException, LockException {
+        assertParallelScanEqualsSequentialScan(ElementValue.ATTRIBUTE, new QName("n", XMLConstants.NULL_NS_URI, ElementValue.ATTRIBUTE));
+    }
+
+    @Test
+    public void noMatches() throws EXistException, PermissionDeniedException, LockException {
+        assertParallelScanEqualsSequentialScan(ElementValue.ELEMENT, new QName("missing", XMLConstants.NULL_NS_URI));
+    }
+
+    @Test
+    public void rejectedScanFallsBackToSequentialScan() throws EXistException, PermissionDeniedException, LockException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final NativeStructuralIndex index = (NativeStructuralIndex) pool.getIndexManager().getIndexById(NativeStructuralIndex.ID);
+
+        // as when a scan races the closing of the index
+        final ExecutorService closedExecutor = Executors.newSingleThreadExecutor();
+        closedExecutor.shutdown();
+        final ExecutorService scanExecutor = index.scanExecutor;
+        index.scanExecutor = closedExecutor;
+        try {
+            assertParallelScanEqualsSequentialScan(ElementValue.ELEMENT, new QName("item", XMLConstants.NULL_NS_URI));
+        } finally {
+            index.scanExecutor = scanExecutor;
+        }
+    }
+
+    private static void assertParallelScanEqualsSequentialScan(final byte type, final QName qname) throws EXistException, PermissionDeniedException, LockException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final NativeStructuralIndex index = (NativeStructuralIndex) pool.getIndexManager().getIndexById(NativeStructuralIndex.ID);
+        assertNotNull("parallel scans are not enabled", index.scanExecutor);
+
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+                final Collection collection = broker.openCollection(TestConstants.TEST_COLLECTION_URI, LockMode.READ_LOCK)) {
+            final DocumentSet docs = collection.allDocs(broker, new DefaultDocumentSet(), false);
+            assertTrue(docs.getDocumentCount() >= PARALLEL_SCAN_THRESHOLD);
+
+            final NativeStructuralIndexWorker worker = (NativeStructuralIndexWorker) broker.getIndexController().getWorkerByIndexId(NativeStructuralIndex.ID);
+
+            final NodeSet parallel = worker.findElementsByTagName(type, docs, qname, null);
+
+            final NodeSet sequential;
+            final int parallelScanThreshold = index.parallelScanThreshold;
+            index.parallelScanThreshold = 0;
+            try {
+                sequential = worker.findElementsByTagName(type, docs, qname, null);
+            } finally {
+                index.parallelScanThreshold = parallelScanThreshold;
+            }
+
+            assertEquals(sequential.getLength(), parallel.getLength());
+            final Iterator<NodeProxy> expected = sequential.iterator();
+            final Iterator<NodeProxy> actual = parallel.iterator();
+            while (expected.hasNext()) {
+                final NodeProxy expectedNode = expected.next();
+                final NodeProxy actualNode = actual.next();
+                assertEquals(expectedNode.getOwnerDocument().getDocId(), actualNode.getOwnerDocument().getDocId());
+                assertEquals(expectedNode.getNodeId(), actualNode.getNodeId());
+            }
+            assertFalse(actual.hasNext());
+        }
+    }
+}
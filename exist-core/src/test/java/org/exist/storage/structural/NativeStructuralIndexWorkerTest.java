@@ -154,6 +154,68 @@ public class NativeStructuralIndexWorkerTest {
         assertEquals(24, ranges.get(3).end);
     }
 
+    @Test
+    public void partition_evenly() {
+        final NativeStructuralIndexWorker indexWorker = new NativeStructuralIndexWorker(null);
+
+        final DocumentSet docs = documentIdSet(Arrays.asList(1,2,3,4,5,6));
+
+        final List<List<NativeStructuralIndexWorker.Range>> partitions = NativeStructuralIndexWorker.partition(indexWorker.getDocIdRanges(docs), 2);
+
+        assertEquals(3, partitions.size());
+        assertRanges(partitions.get(0), 1, 2);
+        assertRanges(partitions.get(1), 3, 4);
+        assertRanges(partitions.get(2), 5, 6);
+    }
+
+    @Test
+    public void partition_remainder() {
+        final NativeStructuralIndexWorker indexWorker = new NativeStructuralIndexWorker(null);
+
+        final DocumentSet docs = documentIdSet(Arrays.asList(1,2,3,4,5,6,7));
+
+        final List<List<NativeStructuralIndexWorker.Range>> partitions = NativeStructuralIndexWorker.partition(indexWorker.getDocIdRanges(docs), 3);
+
+        assertEquals(3, partitions.size());
+        assertRanges(partitions.get(0), 1, 3);
+        assertRanges(partitions.get(1), 4, 6);
+        assertRanges(partitions.get(2), 7, 7);
+    }
+
+    @Test
+    public void partition_multipleRanges_inDocumentOrder() {
+        final NativeStructuralIndexWorker indexWorker = new NativeStructuralIndexWorker(null);
+
+        final DocumentSet docs = documentIdSet(Arrays.asList(88,89, 10,11,12, 77, 1,2,3));
+
+        final List<List<NativeStructuralIndexWorker.Range>> partitions = NativeStructuralIndexWorker.partition(indexWorker.getDocIdRanges(docs), 4);
+
+        assertEquals(3, partitions.size());
+        assertRanges(partitions.get(0), 1, 3, 10, 10);
+        assertRanges(partitions.get(1), 11, 12, 77, 77, 88, 88);
+        assertRanges(partitions.get(2), 89, 89);
+    }
+
+    @Test
+    public void partition_singlePartition() {
+        final NativeStructuralIndexWorker indexWorker = new NativeStructuralIndexWorker(null);
+
+        final DocumentSet docs = documentIdSet(Arrays.asList(6574, 200, 12, 24));
+
+        final List<List<NativeStructuralIndexWorker.Range>> partitions = NativeStructuralIndexWorker.partition(indexWorker.getDocIdRanges(docs), 10);
+
+        assertEquals(1, partitions.size());
+        assertRanges(partitions.get(0), 12, 12, 24, 24, 200, 200, 6574, 6574);
+    }
+
+    private static void assertRanges(final List<NativeStructuralIndexWorker.Range> ranges, final int... startAndEnds) {
+        assertEquals(startAndEnds.length / 2, ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            assertEquals(startAndEnds[i * 2], ranges.get(i).start);
+            assertEquals(startAndEnds[i * 2 + 1], ranges.get(i).end);
+        }
+    }
+
     private DocumentSet documentIdSet(final List<Integer> documentIds) {
         final DocumentSet mockDocumentSet = createMock(DocumentSet.class);
 
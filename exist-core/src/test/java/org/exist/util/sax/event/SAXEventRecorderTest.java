@@ -0,0 +1,203 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.util.sax.event;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SAXEventRecorderTest {
+
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    private static final String XML =
+            "<!DOCTYPE a [<!ENTITY e 'entity'>]>" +
+            "<a xmlns='http://a' xmlns:b='http://b' x='1'>" +
+            "<b:b y='2'>text &e; more</b:b>" +
+            "<!-- comment -->" +
+            "<?pi data?>" +
+            "<c><![CDATA[<cdata>]]></c>" +
+            "</a>";
+
+    @Test
+    public void replayMatchesParse() throws ParserConfigurationException, SAXException, IOException {
+        final TracingHandler direct = new TracingHandler();
+        parse(direct, direct);
+
+        final TracingHandler forwarded = new TracingHandler();
+        final SAXEventRecorder recorder = new SAXEventRecorder(Long.MAX_VALUE);
+        recorder.setHandlers(forwarded, forwarded);
+        parse(recorder, recorder);
+        assertTrue(recorder.isComplete());
+        assertTrue(recorder.getSize() > 0);
+        assertEquals(direct.toString(), forwarded.toString());
+
+        final TracingHandler replayed = new TracingHandler();
+        recorder.replay(replayed, replayed);
+        assertEquals(direct.toString(), replayed.toString());
+
+        // may be replayed more than once
+        final TracingHandler replayedAgain = new TracingHandler();
+        recorder.replay(replayedAgain, replayedAgain);
+        assertEquals(direct.toString(), replayedAgain.toString());
+    }
+
+    @Test
+    public void overflowStillForwards() throws ParserConfigurationException, SAXException, IOException {
+        final TracingHandler direct = new TracingHandler();
+        parse(direct, direct);
+
+        final TracingHandler forwarded = new TracingHandler();
+        final SAXEventRecorder recorder = new SAXEventRecorder(64);
+        recorder.setHandlers(forwarded, forwarded);
+        parse(recorder, recorder);
+        assertFalse(recorder.isComplete());
+        assertEquals(direct.toString(), forwarded.toString());
+
+        final TracingHandler replayed = new TracingHandler();
+        assertThrows(IllegalStateException.class, () -> recorder.replay(replayed, replayed));
+    }
+
+    @Test
+    public void incompleteCannotBeReplayed() throws SAXException {
+        final SAXEventRecorder recorder = new SAXEventRecorder(Long.MAX_VALUE);
+        recorder.startDocument();
+        recorder.startElement("", "a", "a", new AttributesImpl());
+        assertFalse(recorder.isComplete());
+
+        final TracingHandler replayed = new TracingHandler();
+        assertThrows(IllegalStateException.class, () -> recorder.replay(replayed, replayed));
+    }
+
+    @Test
+    public void clear() throws ParserConfigurationException, SAXException, IOException {
+        final SAXEventRecorder recorder = new SAXEventRecorder(Long.MAX_VALUE);
+        parse(recorder, recorder);
+        assertTrue(recorder.isComplete());
+
+        recorder.clear();
+        assertFalse(recorder.isComplete());
+        assertEquals(0, recorder.getSize());
+    }
+
+    private static void parse(final ContentHandler contentHandler, final LexicalHandler lexicalHandler) throws ParserConfigurationException, SAXException, IOException {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final XMLReader reader = factory.newSAXParser().getXMLReader();
+        reader.setContentHandler(contentHandler);
+        reader.setProperty(LEXICAL_HANDLER, lexicalHandler);
+        reader.parse(new InputSource(new StringReader(XML)));
+    }
+
+    private static class TracingHandler extends DefaultHandler2 {
+        private final StringBuilder trace = new StringBuilder();
+
+        @Override
+        public void startDocument() {
+            trace.append("startDocument\n");
+        }
+
+        @Override
+        public void endDocument() {
+            trace.append("endDocument\n");
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            trace.append("startPrefixMapping ").append(prefix).append(' ').append(uri).append('\n');
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) {
+            trace.append("endPrefixMapping ").append(prefix).append('\n');
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+            trace.append("startElement {").append(uri).append('}').append(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                trace.append(' ').append(attributes.getQName(i)).append("=").append(attributes.getValue(i));
+            }
+            trace.append('\n');
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            trace.append("endElement {").append(uri).append('}').append(qName).append('\n');
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            trace.append("characters ").append(ch, start, length).append('\n');
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            trace.append("processingInstruction ").append(target).append(' ').append(data).append('\n');
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) {
+            trace.append("startDTD ").append(name).append('\n');
+        }
+
+        @Override
+        public void endDTD() {
+            trace.append("endDTD\n");
+        }
+
+        @Override
+        public void startCDATA() {
+            trace.append("startCDATA\n");
+        }
+
+        @Override
+        public void endCDATA() {
+            trace.append("endCDATA\n");
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) {
+            trace.append("comment ").append(ch, start, length).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return trace.toString();
+        }
+    }
+}
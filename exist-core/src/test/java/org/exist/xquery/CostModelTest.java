@@ -0,0 +1,55 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CostModelTest {
+
+    @Test
+    public void hashJoinForManyProbes() {
+        assertTrue(CostModel.preferHashJoin(101, 100, 1));
+        assertFalse(CostModel.preferHashJoin(20, 2, 1));
+    }
+
+    @Test
+    public void hashJoinOnceBuildIsPaidOff() {
+        // a single probe per evaluation, e.g. the inner clause of a join in a FLWOR expression
+        assertFalse(CostModel.preferHashJoin(100, 1, 4));
+        assertTrue(CostModel.preferHashJoin(100, 1, 5));
+    }
+
+    @Test
+    public void rankBySelectivity() {
+        // of two predicates of equal cost, the more selective is evaluated first
+        assertTrue(CostModel.estimateRank(100, 0.01) < CostModel.estimateRank(100, 0.5));
+        // a cheap predicate which selects everything is still evaluated after a selective one
+        assertTrue(CostModel.estimateRank(10, 0.01) < CostModel.estimateRank(1, 0.99));
+        // without an estimate, predicates are ordered by cost only
+        assertTrue(CostModel.estimateRank(10, CostModel.UNKNOWN_SELECTIVITY) < CostModel.estimateRank(100, CostModel.UNKNOWN_SELECTIVITY));
+    }
+}
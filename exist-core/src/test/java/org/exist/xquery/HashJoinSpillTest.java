@@ -0,0 +1,101 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.xquery;
+
+import org.exist.EXistException;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.xquery.value.Sequence;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import static org.exist.util.PropertiesBuilder.propertiesBuilder;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for general comparisons evaluated as a hash join, where the
+ * table has more entries than the spill threshold and so is
+ * partitioned into temporary files.
+ */
+public class HashJoinSpillTest {
+
+    private static final int SPILL_THRESHOLD = 20;
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(
+            propertiesBuilder()
+                    .put(XQueryContext.PROPERTY_HASH_JOIN_SPILL_THRESHOLD, SPILL_THRESHOLD)
+                    .build(),
+            true,
+            true);
+
+    @Test
+    public void spilledStrings() throws EXistException, PermissionDeniedException, XPathException {
+        final String query =
+                "let $right := (1 to 100) ! ('v' || .)\n" +
+                "return (('v150', 'v99') = $right, ('v150', 'v101') = $right, count((1 to 300)[('v' || .) = $right]))";
+        assertQuery("true false 100", query);
+    }
+
+    @Test
+    public void spilledNumbers() throws EXistException, PermissionDeniedException, XPathException {
+        final String query =
+                "let $right := (1 to 100) ! (. + 0.5)\n" +
+                "return ((200.5, 3.5) = $right, (200.5, 3.0) = $right, (2.5e0, 0) = $right, count((1 to 300)[(. + 0.5) = $right]))";
+        assertQuery("true false true 100", query);
+    }
+
+    @Test
+    public void spilledUntypedAtomic() throws EXistException, PermissionDeniedException, XPathException {
+        final String query =
+                "let $right := <values>{(1 to 100) ! <v>{.}</v>}</values>/v\n" +
+                "return (('x', '42') = $right, ('x', '420') = $right, count((1 to 300)[string(.) = $right]))";
+        assertQuery("true false 100", query);
+    }
+
+    @Test
+    public void rightDependsOnContextItem() throws EXistException, PermissionDeniedException, XPathException {
+        final String query =
+                "count((1 to 50)[string(.) = (for $i in 1 to 40 return string($i + . - .))])";
+        assertQuery("40", query);
+    }
+
+    private static void assertQuery(final String expected, final String query) throws EXistException, PermissionDeniedException, XPathException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final XQuery xquery = pool.getXQueryService();
+        try (final DBBroker broker = pool.getBroker()) {
+            final Sequence result = xquery.execute(broker, query, null);
+            final StringBuilder actual = new StringBuilder();
+            for (int i = 0; i < result.getItemCount(); i++) {
+                if (i > 0) {
+                    actual.append(' ');
+                }
+                actual.append(result.itemAt(i).getStringValue());
+            }
+            assertEquals(expected, actual.toString());
+        }
+    }
+}
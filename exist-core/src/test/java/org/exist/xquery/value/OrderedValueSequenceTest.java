@@ -24,14 +24,22 @@
 package org.exist.xquery.value;
 
 import org.exist.xquery.Expression;
+import org.exist.xquery.FLWORClause;
 import org.exist.xquery.OrderSpec;
 import org.exist.xquery.XPathException;
+import org.exist.xquery.XQueryContext;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
 
+import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isNull;
 import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertEquals;
 
@@ -99,6 +107,94 @@ public class OrderedValueSequenceTest {
         assertEquals(69, count);
     }
 
+    @Test
+    public void sort_spilled() throws XPathException {
+        final AtomicValue[] keys = randomKeys(1000);
+        final OrderedValueSequence orderedValueSequence = orderedValueSequence(keys, 64, FLWORClause.UNLIMITED);
+
+        assertEquals(expectedOrder(keys, keys.length), actualOrder(orderedValueSequence));
+    }
+
+    @Test
+    public void sort_spilled_coerced() throws XPathException {
+        final AtomicValue[] keys = randomKeys(1000);
+        for (int i = 0; i < keys.length; i += 3) {
+            // xs:decimal and xs:double keys are cast to xs:double before sorting
+            keys[i] = new DoubleValue(((IntegerValue) keys[i]).getLong() + 0.5);
+        }
+        final OrderedValueSequence orderedValueSequence = orderedValueSequence(keys, 64, FLWORClause.UNLIMITED);
+
+        assertEquals(expectedOrder(keys, keys.length), actualOrder(orderedValueSequence));
+    }
+
+    @Test
+    public void sort_retains_first_items() throws XPathException {
+        final AtomicValue[] keys = randomKeys(1000);
+        final OrderedValueSequence orderedValueSequence = orderedValueSequence(keys, Integer.MAX_VALUE, 25);
+
+        assertEquals(25, orderedValueSequence.getItemCount());
+        assertEquals(expectedOrder(keys, 25), actualOrder(orderedValueSequence));
+    }
+
+    private static AtomicValue[] randomKeys(final int size) {
+        final Random random = new Random(size);
+        final AtomicValue[] keys = new AtomicValue[size];
+        for (int i = 0; i < size; i++) {
+            // produce duplicate keys, whose items must retain their order
+            keys[i] = random.nextInt(10) == 0 ? AtomicValue.EMPTY_VALUE : new IntegerValue(random.nextInt(size / 4));
+        }
+        return keys;
+    }
+
+    private static String expectedOrder(final AtomicValue[] keys, final int maxItems) {
+        final Comparator<Integer> byKey = Comparator.comparingDouble(position -> {
+            // without modifiers, empty keys sort greatest
+            try {
+                return keys[position].isEmpty() ? Double.POSITIVE_INFINITY : ((NumericValue) keys[position]).getDouble();
+            } catch (final XPathException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return Arrays.toString(IntStream.range(0, keys.length).boxed()
+                .sorted(byKey)
+                .limit(maxItems)
+                .mapToInt(Integer::intValue)
+                .toArray());
+    }
+
+    private static String actualOrder(final OrderedValueSequence orderedValueSequence) throws XPathException {
+        orderedValueSequence.coerceTypesForOrderBy();
+        orderedValueSequence.sort();
+
+        final int[] positions = new int[orderedValueSequence.getItemCount()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (int) ((IntegerValue) orderedValueSequence.itemAt(i)).getLong();
+        }
+        return Arrays.toString(positions);
+    }
+
+    private static OrderedValueSequence orderedValueSequence(final AtomicValue[] keys, final int spillThreshold,
+            final long maxItems) throws XPathException {
+        final XQueryContext mockContext = createMock(XQueryContext.class);
+        expect(mockContext.getDefaultCollator()).andReturn(null).anyTimes();
+        replay(mockContext);
+
+        // the sort expression returns the sort key, which is passed as the context sequence
+        final Expression mockSortExpr = createMock(Expression.class);
+        expect(mockSortExpr.eval(anyObject(Sequence.class), isNull(Item.class)))
+                .andAnswer(() -> (Sequence) getCurrentArguments()[0]).anyTimes();
+        replay(mockSortExpr);
+
+        final OrderedValueSequence orderedValueSequence = new OrderedValueSequence(
+                Arrays.asList(new OrderSpec(mockContext, mockSortExpr)), keys.length, spillThreshold, maxItems);
+        for (int i = 0; i < keys.length; i++) {
+            orderedValueSequence.setContextSequence(keys[i].isEmpty() ? Sequence.EMPTY_SEQUENCE : keys[i]);
+            orderedValueSequence.add(new IntegerValue(i));
+        }
+        orderedValueSequence.setContextSequence(null);
+        return orderedValueSequence;
+    }
+
     private static OrderedValueSequence mockOrderedValueSequence(final int size) throws XPathException {
         final Expression mockSortExpr = createMock(Expression.class);
         expect(mockSortExpr.eval(null, null)).andReturn(Sequence.EMPTY_SEQUENCE).anyTimes();
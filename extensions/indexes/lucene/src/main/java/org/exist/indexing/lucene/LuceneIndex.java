@@ -54,10 +54,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
 import org.apache.lucene.index.*;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Version;
@@ -65,19 +67,34 @@ import org.exist.backup.RawDataBackup;
 import org.exist.indexing.AbstractIndex;
 import org.exist.indexing.IndexWorker;
 import org.exist.indexing.RawBackupSupport;
+import org.exist.management.AgentFactory;
 import org.exist.storage.BrokerPool;
 import org.exist.storage.DBBroker;
 import org.exist.storage.btree.DBException;
 import org.exist.util.DatabaseConfigurationException;
 import org.exist.util.FileUtils;
+import org.exist.util.NamedThreadFactory;
 import org.exist.xquery.XPathException;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
@@ -91,6 +108,9 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
 	private static final String DIR_NAME = "lucene";
 	private static final String TAXONOMY_DIR_NAME = "taxonomy";
 
+    public static final String MAX_STALENESS_ATTRIBUTE = "maxStaleness";
+    public static final String INDEXING_THREADS_ATTRIBUTE = "indexingThreads";
+
     protected Directory directory;
     protected Directory taxoDirectory;
 
@@ -104,6 +124,31 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
     protected SearcherTaxonomyManager searcherManager = null;
     protected ReaderManager readerManager = null;
 
+    /**
+     * The maximum time in milliseconds by which searchers and readers may lag
+     * behind the index writer. If 0, they are refreshed before each use,
+     * otherwise they are refreshed in the background at this interval.
+     */
+    protected long maxStaleness = 0;
+    private ScheduledExecutorService refresher = null;
+
+    /**
+     * The number of threads which analyze and add documents to the index writer.
+     * If 0, documents are analyzed and added by the thread which stores them.
+     */
+    protected int indexingThreads = 0;
+    private ExecutorService indexer = null;
+
+    private final LongAdder indexedCount = new LongAdder();
+    private final LongAdder parallelIndexedCount = new LongAdder();
+    private final LongAdder indexingTime = new LongAdder();
+
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshTime = new LongAdder();
+    private final AtomicLong maxRefreshTime = new AtomicLong();
+
+    private LuceneIndexStatistics statisticsMBean = null;
+
     public String getDirName() {
         return DIR_NAME;
     }
@@ -124,6 +169,32 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
 
         if (LOG.isDebugEnabled())
             LOG.debug("Using buffer size: {}", bufferSize);
+
+        final String maxStalenessParam = config.getAttribute(MAX_STALENESS_ATTRIBUTE);
+        if (!maxStalenessParam.isEmpty()) {
+            try {
+                maxStaleness = Long.parseLong(maxStalenessParam);
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid max staleness setting for Lucene index: {}", maxStalenessParam, e);
+            }
+            if (maxStaleness < 0) {
+                LOG.warn("Invalid max staleness setting for Lucene index: {}", maxStalenessParam);
+                maxStaleness = 0;
+            }
+        }
+
+        final String indexingThreadsParam = config.getAttribute(INDEXING_THREADS_ATTRIBUTE);
+        if (!indexingThreadsParam.isEmpty()) {
+            try {
+                indexingThreads = Integer.parseInt(indexingThreadsParam);
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid indexing threads setting for Lucene index: {}", indexingThreadsParam, e);
+            }
+            if (indexingThreads < 0) {
+                LOG.warn("Invalid indexing threads setting for Lucene index: {}", indexingThreadsParam);
+                indexingThreads = 0;
+            }
+        }
         
         NodeList nl = config.getElementsByTagName("analyzer");
         if (nl.getLength() > 0) {
@@ -164,6 +235,36 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
 
             searcherManager = new SearcherTaxonomyManager(cachedWriter, true, null, cachedTaxonomyWriter);
             readerManager = new ReaderManager(cachedWriter, true);
+
+            if (maxStaleness > 0) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Refreshing Lucene index searchers every {} ms", maxStaleness);
+                }
+                final BrokerPool pool = getBrokerPool();
+                refresher = Executors.newSingleThreadScheduledExecutor(
+                        new NamedThreadFactory(pool.getThreadGroup(), pool.getId(), getDirName() + "-index-refresher"));
+                refresher.scheduleWithFixedDelay(this::refreshInBackground, maxStaleness, maxStaleness, TimeUnit.MILLISECONDS);
+            }
+
+            if (indexingThreads > 0) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Analyzing Lucene index documents with {} threads", indexingThreads);
+                }
+                final BrokerPool pool = getBrokerPool();
+                // the queue is bounded, when it is full the storing thread analyzes the document itself
+                indexer = new ThreadPoolExecutor(indexingThreads, indexingThreads, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(indexingThreads * 4),
+                        new NamedThreadFactory(pool.getThreadGroup(), pool.getId(), getDirName() + "-index-writer"),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+
+            statisticsMBean = new LuceneIndexStatistics(getBrokerPool().getId(), this);
+            try {
+                AgentFactory.getInstance().addMBean(statisticsMBean);
+            } catch (final DatabaseConfigurationException e) {
+                LOG.warn("Unable to register JMX MBean for the {} index", getDirName(), e);
+                statisticsMBean = null;
+            }
         } catch (IOException e) {
             throw new DatabaseConfigurationException("Exception while reading Lucene index directory: " +
                 e.getMessage(), e);
@@ -175,6 +276,24 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
     @Override
     public synchronized void close() throws DBException {
         try {
+            if (statisticsMBean != null) {
+                AgentFactory.getInstance().removeMBean(statisticsMBean);
+                statisticsMBean = null;
+            }
+            if (refresher != null) {
+                refresher.shutdown();
+                try {
+                    refresher.awaitTermination(maxStaleness + 1000, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                refresher = null;
+            }
+            if (indexer != null) {
+                // write() waits for its documents, so there are no pending documents when the index is closed
+                indexer.shutdown();
+                indexer = null;
+            }
             if (searcherManager != null) {
                 searcherManager.close();
                 searcherManager = null;
@@ -250,6 +369,84 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
         needsCommit = true;
     }
 
+    /**
+     * Analyze and add documents to the index writer.
+     *
+     * If {@link #INDEXING_THREADS_ATTRIBUTE} is configured, the documents
+     * are analyzed concurrently by a pool of threads, otherwise one after
+     * the other by the calling thread. In either case, all of the documents
+     * have been added when this method returns.
+     *
+     * @param writer the index writer, as obtained from {@link #getWriter()}
+     * @param documents the documents to add
+     *
+     * @throws IOException if any of the documents could not be added
+     */
+    public void addDocuments(final IndexWriter writer, final List<PendingDocument> documents) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            final ExecutorService indexer = this.indexer;
+            if (indexer == null || documents.size() < 2) {
+                for (final PendingDocument document : documents) {
+                    document.addTo(writer);
+                }
+                return;
+            }
+
+            // when the queue is full, a document is added by the storing thread itself
+            final Thread caller = Thread.currentThread();
+            final List<Future<?>> futures = new ArrayList<>(documents.size());
+            for (final PendingDocument document : documents) {
+                futures.add(indexer.submit(() -> {
+                    document.addTo(writer);
+                    if (Thread.currentThread() != caller) {
+                        parallelIndexedCount.increment();
+                    }
+                    return null;
+                }));
+            }
+
+            IOException error = null;
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof IOException ioe ? ioe : new IOException(e.getCause().getMessage(), e.getCause());
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (error == null) {
+                        error = new IOException("Interrupted while adding documents to the Lucene index", e);
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        } finally {
+            indexedCount.add(documents.size());
+            indexingTime.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * A document which is waiting to be analyzed and added to the index writer.
+     *
+     * @param document the document
+     * @param analyzer the analyzer for the document, or null to use the default analyzer of the index writer
+     */
+    public record PendingDocument(Document document, @Nullable Analyzer analyzer) {
+
+        void addTo(final IndexWriter writer) throws IOException {
+            if (analyzer == null) {
+                writer.addDocument(document);
+            } else {
+                writer.addDocument(document, analyzer);
+            }
+        }
+    }
+
     protected void commit() {
     	if (!needsCommit) {
             return;
@@ -271,7 +468,25 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
     }
 
     public <R> R withReader(FunctionE<IndexReader, R, IOException> fn) throws IOException {
-        readerManager.maybeRefreshBlocking();
+        return withReader(false, fn);
+    }
+
+    /**
+     * Apply a function to an index reader.
+     *
+     * @param readYourWrites if true, the reader is guaranteed to see all changes made
+     *     to the index so far, even if a {@link #MAX_STALENESS_ATTRIBUTE} is configured
+     * @param fn the function to apply to the reader
+     * @param <R> the type of the result of the function
+     *
+     * @return the result of the function
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public <R> R withReader(final boolean readYourWrites, final FunctionE<IndexReader, R, IOException> fn) throws IOException {
+        if (readYourWrites || maxStaleness == 0) {
+            refreshBlocking(readerManager);
+        }
         final DirectoryReader reader = readerManager.acquire();
         try {
             return fn.apply(reader);
@@ -281,7 +496,26 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
     }
 
     public <R> R withSearcher(final Function2E<SearcherTaxonomyManager.SearcherAndTaxonomy, R, IOException, XPathException> consumer) throws IOException, XPathException {
-        searcherManager.maybeRefreshBlocking();
+        return withSearcher(false, consumer);
+    }
+
+    /**
+     * Apply a function to an index searcher.
+     *
+     * @param readYourWrites if true, the searcher is guaranteed to see all changes made
+     *     to the index so far, even if a {@link #MAX_STALENESS_ATTRIBUTE} is configured
+     * @param consumer the function to apply to the searcher
+     * @param <R> the type of the result of the function
+     *
+     * @return the result of the function
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws XPathException if the function raises an error
+     */
+    public <R> R withSearcher(final boolean readYourWrites, final Function2E<SearcherTaxonomyManager.SearcherAndTaxonomy, R, IOException, XPathException> consumer) throws IOException, XPathException {
+        if (readYourWrites || maxStaleness == 0) {
+            refreshBlocking(searcherManager);
+        }
         final SearcherTaxonomyManager.SearcherAndTaxonomy searcher = searcherManager.acquire();
         try {
             return consumer.apply(searcher);
@@ -290,6 +524,119 @@ public class LuceneIndex extends AbstractIndex implements RawBackupSupport {
         }
     }
 
+    private void refreshBlocking(final ReferenceManager<?> manager) throws IOException {
+        final long start = System.nanoTime();
+        manager.maybeRefreshBlocking();
+        recordRefresh(System.nanoTime() - start);
+    }
+
+    private void refreshInBackground() {
+        try {
+            final long start = System.nanoTime();
+            searcherManager.maybeRefresh();
+            readerManager.maybeRefresh();
+            recordRefresh(System.nanoTime() - start);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Error while refreshing Lucene index searchers: {}", e.getMessage(), e);
+        }
+    }
+
+    private void recordRefresh(final long time) {
+        refreshCount.increment();
+        refreshTime.add(time);
+        maxRefreshTime.accumulateAndGet(time, Math::max);
+    }
+
+    /**
+     * Get the maximum time by which searchers and readers
+     * may lag behind the index writer.
+     *
+     * @return the max staleness in milliseconds, or 0 if they are refreshed before each use
+     */
+    public long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    /**
+     * Get the number of threads which analyze and add documents to the index writer.
+     *
+     * @return the number of threads, or 0 if documents are analyzed by the thread which stores them
+     */
+    public int getIndexingThreads() {
+        return indexingThreads;
+    }
+
+    /**
+     * Get the number of documents which have been added to
+     * the index writer since the index was opened.
+     *
+     * @return the number of documents
+     */
+    public long getIndexedCount() {
+        return indexedCount.sum();
+    }
+
+    /**
+     * Get the number of documents which have been added to the index
+     * writer by the indexing threads since the index was opened.
+     *
+     * @return the number of documents, always 0 if there are no indexing threads
+     */
+    public long getParallelIndexedCount() {
+        return parallelIndexedCount.sum();
+    }
+
+    /**
+     * Get the total time spent analyzing and adding documents
+     * to the index writer since the index was opened.
+     *
+     * @return the total indexing time in milliseconds
+     */
+    public long getIndexingTime() {
+        return TimeUnit.NANOSECONDS.toMillis(indexingTime.sum());
+    }
+
+    /**
+     * Get the number of documents added to the index writer per second
+     * of indexing time since the index was opened.
+     *
+     * @return the number of documents per second, or 0 if no time has been spent indexing
+     */
+    public long getIndexingThroughput() {
+        final long time = indexingTime.sum();
+        return time > 0 ? indexedCount.sum() * TimeUnit.SECONDS.toNanos(1) / time : 0;
+    }
+
+    /**
+     * Get the number of times that the searchers and readers
+     * have been refreshed since the index was opened.
+     *
+     * @return the number of refreshes
+     */
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * Get the total time spent refreshing the searchers
+     * and readers since the index was opened.
+     *
+     * @return the total refresh time in milliseconds
+     */
+    public long getRefreshTime() {
+        return TimeUnit.NANOSECONDS.toMillis(refreshTime.sum());
+    }
+
+    /**
+     * Get the longest time spent on a single refresh of the
+     * searchers and readers since the index was opened.
+     *
+     * @return the longest refresh time in milliseconds
+     */
+    public long getMaxRefreshTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxRefreshTime.get());
+    }
+
 	@Override
 	public void backupToArchive(final RawDataBackup backup) throws IOException {
 		for (final String name : directory.listAll()) {
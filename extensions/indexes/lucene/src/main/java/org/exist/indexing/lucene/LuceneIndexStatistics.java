@@ -0,0 +1,106 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.indexing.lucene;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+public class LuceneIndexStatistics implements LuceneIndexStatisticsMXBean {
+
+    private final String instanceId;
+    private final LuceneIndex index;
+
+    public LuceneIndexStatistics(final String instanceId, final LuceneIndex index) {
+        this.instanceId = instanceId;
+        this.index = index;
+    }
+
+    public static String getAllInstancesQuery() {
+        return "org.exist.management." + '*' + ":type=LuceneIndex," + '*';
+    }
+
+    private static String getName(final String instanceId, final String indexName) {
+        return "org.exist.management." + instanceId + ":type=LuceneIndex,name=" + indexName;
+    }
+
+    @Override
+    public ObjectName getName() throws MalformedObjectNameException {
+        return new ObjectName(getName(instanceId, index.getDirName()));
+    }
+
+    @Override
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public String getIndexName() {
+        return index.getDirName();
+    }
+
+    @Override
+    public long getMaxStaleness() {
+        return index.getMaxStaleness();
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return index.getRefreshCount();
+    }
+
+    @Override
+    public long getRefreshTime() {
+        return index.getRefreshTime();
+    }
+
+    @Override
+    public long getMaxRefreshTime() {
+        return index.getMaxRefreshTime();
+    }
+
+    @Override
+    public int getIndexingThreads() {
+        return index.getIndexingThreads();
+    }
+
+    @Override
+    public long getIndexedCount() {
+        return index.getIndexedCount();
+    }
+
+    @Override
+    public long getParallelIndexedCount() {
+        return index.getParallelIndexedCount();
+    }
+
+    @Override
+    public long getIndexingTime() {
+        return index.getIndexingTime();
+    }
+
+    @Override
+    public long getIndexingThroughput() {
+        return index.getIndexingThroughput();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.indexing.lucene;
+
+import org.exist.management.impl.PerInstanceMBean;
+
+/**
+ * Provides access to the refresh and indexing statistics of a {@link LuceneIndex}.
+ */
+public interface LuceneIndexStatisticsMXBean extends PerInstanceMBean {
+
+    /**
+     * Returns the name of the directory of the index
+     *
+     * @return the name of the index directory
+     */
+    String getIndexName();
+
+    /**
+     * Returns the maximum time by which searchers and readers may lag behind the index writer
+     *
+     * @return the max staleness in milliseconds, or 0 if they are refreshed before each use
+     */
+    long getMaxStaleness();
+
+    /**
+     * Returns the number of times that the searchers and readers have been refreshed
+     *
+     * @return the number of refreshes
+     */
+    long getRefreshCount();
+
+    /**
+     * Returns the total time spent refreshing the searchers and readers
+     *
+     * @return the total refresh time in milliseconds
+     */
+    long getRefreshTime();
+
+    /**
+     * Returns the longest time spent on a single refresh of the searchers and readers
+     *
+     * @return the longest refresh time in milliseconds
+     */
+    long getMaxRefreshTime();
+
+    /**
+     * Returns the number of threads which analyze and add documents to the index writer
+     *
+     * @return the number of threads, or 0 if documents are analyzed by the thread which stores them
+     */
+    int getIndexingThreads();
+
+    /**
+     * Returns the number of documents which have been added to the index writer
+     *
+     * @return the number of documents
+     */
+    long getIndexedCount();
+
+    /**
+     * Returns the number of documents which have been added to the index writer by the indexing threads
+     *
+     * @return the number of documents
+     */
+    long getParallelIndexedCount();
+
+    /**
+     * Returns the total time spent analyzing and adding documents to the index writer
+     *
+     * @return the total indexing time in milliseconds
+     */
+    long getIndexingTime();
+
+    /**
+     * Returns the number of documents added to the index writer per second of indexing time
+     *
+     * @return the number of documents per second
+     */
+    long getIndexingThroughput();
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -67,6 +94,7 @@ import org.exist.xquery.Expression;
 import org.exist.xquery.QueryRewriter;
 import org.exist.xquery.XPathException;
 import org.exist.xquery.XQueryContext;
+import org.exist.xquery.modules.lucene.LuceneModule;
 import org.exist.xquery.modules.lucene.QueryOptions;
 import org.exist.xquery.value.IntegerValue;
 import org.exist.xquery.value.NodeValue;
@@ -434,10 +462,11 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     public NodeSet query(final int contextId, final DocumentSet docs, @Nullable final NodeSet contextSet,
                          final List<QName> qnames, final String queryStr, final int axis, final QueryOptions options)
             throws IOException, ParseException, XPathException {
-        return index.withSearcher(searcher -> {
-            final List<QName> definedIndexes = getDefinedIndexes(qnames);
+        return index.withSearcher(options.readYourWrites(), searcher -> {
+            final List<QName> definedIndexes = getDefinedIndexes(qnames, options.readYourWrites());
             final NodeSet resultSet = new NewArrayNodeSet();
             final boolean returnAncestor = axis == NodeSet.ANCESTOR;
+            final TopHits topHits = options.getLimit().map(TopHits::new).orElse(null);
             for (final QName qname : definedIndexes) {
                 final String field = LuceneUtil.encodeQName(qname, index.getBrokerPool().getSymbols());
                 final LuceneConfig config = getLuceneConfig(broker, docs);
@@ -455,7 +484,10 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                     query = drilldown(facets.get(), query, config);
                 }
                 searchAndProcess(contextId, qname, docs, contextSet, resultSet,
-                        returnAncestor, searcher, query, config);
+                        returnAncestor, searcher, query, config, topHits, options.readYourWrites());
+            }
+            if (topHits != null) {
+                topHits.addTo();
             }
             return resultSet;
         });
@@ -484,10 +516,11 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     public NodeSet query(int contextId, DocumentSet docs, NodeSet contextSet,
                          List<QName> qnames, Element queryRoot, int axis, QueryOptions options)
             throws IOException, ParseException, XPathException {
-        return index.withSearcher(searcher -> {
-            final List<QName> definedIndexes = getDefinedIndexes(qnames);
+        return index.withSearcher(options.readYourWrites(), searcher -> {
+            final List<QName> definedIndexes = getDefinedIndexes(qnames, options.readYourWrites());
             final NodeSet resultSet = new NewArrayNodeSet();
             final boolean returnAncestor = axis == NodeSet.ANCESTOR;
+            final TopHits topHits = options.getLimit().map(TopHits::new).orElse(null);
             for (QName qname : definedIndexes) {
                 String field = LuceneUtil.encodeQName(qname, index.getBrokerPool().getSymbols());
                 LuceneConfig config = getLuceneConfig(broker, docs);
@@ -499,9 +532,12 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 }
                 if (query != null) {
                     searchAndProcess(contextId, qname, docs, contextSet, resultSet,
-                            returnAncestor, searcher, query, config);
+                            returnAncestor, searcher, query, config, topHits, options.readYourWrites());
                 }
             }
+            if (topHits != null) {
+                topHits.addTo();
+            }
             return resultSet;
         });
     }
@@ -509,15 +545,19 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     public NodeSet queryField(int contextId, DocumentSet docs, NodeSet contextSet,
                               String field, Element queryRoot, int axis, QueryOptions options)
             throws IOException, XPathException {
-        return index.withSearcher(searcher -> {
+        return index.withSearcher(options.readYourWrites(), searcher -> {
             final NodeSet resultSet = new NewArrayNodeSet();
             final boolean returnAncestor = axis == NodeSet.ANCESTOR;
+            final TopHits topHits = options.getLimit().map(TopHits::new).orElse(null);
             final LuceneConfig config = getLuceneConfig(broker, docs);
             analyzer = getQueryAnalyzer(config, field, null, options);
             final Query query = queryTranslator.parse(field, queryRoot, analyzer, options);
             if (query != null) {
                 searchAndProcess(contextId, null, docs, contextSet, resultSet,
-                        returnAncestor, searcher, query, config);
+                        returnAncestor, searcher, query, config, topHits, options.readYourWrites());
+            }
+            if (topHits != null) {
+                topHits.addTo();
             }
             return resultSet;
         });
@@ -535,10 +575,10 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     private void searchAndProcess(final int contextId, final QName qname, final DocumentSet docs,
                                   @Nullable final NodeSet contextSet, final NodeSet resultSet, final boolean returnAncestor,
                                   final SearcherTaxonomyManager.SearcherAndTaxonomy searcher, final Query query,
-                                  final LuceneConfig config) throws IOException {
+                                  final LuceneConfig config, @Nullable final TopHits topHits, final boolean readYourWrites) throws IOException {
         final LuceneFacets facets = new LuceneFacets();
         final FacetsCollector facetsCollector = new FacetsCollector();
-        final LuceneHitCollector collector = new LuceneHitCollector(qname, query, docs, contextSet, resultSet, returnAncestor, contextId, facets, facetsCollector);
+        final LuceneHitCollector collector = new LuceneHitCollector(qname, query, docs, contextSet, resultSet, returnAncestor, contextId, facets, facetsCollector, topHits, readYourWrites);
         searcher.searcher.search(query, collector);
 
         // compute facets
@@ -576,11 +616,12 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
      * the terms which would be matched by the given query.
      *
      * @param query to extract terms for
+     * @param readYourWrites if true, the terms are extracted from a reader which sees all changes made to the index so far
      * @return the map returned by {@link LuceneUtil#extractTerms(Query, Map, IndexReader, boolean)}
      * @throws IOException in case of Lucene IO error
      */
-    public Map<Object, Query> getTerms(final Query query) throws IOException {
-        return index.withReader(reader -> {
+    public Map<Object, Query> getTerms(final Query query, final boolean readYourWrites) throws IOException {
+        return index.withReader(readYourWrites, reader -> {
             final Map<Object, Query> termMap = new TreeMap<>();
             LuceneUtil.extractTerms(query, termMap, reader, false);
             return termMap;
@@ -590,9 +631,10 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     public NodeSet queryField(XQueryContext context, int contextId, DocumentSet docs, NodeSet contextSet,
             String field, String queryString, int axis, QueryOptions options)
             throws IOException, XPathException {
-        return index.withSearcher(searcher -> {
+        return index.withSearcher(options.readYourWrites(), searcher -> {
             NodeSet resultSet = new NewArrayNodeSet();
             boolean returnAncestor = axis == NodeSet.ANCESTOR;
+            final TopHits topHits = options.getLimit().map(TopHits::new).orElse(null);
             LuceneConfig config = getLuceneConfig(context.getBroker(), docs);
             Analyzer analyzer = getQueryAnalyzer(config, field, null, options);
             LOG.debug("Using analyzer {} for {}", analyzer, queryString);
@@ -600,7 +642,10 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
             options.configureParser(parser.getConfiguration());
             Query query = parser.parse(queryString);
             searchAndProcess(contextId, null, docs, contextSet, resultSet,
-                    returnAncestor, searcher, query, config);
+                    returnAncestor, searcher, query, config, topHits, options.readYourWrites());
+            if (topHits != null) {
+                topHits.addTo();
+            }
             return resultSet;
         });
     }
@@ -709,7 +754,7 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
      */
     public NodeImpl search(final XQueryContext context, final List<String> toBeMatchedURIs, String queryText, String[] fieldsToGet, QueryOptions options) throws XPathException, IOException {
 
-        return index.withSearcher(searcher -> {
+        return index.withSearcher(options.readYourWrites(), searcher -> {
             // Get analyzer : to be retrieved from configuration
             final Analyzer searchAnalyzer = new StandardAnalyzer(LuceneIndex.LUCENE_VERSION_IN_USE);
 
@@ -840,12 +885,12 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         }
     }
 
-    public String getFieldContent(int docId, String field) throws IOException {
+    public String getFieldContent(int docId, String field, boolean readYourWrites) throws IOException {
         final BytesRefBuilder bytes = new BytesRefBuilder();
         NumericUtils.intToPrefixCoded(docId, 0, bytes);
         Term dt = new Term(FIELD_DOC_ID, bytes.toBytesRef());
 
-        return index.withReader(reader -> {
+        return index.withReader(readYourWrites, reader -> {
             List<AtomicReaderContext> leaves = reader.leaves();
             for (AtomicReaderContext context : leaves) {
                 AtomicReader atomicReader = context.reader();
@@ -862,8 +907,8 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         });
     }
 
-    public @Nullable BytesRef getBinaryField(final int docId, final String field) throws IOException {
-        return index.withReader(reader -> {
+    public @Nullable BytesRef getBinaryField(final int docId, final String field, final boolean readYourWrites) throws IOException {
+        return index.withReader(readYourWrites, reader -> {
             final List<AtomicReaderContext> leaves = reader.leaves();
             for (final AtomicReaderContext context : leaves) {
                 final int id = docId - context.docBase;
@@ -881,20 +926,20 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         });
     }
 
-    public IndexableField[] getField(final int docId, final String field) throws IOException {
+    public IndexableField[] getField(final int docId, final String field, final boolean readYourWrites) throws IOException {
         final Set<String> fields = ObjectArraySet.of(field);
-        return index.withReader(reader -> {
+        return index.withReader(readYourWrites, reader -> {
             final Document doc = reader.document(docId, fields);
             return doc.getFields(field);
         });
     }
 
-    public boolean hasIndex(int docId) throws IOException {
+    public boolean hasIndex(int docId, boolean readYourWrites) throws IOException {
         final BytesRefBuilder bytes = new BytesRefBuilder();
         NumericUtils.intToPrefixCoded(docId, 0, bytes);
         Term dt = new Term(FIELD_DOC_ID, bytes.toBytesRef());
 
-        return index.withReader(reader -> {
+        return index.withReader(readYourWrites, reader -> {
             boolean found = false;
             List<AtomicReaderContext> leaves = reader.leaves();
             for (AtomicReaderContext context : leaves) {
@@ -937,6 +982,13 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         return false;
     }
 
+    /**
+     * Collects the hits of a search into a result node set.
+     *
+     * If a {@link TopHits} is given, the hits are only offered to it, and just the
+     * best scoring hits are added to the result set once {@link TopHits#addTo()}
+     * is called. The chained facets collector still receives all hits.
+     */
     private class LuceneHitCollector extends Collector {
 
         private Scorer scorer;
@@ -953,8 +1005,10 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         private final Query query;
         private final LuceneFacets facets;
         private final FacetsCollector chainedCollector;
+        private @Nullable final TopHits topHits;
+        private final boolean readYourWrites;
 
-        private LuceneHitCollector(final QName qname, final Query query, final DocumentSet docs, @Nullable final NodeSet contextSet, final NodeSet resultSet, final boolean returnAncestor, final int contextId, final LuceneFacets facets, final FacetsCollector nextCollector) {
+        private LuceneHitCollector(final QName qname, final Query query, final DocumentSet docs, @Nullable final NodeSet contextSet, final NodeSet resultSet, final boolean returnAncestor, final int contextId, final LuceneFacets facets, final FacetsCollector nextCollector, @Nullable final TopHits topHits, final boolean readYourWrites) {
             this.qname = qname;
             this.docs = docs;
             this.contextSet = contextSet;
@@ -964,6 +1018,8 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
             this.query = query;
             this.facets = facets;
             this.chainedCollector = nextCollector;
+            this.topHits = topHits;
+            this.readYourWrites = readYourWrites;
         }
 
         @Override
@@ -994,6 +1050,13 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 DocumentImpl storedDocument = docs.getDoc(docId);
                 if (storedDocument == null)
                     return;
+
+                if (contextSet == null && topHits != null && !topHits.isCompetitive(score, docBase + doc)) {
+                    // the hit is counted by the facets, but there is no need to decode its node id
+                    chainedCollector.collect(doc);
+                    return;
+                }
+
                 final BytesRef ref = this.nodeIdValues.get(doc);
                 int units = ByteConversion.byteToShort(ref.bytes, ref.offset);
                 NodeId nodeId = index.getBrokerPool().getNodeFactory().createFromData(units, ref.bytes, ref.offset + 2);
@@ -1006,74 +1069,164 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 // if a context set is specified, we can directly check if the
                 // matching node is a descendant of one of the nodes
                 // in the context set.
-                if (contextSet != null) {
-                    int sizeHint = contextSet.getSizeHint(storedDocument);
-                    if (returnAncestor) {
-                        NodeProxy parentNode = contextSet.get(storedNode);
-                        // NodeProxy parentNode = contextSet.parentWithChild(storedNode, false, true, NodeProxy.UNKNOWN_NODE_LEVEL);
-                        if (parentNode != null) {
-                            LuceneMatch match = createMatch(doc, score, nodeId);
-                            parentNode.addMatch(match);
-                            resultSet.add(parentNode, sizeHint);
-                            if (Expression.NO_CONTEXT_ID != contextId) {
-                                parentNode.deepCopyContext(storedNode, contextId);
-                            } else
-                                parentNode.copyContext(storedNode);
-                            chainedCollector.collect(doc);
-                        }
-                    } else {
-                        LuceneMatch match = createMatch(doc, score, nodeId);
-                        storedNode.addMatch(match);
-                        resultSet.add(storedNode, sizeHint);
-                        chainedCollector.collect(doc);
+                @Nullable NodeProxy parentNode = null;
+                if (contextSet != null && returnAncestor) {
+                    parentNode = contextSet.get(storedNode);
+                    // NodeProxy parentNode = contextSet.parentWithChild(storedNode, false, true, NodeProxy.UNKNOWN_NODE_LEVEL);
+                    if (parentNode == null) {
+                        return;
                     }
+                }
+
+                if (topHits != null) {
+                    topHits.offer(new TopHit(this, docBase + doc, score, storedNode, parentNode));
                 } else {
-                    LuceneMatch match = createMatch(doc, score, nodeId);
-                    storedNode.addMatch(match);
-                    resultSet.add(storedNode);
-                    chainedCollector.collect(doc);
+                    addMatch(docBase + doc, score, storedNode, parentNode);
                 }
+                chainedCollector.collect(doc);
             } catch (final IOException e) {
                 e.printStackTrace();
             }
         }
 
-        private LuceneMatch createMatch(final int docId, final float score, final NodeId nodeId) {
-            final LuceneMatch match = new LuceneMatch(contextId, docId + docBase, nodeId, query, facets);
+        /**
+         * Attach a match for the hit to its node, and add the node to the result set.
+         *
+         * @param doc the Lucene document id of the hit, relative to the top-level reader
+         * @param score the score of the hit
+         * @param storedNode the node which was matched
+         * @param parentNode the node from the context set which should be returned instead of
+         *     the stored node, or null if the stored node should be returned
+         */
+        private void addMatch(final int doc, final float score, final NodeProxy storedNode, @Nullable final NodeProxy parentNode) {
+            final LuceneMatch match = createMatch(doc, score, storedNode.getNodeId());
+            if (parentNode != null) {
+                parentNode.addMatch(match);
+                resultSet.add(parentNode, contextSet.getSizeHint(parentNode.getOwnerDocument()));
+                if (Expression.NO_CONTEXT_ID != contextId) {
+                    parentNode.deepCopyContext(storedNode, contextId);
+                } else
+                    parentNode.copyContext(storedNode);
+            } else {
+                storedNode.addMatch(match);
+                if (contextSet != null) {
+                    resultSet.add(storedNode, contextSet.getSizeHint(storedNode.getOwnerDocument()));
+                } else {
+                    resultSet.add(storedNode);
+                }
+            }
+        }
+
+        private LuceneMatch createMatch(final int doc, final float score, final NodeId nodeId) {
+            final LuceneMatch match = new LuceneMatch(contextId, doc, nodeId, query, facets, readYourWrites);
             match.setScore(score);
             return match;
         }
     }
 
+    /**
+     * A hit which has been collected, but not yet added to the result set.
+     *
+     * @param collector the collector which found the hit
+     * @param doc the Lucene document id of the hit, relative to the top-level reader
+     * @param score the score of the hit
+     * @param storedNode the node which was matched
+     * @param parentNode the node from the context set which should be returned instead of
+     *     the stored node, or null if the stored node should be returned
+     */
+    private record TopHit(LuceneHitCollector collector, int doc, float score, NodeProxy storedNode, @Nullable NodeProxy parentNode) {
+    }
+
+    /**
+     * Keeps the best scoring hits of one or more searches in a bounded priority queue,
+     * so that only those hits are ever attached to nodes in the result set.
+     *
+     * Hits with equal scores are ordered by their Lucene document id, in the same
+     * way as Lucene's own top docs collectors.
+     */
+    private static class TopHits {
+
+        /**
+         * Orders the hits from worst to best, so that the head of
+         * the queue is the hit to be evicted next.
+         */
+        private static final Comparator<TopHit> WORST_FIRST = Comparator.comparingDouble(TopHit::score)
+                .thenComparing(Comparator.comparingInt(TopHit::doc).reversed());
+
+        private final int limit;
+        private final PriorityQueue<TopHit> queue;
+
+        private TopHits(final int limit) {
+            this.limit = limit;
+            this.queue = new PriorityQueue<>(Math.min(limit, 1024), WORST_FIRST);
+        }
+
+        /**
+         * Would a hit with the given score and document id be kept?
+         *
+         * @param score the score of the hit
+         * @param doc the Lucene document id of the hit, relative to the top-level reader
+         *
+         * @return true if the hit would be kept, false otherwise
+         */
+        boolean isCompetitive(final float score, final int doc) {
+            if (queue.size() < limit) {
+                return true;
+            }
+            final TopHit worst = queue.peek();
+            return score > worst.score() || (score == worst.score() && doc < worst.doc());
+        }
+
+        void offer(final TopHit hit) {
+            if (queue.size() < limit) {
+                queue.add(hit);
+            } else if (isCompetitive(hit.score(), hit.doc())) {
+                queue.poll();
+                queue.add(hit);
+            }
+        }
+
+        /**
+         * Add the collected hits to the result sets of the collectors which found them.
+         */
+        void addTo() {
+            for (final TopHit hit : queue) {
+                hit.collector().addMatch(hit.doc(), hit.score(), hit.storedNode(), hit.parentNode());
+            }
+            queue.clear();
+        }
+    }
+
     /**
      * Check index configurations for all collection in the given DocumentSet and return
      * a list of QNames, which have indexes defined on them.
      *
      * @param qnames the qnames to find the findexes for
+     * @param readYourWrites if true, the indexes are looked up in a reader which sees all changes made to the index so far
      *
      * @return List of QName objects on which indexes are defined
      *
      * @throws IOException if an I/O error occurs
      */
-    public List<QName> getDefinedIndexes(final List<QName> qnames) throws IOException {
+    public List<QName> getDefinedIndexes(final List<QName> qnames, final boolean readYourWrites) throws IOException {
         final List<QName> indexes = new ArrayList<>(20);
         if (qnames != null && !qnames.isEmpty()) {
             for (final QName qname : qnames) {
                 if (qname.getLocalPart() == null || qname.getLocalPart().equals(QName.WILDCARD)
                         || qname.getNamespaceURI() == null || qname.getNamespaceURI().equals(QName.WILDCARD)) {
-                    getDefinedIndexesFor(qname, indexes);
+                    getDefinedIndexesFor(qname, indexes, readYourWrites);
                 } else {
                     indexes.add(qname);
                 }
             }
         } else {
-            getDefinedIndexesFor(null, indexes);
+            getDefinedIndexesFor(null, indexes, readYourWrites);
         }
         return indexes;
     }
 
-    private void getDefinedIndexesFor(final QName qname, final List<QName> indexes) throws IOException {
-        index.<Void>withReader(reader -> {
+    private void getDefinedIndexesFor(final QName qname, final List<QName> indexes, final boolean readYourWrites) throws IOException {
+        index.<Void>withReader(readYourWrites, reader -> {
             for (final FieldInfo info: MultiFields.getMergedFieldInfos(reader)) {
                 if (!FIELD_DOC_ID.equals(info.name)) {
                     final QName name = LuceneUtil.decodeQName(info.name, index.getBrokerPool().getSymbols());
@@ -1179,7 +1332,8 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     public Occurrences[] scanIndex(XQueryContext context, DocumentSet docs, NodeSet nodes, Map<?,?> hints) {
         try {
             List<QName> qnames = hints == null ? null : (List<QName>)hints.get(QNAMES_KEY);
-            qnames = getDefinedIndexes(qnames);
+            final boolean readYourWrites = LuceneModule.isReadYourWrites(context);
+            qnames = getDefinedIndexes(qnames, readYourWrites);
             //Expects a StringValue
             String start = null;
             String end = null;
@@ -1192,14 +1346,14 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 IntegerValue vmax = (IntegerValue) hints.get(VALUE_COUNT);
                 max = vmax == null ? Long.MAX_VALUE : vmax.getValue();
             }
-            return scanIndexByQName(qnames, docs, nodes, start, end, max);
+            return scanIndexByQName(qnames, docs, nodes, start, end, max, readYourWrites);
         } catch (IOException e) {
             LOG.warn("Failed to scan index occurrences: {}", e.getMessage(), e);
             return new Occurrences[0];
         }
     }
 
-    public Occurrences[] scanIndexByField(String field, DocumentSet docs, Map<?,?> hints) {
+    public Occurrences[] scanIndexByField(String field, DocumentSet docs, Map<?,?> hints, boolean readYourWrites) {
         try {
             //Expects a StringValue
             String start = null;
@@ -1213,16 +1367,16 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 IntegerValue vmax = (IntegerValue) hints.get(VALUE_COUNT);
                 max = vmax == null ? Long.MAX_VALUE : vmax.getValue();
             }
-            return scanIndexByField(field, docs, null, start, end, max);
+            return scanIndexByField(field, docs, null, start, end, max, readYourWrites);
         } catch (IOException e) {
             LOG.warn("Failed to scan index occurrences: {}", e.getMessage(), e);
             return new Occurrences[0];
         }
     }
 
-    private Occurrences[] scanIndexByQName(List<QName> qnames, DocumentSet docs, NodeSet nodes, String start, String end, long max) throws IOException {
+    private Occurrences[] scanIndexByQName(List<QName> qnames, DocumentSet docs, NodeSet nodes, String start, String end, long max, boolean readYourWrites) throws IOException {
         final TreeMap<String, Occurrences> map = new TreeMap<>();
-        index.withReader(reader -> {
+        index.withReader(readYourWrites, reader -> {
             for (QName qname : qnames) {
                 String field = LuceneUtil.encodeQName(qname, index.getBrokerPool().getSymbols());
                 doScanIndex(docs, nodes, start, end, max, map, reader, field);
@@ -1233,9 +1387,9 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         return map.values().toArray(occur);
     }
 
-    private Occurrences[] scanIndexByField(String field, DocumentSet docs, NodeSet nodes, String start, String end, long max) throws IOException {
+    private Occurrences[] scanIndexByField(String field, DocumentSet docs, NodeSet nodes, String start, String end, long max, boolean readYourWrites) throws IOException {
         final TreeMap<String, Occurrences> map = new TreeMap<>();
-        index.withReader(reader -> {
+        index.withReader(readYourWrites, reader -> {
             doScanIndex(docs, nodes, start, end, max, map, reader, field);
             return null;
         });
@@ -1370,12 +1524,9 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         IndexWriter writer = null;
         try {
             writer = index.getWriter();
-            // docId and nodeId are stored as doc value
-            NumericDocValuesField fDocId = new NumericDocValuesField(FIELD_DOC_ID, 0);
-            BinaryDocValuesField fNodeId = new BinaryDocValuesField(LuceneUtil.FIELD_NODE_ID, new BytesRef(8));
-            // docId also needs to be indexed
-            IntField fDocIdIdx = new IntField(FIELD_DOC_ID, 0, IntField.TYPE_NOT_STORED);
-
+            // the documents are built here, as building the fields and facets may use the broker,
+            // but are analyzed by the index, possibly concurrently, so they must not share any fields
+            final List<LuceneIndex.PendingDocument> documents = new ArrayList<>(nodesToWrite.size());
             for (PendingDoc pending : nodesToWrite) {
                 final Document doc = new Document();
 
@@ -1385,16 +1536,15 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                     config.build(broker, currentDoc, pending.nodeId, doc, pending.text)
                 );
 
-                fDocId.setLongValue(currentDoc.getDocId());
-                doc.add(fDocId);
+                // docId and nodeId are stored as doc value
+                doc.add(new NumericDocValuesField(FIELD_DOC_ID, currentDoc.getDocId()));
 
                 // store the node id
                 int nodeIdLen = pending.nodeId.size();
                 byte[] data = new byte[nodeIdLen + 2];
                 ByteConversion.shortToByte((short) pending.nodeId.units(), data, 0);
                 pending.nodeId.serialize(data, 2);
-                fNodeId.setBytesValue(data);
-                doc.add(fNodeId);
+                doc.add(new BinaryDocValuesField(LuceneUtil.FIELD_NODE_ID, new BytesRef(data)));
 
                 // add separate index for node id
                 BinaryTokenStream bts = new BinaryTokenStream(new BytesRef(data));
@@ -1421,15 +1571,13 @@ public class LuceneIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                     doc.add(fld);
                 }
 
-                fDocIdIdx.setIntValue(currentDoc.getDocId());
-                doc.add(fDocIdIdx);
+                // docId also needs to be indexed
+                doc.add(new IntField(FIELD_DOC_ID, currentDoc.getDocId(), IntField.TYPE_NOT_STORED));
 
-                if (pending.idxConf.getAnalyzer() == null) {
-                    writer.addDocument(config.facetsConfig.build(index.getTaxonomyWriter(), doc));
-                } else {
-                    writer.addDocument(config.facetsConfig.build(index.getTaxonomyWriter(), doc), pending.idxConf.getAnalyzer());
-		        }
-	        }
+                documents.add(new LuceneIndex.PendingDocument(config.facetsConfig.build(index.getTaxonomyWriter(), doc),
+                        pending.idxConf.getAnalyzer()));
+            }
+            index.addDocuments(writer, documents);
         } catch (final IOException e) {
             LOG.warn("An exception was caught while indexing document: {}", e.getMessage(), e);
         } finally {
@@ -39,12 +39,14 @@ public class LuceneMatch extends Match {
     private final Query query;
 
     private final LuceneIndexWorker.LuceneFacets facets;
+    private final boolean readYourWrites;
 
-    LuceneMatch(final int contextId, final int luceneDocId, final NodeId nodeId, final Query query, final LuceneIndexWorker.LuceneFacets facets) {
+    LuceneMatch(final int contextId, final int luceneDocId, final NodeId nodeId, final Query query, final LuceneIndexWorker.LuceneFacets facets, final boolean readYourWrites) {
         super(contextId, nodeId, null);
         this.luceneDocId = luceneDocId;
         this.query = query;
         this.facets = facets;
+        this.readYourWrites = readYourWrites;
     }
 
     private LuceneMatch(final LuceneMatch copy) {
@@ -53,6 +55,7 @@ public class LuceneMatch extends Match {
         this.luceneDocId = copy.luceneDocId;
         this.query = copy.query;
         this.facets = copy.facets;
+        this.readYourWrites = copy.readYourWrites;
     }
 
     @Override
@@ -78,6 +81,17 @@ public class LuceneMatch extends Match {
         return query;
     }
 
+    /**
+     * Whether the query which generated this match requested to read its own writes.
+     * Reads which depend on the match, e.g. for highlighting or for fields, must then
+     * also see all changes made to the index so far.
+     *
+     * @return true if the query requested to read its own writes
+     */
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
     public float getScore() {
         return score;
     }
@@ -339,8 +339,16 @@ public class LuceneMatchListener extends AbstractMatchListener {
      * Get all query terms from the original queries.
      */
     private void getTerms() {
+        boolean readYourWrites = false;
+        for (Match nextMatch = this.match; nextMatch != null; nextMatch = nextMatch.getNextMatch()) {
+            if (nextMatch instanceof LuceneMatch luceneMatch && luceneMatch.isReadYourWrites()) {
+                readYourWrites = true;
+                break;
+            }
+        }
+
         try {
-            index.withReader(reader -> {
+            index.withReader(readYourWrites, reader -> {
                 final Set<Query> queries = new HashSet<>();
                 termMap = new TreeMap<>();
                 Match nextMatch = this.match;
@@ -96,7 +96,7 @@ public class XMLToQuery {
                 case "prefix" -> prefixQuery(getField(root, field), root, options);
                 case "fuzzy" -> fuzzyQuery(getField(root, field), root);
                 case "bool" -> booleanQuery(getField(root, field), root, analyzer, options);
-                case "phrase" -> phraseQuery(getField(root, field), root, analyzer);
+                case "phrase" -> phraseQuery(getField(root, field), root, analyzer, options);
                 case "near" -> nearQuery(getField(root, field), root, analyzer);
                 case "first" -> getSpanFirst(getField(root, field), root, analyzer);
                 case "regex" -> regexQuery(getField(root, field), root, options);
@@ -112,7 +112,7 @@ public class XMLToQuery {
         return query;
     }
 
-    private Query phraseQuery(String field, Element node, Analyzer analyzer) throws XPathException {
+    private Query phraseQuery(String field, Element node, Analyzer analyzer, QueryOptions options) throws XPathException {
         NodeList termList = node.getElementsByTagName("term");
         if (termList.getLength() == 0) {
             PhraseQuery query = new PhraseQuery();
@@ -140,7 +140,7 @@ public class XMLToQuery {
             String text = getText(elem);
             if (text.indexOf('?') > -1 || text.indexOf('*') > 0) {
                 try {
-                    Term[] expanded = expandTerms(field, text);
+                    Term[] expanded = expandTerms(field, text, options.readYourWrites());
                     if (expanded.length > 0)
                         query.add(expanded);
                 } catch (IOException e) {
@@ -268,8 +268,8 @@ public class XMLToQuery {
         return -1;
     }
 
-    private Term[] expandTerms(String field, String queryStr) throws XPathException, IOException {
-        return index.withReader(reader -> {
+    private Term[] expandTerms(String field, String queryStr, boolean readYourWrites) throws XPathException, IOException {
+        return index.withReader(readYourWrites, reader -> {
             final Automaton automaton = WildcardQuery.toAutomaton(new Term(field, queryStr));
             final CompiledAutomaton compiled = new CompiledAutomaton(automaton);
             final List<Term> termList = new ArrayList<>(8);
@@ -148,7 +148,7 @@ public class Field extends BasicFunction {
     }
 
     private Sequence getBinaryFieldValue(final String fieldName, final int type, final LuceneMatch match, final LuceneIndexWorker index) throws IOException {
-        final BytesRef fieldValue = index.getBinaryField(match.getLuceneDocId(), fieldName);
+        final BytesRef fieldValue = index.getBinaryField(match.getLuceneDocId(), fieldName, match.isReadYourWrites());
         if (fieldValue == null) {
             return Sequence.EMPTY_SEQUENCE;
         }
@@ -156,7 +156,7 @@ public class Field extends BasicFunction {
     }
 
     private Sequence getFieldValues(final String fieldName, final int type, final LuceneMatch match, final LuceneIndexWorker index) throws IOException, XPathException {
-        final IndexableField[] fields = index.getField(match.getLuceneDocId(), fieldName);
+        final IndexableField[] fields = index.getField(match.getLuceneDocId(), fieldName, match.isReadYourWrites());
         final Sequence result = new ValueSequence(fields.length);
         for (final IndexableField field : fields) {
             if (field.numericValue() != null) {
@@ -181,7 +181,7 @@ public class Field extends BasicFunction {
      */
     private Sequence highlightMatches(final String fieldName, final NodeProxy proxy, final LuceneMatch match, final Sequence text) throws XPathException, IOException {
         final LuceneIndexWorker index = (LuceneIndexWorker) context.getBroker().getIndexController().getWorkerByIndexId(LuceneIndex.ID);
-        final Map<Object, Query> terms = index.getTerms(match.getQuery());
+        final Map<Object, Query> terms = index.getTerms(match.getQuery(), match.isReadYourWrites());
         final NodePath path = LuceneMatchListener.getPath(proxy);
         final LuceneConfig config = index.getLuceneConfig(context.getBroker(), proxy.getDocumentSet());
         LuceneIndexConfig idxConf = config.getConfig(path).next();
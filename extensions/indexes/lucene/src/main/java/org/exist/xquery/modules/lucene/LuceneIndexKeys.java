@@ -77,7 +77,7 @@ public class LuceneIndexKeys extends BasicFunction {
         final Sequence result = new ValueSequence();
         try (final FunctionReference ref = (FunctionReference) args[2].itemAt(0)) {
             final LuceneIndexWorker index = (LuceneIndexWorker) context.getBroker().getIndexController().getWorkerByIndexId(LuceneIndex.ID);
-            final Occurrences[] occur = index.scanIndexByField(fieldName, docs, hints);
+            final Occurrences[] occur = index.scanIndexByField(fieldName, docs, hints, LuceneModule.isReadYourWrites(context));
             final Sequence params[] = new Sequence[2];
             final ValueSequence data = new ValueSequence();
             for (int j = 0; j < occur.length; j++) {
@@ -30,6 +30,8 @@ import org.exist.xquery.ErrorCodes.ErrorCode;
 import org.exist.xquery.FunctionDSL;
 import org.exist.xquery.FunctionDef;
 import org.exist.xquery.FunctionSignature;
+import org.exist.xquery.Option;
+import org.exist.xquery.XQueryContext;
 import org.exist.xquery.value.FunctionParameterSequenceType;
 import org.exist.xquery.value.FunctionReturnSequenceType;
 
@@ -48,6 +50,12 @@ public class LuceneModule extends AbstractInternalModule {
     public final static String INCLUSION_DATE = "2008-09-03";
     public final static String RELEASED_IN_VERSION = "eXist-1.4";
 
+    /**
+     * Declaring this option with the value "yes" makes all full text index reads of the
+     * query see all changes made to the index so far, see {@link QueryOptions#readYourWrites()}.
+     */
+    public static final QName READ_YOUR_WRITES_OPTION = new QName("read-your-writes", NAMESPACE_URI, PREFIX);
+
     public final static ErrorCode EXXQDYFT0001 = new LuceneErrorCode("EXXQDYFT0001", "Permission denied.");
     public final static ErrorCode EXXQDYFT0002 = new LuceneErrorCode("EXXQDYFT0002", "IO Exception in lucene index.");
     public final static ErrorCode EXXQDYFT0003 = new LuceneErrorCode("EXXQDYFT0003", "Document not found.");
@@ -103,6 +111,18 @@ public class LuceneModule extends AbstractInternalModule {
         return RELEASED_IN_VERSION;
     }
 
+    /**
+     * Whether the query has declared the {@link #READ_YOUR_WRITES_OPTION}.
+     *
+     * @param context the context of the query
+     *
+     * @return true if the full text index reads of the query should see all changes made to the index so far
+     */
+    public static boolean isReadYourWrites(final XQueryContext context) {
+        final Option option = context.getOption(READ_YOUR_WRITES_OPTION);
+        return option != null && "yes".equalsIgnoreCase(option.getContents().trim());
+    }
+
     static FunctionSignature functionSignature(final String name, final String description, final FunctionReturnSequenceType returnType, final FunctionParameterSequenceType... paramTypes) {
         return FunctionDSL.functionSignature(new QName(name, NAMESPACE_URI, PREFIX), description, returnType, paramTypes);
     }
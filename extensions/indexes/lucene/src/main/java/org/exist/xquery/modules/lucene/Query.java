@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -77,6 +104,8 @@ public class Query extends Function implements Optimizable {
                                            <leading-wildcard>yes|no</leading-wildcard>
                                            <filter-rewrite>yes|no</filter-rewrite>
                                            <lowercase-expanded-terms>yes|no</lowercase-expanded-terms>
+                                           <read-your-writes>yes|no</read-your-writes>
+                                           <limit>number</limit>
                                         </options>"""
                         )
                     )
@@ -338,18 +367,23 @@ public class Query extends Function implements Optimizable {
     }
 
     protected static QueryOptions parseOptions(final Function funct, final Sequence contextSequence, final Item contextItem, final int position) throws XPathException {
+        final QueryOptions options;
         if (funct.getArgumentCount() < position) {
-            return new QueryOptions();
-        }
-
-        final Sequence optSeq = funct.getArgument(position - 1).eval(contextSequence, contextItem);
-        if (Type.subTypeOf(optSeq.getItemType(), Type.ELEMENT)) {
-            return new QueryOptions(funct.getContext(), (NodeValue) optSeq.itemAt(0));
-        } else if (Type.subTypeOf(optSeq.getItemType(), Type.MAP_ITEM)) {
-            return new QueryOptions((AbstractMapType) optSeq.itemAt(0));
+            options = new QueryOptions();
         } else {
-            throw new XPathException(funct, LuceneModule.EXXQDYFT0004, "Argument 3 should be either a map or an XML element");
+            final Sequence optSeq = funct.getArgument(position - 1).eval(contextSequence, contextItem);
+            if (Type.subTypeOf(optSeq.getItemType(), Type.ELEMENT)) {
+                options = new QueryOptions(funct.getContext(), (NodeValue) optSeq.itemAt(0));
+            } else if (Type.subTypeOf(optSeq.getItemType(), Type.MAP_ITEM)) {
+                options = new QueryOptions((AbstractMapType) optSeq.itemAt(0));
+            } else {
+                throw new XPathException(funct, LuceneModule.EXXQDYFT0004, "Argument 3 should be either a map or an XML element");
+            }
+        }
+        if (LuceneModule.isReadYourWrites(funct.getContext())) {
+            options.readYourWrites = true;
         }
+        return options;
     }
 
     @Override
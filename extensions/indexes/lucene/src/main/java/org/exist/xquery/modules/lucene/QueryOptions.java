@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -54,6 +81,8 @@ public class QueryOptions {
     public static final String OPTION_LOWERCASE_EXPANDED_TERMS = "lowercase-expanded-terms";
     public static final String OPTION_FACETS = "facets";
     public static final String OPTION_QUERY_ANALYZER_ID = "query-analyzer-id";
+    public static final String OPTION_READ_YOUR_WRITES = "read-your-writes";
+    public static final String OPTION_LIMIT = "limit";
 
     protected enum DefaultOperator {
         OR,
@@ -69,6 +98,8 @@ public class QueryOptions {
     protected boolean lowercaseExpandedTerms = false;
     protected Optional<Map<String, FacetQuery>> facets = Optional.empty();
     protected Set<String> fields = null;
+    protected boolean readYourWrites = false;
+    protected Optional<Integer> limit = Optional.empty();
 
     public QueryOptions() {
         // default options
@@ -207,6 +238,29 @@ public class QueryOptions {
         return filterRewrite;
     }
 
+    /**
+     * Should the query see all changes made to the index so far,
+     * even if the index is configured to refresh its searchers
+     * in the background.
+     *
+     * @return true if the query should read its own writes
+     */
+    public boolean readYourWrites() {
+        return readYourWrites;
+    }
+
+    /**
+     * The maximum number of hits that the query should return.
+     *
+     * When present, only the best scoring hits are materialized
+     * as nodes, the facet counts are still computed over all hits.
+     *
+     * @return the maximum number of hits, or empty if all hits should be returned
+     */
+    public Optional<Integer> getLimit() {
+        return limit;
+    }
+
     private void set(String key, String value) throws XPathException {
         switch (key) {
             case OPTION_DEFAULT_OPERATOR:
@@ -230,6 +284,21 @@ public class QueryOptions {
             case OPTION_LOWERCASE_EXPANDED_TERMS:
                 lowercaseExpandedTerms = value.equalsIgnoreCase("yes");
                 break;
+            case OPTION_READ_YOUR_WRITES:
+                readYourWrites = value.equalsIgnoreCase("yes");
+                break;
+            case OPTION_LIMIT:
+                final int maxHits;
+                try {
+                    maxHits = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new XPathException((Expression) null, LuceneModule.EXXQDYFT0004, "Option " + OPTION_LIMIT + " must be an integer");
+                }
+                if (maxHits < 1) {
+                    throw new XPathException((Expression) null, LuceneModule.EXXQDYFT0004, "Option " + OPTION_LIMIT + " must be a positive integer");
+                }
+                limit = Optional.of(maxHits);
+                break;
             case OPTION_QUERY_ANALYZER_ID:
                 queryAnalyzerId = value;
             default:
@@ -0,0 +1,220 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.indexing.lucene;
+
+import org.exist.EXistException;
+import org.exist.TestUtils;
+import org.exist.collections.Collection;
+import org.exist.collections.CollectionConfigurationException;
+import org.exist.collections.CollectionConfigurationManager;
+import org.exist.collections.triggers.TriggerException;
+import org.exist.indexing.IndexManager;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.txn.TransactionManager;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.test.TestConstants;
+import org.exist.util.Configuration;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQuery;
+import org.exist.xquery.value.Sequence;
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import static org.exist.util.PropertiesBuilder.propertiesBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Lucene index when it is configured with indexing threads,
+ * so that documents are analyzed and added to the index writer
+ * by a pool of threads rather than by the thread which stores them.
+ */
+public class LuceneIndexIndexingThreadsTest {
+
+    private static final int INDEXING_THREADS = 2;
+
+    private static final String COLLECTION_CONFIG =
+            "<collection xmlns=\"http://exist-db.org/collection-config/1.0\">" +
+            "   <index>" +
+            "       <lucene>" +
+            "           <text qname=\"head\"/>" +
+            "           <text qname=\"p\"/>" +
+            "           <text qname=\"hi\"/>" +
+            "           <text qname=\"@rend\"/>" +
+            "       </lucene>" +
+            "   </index>" +
+            "</collection>";
+
+    /**
+     * Has 6 Lucene documents: head, hi, two p and two @rend.
+     * They are written together, and so fit into the queue of the indexing threads.
+     */
+    private static final String XML =
+            "<section>" +
+            "   <head>The title in big letters</head>" +
+            "   <p rend=\"center\">A simple paragraph with <hi>just</hi> text in it.</p>" +
+            "   <p rend=\"right\">Another paragraph with some more text.</p>" +
+            "</section>";
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(
+            propertiesBuilder()
+                    .put(IndexManager.PROPERTY_INDEXER_MODULES, new Configuration.IndexModuleConfig[] { luceneIndexModule() })
+                    .build(),
+            true,
+            true);
+
+    @Test
+    public void storeOnIndexingThreads() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException, XPathException {
+        final LuceneIndex index = getIndex();
+        assertEquals(INDEXING_THREADS, index.getIndexingThreads());
+
+        final long indexedCount = index.getIndexedCount();
+        final long parallelIndexedCount = index.getParallelIndexedCount();
+
+        store("store.xml");
+
+        // none of the documents were added by the storing thread
+        final long storedCount = index.getIndexedCount() - indexedCount;
+        assertTrue(storedCount >= 6);
+        assertEquals(storedCount, index.getParallelIndexedCount() - parallelIndexedCount);
+        checkQueries("store.xml");
+    }
+
+    @Test
+    public void reindexOnIndexingThreads() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException, XPathException {
+        store("reindex.xml");
+
+        final LuceneIndex index = getIndex();
+        final long indexedCount = index.getIndexedCount();
+        final long parallelIndexedCount = index.getParallelIndexedCount();
+
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final TransactionManager transact = pool.getTransactionManager();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = transact.beginTransaction()) {
+            broker.reindexCollection(transaction, TestConstants.TEST_COLLECTION_URI);
+            transact.commit(transaction);
+        }
+
+        // every document of the collection is reindexed, and all of them on the indexing threads
+        final long reindexedCount = index.getIndexedCount() - indexedCount;
+        assertTrue(reindexedCount >= 6);
+        assertEquals(reindexedCount, index.getParallelIndexedCount() - parallelIndexedCount);
+        checkQueries("reindex.xml");
+    }
+
+    @Test
+    public void statisticsMBean() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException, JMException {
+        store("statistics.xml");
+
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName("org.exist.management." + pool.getId() + ":type=LuceneIndex,name=lucene");
+        assertTrue(server.isRegistered(name));
+        assertEquals(INDEXING_THREADS, server.getAttribute(name, "IndexingThreads"));
+
+        final long indexedCount = (Long) server.getAttribute(name, "IndexedCount");
+        final long parallelIndexedCount = (Long) server.getAttribute(name, "ParallelIndexedCount");
+        assertTrue(indexedCount >= 6);
+        assertTrue(parallelIndexedCount >= 6);
+        assertTrue(parallelIndexedCount <= indexedCount);
+        assertTrue((Long) server.getAttribute(name, "IndexingTime") >= 0);
+        assertTrue((Long) server.getAttribute(name, "IndexingThroughput") >= 0);
+    }
+
+    private static LuceneIndex getIndex() {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        return (LuceneIndex) pool.getIndexManager().getIndexById(LuceneIndex.ID);
+    }
+
+    private static void checkQueries(final String docName) throws EXistException, PermissionDeniedException, XPathException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            final XQuery xquery = pool.getXQueryService();
+            final String doc = "doc('" + TestConstants.TEST_COLLECTION_URI.append(docName) + "')";
+
+            Sequence seq = xquery.execute(broker, "count(" + doc + "//head[ft:query(., 'title')])", null);
+            assertEquals("1", seq.getStringValue());
+            seq = xquery.execute(broker, "count(" + doc + "//p[ft:query(., 'paragraph')])", null);
+            assertEquals("2", seq.getStringValue());
+            seq = xquery.execute(broker, "count(" + doc + "//hi[ft:query(., 'just')])", null);
+            assertEquals("1", seq.getStringValue());
+            seq = xquery.execute(broker, "count(" + doc + "//p[ft:query(@rend, 'center')])", null);
+            assertEquals("1", seq.getStringValue());
+        }
+    }
+
+    private static Configuration.IndexModuleConfig luceneIndexModule() {
+        try {
+            final Element module = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()
+                    .createElement(IndexManager.CONFIGURATION_MODULE_ELEMENT_NAME);
+            module.setAttribute("id", "lucene-index");
+            module.setAttribute(LuceneIndex.INDEXING_THREADS_ATTRIBUTE, Integer.toString(INDEXING_THREADS));
+            return new Configuration.IndexModuleConfig("lucene-index", LuceneIndex.class.getName(), module);
+        } catch (final ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void store(final String docName) throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final TransactionManager transact = pool.getTransactionManager();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = transact.beginTransaction()) {
+            final Collection root = broker.getOrCreateCollection(transaction, TestConstants.TEST_COLLECTION_URI);
+            broker.saveCollection(transaction, root);
+
+            final CollectionConfigurationManager mgr = pool.getConfigurationManager();
+            mgr.addConfiguration(transaction, broker, root, COLLECTION_CONFIG);
+
+            broker.storeDocument(transaction, XmldbURI.create(docName), new StringInputSource(XML), MimeType.XML_TYPE, root);
+            transact.commit(transaction);
+        }
+    }
+
+    @AfterClass
+    public static void cleanupDb() throws EXistException, PermissionDeniedException, LockException, IOException, TriggerException {
+        TestUtils.cleanupDB();
+    }
+}
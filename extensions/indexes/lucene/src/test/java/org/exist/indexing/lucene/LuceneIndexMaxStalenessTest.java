@@ -0,0 +1,182 @@
+/*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ */
+package org.exist.indexing.lucene;
+
+import org.exist.EXistException;
+import org.exist.TestUtils;
+import org.exist.collections.Collection;
+import org.exist.collections.CollectionConfigurationException;
+import org.exist.collections.CollectionConfigurationManager;
+import org.exist.collections.triggers.TriggerException;
+import org.exist.indexing.IndexManager;
+import org.exist.security.PermissionDeniedException;
+import org.exist.storage.BrokerPool;
+import org.exist.storage.DBBroker;
+import org.exist.storage.txn.TransactionManager;
+import org.exist.storage.txn.Txn;
+import org.exist.test.ExistEmbeddedServer;
+import org.exist.test.TestConstants;
+import org.exist.util.Configuration;
+import org.exist.util.LockException;
+import org.exist.util.MimeType;
+import org.exist.util.StringInputSource;
+import org.exist.xmldb.XmldbURI;
+import org.exist.xquery.XPathException;
+import org.exist.xquery.XQuery;
+import org.exist.xquery.value.Sequence;
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import static org.exist.util.PropertiesBuilder.propertiesBuilder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Lucene index when it is configured with a max staleness,
+ * so that its searchers and readers are only refreshed in the background
+ * unless a query asks to read its own writes.
+ */
+public class LuceneIndexMaxStalenessTest {
+
+    /**
+     * Long enough that the background refresh never runs during the tests.
+     */
+    private static final long MAX_STALENESS = 60 * 60 * 1000;
+
+    private static final String COLLECTION_CONFIG =
+            "<collection xmlns=\"http://exist-db.org/collection-config/1.0\">" +
+            "   <index>" +
+            "       <lucene>" +
+            "           <text qname=\"p\">" +
+            "               <field name=\"rend\" expression=\"@rend\"/>" +
+            "           </text>" +
+            "       </lucene>" +
+            "   </index>" +
+            "</collection>";
+
+    @ClassRule
+    public static final ExistEmbeddedServer existEmbeddedServer = new ExistEmbeddedServer(
+            propertiesBuilder()
+                    .put(IndexManager.PROPERTY_INDEXER_MODULES, new Configuration.IndexModuleConfig[] { luceneIndexModule() })
+                    .build(),
+            true,
+            true);
+
+    @Test
+    public void dependentReadsSeeOwnWrites() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException, XPathException {
+        store("dependent.xml", "<section><p rend=\"center\">A paragraph with some content in it.</p></section>");
+
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final LuceneIndex index = (LuceneIndex) pool.getIndexManager().getIndexById(LuceneIndex.ID);
+        assertEquals(MAX_STALENESS, index.getMaxStaleness());
+
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            final XQuery xquery = pool.getXQueryService();
+
+            // the field and the highlighted matches are read with the same guarantee as the query itself
+            final Sequence seq = xquery.execute(broker,
+                    "declare namespace exist = \"http://exist-db.org/xquery/exist\";\n" +
+                    "let $p := collection('" + TestConstants.TEST_COLLECTION_URI + "')//p[ft:query(., 'content', map { 'read-your-writes': 'yes' })]\n" +
+                    "return (count($p), ft:field($p, 'rend'), util:expand($p)//exist:match/string())", null);
+            assertEquals(3, seq.getItemCount());
+            assertEquals("1", seq.itemAt(0).getStringValue());
+            assertEquals("center", seq.itemAt(1).getStringValue());
+            assertEquals("content", seq.itemAt(2).getStringValue());
+        }
+    }
+
+    @Test
+    public void declaredOptionAppliesToIndexKeys() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException, XPathException {
+        store("keys.xml", "<section><p rend=\"right\">Another paragraph.</p></section>");
+
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            final XQuery xquery = pool.getXQueryService();
+            final String indexKeys = "ft:index-keys-for-field('rend', 'righ', function($key, $count) { $key }, 10)";
+
+            // the reader has not been refreshed since the document was stored
+            Sequence seq = xquery.execute(broker, indexKeys, null);
+            assertEquals(0, seq.getItemCount());
+
+            seq = xquery.execute(broker, "declare option ft:read-your-writes \"yes\";\n" + indexKeys, null);
+            assertEquals(1, seq.getItemCount());
+            assertEquals("right", seq.itemAt(0).getStringValue());
+        }
+    }
+
+    @Test
+    public void statisticsMBean() throws JMException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName("org.exist.management." + pool.getId() + ":type=LuceneIndex,name=lucene");
+        assertTrue(server.isRegistered(name));
+        assertEquals(MAX_STALENESS, server.getAttribute(name, "MaxStaleness"));
+        assertTrue((Long) server.getAttribute(name, "MaxRefreshTime") <= (Long) server.getAttribute(name, "RefreshTime"));
+    }
+
+    private static Configuration.IndexModuleConfig luceneIndexModule() {
+        try {
+            final Element module = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()
+                    .createElement(IndexManager.CONFIGURATION_MODULE_ELEMENT_NAME);
+            module.setAttribute("id", "lucene-index");
+            module.setAttribute(LuceneIndex.MAX_STALENESS_ATTRIBUTE, Long.toString(MAX_STALENESS));
+            return new Configuration.IndexModuleConfig("lucene-index", LuceneIndex.class.getName(), module);
+        } catch (final ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void store(final String docName, final String data) throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, TriggerException, LockException, IOException {
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final TransactionManager transact = pool.getTransactionManager();
+        try (final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()));
+             final Txn transaction = transact.beginTransaction()) {
+            final Collection root = broker.getOrCreateCollection(transaction, TestConstants.TEST_COLLECTION_URI);
+            broker.saveCollection(transaction, root);
+
+            final CollectionConfigurationManager mgr = pool.getConfigurationManager();
+            mgr.addConfiguration(transaction, broker, root, COLLECTION_CONFIG);
+
+            broker.storeDocument(transaction, XmldbURI.create(docName), new StringInputSource(data), MimeType.XML_TYPE, root);
+            transact.commit(transaction);
+        }
+    }
+
+    @AfterClass
+    public static void cleanupDb() throws EXistException, PermissionDeniedException, LockException, IOException, TriggerException {
+        TestUtils.cleanupDB();
+    }
+}
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -24,6 +51,7 @@ package org.exist.indexing.lucene;
 import static org.exist.util.PropertiesBuilder.propertiesBuilder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.StringReader;
@@ -294,6 +322,30 @@ public class LuceneIndexTest {
         }
     }
 
+    @Test
+    public void readYourWrites() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, LockException, IOException, XPathException {
+        configureAndStore(COLLECTION_CONFIG1, XML1, "test.xml");
+        final BrokerPool pool = existEmbeddedServer.getBrokerPool();
+        final LuceneIndex index = (LuceneIndex) pool.getIndexManager().getIndexById(LuceneIndex.ID);
+        assertEquals(0, index.getMaxStaleness());
+        try(final DBBroker broker = pool.get(Optional.of(pool.getSecurityManager().getSystemSubject()))) {
+            final long refreshCount = index.getRefreshCount();
+
+            final XQuery xquery = pool.getXQueryService();
+            Sequence seq = xquery.execute(broker, "/section[ft:query(p, 'content', map { 'read-your-writes': 'yes' })]", null);
+            assertNotNull(seq);
+            assertEquals(1, seq.getItemCount());
+
+            seq = xquery.execute(broker, "/section[ft:query(p, 'content', <options><read-your-writes>no</read-your-writes></options>)]", null);
+            assertNotNull(seq);
+            assertEquals(1, seq.getItemCount());
+
+            // without a max staleness the searcher is refreshed before every query
+            assertTrue(index.getRefreshCount() >= refreshCount + 2);
+            assertTrue(index.getMaxRefreshTime() <= index.getRefreshTime());
+        }
+    }
+
     @Test
     public void moreElaborateQueries() throws EXistException, CollectionConfigurationException, PermissionDeniedException, SAXException, LockException, IOException, XPathException, QName.IllegalQNameException {
         final String XML10 =
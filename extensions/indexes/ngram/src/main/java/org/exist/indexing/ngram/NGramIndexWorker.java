@@ -50,7 +50,7 @@ package org.exist.indexing.ngram;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -252,7 +252,7 @@ public class NGramIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 continue;
             }
 
-            try (final ManagedLock<ReentrantLock> dbLock = lockManager.acquireBtreeWriteLock(index.db.getLockName())) {
+            try (final ManagedLock<ReentrantReadWriteLock> dbLock = lockManager.acquireBtreeWriteLock(index.db.getLockName())) {
                 final NGramQNameKey value = new NGramQNameKey(currentDoc.getCollection().getId(), key.qname,
                         index.getBrokerPool().getSymbols(), key.term);
                 index.db.append(value, data);
@@ -282,7 +282,7 @@ public class NGramIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
             occurencesList.sort();
             os.clear();
 
-            try (final ManagedLock<ReentrantLock> dbLock = lockManager.acquireBtreeWriteLock(index.db.getLockName())) {
+            try (final ManagedLock<ReentrantReadWriteLock> dbLock = lockManager.acquireBtreeWriteLock(index.db.getLockName())) {
                 final NGramQNameKey value = new NGramQNameKey(currentDoc.getCollection().getId(), key.qname,
                         index.getBrokerPool().getSymbols(), key.term);
                 boolean changed = false;
@@ -392,7 +392,7 @@ public class NGramIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Dropping NGram index for collection {}", collection.getURI());
         }
-        try (final ManagedLock<ReentrantLock> dbLock = lockManager.acquireBtreeWriteLock(index.db.getLockName())) {
+        try (final ManagedLock<ReentrantReadWriteLock> dbLock = lockManager.acquireBtreeWriteLock(index.db.getLockName())) {
             // remove generic index
             final Value value = new NGramQNameKey(collection.getId());
             index.db.removeAll(null, new IndexQuery(IndexQuery.TRUNC_RIGHT, value));
@@ -418,7 +418,7 @@ public class NGramIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
             final int collectionId = iter.next().getId();
             for (final QName qname : searchQnames) {
                 final NGramQNameKey key = new NGramQNameKey(collectionId, qname, index.getBrokerPool().getSymbols(), query);
-                try (final ManagedLock<ReentrantLock> dbLock = lockManager.acquireBtreeReadLock(index.db.getLockName())) {
+                try (final ManagedLock<ReentrantReadWriteLock> dbLock = lockManager.acquireBtreeReadLock(index.db.getLockName())) {
                     final SearchCallback cb = new SearchCallback(contextId, query, ngram, docs, contextSet, context, result, axis == NodeSet.ANCESTOR);
                     final int op = query.codePointCount(0, query.length()) < getN() ? IndexQuery.TRUNC_RIGHT : IndexQuery.EQ;
                     index.db.query(new IndexQuery(op, key), cb);
@@ -498,7 +498,7 @@ public class NGramIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                             index.getBrokerPool().getSymbols(), end.toString().toLowerCase());
                     query = new IndexQuery(IndexQuery.BW, startRef, endRef);
                 }
-                try (final ManagedLock<ReentrantLock> dbLock = lockManager.acquireBtreeReadLock(index.db.getLockName())) {
+                try (final ManagedLock<ReentrantReadWriteLock> dbLock = lockManager.acquireBtreeReadLock(index.db.getLockName())) {
                     index.db.query(query, cb);
                 } catch (final LockException e) {
                     LOG.warn("Failed to acquire lock for '{}'", FileUtils.fileName(index.db.getFile()), e);
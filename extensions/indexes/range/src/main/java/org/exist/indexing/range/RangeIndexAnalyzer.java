@@ -130,6 +130,15 @@ public class RangeIndexAnalyzer extends Analyzer {
         }
     }
 
+    /**
+     * Check if this analyzer changes the content before it is indexed.
+     *
+     * @return true if filters or a collation have been added to the pipeline
+     */
+    public boolean transformsContent() {
+        return !filterConfigs.isEmpty() || collator != null;
+    }
+
     @Override
     protected TokenStreamComponents createComponents(final String fieldName, final Reader reader) {
         AttributeFactory factory = AttributeFactory.DEFAULT_ATTRIBUTE_FACTORY;
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -188,6 +215,19 @@ public class RangeIndexConfig {
         return caseSensitive;
     }
 
+    /**
+     * Get the configurations for nodes with the given name. Further
+     * configurations for the name are linked from the returned one, see
+     * {@link RangeIndexConfigElement#getNext()}.
+     *
+     * @param qname the name of the nodes, the name type is ignored
+     *
+     * @return the first configuration, or null if there is none
+     */
+    public @Nullable RangeIndexConfigElement getConfig(QName qname) {
+        return paths.get(qname);
+    }
+
     public Iterator<RangeIndexConfigElement> getConfig(NodePath path) {
         iterator.reset(path);
         return iterator;
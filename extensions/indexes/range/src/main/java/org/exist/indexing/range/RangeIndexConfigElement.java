@@ -320,6 +320,22 @@ public class RangeIndexConfigElement {
         return usesCollation;
     }
 
+    public boolean includesNested() {
+        return includeNested;
+    }
+
+    /**
+     * Check if the terms of this index are the unmodified
+     * string values of the indexed nodes.
+     *
+     * @return true if the content is indexed as a string without changing its
+     *     case, whitespace or applying any filters or collation
+     */
+    public boolean indexesVerbatim() {
+        return type == Type.STRING && caseSensitive && wsTreatment == XMLString.SUPPRESS_NONE
+                && !analyzer.transformsContent() && typeConverter == null;
+    }
+
     public boolean isComplex() {
         return false;
     }
@@ -1,4 +1,31 @@
 /*
+ * Elemental
+ * Copyright (C) 2024, Evolved Binary Ltd
+ *
+ * admin@evolvedbinary.com
+ * https://www.evolvedbinary.com | https://www.elemental.xyz
+ *
+ * Use of this software is governed by the Business Source License 1.1
+ * included in the LICENSE file and at www.mariadb.com/bsl11.
+ *
+ * Change Date: 2028-04-27
+ *
+ * On the date above, in accordance with the Business Source License, use
+ * of this software will be governed by the Apache License, Version 2.0.
+ *
+ * Additional Use Grant: Production use of the Licensed Work for a permitted
+ * purpose. A Permitted Purpose is any purpose other than a Competing Use.
+ * A Competing Use means making the Software available to others in a commercial
+ * product or service that: substitutes for the Software; substitutes for any
+ * other product or service we offer using the Software that exists as of the
+ * date we make the Software available; or offers the same or substantially
+ * similar functionality as the Software.
+ *
+ * NOTE: Parts of this file contain code from 'The eXist-db Authors'.
+ *       The original license header is included below.
+ *
+ * =====================================================================
+ *
  * eXist-db Open Source Native XML Database
  * Copyright (C) 2001 The eXist-db Authors
  *
@@ -43,6 +70,7 @@ import org.apache.lucene.index.*;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.NumericUtils;
 import org.exist.collections.Collection;
 import org.exist.indexing.*;
@@ -64,11 +92,13 @@ import org.exist.util.DatabaseConfigurationException;
 import org.exist.util.LockException;
 import org.exist.util.Occurrences;
 import org.exist.xquery.*;
+import org.exist.xquery.modules.range.RangeIndexModule;
 import org.exist.xquery.modules.range.RangeQueryRewriter;
 import org.exist.xquery.value.*;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.*;
@@ -78,7 +108,7 @@ import java.util.*;
  *
  * @author Wolfgang Meier
  */
-public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
+public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex, AggregatingIndex, OrderingIndex {
 
     private static final Logger LOG = LogManager.getLogger(RangeIndexWorker.class);
 
@@ -515,9 +545,9 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         }
     }
 
-    public NodeSet query(int contextId, DocumentSet docs, NodeSet contextSet, List<QName> qnames, AtomicValue[] keys, RangeIndex.Operator operator, int axis) throws IOException, XPathException {
-        return index.withSearcher(searcher -> {
-            List<QName> definedIndexes = getDefinedIndexes(qnames);
+    public NodeSet query(int contextId, DocumentSet docs, NodeSet contextSet, List<QName> qnames, AtomicValue[] keys, RangeIndex.Operator operator, int axis, boolean readYourWrites) throws IOException, XPathException {
+        return index.withSearcher(readYourWrites, searcher -> {
+            List<QName> definedIndexes = getDefinedIndexes(qnames, readYourWrites);
             NodeSet resultSet = new NewArrayNodeSet();
             for (QName qname : definedIndexes) {
                 Query query;
@@ -540,8 +570,8 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         });
     }
 
-    public NodeSet queryField(int contextId, DocumentSet docs, NodeSet contextSet, Sequence fields, Sequence[] keys, RangeIndex.Operator[] operators, int axis) throws IOException, XPathException {
-        return index.withSearcher(searcher -> {
+    public NodeSet queryField(int contextId, DocumentSet docs, NodeSet contextSet, Sequence fields, Sequence[] keys, RangeIndex.Operator[] operators, int axis, boolean readYourWrites) throws IOException, XPathException {
+        return index.withSearcher(readYourWrites, searcher -> {
             BooleanQuery query = new BooleanQuery();
             int j = 0;
             for (SequenceIterator i = fields.iterate(); i.hasNext(); j++) {
@@ -694,22 +724,22 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
      *
      * @return List of QName objects on which indexes are defined
      */
-    private List<QName> getDefinedIndexes(List<QName> qnames) throws IOException {
+    private List<QName> getDefinedIndexes(List<QName> qnames, boolean readYourWrites) throws IOException {
         List<QName> indexes = new ArrayList<>(20);
         if (qnames != null && !qnames.isEmpty()) {
             for (QName qname : qnames) {
                 if (qname.getLocalPart() == null || qname.getNamespaceURI() == null)
-                    getDefinedIndexesFor(qname, indexes);
+                    getDefinedIndexesFor(qname, indexes, readYourWrites);
                 else
                     indexes.add(qname);
             }
             return indexes;
         }
-        return getDefinedIndexesFor(null, indexes);
+        return getDefinedIndexesFor(null, indexes, readYourWrites);
     }
 
-    private List<QName> getDefinedIndexesFor(QName qname, final List<QName> indexes) throws IOException {
-        return index.withReader(reader -> {
+    private List<QName> getDefinedIndexesFor(QName qname, final List<QName> indexes, boolean readYourWrites) throws IOException {
+        return index.withReader(readYourWrites, reader -> {
             for (FieldInfo info: MultiFields.getMergedFieldInfos(reader)) {
                 if (!FIELD_DOC_ID.equals(info.name)) {
                     QName name = LuceneUtil.decodeQName(info.name, index.getBrokerPool().getSymbols());
@@ -787,6 +817,394 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         return true;
     }
 
+    /**
+     * The largest magnitude up to which every long is exactly representable as a double.
+     */
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    /**
+     * The most entries of a field in the index that are read for each of the nodes,
+     * when computing a result from the index rather than from the nodes. All of the
+     * entries of the field are visited, however few nodes are given, so reading them
+     * is only cheaper than loading the nodes when the nodes are a large enough part
+     * of the field.
+     */
+    private static final int MAX_FIELD_ENTRIES_PER_NODE = 8;
+
+    /**
+     * The kinds of terms in the index that aggregates can be computed from.
+     */
+    private enum TermKind {
+        LONG,
+        INT,
+        DOUBLE,
+        STRING
+    }
+
+    /**
+     * Computes an aggregate from the terms of the index without loading the nodes.
+     *
+     * All of the configurations for the nodes in each of their collections
+     * must produce terms of the same kind, and every one of the nodes must
+     * have exactly one term, otherwise null is returned. The values of
+     * the nodes are xs:untypedAtomic, so min, max and sum are returned
+     * as xs:double, and distinct-values as xs:untypedAtomic.
+     *
+     * Null is also returned when the field has many more entries in the index
+     * than there are nodes, see {@link #MAX_FIELD_ENTRIES_PER_NODE}.
+     *
+     * The nodes are always up to date, so the terms are read from a reader which
+     * sees all changes made to the index so far, even if a max staleness is configured.
+     */
+    @Override
+    public @Nullable Sequence aggregate(final XQueryContext context, final NodeSet nodes, final QName qname,
+            final Aggregate aggregate, final Expression parent) throws XPathException {
+        final TermKind kind = getTermKind(nodes.getDocumentSet(), qname);
+        if (kind == null) {
+            return null;
+        }
+        final boolean supported = switch (aggregate) {
+            case MIN, MAX -> kind != TermKind.STRING;
+            // summing doubles depends on the order of the values
+            case SUM -> kind == TermKind.LONG || kind == TermKind.INT;
+            case DISTINCT_VALUES -> kind == TermKind.STRING;
+        };
+        if (!supported) {
+            return null;
+        }
+
+        final long start = System.currentTimeMillis();
+        try {
+            final Sequence result = index.withReader(true, reader -> aggregate(reader, nodes, qname, aggregate, kind));
+            if (result != null && context.getProfiler().traceFunctions()) {
+                context.getProfiler().traceIndexUsage(context, "new-range", parent, PerformanceStats.IndexOptimizationLevel.OPTIMIZED, System.currentTimeMillis() - start);
+            }
+            return result;
+        } catch (final IOException e) {
+            throw new XPathException((Expression) null, "Error computing an aggregate from the range index: " + e.getMessage(), e);
+        }
+    }
+
+    private @Nullable Sequence aggregate(final IndexReader reader, final NodeSet nodes, final QName qname,
+            final Aggregate aggregate, final TermKind kind) throws IOException {
+        final DocumentSet docs = nodes.getDocumentSet();
+        final String field = LuceneUtil.encodeQName(qname, index.getBrokerPool().getSymbols());
+        if (!isSmallRelativeTo(reader, field, nodes.getItemCountLong())) {
+            return null;
+        }
+        final Set<NodeProxy> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long sum = 0;
+        long absoluteSum = 0;
+        final Set<String> distinctValues = new TreeSet<>();
+
+        DocsEnum docsEnum = null;
+        for (final AtomicReaderContext context : reader.leaves()) {
+            final Terms terms = context.reader().terms(field);
+            if (terms == null) {
+                continue;
+            }
+            final Bits acceptDocs = getDocs(context.reader(), docs);
+            if (acceptDocs == null) {
+                continue;
+            }
+            final NumericDocValues docIdValues = context.reader().getNumericDocValues(FIELD_DOC_ID);
+            final BinaryDocValues nodeIdValues = context.reader().getBinaryDocValues(FIELD_NODE_ID);
+            final TermsEnum termsEnum = switch (kind) {
+                // skip the lower precision terms of numeric fields
+                case LONG, DOUBLE -> NumericUtils.filterPrefixCodedLongs(terms.iterator(null));
+                case INT -> NumericUtils.filterPrefixCodedInts(terms.iterator(null));
+                case STRING -> terms.iterator(null);
+            };
+
+            BytesRef term;
+            while ((term = termsEnum.next()) != null) {
+                long count = 0;
+                docsEnum = termsEnum.docs(acceptDocs, docsEnum, DocsEnum.FLAG_NONE);
+                while (docsEnum.nextDoc() != DocsEnum.NO_MORE_DOCS) {
+                    final DocumentImpl storedDocument = docs.getDoc((int) docIdValues.get(docsEnum.docID()));
+                    if (storedDocument == null) {
+                        continue;
+                    }
+                    final BytesRef nodeIdRef = nodeIdValues.get(docsEnum.docID());
+                    final int units = ByteConversion.byteToShort(nodeIdRef.bytes, nodeIdRef.offset);
+                    final NodeId nodeId = index.getBrokerPool().getNodeFactory().createFromData(units, nodeIdRef.bytes, nodeIdRef.offset + 2);
+                    final NodeProxy node = nodes.get(storedDocument, nodeId);
+                    if (node == null) {
+                        continue;
+                    }
+                    if (!matched.add(node)) {
+                        // the node has more than one value in the index
+                        return null;
+                    }
+                    count++;
+                }
+                if (count == 0) {
+                    continue;
+                }
+
+                if (kind == TermKind.STRING) {
+                    distinctValues.add(term.utf8ToString());
+                } else if (aggregate == Aggregate.SUM) {
+                    final long value = kind == TermKind.LONG ? NumericUtils.prefixCodedToLong(term) : NumericUtils.prefixCodedToInt(term);
+                    try {
+                        sum = Math.addExact(sum, Math.multiplyExact(value, count));
+                        absoluteSum = Math.addExact(absoluteSum, Math.multiplyExact(Math.abs(value), count));
+                    } catch (final ArithmeticException e) {
+                        return null;
+                    }
+                    if (value == Long.MIN_VALUE || absoluteSum > MAX_EXACT_DOUBLE) {
+                        // the sum of the xs:double values might not be exact
+                        return null;
+                    }
+                } else {
+                    final double value = switch (kind) {
+                        case LONG -> NumericUtils.prefixCodedToLong(term);
+                        case INT -> NumericUtils.prefixCodedToInt(term);
+                        default -> NumericUtils.sortableLongToDouble(NumericUtils.prefixCodedToLong(term));
+                    };
+                    if (Double.isNaN(value)) {
+                        return null;
+                    }
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+        }
+
+        if (matched.size() != nodes.getItemCountLong()) {
+            // not all of the nodes are in the index
+            return null;
+        }
+
+        return switch (aggregate) {
+            case MIN -> new DoubleValue(min);
+            case MAX -> new DoubleValue(max);
+            case SUM -> new DoubleValue(sum);
+            case DISTINCT_VALUES -> new ValueSequence(distinctValues.stream().map(UntypedAtomicValue::new).toArray(Item[]::new));
+        };
+    }
+
+    /**
+     * Determine if a field has few enough entries in the index, relative to the number of nodes,
+     * that reading all of them is cheaper than loading the nodes.
+     */
+    private static boolean isSmallRelativeTo(final IndexReader reader, final String field, final long nodeCount) throws IOException {
+        long entries = 0;
+        for (final AtomicReaderContext context : reader.leaves()) {
+            final Terms terms = context.reader().terms(field);
+            if (terms != null) {
+                // numeric fields have several terms per entry, so count the entries rather than the postings
+                final int docCount = terms.getDocCount();
+                entries += docCount != -1 ? docCount : context.reader().maxDoc();
+            }
+        }
+        return entries <= nodeCount * MAX_FIELD_ENTRIES_PER_NODE;
+    }
+
+    /**
+     * Finds the live entries in a segment of the index which belong to the documents.
+     *
+     * @return the entries, or null if there are none
+     */
+    private static @Nullable Bits getDocs(final AtomicReader reader, final DocumentSet docs) throws IOException {
+        final Terms terms = reader.terms(FIELD_DOC_ID);
+        if (terms == null) {
+            return null;
+        }
+        final TermsEnum termsEnum = terms.iterator(null);
+        final BytesRefBuilder bytes = new BytesRefBuilder();
+        FixedBitSet bits = null;
+        DocsEnum docsEnum = null;
+        for (final Iterator<DocumentImpl> i = docs.getDocumentIterator(); i.hasNext(); ) {
+            NumericUtils.intToPrefixCoded(i.next().getDocId(), 0, bytes);
+            if (!termsEnum.seekExact(bytes.get())) {
+                continue;
+            }
+            docsEnum = termsEnum.docs(reader.getLiveDocs(), docsEnum, DocsEnum.FLAG_NONE);
+            int doc;
+            while ((doc = docsEnum.nextDoc()) != DocsEnum.NO_MORE_DOCS) {
+                if (bits == null) {
+                    bits = new FixedBitSet(reader.maxDoc());
+                }
+                bits.set(doc);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Orders the nodes by their terms in the index without loading the nodes.
+     *
+     * The nodes must be indexed as verbatim strings, and every one of the nodes
+     * must have exactly one term, otherwise null is returned. The terms are
+     * ordered by their UTF-8 bytes, which is the codepoint order of the strings,
+     * whereas an order by clause compares the strings by their UTF-16 code units.
+     * The two orders only agree when none of the strings contain supplementary
+     * characters, otherwise null is returned too.
+     *
+     * Null is also returned when the field has many more entries in the index
+     * than there are nodes, see {@link #MAX_FIELD_ENTRIES_PER_NODE}.
+     *
+     * The nodes are always up to date, so the terms are read from a reader which
+     * sees all changes made to the index so far, even if a max staleness is configured.
+     */
+    @Override
+    public @Nullable List<List<NodeProxy>> orderByValue(final XQueryContext context, final NodeSet nodes,
+            final QName qname, final Expression parent) throws XPathException {
+        if (getTermKind(nodes.getDocumentSet(), qname) != TermKind.STRING) {
+            return null;
+        }
+
+        final long start = System.currentTimeMillis();
+        try {
+            final List<List<NodeProxy>> ordered = index.withReader(true, reader -> orderByValue(reader, nodes, qname));
+            if (ordered != null && context.getProfiler().traceFunctions()) {
+                context.getProfiler().traceIndexUsage(context, "new-range", parent, PerformanceStats.IndexOptimizationLevel.OPTIMIZED, System.currentTimeMillis() - start);
+            }
+            return ordered;
+        } catch (final IOException e) {
+            throw new XPathException((Expression) null, "Error ordering by the range index: " + e.getMessage(), e);
+        }
+    }
+
+    private @Nullable List<List<NodeProxy>> orderByValue(final IndexReader reader, final NodeSet nodes,
+            final QName qname) throws IOException {
+        final DocumentSet docs = nodes.getDocumentSet();
+        final String field = LuceneUtil.encodeQName(qname, index.getBrokerPool().getSymbols());
+        if (!isSmallRelativeTo(reader, field, nodes.getItemCountLong())) {
+            return null;
+        }
+        final Set<NodeProxy> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the terms of each segment are ordered, but the same term may occur in more than one segment
+        final Map<BytesRef, List<NodeProxy>> groups = new TreeMap<>();
+
+        DocsEnum docsEnum = null;
+        for (final AtomicReaderContext context : reader.leaves()) {
+            final Terms terms = context.reader().terms(field);
+            if (terms == null) {
+                continue;
+            }
+            final Bits acceptDocs = getDocs(context.reader(), docs);
+            if (acceptDocs == null) {
+                continue;
+            }
+            final NumericDocValues docIdValues = context.reader().getNumericDocValues(FIELD_DOC_ID);
+            final BinaryDocValues nodeIdValues = context.reader().getBinaryDocValues(FIELD_NODE_ID);
+            final TermsEnum termsEnum = terms.iterator(null);
+
+            BytesRef term;
+            while ((term = termsEnum.next()) != null) {
+                List<NodeProxy> group = null;
+                docsEnum = termsEnum.docs(acceptDocs, docsEnum, DocsEnum.FLAG_NONE);
+                while (docsEnum.nextDoc() != DocsEnum.NO_MORE_DOCS) {
+                    final DocumentImpl storedDocument = docs.getDoc((int) docIdValues.get(docsEnum.docID()));
+                    if (storedDocument == null) {
+                        continue;
+                    }
+                    final BytesRef nodeIdRef = nodeIdValues.get(docsEnum.docID());
+                    final int units = ByteConversion.byteToShort(nodeIdRef.bytes, nodeIdRef.offset);
+                    final NodeId nodeId = index.getBrokerPool().getNodeFactory().createFromData(units, nodeIdRef.bytes, nodeIdRef.offset + 2);
+                    final NodeProxy node = nodes.get(storedDocument, nodeId);
+                    if (node == null) {
+                        continue;
+                    }
+                    if (!matched.add(node)) {
+                        // the node has more than one value in the index
+                        return null;
+                    }
+                    if (group == null) {
+                        if (hasSupplementaryCharacters(term)) {
+                            return null;
+                        }
+                        group = groups.computeIfAbsent(BytesRef.deepCopyOf(term), key -> new ArrayList<>());
+                    }
+                    group.add(node);
+                }
+            }
+        }
+
+        if (matched.size() != nodes.getItemCountLong()) {
+            // not all of the nodes are in the index
+            return null;
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Determine if a UTF-8 encoded term contains characters outside of the Basic Multilingual Plane,
+     * i.e. the lead bytes of four byte sequences.
+     *
+     * UTF-8 byte order is the same as codepoint order, but {@link String#compareTo(String)} compares
+     * UTF-16 code units, in which such a character is a surrogate pair that sorts before the
+     * characters from U+E000 to U+FFFF, instead of after them.
+     */
+    private static boolean hasSupplementaryCharacters(final BytesRef term) {
+        for (int i = term.offset; i < term.offset + term.length; i++) {
+            if ((term.bytes[i] & 0xFF) >= 0xF0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determine the kind of the terms which are indexed for nodes with the given name
+     * in the collections of the documents.
+     *
+     * @return the kind of the terms, or null if not all of the collections index the nodes
+     *     with simple configurations that produce the same kind of terms
+     */
+    private @Nullable TermKind getTermKind(final DocumentSet docs, final QName qname) {
+        TermKind kind = null;
+        for (final Iterator<Collection> i = docs.getCollectionIterator(); i.hasNext(); ) {
+            final Collection collection = i.next();
+            final IndexSpec idxConf = collection.getIndexConfiguration(broker);
+            if (idxConf == null) {
+                return null;
+            }
+            final RangeIndexConfig config = (RangeIndexConfig) idxConf.getCustomIndexSpec(RangeIndex.ID);
+            if (config == null) {
+                return null;
+            }
+
+            boolean configured = false;
+            for (RangeIndexConfigElement rice = config.getConfig(qname); rice != null; rice = rice.getNext()) {
+                if (rice.getNodePath().getLastComponent().getNameType() != qname.getNameType()) {
+                    continue;
+                }
+                final TermKind riceKind = getTermKind(rice, qname);
+                if (riceKind == null || (kind != null && kind != riceKind)) {
+                    return null;
+                }
+                kind = riceKind;
+                configured = true;
+            }
+            if (!configured) {
+                return null;
+            }
+        }
+        return kind;
+    }
+
+    private static @Nullable TermKind getTermKind(final RangeIndexConfigElement config, final QName qname) {
+        if (config.isComplex() || config.getTypeConverter(null) != null) {
+            return null;
+        }
+        if (qname.getNameType() == ElementValue.ELEMENT && !config.includesNested()) {
+            // the indexed value may not be the string value of the element
+            return null;
+        }
+        return switch (config.getType()) {
+            case Type.INTEGER, Type.LONG, Type.UNSIGNED_LONG -> TermKind.LONG;
+            case Type.INT, Type.UNSIGNED_INT, Type.SHORT, Type.UNSIGNED_SHORT -> TermKind.INT;
+            case Type.DECIMAL, Type.DOUBLE -> TermKind.DOUBLE;
+            case Type.STRING -> config.indexesVerbatim() ? TermKind.STRING : null;
+            default -> null;
+        };
+    }
+
     private static boolean matchQName(QName qname, QName candidate) {
         boolean match = true;
         if (qname.getLocalPart() != null)
@@ -935,7 +1353,8 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
     public Occurrences[] scanIndex(XQueryContext context, DocumentSet docs, NodeSet nodes, Map hints) {
         try {
             List<QName> qnames = hints == null ? null : (List<QName>)hints.get(QNAMES_KEY);
-            qnames = getDefinedIndexes(qnames);
+            final boolean readYourWrites = RangeIndexModule.isReadYourWrites(context);
+            qnames = getDefinedIndexes(qnames, readYourWrites);
             //Expects a StringValue
             String start = null, end = null;
             long max = Long.MAX_VALUE;
@@ -947,16 +1366,16 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
                 IntegerValue vmax = (IntegerValue) hints.get(VALUE_COUNT);
                 max = vmax == null ? Long.MAX_VALUE : vmax.getValue();
             }
-            return scanIndexByQName(qnames, docs, nodes, start, end, max);
+            return scanIndexByQName(qnames, docs, nodes, start, end, max, readYourWrites);
         } catch (IOException e) {
             LOG.warn("Failed to scan index: {}", e.getMessage(), e);
             return new Occurrences[0];
         }
     }
 
-    public Occurrences[] scanIndexByField(String field, DocumentSet docs, String start, long max) {
+    public Occurrences[] scanIndexByField(String field, DocumentSet docs, String start, long max, boolean readYourWrites) {
         try {
-            return index.withReader(reader -> {
+            return index.withReader(readYourWrites, reader -> {
                 TreeMap<String, Occurrences> map = new TreeMap<>();
                 scan(docs, null, start, null, max, map, reader, field);
 
@@ -969,8 +1388,8 @@ public class RangeIndexWorker implements OrderedValuesIndex, QNamedKeysIndex {
         }
     }
 
-    private Occurrences[] scanIndexByQName(List<QName> qnames, DocumentSet docs, NodeSet nodes, String start, String end, long max) throws IOException {
-        return index.withReader(reader -> {
+    private Occurrences[] scanIndexByQName(List<QName> qnames, DocumentSet docs, NodeSet nodes, String start, String end, long max, boolean readYourWrites) throws IOException {
+        return index.withReader(readYourWrites, reader -> {
             TreeMap<String, Occurrences> map = new TreeMap<>();
             for (QName qname : qnames) {
                 String field = LuceneUtil.encodeQName(qname, index.getBrokerPool().getSymbols());
@@ -83,7 +83,7 @@ public class IndexKeys extends BasicFunction {
 
             final Sequence result = new ValueSequence();
             final RangeIndexWorker worker = (RangeIndexWorker) context.getBroker().getIndexController().getWorkerByIndexName("range-index");
-            Occurrences[] occur = worker.scanIndexByField(field, contextSequence == null ? context.getStaticallyKnownDocuments() : contextSequence.getDocumentSet(), start, max);
+            Occurrences[] occur = worker.scanIndexByField(field, contextSequence == null ? context.getStaticallyKnownDocuments() : contextSequence.getDocumentSet(), start, max, RangeIndexModule.isReadYourWrites(context));
             final int len = (max != -1 && occur.length > max ? max : occur.length);
             final Sequence params[] = new Sequence[2];
             ValueSequence data = new ValueSequence();
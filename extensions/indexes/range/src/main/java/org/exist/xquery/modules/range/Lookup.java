@@ -308,7 +308,7 @@ public class Lookup extends Function implements Optimizable {
         }
 
         try {
-            preselectResult = index.query(getExpressionId(), docs, contextSequence.toNodeSet(), qnames, keys, operator, NodeSet.DESCENDANT);
+            preselectResult = index.query(getExpressionId(), docs, contextSequence.toNodeSet(), qnames, keys, operator, NodeSet.DESCENDANT, RangeIndexModule.isReadYourWrites(context));
         } catch (XPathException | IOException e) {
             throw new XPathException(this, "Error while querying full text index: " + e.getMessage(), e);
         }
@@ -387,7 +387,7 @@ public class Lookup extends Function implements Optimizable {
                 try {
                     NodeSet inNodes = input.toNodeSet();
                     DocumentSet docs = inNodes.getDocumentSet();
-                    result = index.query(getExpressionId(), docs, inNodes, qnames, keys, operator, NodeSet.ANCESTOR);
+                    result = index.query(getExpressionId(), docs, inNodes, qnames, keys, operator, NodeSet.ANCESTOR, RangeIndexModule.isReadYourWrites(context));
                 } catch (IOException e) {
                     throw new XPathException(this, e.getMessage());
                 }
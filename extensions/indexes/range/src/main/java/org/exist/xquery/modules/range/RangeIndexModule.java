@@ -26,6 +26,8 @@ import org.exist.indexing.range.RangeIndex;
 import org.exist.xquery.AbstractInternalModule;
 import org.exist.xquery.ErrorCodes;
 import org.exist.xquery.FunctionDef;
+import org.exist.xquery.Option;
+import org.exist.xquery.XQueryContext;
 
 import java.util.HashMap;
 import java.util.List;
@@ -64,6 +66,13 @@ public class RangeIndexModule extends AbstractInternalModule {
         new FunctionDef(IndexKeys.signatures[1], IndexKeys.class)
     };
 
+    /**
+     * Declaring this option with the value "yes" makes all range index reads of the query
+     * see all changes made to the index so far, even if the index is configured with a
+     * max staleness and refreshes its searchers in the background.
+     */
+    public final static QName READ_YOUR_WRITES_OPTION = new QName("read-your-writes", NAMESPACE_URI, PREFIX);
+
     public final static Map<String, RangeIndex.Operator> OPERATOR_MAP = new HashMap<>();
     static {
         OPERATOR_MAP.put("eq", RangeIndex.Operator.EQ);
@@ -113,4 +122,16 @@ public class RangeIndexModule extends AbstractInternalModule {
     public String getReleaseVersion() {
         return RELEASED_IN_VERSION;
     }
+
+    /**
+     * Whether the query has declared the {@link #READ_YOUR_WRITES_OPTION}.
+     *
+     * @param context the context of the query
+     *
+     * @return true if the range index reads of the query should see all changes made to the index so far
+     */
+    public static boolean isReadYourWrites(final XQueryContext context) {
+        final Option option = context.getOption(READ_YOUR_WRITES_OPTION);
+        return option != null && "yes".equalsIgnoreCase(option.getContents().trim());
+    }
 }